@@ -0,0 +1,120 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.deegree.gml.GMLVersion.GML_32;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.deegree.commons.tom.gml.GMLObject;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.feature.Feature;
+import org.deegree.feature.persistence.sql.blob.BlobCodec;
+import org.deegree.feature.persistence.sql.blob.BlobCodec.Compression;
+import org.deegree.feature.types.AppSchema;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes and decodes a feature with the {@link BlobCodec} of the SQL feature store (BLOB
+ * mode).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlobCodecBenchmark {
+
+	@Param({ "NONE", "GZIP", "FAST_INFOSET" })
+	public Compression compression;
+
+	@Param({ "16", "1024" })
+	public int vertices;
+
+	private final Map<String, String> nsContext = Collections.singletonMap("app", Fixtures.APP_NS);
+
+	private BlobCodec codec;
+
+	private ICRS crs;
+
+	private AppSchema schema;
+
+	private Feature feature;
+
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws Exception {
+		crs = CRSManager.lookup("EPSG:25832");
+		Envelope extent = new GeometryFactory().createEnvelope(500000, 5700000, 510000, 5710000, crs);
+		GenericFeatureType ft = Fixtures.featureType();
+		schema = Fixtures.appSchema(ft);
+		feature = Fixtures.features(Fixtures.random(), ft, extent, 1, vertices).get(0);
+		codec = new BlobCodec(GML_32, compression);
+		encoded = encode();
+	}
+
+	@Benchmark
+	public byte[] encode() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		codec.encode(feature, nsContext, bos, crs);
+		return bos.toByteArray();
+	}
+
+	@Benchmark
+	public GMLObject decode() throws Exception {
+		return codec.decode(new ByteArrayInputStream(encoded), nsContext, schema, crs, null);
+	}
+
+}
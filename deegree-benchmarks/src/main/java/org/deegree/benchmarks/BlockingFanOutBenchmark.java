@@ -0,0 +1,137 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.GenericFeatureCollection;
+import org.deegree.feature.stream.FeatureInputStream;
+import org.deegree.feature.stream.MemoryFeatureInputStream;
+import org.deegree.feature.stream.ThreadedFeatureInputStream;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load test for the background fetching of features by the
+ * {@link ThreadedFeatureInputStream}: 32 concurrent requests each read 8 streams whose
+ * query blocks for 5 ms (stand-in for the database) before returning 100 features.
+ * <p>
+ * The producers run on platform threads or, with <code>deegree.threads.virtual</code>
+ * (requires Java 21, on older JVMs both benchmarks use platform threads), on virtual
+ * threads. In both cases at most 10 producers run concurrently (as each of them holds a
+ * database connection), so the benchmarks compare the overhead of the kind of thread at
+ * the same pool size, not the throughput of a larger pool.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@State(Scope.Benchmark)
+public class BlockingFanOutBenchmark {
+
+	private static final int STREAMS = 8;
+
+	private static final int FEATURES = 100;
+
+	private static final long QUERY_MILLIS = 5;
+
+	private FeatureCollection fc;
+
+	@Setup
+	public void setUp() throws Exception {
+		GeometryFactory geomFac = new GeometryFactory();
+		Envelope extent = geomFac.createEnvelope(300000, 5200000, 800000, 6100000, CRSManager.lookup("EPSG:25832"));
+		GenericFeatureType ft = Fixtures.featureType();
+		fc = new GenericFeatureCollection(null, Fixtures.features(Fixtures.random(), ft, extent, FEATURES, 8));
+	}
+
+	@Benchmark
+	@Fork(1)
+	public int platformThreads() throws Exception {
+		return fanOut();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = "-Ddeegree.threads.virtual=true")
+	public int virtualThreads() throws Exception {
+		return fanOut();
+	}
+
+	private int fanOut() throws Exception {
+		Callable<FeatureInputStream> query = () -> {
+			Thread.sleep(QUERY_MILLIS);
+			return new MemoryFeatureInputStream(fc);
+		};
+		List<FeatureInputStream> streams = new ArrayList<FeatureInputStream>(STREAMS);
+		for (int i = 0; i < STREAMS; i++) {
+			streams.add(new ThreadedFeatureInputStream(query, FEATURES));
+		}
+		int count = 0;
+		for (FeatureInputStream stream : streams) {
+			try {
+				for (@SuppressWarnings("unused")
+				Feature feature : stream) {
+					count++;
+				}
+			}
+			finally {
+				stream.close();
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Looks up crs by their identifiers, like it is done for every SRS request parameter and
+ * GML <code>srsName</code> attribute, from a single thread and from several threads
+ * concurrently.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CRSLookupBenchmark {
+
+	private static final String[] CODES = { "EPSG:4326", "EPSG:25832", "EPSG:3857", "EPSG:31467",
+			"urn:ogc:def:crs:EPSG::4326", "http://www.opengis.net/def/crs/EPSG/0/25833", "crs:84" };
+
+	/**
+	 * Position of a thread in the list of identifiers.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+
+		private String next() {
+			String code = CODES[next];
+			next = (next + 1) % CODES.length;
+			return code;
+		}
+
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		// fail early if an identifier is unknown
+		for (String code : CODES) {
+			CRSManager.lookup(code);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public ICRS lookup(Cursor cursor) throws Exception {
+		return CRSManager.lookup(cursor.next());
+	}
+
+	@Benchmark
+	@Threads(8)
+	public ICRS lookupContended(Cursor cursor) throws Exception {
+		return CRSManager.lookup(cursor.next());
+	}
+
+}
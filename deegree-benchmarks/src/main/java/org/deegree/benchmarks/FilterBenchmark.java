@@ -0,0 +1,123 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.GenericFeatureCollection;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.Filter;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.PropertyIsGreaterThan;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.And;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluates a filter against all members of an in-memory feature collection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+	@Param({ "bbox", "comparison", "and" })
+	public String filterType;
+
+	@Param({ "10000" })
+	public int features;
+
+	private final TypedObjectNodeXPathEvaluator evaluator = new TypedObjectNodeXPathEvaluator();
+
+	private FeatureCollection fc;
+
+	private Filter filter;
+
+	@Setup
+	public void setUp() throws Exception {
+		GeometryFactory geomFac = new GeometryFactory();
+		Envelope extent = geomFac.createEnvelope(300000, 5200000, 800000, 6100000, CRSManager.lookup("EPSG:25832"));
+		GenericFeatureType ft = Fixtures.featureType();
+		fc = new GenericFeatureCollection(null, Fixtures.features(Fixtures.random(), ft, extent, features, 32));
+
+		// covers about a tenth of the extent
+		Envelope bboxEnv = geomFac.createEnvelope(450000, 5500000, 610000, 5780000, extent.getCoordinateSystem());
+		Operator bbox = new BBOX(new ValueReference(Fixtures.GEOMETRY_PROP), bboxEnv);
+		// matches about half of the features
+		Operator comparison = new PropertyIsGreaterThan(new ValueReference(Fixtures.AREA_PROP),
+				new Literal<PrimitiveValue>("5000"), true, null);
+		switch (filterType) {
+			case "bbox":
+				filter = new OperatorFilter(bbox);
+				break;
+			case "comparison":
+				filter = new OperatorFilter(comparison);
+				break;
+			case "and":
+				filter = new OperatorFilter(new And(bbox, comparison));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown filter type: " + filterType);
+		}
+	}
+
+	@Benchmark
+	public FeatureCollection evaluate() throws Exception {
+		return fc.getMembers(filter, evaluator);
+	}
+
+}
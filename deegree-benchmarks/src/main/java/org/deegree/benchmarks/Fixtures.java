@@ -0,0 +1,216 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.Collections.emptyList;
+import static org.deegree.commons.tom.primitive.BaseType.DOUBLE;
+import static org.deegree.commons.tom.primitive.BaseType.STRING;
+import static org.deegree.feature.types.property.GeometryPropertyType.CoordinateDimension.DIM_2;
+import static org.deegree.feature.types.property.GeometryPropertyType.GeometryType.POLYGON;
+import static org.deegree.feature.types.property.ValueRepresentation.BOTH;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.gml.property.PropertyType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.feature.GenericFeature;
+import org.deegree.feature.property.GenericProperty;
+import org.deegree.feature.types.AppSchema;
+import org.deegree.feature.types.FeatureType;
+import org.deegree.feature.types.GenericAppSchema;
+import org.deegree.feature.types.GenericFeatureType;
+import org.deegree.feature.types.property.GeometryPropertyType;
+import org.deegree.feature.types.property.SimplePropertyType;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.points.Points;
+import org.deegree.geometry.primitive.LineString;
+import org.deegree.geometry.primitive.LinearRing;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.geometry.standard.points.PackedPoints;
+
+/**
+ * Generates the synthetic geometries and features used by the benchmarks.
+ * <p>
+ * All fixtures are derived from a {@link Random} with a fixed seed, so every run (and
+ * every commit) benchmarks exactly the same data.
+ * </p>
+ */
+final class Fixtures {
+
+	static final long SEED = 0x6465656772656533L;
+
+	static final String APP_NS = "http://www.deegree.org/benchmarks";
+
+	static final QName FT_NAME = new QName(APP_NS, "Parcel", "app");
+
+	static final QName NAME_PROP = new QName(APP_NS, "name", "app");
+
+	static final QName AREA_PROP = new QName(APP_NS, "area", "app");
+
+	static final QName GEOMETRY_PROP = new QName(APP_NS, "geometry", "app");
+
+	private static final GeometryFactory FACTORY = new GeometryFactory();
+
+	private Fixtures() {
+		// avoid instantiation
+	}
+
+	/**
+	 * @return a new {@link Random} initialized with the fixed seed
+	 */
+	static Random random() {
+		return new Random(SEED);
+	}
+
+	/**
+	 * Creates a simple (star-shaped) polygon without holes.
+	 * @param random source of the vertex offsets
+	 * @param crs crs of the polygon, may be <code>null</code>
+	 * @param cx x of the center
+	 * @param cy y of the center
+	 * @param radius maximum distance of a vertex from the center
+	 * @param vertices number of distinct vertices, at least 3
+	 * @return polygon, never <code>null</code>
+	 */
+	static Polygon polygon(Random random, ICRS crs, double cx, double cy, double radius, int vertices) {
+		double[] coordinates = new double[(vertices + 1) * 2];
+		for (int i = 0; i < vertices; i++) {
+			double angle = 2 * Math.PI * i / vertices;
+			double r = radius * (0.5 + 0.5 * random.nextDouble());
+			coordinates[2 * i] = cx + r * Math.cos(angle);
+			coordinates[2 * i + 1] = cy + r * Math.sin(angle);
+		}
+		coordinates[2 * vertices] = coordinates[0];
+		coordinates[2 * vertices + 1] = coordinates[1];
+		LinearRing ring = FACTORY.createLinearRing(null, crs, new PackedPoints(crs, coordinates, 2));
+		return FACTORY.createPolygon(null, crs, ring, emptyList());
+	}
+
+	/**
+	 * Creates a line string by a random walk.
+	 * @param random source of the steps
+	 * @param crs crs of the line string, may be <code>null</code>
+	 * @param x x of the first vertex
+	 * @param y y of the first vertex
+	 * @param step maximum length of a segment in each direction
+	 * @param vertices number of vertices, at least 2
+	 * @return line string, never <code>null</code>
+	 */
+	static LineString lineString(Random random, ICRS crs, double x, double y, double step, int vertices) {
+		double[] coordinates = new double[vertices * 2];
+		for (int i = 0; i < vertices; i++) {
+			coordinates[2 * i] = x;
+			coordinates[2 * i + 1] = y;
+			x += step * (2 * random.nextDouble() - 1);
+			y += step * (2 * random.nextDouble() - 1);
+		}
+		Points points = new PackedPoints(crs, coordinates, 2);
+		return FACTORY.createLineString(null, crs, points);
+	}
+
+	/**
+	 * Creates points that are uniformly distributed in the given envelope.
+	 * @param random source of the coordinates
+	 * @param extent envelope, its crs is used for the points
+	 * @param count number of points
+	 * @return points, never <code>null</code>
+	 */
+	static List<Point> points(Random random, Envelope extent, int count) {
+		List<Point> points = new ArrayList<Point>(count);
+		for (int i = 0; i < count; i++) {
+			double x = extent.getMin().get0() + random.nextDouble() * extent.getSpan0();
+			double y = extent.getMin().get1() + random.nextDouble() * extent.getSpan1();
+			points.add(FACTORY.createPoint(null, x, y, extent.getCoordinateSystem()));
+		}
+		return points;
+	}
+
+	/**
+	 * @return feature type with a string, a double and a polygon property, never
+	 * <code>null</code>
+	 */
+	static GenericFeatureType featureType() {
+		List<PropertyType> props = new ArrayList<PropertyType>();
+		props.add(new SimplePropertyType(NAME_PROP, 1, 1, STRING, null, null));
+		props.add(new SimplePropertyType(AREA_PROP, 1, 1, DOUBLE, null, null));
+		props.add(new GeometryPropertyType(GEOMETRY_PROP, 1, 1, null, null, POLYGON, DIM_2, BOTH));
+		return new GenericFeatureType(FT_NAME, props, false);
+	}
+
+	/**
+	 * @param ft feature type, must not be <code>null</code>
+	 * @return application schema that only contains the given feature type, never
+	 * <code>null</code>
+	 */
+	static AppSchema appSchema(GenericFeatureType ft) {
+		return new GenericAppSchema(new FeatureType[] { ft }, null, null, null, null, null);
+	}
+
+	/**
+	 * Creates features with random polygons in the given extent.
+	 * @param random source of names, areas and geometries
+	 * @param ft feature type, see {@link #featureType()}
+	 * @param extent envelope of the polygon centers, its crs is used for the polygons
+	 * @param count number of features
+	 * @param vertices number of vertices per polygon
+	 * @return features, never <code>null</code>
+	 */
+	static List<Feature> features(Random random, GenericFeatureType ft, Envelope extent, int count, int vertices) {
+		double radius = Math.min(extent.getSpan0(), extent.getSpan1()) / Math.sqrt(count) / 2;
+		List<Feature> features = new ArrayList<Feature>(count);
+		for (Point center : points(random, extent, count)) {
+			int i = features.size();
+			Polygon polygon = polygon(random, extent.getCoordinateSystem(), center.get0(), center.get1(), radius,
+					vertices);
+			List<Property> props = new ArrayList<Property>();
+			props.add(new GenericProperty(ft.getPropertyDeclaration(NAME_PROP), new PrimitiveValue("parcel-" + i)));
+			props.add(new GenericProperty(ft.getPropertyDeclaration(AREA_PROP),
+					new PrimitiveValue(random.nextDouble() * 10000)));
+			props.add(new GenericProperty(ft.getPropertyDeclaration(GEOMETRY_PROP), polygon));
+			features.add(new GenericFeature(ft, "PARCEL_" + i, props, null));
+		}
+		return features;
+	}
+
+}
@@ -0,0 +1,118 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.gml.GMLInputFactory;
+import org.deegree.gml.GMLOutputFactory;
+import org.deegree.gml.GMLStreamReader;
+import org.deegree.gml.GMLStreamWriter;
+import org.deegree.gml.GMLVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes and parses a polygon with the GML 3 geometry writer / reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GMLGeometryBenchmark {
+
+	@Param({ "GML_31", "GML_32" })
+	public GMLVersion version;
+
+	@Param({ "16", "1024" })
+	public int vertices;
+
+	private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+	private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+	private Polygon polygon;
+
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws Exception {
+		outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+		polygon = Fixtures.polygon(Fixtures.random(), CRSManager.lookup("EPSG:25832"), 500000, 5700000, 1000,
+				vertices);
+		encoded = write();
+	}
+
+	@Benchmark
+	public byte[] write() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		XMLStreamWriter xmlWriter = outputFactory.createXMLStreamWriter(bos, "UTF-8");
+		GMLStreamWriter gmlWriter = GMLOutputFactory.createGMLStreamWriter(version, xmlWriter);
+		gmlWriter.write(polygon);
+		xmlWriter.flush();
+		gmlWriter.close();
+		return bos.toByteArray();
+	}
+
+	@Benchmark
+	public Geometry read() throws Exception {
+		XMLStreamReader xmlReader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(encoded));
+		GMLStreamReader gmlReader = GMLInputFactory.createGMLStreamReader(version, xmlReader);
+		return gmlReader.readGeometry();
+	}
+
+}
@@ -0,0 +1,115 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geojson.GeoJsonCoordinateFormatter;
+import org.deegree.geojson.GeoJsonGeometryWriter;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes polygons as GeoJSON with the {@link GeoJsonGeometryWriter}, with full precision
+ * (<code>-1</code>) and with a fixed number of fraction digits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeoJsonBenchmark {
+
+	@Param({ "-1", "6" })
+	public int precision;
+
+	@Param({ "100" })
+	public int geometries;
+
+	private ICRS crs;
+
+	private List<Polygon> polygons;
+
+	@Setup
+	public void setUp() throws Exception {
+		// same crs as the writer, so that no transformation is involved
+		crs = CRSManager.lookup("crs:84");
+		Envelope extent = new GeometryFactory().createEnvelope(6, 47, 15, 55, crs);
+		Random random = Fixtures.random();
+		polygons = new ArrayList<Polygon>(geometries);
+		for (Point point : Fixtures.points(random, extent, geometries)) {
+			polygons.add(Fixtures.polygon(random, crs, point.get0(), point.get1(), 0.05, 256));
+		}
+	}
+
+	@Benchmark
+	public String write() throws Exception {
+		StringWriter writer = new StringWriter();
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		GeoJsonGeometryWriter geometryWriter = new GeoJsonGeometryWriter(jsonWriter, crs,
+				new GeoJsonCoordinateFormatter(precision));
+		jsonWriter.beginArray();
+		for (Polygon polygon : polygons) {
+			geometryWriter.writeGeometry(polygon);
+		}
+		jsonWriter.endArray();
+		jsonWriter.close();
+		return writer.toString();
+	}
+
+}
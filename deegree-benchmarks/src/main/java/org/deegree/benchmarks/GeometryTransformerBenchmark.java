@@ -0,0 +1,119 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms a point and a polygon between commonly used crs.
+ * <p>
+ * The crs are looked up with x/y axis order, so that the same coordinates can be used
+ * regardless of the axis order defined by EPSG.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryTransformerBenchmark {
+
+	// extents (x/y order) that are valid in the respective crs, all around Germany
+	private static final Map<String, double[]> EXTENTS = new HashMap<String, double[]>();
+
+	static {
+		EXTENTS.put("EPSG:4326", new double[] { 6, 47, 15, 55 });
+		EXTENTS.put("EPSG:25832", new double[] { 300000, 5200000, 800000, 6100000 });
+		EXTENTS.put("EPSG:3857", new double[] { 670000, 5950000, 1670000, 7370000 });
+	}
+
+	@Param({ "EPSG:4326>EPSG:25832", "EPSG:25832>EPSG:4326", "EPSG:4326>EPSG:3857", "EPSG:25832>EPSG:31467" })
+	public String transformation;
+
+	private GeometryTransformer transformer;
+
+	private Point point;
+
+	private Polygon polygon;
+
+	@Setup
+	public void setUp() throws Exception {
+		String[] codes = transformation.split(">");
+		ICRS source = CRSManager.lookup(codes[0], true);
+		ICRS target = CRSManager.lookup(codes[1], true);
+		double[] extent = EXTENTS.get(codes[0]);
+		double cx = (extent[0] + extent[2]) / 2;
+		double cy = (extent[1] + extent[3]) / 2;
+		Random random = Fixtures.random();
+		point = new GeometryFactory().createPoint(null, cx, cy, source);
+		polygon = Fixtures.polygon(random, source, cx, cy, (extent[2] - extent[0]) / 10, 1024);
+		transformer = new GeometryTransformer(target);
+	}
+
+	@Benchmark
+	public Point transformPoint() throws Exception {
+		return transformer.transform(point);
+	}
+
+	@Benchmark
+	public Polygon transformPolygon() throws Exception {
+		return transformer.transform(polygon);
+	}
+
+}
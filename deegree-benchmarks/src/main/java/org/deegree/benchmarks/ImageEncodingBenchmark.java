@@ -0,0 +1,120 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.rendering.r2d.Java2DRenderer;
+import org.deegree.rendering.r2d.context.ImageRenderContext;
+import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+import org.deegree.style.styling.PolygonStyling;
+import org.deegree.style.styling.components.Fill;
+import org.deegree.style.styling.components.Stroke;
+import org.deegree.style.utils.ImageUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes a rendered map image through the {@link ImageRenderContext}, like it is done
+ * for WMS GetMap responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageEncodingBenchmark {
+
+	private static final int SIZE = 1024;
+
+	@Param({ "image/png", "image/png; mode=8bit" })
+	public String format;
+
+	private RenderingInfo info;
+
+	private BufferedImage image;
+
+	@Setup
+	public void setUp() throws Exception {
+		ICRS crs = CRSManager.lookup("EPSG:25832");
+		Envelope bbox = new GeometryFactory().createEnvelope(500000, 5700000, 510000, 5710000, crs);
+		info = new RenderingInfo(format, SIZE, SIZE, true, Color.WHITE, bbox, 0.28, null);
+		image = ImageUtils.prepareImage(format, SIZE, SIZE, true, Color.WHITE);
+
+		PolygonStyling styling = new PolygonStyling();
+		styling.fill = new Fill();
+		styling.stroke = new Stroke();
+		styling.stroke.color = Color.BLACK;
+		Graphics2D g = image.createGraphics();
+		Java2DRenderer renderer = new Java2DRenderer(g, SIZE, SIZE, bbox);
+		Random random = Fixtures.random();
+		for (Point point : Fixtures.points(random, bbox, 1000)) {
+			styling.fill.color = new Color(random.nextInt(0x1000000));
+			renderer.render(styling, Fixtures.polygon(random, crs, point.get0(), point.get1(), 200, 32));
+		}
+		g.dispose();
+	}
+
+	@Benchmark
+	public int encode() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		RenderContext ctx = ImageRenderContext.createInstance(info, image, bos);
+		ctx.close();
+		return bos.size();
+	}
+
+}
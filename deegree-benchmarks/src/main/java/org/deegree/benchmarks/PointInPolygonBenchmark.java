@@ -0,0 +1,114 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.geometry.standard.JTSPreparedGeometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tests points against a polygon, once with the plain geometry and once with a
+ * {@link JTSPreparedGeometry}, as used by the spatial filter operators.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointInPolygonBenchmark {
+
+	@Param({ "64", "4096" })
+	public int vertices;
+
+	@Param({ "1000" })
+	public int points;
+
+	private Polygon polygon;
+
+	private JTSPreparedGeometry prepared;
+
+	private List<Point> candidates;
+
+	@Setup
+	public void setUp() throws Exception {
+		ICRS crs = CRSManager.lookup("EPSG:25832");
+		Random random = Fixtures.random();
+		polygon = Fixtures.polygon(random, crs, 500000, 5700000, 10000, vertices);
+		prepared = new JTSPreparedGeometry(polygon);
+		candidates = Fixtures.points(random, polygon.getEnvelope(), points);
+	}
+
+	@Benchmark
+	public int intersects() {
+		int hits = 0;
+		for (Point point : candidates) {
+			if (polygon.intersects(point)) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	@Benchmark
+	public int intersectsPrepared() {
+		int hits = 0;
+		for (Point point : candidates) {
+			if (prepared.intersects(point)) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+}
@@ -0,0 +1,117 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.commons.index.RTree;
+import org.deegree.commons.utils.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queries a bulk loaded {@link RTree} with small windows (about 0.01% of the extent).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RTreeBenchmark {
+
+	private static final float EXTENT = 100000;
+
+	private static final int WINDOWS = 1024;
+
+	@Param({ "10000", "1000000" })
+	public int entries;
+
+	private RTree<Integer> tree;
+
+	private float[][] windows;
+
+	/**
+	 * Position of a thread in the list of query windows.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int next;
+
+	}
+
+	@Setup
+	public void setUp() {
+		Random random = Fixtures.random();
+		List<Pair<float[], Integer>> objects = new ArrayList<Pair<float[], Integer>>(entries);
+		for (int i = 0; i < entries; i++) {
+			objects.add(new Pair<float[], Integer>(box(random, EXTENT / 1000), i));
+		}
+		tree = new RTree<Integer>(new float[] { 0, 0, EXTENT, EXTENT }, 16);
+		tree.insertBulk(objects);
+		windows = new float[WINDOWS][];
+		for (int i = 0; i < WINDOWS; i++) {
+			windows[i] = box(random, EXTENT / 100);
+		}
+	}
+
+	private static float[] box(Random random, float size) {
+		float x = random.nextFloat() * (EXTENT - size);
+		float y = random.nextFloat() * (EXTENT - size);
+		return new float[] { x, y, x + size, y + size };
+	}
+
+	@Benchmark
+	public List<Integer> query(Cursor cursor) {
+		float[] window = windows[cursor.next];
+		cursor.next = (cursor.next + 1) % WINDOWS;
+		return tree.query(window);
+	}
+
+}
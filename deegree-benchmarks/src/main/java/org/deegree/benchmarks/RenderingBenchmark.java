@@ -0,0 +1,152 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.benchmarks;
+
+import static java.awt.RenderingHints.KEY_ANTIALIASING;
+import static java.awt.RenderingHints.VALUE_ANTIALIAS_OFF;
+import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.LineString;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Polygon;
+import org.deegree.rendering.r2d.Java2DRenderer;
+import org.deegree.style.styling.LineStyling;
+import org.deegree.style.styling.PolygonStyling;
+import org.deegree.style.styling.components.Fill;
+import org.deegree.style.styling.components.Stroke;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders polygons and lines into a 1024x1024 image with the {@link Java2DRenderer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderingBenchmark {
+
+	static final int SIZE = 1024;
+
+	@Param({ "false", "true" })
+	public boolean antialias;
+
+	@Param({ "1000" })
+	public int geometries;
+
+	private final BufferedImage image = new BufferedImage(SIZE, SIZE, TYPE_INT_ARGB);
+
+	private final PolygonStyling polygonStyling = new PolygonStyling();
+
+	private final LineStyling lineStyling = new LineStyling();
+
+	private Envelope bbox;
+
+	private List<Polygon> polygons;
+
+	private List<LineString> lines;
+
+	@Setup
+	public void setUp() throws Exception {
+		ICRS crs = CRSManager.lookup("EPSG:25832");
+		bbox = new GeometryFactory().createEnvelope(500000, 5700000, 510000, 5710000, crs);
+		Random random = Fixtures.random();
+		polygons = new ArrayList<Polygon>(geometries);
+		lines = new ArrayList<LineString>(geometries);
+		for (Point point : Fixtures.points(random, bbox, geometries)) {
+			polygons.add(Fixtures.polygon(random, crs, point.get0(), point.get1(), 200, 32));
+			lines.add(Fixtures.lineString(random, crs, point.get0(), point.get1(), 50, 64));
+		}
+		polygonStyling.fill = new Fill();
+		polygonStyling.fill.color = new Color(0x80, 0xb0, 0xe0);
+		polygonStyling.stroke = new Stroke();
+		polygonStyling.stroke.color = Color.BLACK;
+		lineStyling.stroke.color = Color.RED;
+		lineStyling.stroke.width = 2;
+	}
+
+	@Benchmark
+	public BufferedImage renderPolygons() {
+		Graphics2D g = createGraphics();
+		Java2DRenderer renderer = new Java2DRenderer(g, SIZE, SIZE, bbox);
+		for (Polygon polygon : polygons) {
+			renderer.render(polygonStyling, polygon);
+		}
+		g.dispose();
+		return image;
+	}
+
+	@Benchmark
+	public BufferedImage renderLines() {
+		Graphics2D g = createGraphics();
+		Java2DRenderer renderer = new Java2DRenderer(g, SIZE, SIZE, bbox);
+		for (LineString line : lines) {
+			renderer.render(lineStyling, line);
+		}
+		g.dispose();
+		return image;
+	}
+
+	private Graphics2D createGraphics() {
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(KEY_ANTIALIASING, antialias ? VALUE_ANTIALIAS_ON : VALUE_ANTIALIAS_OFF);
+		return g;
+	}
+
+}
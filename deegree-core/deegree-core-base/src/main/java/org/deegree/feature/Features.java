@@ -43,8 +43,6 @@ package org.deegree.feature;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -55,12 +53,9 @@ import org.deegree.commons.tom.ReferenceResolvingException;
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.array.TypedObjectNodeArray;
 import org.deegree.commons.tom.gml.property.Property;
-import org.deegree.commons.tom.primitive.PrimitiveValue;
-import org.deegree.commons.utils.Pair;
 import org.deegree.feature.stream.FeatureInputStream;
-import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
-import org.deegree.filter.FilterEvaluationException;
-import org.deegree.filter.expression.ValueReference;
+import org.deegree.feature.stream.MemoryFeatureInputStream;
+import org.deegree.feature.stream.SortedFeatureInputStream;
 import org.deegree.filter.sort.SortProperty;
 import org.deegree.geometry.Geometry;
 import org.slf4j.Logger;
@@ -103,51 +98,23 @@ public class Features {
 	 * @param fc feature collection to be sorted, must not be <code>null</code>
 	 * @param sortCrits sort criteria
 	 * @return sorted feature collection, never <code>null</code>
+	 * @see SortedFeatureInputStream
 	 */
 	public static FeatureCollection sortFc(final FeatureCollection fc, final SortProperty[] sortCrits) {
-
-		// TODO
-		final TypedObjectNodeXPathEvaluator evaluator = new TypedObjectNodeXPathEvaluator();
-
 		FeatureCollection sortedFc = fc;
 		if (sortCrits != null && sortCrits.length > 0) {
 			List<Feature> sortedFeatures = new ArrayList<Feature>();
-			for (Feature feature : fc) {
-				sortedFeatures.add(feature);
-			}
-			Collections.sort(sortedFeatures, new Comparator<Feature>() {
-				@SuppressWarnings({ "unchecked", "synthetic-access" })
-				@Override
-				public int compare(Feature f1, Feature f2) {
-					int order = 0;
-					for (SortProperty sortCrit : sortCrits) {
-						ValueReference propName = sortCrit.getSortProperty();
-						try {
-							// TODO handle multi properties correctly
-							TypedObjectNode[] values1 = evaluator.eval(f1, propName);
-							TypedObjectNode[] values2 = evaluator.eval(f2, propName);
-							for (TypedObjectNode value1 : values1) {
-								if (value1 != null) {
-									for (TypedObjectNode value2 : values2) {
-										if (value2 != null) {
-											Pair<Object, Object> comparablePair = getPrimitives(value1, value2);
-											order = ((Comparable<Object>) comparablePair.first)
-												.compareTo(comparablePair.second);
-											if (!sortCrit.getSortOrder()) {
-												order *= -1;
-											}
-										}
-									}
-								}
-							}
-						}
-						catch (Exception e) {
-							LOG.debug("Cannot compare values: {}", e.getMessage());
-						}
-					}
-					return order;
+			// all features are in memory anyway, so there's no need to write them to disk
+			FeatureInputStream sorted = new SortedFeatureInputStream(new MemoryFeatureInputStream(fc), sortCrits, 0,
+					-1, Integer.MAX_VALUE);
+			try {
+				for (Feature feature : sorted) {
+					sortedFeatures.add(feature);
 				}
-			});
+			}
+			finally {
+				sorted.close();
+			}
 			sortedFc = new GenericFeatureCollection(fc.getId(), sortedFeatures);
 		}
 		return sortedFc;
@@ -170,30 +137,6 @@ public class Features {
 		return list;
 	}
 
-	/**
-	 * Creates a pair of {@link PrimitiveValue} instances from the given
-	 * {@link TypedObjectNode} while trying to preserve primitive type information.
-	 * @param value1
-	 * @param value2
-	 * @throws FilterEvaluationException
-	 */
-	private static Pair<Object, Object> getPrimitives(Object value1, Object value2) throws FilterEvaluationException {
-
-		if (value1 instanceof Property) {
-			value1 = ((Property) value1).getValue();
-		}
-		if (!(value1 instanceof PrimitiveValue)) {
-			value1 = value1.toString();
-		}
-		if (value2 instanceof Property) {
-			value2 = ((Property) value2).getValue();
-		}
-		if (!(value2 instanceof PrimitiveValue)) {
-			value2 = value2.toString();
-		}
-		return PrimitiveValue.makeComparable(value1, value2);
-	}
-
 	/**
 	 * Determines all {@link Feature} and {@link Geometry} objects contained in the given
 	 * {@link TypedObjectNode} and their ids. Does <code>not</code> include internal
@@ -0,0 +1,200 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.stream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.deegree.commons.tracing.Tracing;
+
+/**
+ * {@link CombinedFeatureInputStream} that performs its queries concurrently.
+ * <p>
+ * Up to <code>maxParallel</code> queries are running at the same time, each one in a
+ * {@link ThreadedFeatureInputStream} with a bounded read-ahead buffer. The features are
+ * returned in the order of the queries, i.e. the result is the same as if the queries
+ * were performed one after another. When the stream proceeds to the next query, the next
+ * pending query is started.
+ * </p>
+ * <p>
+ * The defaults are controlled by the tunable parameters
+ * <code>deegree.feature.query.parallel</code> (maximum number of concurrent queries,
+ * <code>1</code> disables parallel execution) and
+ * <code>deegree.feature.query.parallel.buffer</code> (number of features read ahead per
+ * query).
+ * </p>
+ */
+public class ParallelFeatureInputStream extends CombinedFeatureInputStream {
+
+	private static final int MAX_PARALLEL = TunableParameter.get("deegree.feature.query.parallel", 1);
+
+	private static final int BUFFER_SIZE = TunableParameter.get("deegree.feature.query.parallel.buffer", 100);
+
+	private final ReadAheadIterator readAhead;
+
+	/**
+	 * Creates a new {@link ParallelFeatureInputStream} with the configured number of
+	 * concurrent queries and read-ahead buffer size. The first queries are started
+	 * immediately.
+	 * @param queries queries to perform, must not be <code>null</code>
+	 */
+	public ParallelFeatureInputStream(List<Callable<FeatureInputStream>> queries) {
+		this(queries, MAX_PARALLEL, BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new {@link ParallelFeatureInputStream}. The first queries are started
+	 * immediately.
+	 * @param queries queries to perform, must not be <code>null</code>
+	 * @param maxParallel maximum number of queries that run at the same time, at least
+	 * <code>1</code>
+	 * @param bufferSize maximum number of features that are read ahead per query, at least
+	 * <code>1</code>
+	 */
+	public ParallelFeatureInputStream(List<Callable<FeatureInputStream>> queries, int maxParallel, int bufferSize) {
+		this(new ReadAheadIterator(queries.iterator(), Math.max(1, maxParallel), Math.max(1, bufferSize)));
+	}
+
+	private ParallelFeatureInputStream(ReadAheadIterator readAhead) {
+		super(readAhead);
+		this.readAhead = readAhead;
+	}
+
+	/**
+	 * Returns whether queries should be performed concurrently (tunable parameter
+	 * <code>deegree.feature.query.parallel</code> is greater than <code>1</code>). Queries
+	 * that are issued by a query that runs concurrently already are always performed one
+	 * after another, as waiting for nested queries could exhaust the producer threads.
+	 * @return <code>true</code>, if queries should be performed concurrently
+	 */
+	public static boolean isEnabled() {
+		return MAX_PARALLEL > 1 && !ThreadedFeatureInputStream.isProducerThread();
+	}
+
+	@Override
+	public void close() {
+		RuntimeException exception = null;
+		if (currentResultSet != null) {
+			try {
+				currentResultSet.close();
+			}
+			catch (RuntimeException e) {
+				exception = e;
+			}
+		}
+		// don't start the pending queries just to close them
+		exception = readAhead.closeStarted(exception);
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private static class ReadAheadIterator implements Iterator<FeatureInputStream> {
+
+		private final Iterator<Callable<FeatureInputStream>> queries;
+
+		private final int maxParallel;
+
+		private final int bufferSize;
+
+		private final Deque<FeatureInputStream> started = new ArrayDeque<FeatureInputStream>();
+
+		private ReadAheadIterator(Iterator<Callable<FeatureInputStream>> queries, int maxParallel, int bufferSize) {
+			this.queries = queries;
+			this.maxParallel = maxParallel;
+			this.bufferSize = bufferSize;
+			startQueries(maxParallel);
+		}
+
+		private void startQueries(int limit) {
+			while (started.size() < limit && queries.hasNext()) {
+				started.add(new ThreadedFeatureInputStream(Tracing.wrap(queries.next()), bufferSize));
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !started.isEmpty() || queries.hasNext();
+		}
+
+		@Override
+		public FeatureInputStream next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			// the previous stream has been closed already, the returned one is the only
+			// one that is consumed
+			startQueries(1);
+			FeatureInputStream next = started.poll();
+			startQueries(maxParallel - 1);
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Closes all started streams, even if closing one of them fails.
+		 * @param exception exception that occurred before, may be <code>null</code>
+		 * @return the first exception that occurred (others are added as suppressed), may
+		 * be <code>null</code>
+		 */
+		private RuntimeException closeStarted(RuntimeException exception) {
+			while (!started.isEmpty()) {
+				try {
+					started.poll().close();
+				}
+				catch (RuntimeException e) {
+					if (exception == null) {
+						exception = e;
+					}
+					else if (exception != e) {
+						exception.addSuppressed(e);
+					}
+				}
+			}
+			return exception;
+		}
+
+	}
+
+}
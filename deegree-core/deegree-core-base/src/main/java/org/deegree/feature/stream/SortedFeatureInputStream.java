@@ -0,0 +1,655 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.stream;
+
+import static javax.xml.stream.XMLOutputFactory.IS_REPAIRING_NAMESPACES;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.deegree.commons.tom.ElementNode;
+import org.deegree.commons.tom.Reference;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.utils.Pair;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.Features;
+import org.deegree.feature.types.AppSchema;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.sort.SortProperty;
+import org.deegree.gml.GMLInputFactory;
+import org.deegree.gml.GMLOutputFactory;
+import org.deegree.gml.GMLStreamReader;
+import org.deegree.gml.GMLStreamWriter;
+import org.deegree.gml.GMLVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link FeatureInputStream} that returns the features of another
+ * {@link FeatureInputStream} sorted by the given {@link SortProperty}s.
+ * <p>
+ * The sort keys are extracted only once per feature. If a maximum number of features is
+ * given, only the best features are kept (bounded heap). Otherwise, the features are
+ * sorted in chunks: if more than the configured number of features has to be kept in
+ * memory, the sorted chunk is written to a temporary file (GML encoded) and the sorted
+ * chunks are merged when iterating over the result. Features that contain references
+ * (e.g. xlinks to other features) are always kept in memory, as the references could
+ * not be resolved anymore after reading the features back.
+ * </p>
+ * <p>
+ * Missing sort values are treated as greater than all other values. Features with equal
+ * sort keys keep their original order.
+ * </p>
+ */
+public class SortedFeatureInputStream implements FeatureInputStream {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SortedFeatureInputStream.class);
+
+	/**
+	 * Default number of features that are kept in memory before sorted chunks are
+	 * written to disk.
+	 */
+	public static final int DEFAULT_MAX_FEATURES_IN_MEMORY = 10000;
+
+	private static final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+	private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+	static {
+		xmlOutputFactory.setProperty(IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+	}
+
+	private final FeatureInputStream rs;
+
+	private final SortProperty[] sortCrits;
+
+	private final int startIndex;
+
+	private final int maxFeatures;
+
+	private final int maxFeaturesInMemory;
+
+	private final TypedObjectNodeXPathEvaluator evaluator = new TypedObjectNodeXPathEvaluator();
+
+	private final Comparator<Entry> comparator = new EntryComparator();
+
+	private final List<Run> runs = new ArrayList<Run>();
+
+	private AppSchema schema;
+
+	private boolean spillable = true;
+
+	private long seq;
+
+	private Iterator<Feature> sorted;
+
+	/**
+	 * Creates a new {@link SortedFeatureInputStream} that returns all features of the
+	 * given {@link FeatureInputStream}.
+	 * @param rs stream to be sorted, must not be <code>null</code>
+	 * @param sortCrits sort criteria, must not be <code>null</code>
+	 */
+	public SortedFeatureInputStream(FeatureInputStream rs, SortProperty[] sortCrits) {
+		this(rs, sortCrits, 0, -1);
+	}
+
+	/**
+	 * Creates a new {@link SortedFeatureInputStream} that returns the given range of the
+	 * sorted features.
+	 * @param rs stream to be sorted, must not be <code>null</code>
+	 * @param sortCrits sort criteria, must not be <code>null</code>
+	 * @param startIndex index of the first sorted feature to return
+	 * @param maxFeatures maximum number of features to return, -1 for no limit
+	 */
+	public SortedFeatureInputStream(FeatureInputStream rs, SortProperty[] sortCrits, int startIndex,
+			int maxFeatures) {
+		this(rs, sortCrits, startIndex, maxFeatures, DEFAULT_MAX_FEATURES_IN_MEMORY);
+	}
+
+	/**
+	 * Creates a new {@link SortedFeatureInputStream} that returns the given range of the
+	 * sorted features.
+	 * @param rs stream to be sorted, must not be <code>null</code>
+	 * @param sortCrits sort criteria, must not be <code>null</code>
+	 * @param startIndex index of the first sorted feature to return
+	 * @param maxFeatures maximum number of features to return, -1 for no limit
+	 * @param maxFeaturesInMemory number of features that are kept in memory before
+	 * sorted chunks are written to disk, must be positive
+	 */
+	public SortedFeatureInputStream(FeatureInputStream rs, SortProperty[] sortCrits, int startIndex,
+			int maxFeatures, int maxFeaturesInMemory) {
+		if (maxFeaturesInMemory <= 0) {
+			throw new IllegalArgumentException("Number of features in memory must be positive.");
+		}
+		this.rs = rs;
+		this.sortCrits = sortCrits;
+		this.startIndex = Math.max(startIndex, 0);
+		this.maxFeatures = maxFeatures;
+		this.maxFeaturesInMemory = maxFeaturesInMemory;
+	}
+
+	@Override
+	public void close() {
+		rs.close();
+		for (Run run : runs) {
+			run.close();
+		}
+		runs.clear();
+	}
+
+	@Override
+	public FeatureCollection toCollection() {
+		return Features.toCollection(this);
+	}
+
+	@Override
+	public Iterator<Feature> iterator() {
+		if (sorted == null) {
+			try {
+				sorted = sort();
+			}
+			finally {
+				rs.close();
+			}
+			for (int i = 0; i < startIndex && sorted.hasNext(); i++) {
+				sorted.next();
+			}
+		}
+		return sorted;
+	}
+
+	@Override
+	public int count() {
+		int i = 0;
+		for (@SuppressWarnings("unused")
+		Feature f : this) {
+			i++;
+		}
+		close();
+		return i;
+	}
+
+	private Iterator<Feature> sort() {
+		if (maxFeatures >= 0) {
+			long limit = (long) startIndex + maxFeatures;
+			if (limit <= maxFeaturesInMemory) {
+				return selectTop((int) limit);
+			}
+			return new LimitedIterator(sortAll(), limit);
+		}
+		return sortAll();
+	}
+
+	private Iterator<Feature> selectTop(int limit) {
+		if (limit == 0) {
+			return Collections.<Feature> emptyList().iterator();
+		}
+		PriorityQueue<Entry> heap = new PriorityQueue<Entry>(limit, Collections.reverseOrder(comparator));
+		for (Feature feature : rs) {
+			Entry entry = new Entry(feature, seq++);
+			if (heap.size() < limit) {
+				heap.add(entry);
+			}
+			else if (comparator.compare(entry, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(entry);
+			}
+		}
+		List<Entry> entries = new ArrayList<Entry>(heap);
+		Collections.sort(entries, comparator);
+		return new EntryIterator(entries.iterator());
+	}
+
+	private Iterator<Feature> sortAll() {
+		List<Entry> buffer = new ArrayList<Entry>();
+		List<Entry> retained = new ArrayList<Entry>();
+		for (Feature feature : rs) {
+			buffer.add(new Entry(feature, seq++));
+			if (buffer.size() >= maxFeaturesInMemory && isSpillable(buffer)) {
+				List<Entry> spilled = new ArrayList<Entry>(buffer.size());
+				for (Entry entry : buffer) {
+					if (containsReferences(entry.feature)) {
+						retained.add(entry);
+					}
+					else {
+						spilled.add(entry);
+					}
+				}
+				if (!spilled.isEmpty()) {
+					runs.add(spill(spilled));
+				}
+				buffer.clear();
+			}
+		}
+		if (!retained.isEmpty()) {
+			LOG.debug("Kept {} features with references in memory.", retained.size());
+			buffer.addAll(retained);
+		}
+		Collections.sort(buffer, comparator);
+		if (runs.isEmpty()) {
+			return new EntryIterator(buffer.iterator());
+		}
+		LOG.debug("Merging {} sorted runs and {} features in memory.", runs.size(), buffer.size());
+		List<Iterator<Entry>> sources = new ArrayList<Iterator<Entry>>(runs);
+		sources.add(buffer.iterator());
+		return new MergingIterator(sources);
+	}
+
+	private boolean isSpillable(List<Entry> buffer) {
+		if (!spillable) {
+			return false;
+		}
+		for (Entry entry : buffer) {
+			AppSchema featureSchema = entry.feature.getType() != null ? entry.feature.getType().getSchema() : null;
+			if (featureSchema == null || (schema != null && schema != featureSchema)) {
+				LOG.warn("Features cannot be written to disk for sorting, sorting {} features in memory.",
+						buffer.size());
+				spillable = false;
+				return false;
+			}
+			schema = featureSchema;
+		}
+		return true;
+	}
+
+	private static boolean containsReferences(TypedObjectNode node) {
+		if (node instanceof Reference) {
+			return true;
+		}
+		if (node instanceof Feature) {
+			for (Property prop : ((Feature) node).getProperties()) {
+				if (containsReferences(prop)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (node instanceof Property && containsReferences(((Property) node).getValue())) {
+			return true;
+		}
+		if (node instanceof ElementNode && ((ElementNode) node).getChildren() != null) {
+			for (TypedObjectNode child : ((ElementNode) node).getChildren()) {
+				if (containsReferences(child)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private Run spill(List<Entry> buffer) {
+		long begin = System.currentTimeMillis();
+		Collections.sort(buffer, comparator);
+		Run run = null;
+		try {
+			run = new Run(schema);
+			for (Entry entry : buffer) {
+				run.write(entry);
+			}
+			run.finish();
+		}
+		catch (Exception e) {
+			if (run != null) {
+				run.close();
+			}
+			throw new RuntimeException("Unable to write sorted features to disk: " + e.getMessage(), e);
+		}
+		LOG.debug("Wrote sorted run of {} features to '{}' in {} [ms].", buffer.size(), run.file,
+				System.currentTimeMillis() - begin);
+		return run;
+	}
+
+	private Object[] extractKeys(Feature feature) {
+		Object[] keys = new Object[sortCrits.length];
+		for (int i = 0; i < sortCrits.length; i++) {
+			try {
+				// TODO handle multi properties correctly
+				for (TypedObjectNode value : evaluator.eval(feature, sortCrits[i].getSortProperty())) {
+					if (value != null) {
+						keys[i] = toKey(value);
+						break;
+					}
+				}
+			}
+			catch (Exception e) {
+				LOG.debug("Cannot evaluate sort property: {}", e.getMessage());
+			}
+		}
+		return keys;
+	}
+
+	private static Object toKey(Object value) {
+		if (value instanceof Property) {
+			value = ((Property) value).getValue();
+		}
+		if (value instanceof PrimitiveValue) {
+			value = ((PrimitiveValue) value).getValue();
+			if (value instanceof Number && !(value instanceof BigDecimal)) {
+				value = new BigDecimal(value.toString());
+			}
+			return value;
+		}
+		return value == null ? null : value.toString();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareKeys(Object key1, Object key2) {
+		if (key1 == null) {
+			return key2 == null ? 0 : 1;
+		}
+		if (key2 == null) {
+			return -1;
+		}
+		try {
+			if (key1.getClass() == key2.getClass() && key1 instanceof Comparable) {
+				return ((Comparable) key1).compareTo(key2);
+			}
+			Pair<Object, Object> comparablePair = PrimitiveValue.makeComparable(key1, key2);
+			return ((Comparable<Object>) comparablePair.first).compareTo(comparablePair.second);
+		}
+		catch (Exception e) {
+			LOG.debug("Cannot compare values: {}", e.getMessage());
+			return key1.toString().compareTo(key2.toString());
+		}
+	}
+
+	private class Entry {
+
+		private final Feature feature;
+
+		private final Object[] keys;
+
+		private final long seq;
+
+		private Entry(Feature feature, long seq) {
+			this.feature = feature;
+			this.keys = extractKeys(feature);
+			this.seq = seq;
+		}
+
+	}
+
+	private class EntryComparator implements Comparator<Entry> {
+
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			for (int i = 0; i < sortCrits.length; i++) {
+				int order = compareKeys(e1.keys[i], e2.keys[i]);
+				if (order != 0) {
+					return sortCrits[i].getSortOrder() ? order : -order;
+				}
+			}
+			return Long.compare(e1.seq, e2.seq);
+		}
+
+	}
+
+	/**
+	 * Sorted features in a temporary file, each feature is stored as sequence number and
+	 * length prefixed GML document.
+	 */
+	private class Run implements Iterator<Entry> {
+
+		private final File file;
+
+		private final AppSchema schema;
+
+		private final GMLVersion version;
+
+		private final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+		private DataOutputStream out;
+
+		private DataInputStream in;
+
+		private Entry next;
+
+		private Run(AppSchema schema) throws IOException {
+			this.schema = schema;
+			this.version = schema.getGMLSchema() != null ? schema.getGMLSchema().getVersion() : GMLVersion.GML_32;
+			this.file = File.createTempFile("deegree-sort", ".tmp");
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		}
+
+		private void write(Entry entry) throws Exception {
+			bos.reset();
+			XMLStreamWriter xmlWriter = xmlOutputFactory.createXMLStreamWriter(bos, "UTF-8");
+			GMLStreamWriter gmlWriter = GMLOutputFactory.createGMLStreamWriter(version, xmlWriter);
+			if (schema.getNamespaceBindings() != null) {
+				gmlWriter.setNamespaceBindings(schema.getNamespaceBindings());
+			}
+			gmlWriter.setExportExtraProps(true);
+			gmlWriter.write(entry.feature);
+			gmlWriter.close();
+			out.writeLong(entry.seq);
+			out.writeInt(bos.size());
+			bos.writeTo(out);
+		}
+
+		private void finish() throws IOException {
+			out.close();
+			out = null;
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			next = read();
+		}
+
+		private Entry read() {
+			try {
+				long entrySeq;
+				try {
+					entrySeq = in.readLong();
+				}
+				catch (EOFException e) {
+					close();
+					return null;
+				}
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				GMLStreamReader gmlReader = GMLInputFactory.createGMLStreamReader(version,
+						xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(bytes), "UTF-8"));
+				gmlReader.setApplicationSchema(schema);
+				return new Entry(gmlReader.readFeature(), entrySeq);
+			}
+			catch (Exception e) {
+				close();
+				throw new RuntimeException("Unable to read sorted features from disk: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Entry next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Entry current = next;
+			next = read();
+			return current;
+		}
+
+		private void close() {
+			try {
+				if (out != null) {
+					out.close();
+				}
+				if (in != null) {
+					in.close();
+				}
+			}
+			catch (IOException e) {
+				LOG.debug("Unable to close sorted run: {}", e.getMessage());
+			}
+			out = null;
+			in = null;
+			next = null;
+			if (file.exists() && !file.delete()) {
+				LOG.warn("Unable to delete temporary file '{}'.", file);
+			}
+		}
+
+	}
+
+	/**
+	 * Merges sorted sources of entries.
+	 */
+	private class MergingIterator implements Iterator<Feature> {
+
+		private final PriorityQueue<Pair<Entry, Iterator<Entry>>> heads;
+
+		private MergingIterator(List<Iterator<Entry>> sources) {
+			heads = new PriorityQueue<Pair<Entry, Iterator<Entry>>>(sources.size(),
+					new Comparator<Pair<Entry, Iterator<Entry>>>() {
+						@Override
+						public int compare(Pair<Entry, Iterator<Entry>> p1, Pair<Entry, Iterator<Entry>> p2) {
+							return comparator.compare(p1.first, p2.first);
+						}
+					});
+			for (Iterator<Entry> source : sources) {
+				if (source.hasNext()) {
+					heads.add(new Pair<Entry, Iterator<Entry>>(source.next(), source));
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !heads.isEmpty();
+		}
+
+		@Override
+		public Feature next() {
+			Pair<Entry, Iterator<Entry>> head = heads.poll();
+			if (head == null) {
+				throw new NoSuchElementException();
+			}
+			if (head.second.hasNext()) {
+				heads.add(new Pair<Entry, Iterator<Entry>>(head.second.next(), head.second));
+			}
+			return head.first.feature;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	private static class EntryIterator implements Iterator<Feature> {
+
+		private final Iterator<Entry> iter;
+
+		private EntryIterator(Iterator<Entry> iter) {
+			this.iter = iter;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iter.hasNext();
+		}
+
+		@Override
+		public Feature next() {
+			return iter.next().feature;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	private static class LimitedIterator implements Iterator<Feature> {
+
+		private final Iterator<Feature> iter;
+
+		private long remaining;
+
+		private LimitedIterator(Iterator<Feature> iter, long limit) {
+			this.iter = iter;
+			this.remaining = limit;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return remaining > 0 && iter.hasNext();
+		}
+
+		@Override
+		public Feature next() {
+			if (remaining <= 0) {
+				throw new NoSuchElementException();
+			}
+			remaining--;
+			return iter.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
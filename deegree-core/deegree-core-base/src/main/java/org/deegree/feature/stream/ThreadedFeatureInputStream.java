@@ -46,9 +46,10 @@ package org.deegree.feature.stream;
 import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import org.deegree.commons.concurrent.VirtualThreads;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.Features;
@@ -69,7 +70,11 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 	private static Logger LOG = LoggerFactory.getLogger(ThreadedFeatureInputStream.class);
 
 	// TODO where to manage this?
-	private static ExecutorService service = Executors.newFixedThreadPool(10);
+	// bounded for virtual threads as well, as producers hold database connections
+	private static ExecutorService service = VirtualThreads.newFixedExecutor("feature-producer-", 10);
+
+	// marks the threads of the service, producers must not wait for other producers
+	private static final ThreadLocal<Boolean> PRODUCER_THREAD = new ThreadLocal<Boolean>();
 
 	private final Consumer iterator;
 
@@ -80,12 +85,41 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 	 * @param queueSize
 	 */
 	public ThreadedFeatureInputStream(final FeatureInputStream featureInputStream, final int queueSize) {
+		this(featureInputStream, null, queueSize);
+	}
+
+	/**
+	 * Creates a new {@link ThreadedFeatureInputStream} that performs the given query in
+	 * the separate thread as well, i.e. this constructor returns immediately.
+	 * <p>
+	 * Exceptions thrown by the query are rethrown (wrapped in a
+	 * {@link RuntimeException}) when iterating over the stream.
+	 * </p>
+	 * @param query creates the {@link FeatureInputStream} to read from, must not be
+	 * <code>null</code>
+	 * @param queueSize maximum number of features that are read ahead
+	 */
+	public ThreadedFeatureInputStream(final Callable<FeatureInputStream> query, final int queueSize) {
+		this(null, query, queueSize);
+	}
+
+	private ThreadedFeatureInputStream(final FeatureInputStream featureInputStream,
+			final Callable<FeatureInputStream> query, final int queueSize) {
 		final BlockingQueue<ProducerMessage> producerQueue = new ArrayBlockingQueue<ProducerMessage>(queueSize, true);
 		final BlockingQueue<ConsumerMessage> consumerQueue = new ArrayBlockingQueue<ConsumerMessage>(1, true);
 
 		iterator = new Consumer(producerQueue, consumerQueue);
 
-		service.execute(new Producer(featureInputStream, producerQueue, consumerQueue));
+		service.execute(new Producer(featureInputStream, query, producerQueue, consumerQueue));
+	}
+
+	/**
+	 * Returns whether the current thread is producing the features of a
+	 * {@link ThreadedFeatureInputStream}.
+	 * @return <code>true</code>, if the current thread is a producer thread
+	 */
+	static boolean isProducerThread() {
+		return PRODUCER_THREAD.get() != null;
 	}
 
 	@Override
@@ -296,7 +330,16 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 				if (currentMessage.isException()) {
 					LOG.debug("Exception consumed");
 
-					throw new RuntimeException(currentMessage.getException());
+					// keep unchecked exceptions (e.g. exceptions that carry an OWS
+					// exception code)
+					Throwable exception = currentMessage.getException();
+					if (exception instanceof RuntimeException) {
+						throw (RuntimeException) exception;
+					}
+					if (exception instanceof Error) {
+						throw (Error) exception;
+					}
+					throw new RuntimeException(exception);
 				}
 
 				if (!currentMessage.isFeature()) {
@@ -318,7 +361,9 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 		}
 
 		void close() {
-			if (hasNext()) {
+			// don't wait for the first message if nothing has been consumed yet, the
+			// producer may not have started the query at all
+			if (lastMessage == null || hasNext()) {
 
 				try {
 					LOG.debug("Requesting producer to finish");
@@ -330,7 +375,13 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 				}
 
 				while (hasNext()) {
-					next();
+					try {
+						next();
+					}
+					catch (RuntimeException e) {
+						// the consumer is not interested in the remaining features
+						LOG.debug("Ignoring producer exception on close: {}", e.getMessage());
+					}
 				}
 
 				LOG.debug("Producer finished");
@@ -346,22 +397,45 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 
 		private final FeatureInputStream featureInputStream;
 
+		private final Callable<FeatureInputStream> query;
+
 		private final BlockingQueue<ProducerMessage> producerQueue;
 
 		private final BlockingQueue<ConsumerMessage> consumerQueue;
 
 		protected Producer(FeatureInputStream featureInputStream, BlockingQueue<ProducerMessage> producerQueue,
 				BlockingQueue<ConsumerMessage> consumerQueue) {
+			this(featureInputStream, null, producerQueue, consumerQueue);
+		}
+
+		protected Producer(Callable<FeatureInputStream> query, BlockingQueue<ProducerMessage> producerQueue,
+				BlockingQueue<ConsumerMessage> consumerQueue) {
+			this(null, query, producerQueue, consumerQueue);
+		}
+
+		private Producer(FeatureInputStream featureInputStream, Callable<FeatureInputStream> query,
+				BlockingQueue<ProducerMessage> producerQueue, BlockingQueue<ConsumerMessage> consumerQueue) {
 			this.featureInputStream = featureInputStream;
+			this.query = query;
 			this.producerQueue = producerQueue;
 			this.consumerQueue = consumerQueue;
 		}
 
 		@Override
 		public void run() {
+			FeatureInputStream featureInputStream = this.featureInputStream;
+			PRODUCER_THREAD.set(Boolean.TRUE);
 			try {
 				LOG.debug("Producer started");
 
+				ConsumerMessage pending = consumerQueue.peek();
+				if (pending != null && pending.isClosing()) {
+					LOG.debug("Producer halted before query");
+					return;
+				}
+				if (featureInputStream == null) {
+					featureInputStream = query.call();
+				}
 				for (Feature f : featureInputStream) {
 					ConsumerMessage consumerMessage = consumerQueue.poll();
 					if (consumerMessage != null && consumerMessage.isClosing()) {
@@ -387,7 +461,10 @@ public class ThreadedFeatureInputStream implements FeatureInputStream {
 				}
 			}
 			finally {
-				featureInputStream.close();
+				PRODUCER_THREAD.remove();
+				if (featureInputStream != null) {
+					featureInputStream.close();
+				}
 
 				try {
 					producerQueue.put(new ProducerFinishedMessage());
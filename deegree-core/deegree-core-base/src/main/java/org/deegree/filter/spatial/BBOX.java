@@ -171,8 +171,7 @@ public class BBOX extends SpatialOperator {
 			for (TypedObjectNode paramValue : param1.evaluate(obj, xpathEvaluator)) {
 				Geometry param1Value = checkGeometryOrNull(paramValue);
 				if (param1Value != null) {
-					Envelope transformedBBox = (Envelope) getCompatibleGeometry(param1Value, getBoundingBox());
-					return transformedBBox.intersects(param1Value);
+					return getPreparedLiteral(param1Value).intersects(param1Value);
 				}
 			}
 		}
@@ -181,8 +180,7 @@ public class BBOX extends SpatialOperator {
 			Feature f = (Feature) obj;
 			Envelope env = f.getEnvelope();
 			if (env != null) {
-				Envelope transformedBBox = (Envelope) getCompatibleGeometry(env, getBoundingBox());
-				return transformedBBox.intersects(env);
+				return getPreparedLiteral(env).intersects(env);
 			}
 		}
 		else {
@@ -71,8 +71,7 @@ public class Contains extends SpatialOperator {
 		for (TypedObjectNode paramValue : param1.evaluate(obj, xpathEvaluator)) {
 			Geometry geom = checkGeometryOrNull(paramValue);
 			if (geom != null) {
-				Geometry transformedLiteral = getCompatibleGeometry(geom, param2AsGeometry);
-				return geom.contains(transformedLiteral);
+				return getPreparedLiteral(geom).isWithin(geom);
 			}
 		}
 		return false;
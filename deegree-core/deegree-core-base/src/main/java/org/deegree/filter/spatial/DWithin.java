@@ -78,9 +78,8 @@ public class DWithin extends SpatialOperator {
 		for (TypedObjectNode param1Value : param1.evaluate(obj, xpathEvaluator)) {
 			Geometry geom = checkGeometryOrNull(param1Value);
 			if (geom != null) {
-				Geometry transformedLiteral = getCompatibleGeometry(geom, param2AsGeometry);
 				// TODO what about the units of the distance when transforming?
-				return geom.isWithinDistance(transformedLiteral, distance);
+				return getPreparedLiteral(geom).isWithinDistance(geom, distance.getValueAsDouble());
 			}
 		}
 		return false;
@@ -86,8 +86,7 @@ public class Intersects extends SpatialOperator {
 			for (TypedObjectNode paramValue : param1.evaluate(obj, xpathEvaluator)) {
 				Geometry param1Value = checkGeometryOrNull(paramValue);
 				if (param1Value != null) {
-					Geometry transformedGeom = getCompatibleGeometry(param1Value, param2AsGeometry);
-					return transformedGeom.intersects(param1Value);
+					return getPreparedLiteral(param1Value).intersects(param1Value);
 				}
 			}
 		}
@@ -99,8 +98,7 @@ public class Intersects extends SpatialOperator {
 				if (prop.getValue() instanceof Geometry) {
 					foundGeom = true;
 					Geometry geom = (Geometry) prop.getValue();
-					Geometry transformedGeom = getCompatibleGeometry(param2AsGeometry, geom);
-					if (transformedGeom.intersects(param2AsGeometry)) {
+					if (getPreparedLiteral(geom).intersects(geom)) {
 						return true;
 					}
 				}
@@ -108,8 +106,7 @@ public class Intersects extends SpatialOperator {
 			if (!foundGeom) {
 				Envelope env = f.getEnvelope();
 				if (env != null) {
-					Geometry g = getCompatibleGeometry(param2AsGeometry, env);
-					if (g.intersects(param2AsGeometry)) {
+					if (getPreparedLiteral(env).intersects(env)) {
 						return true;
 					}
 				}
@@ -118,8 +115,7 @@ public class Intersects extends SpatialOperator {
 				for (Property prop : f.getExtraProperties().getProperties()) {
 					if (prop.getValue() instanceof Geometry) {
 						Geometry geom = (Geometry) prop.getValue();
-						Geometry transformedGeom = getCompatibleGeometry(param2AsGeometry, geom);
-						if (transformedGeom.intersects(param2AsGeometry)) {
+						if (getPreparedLiteral(geom).intersects(geom)) {
 							return true;
 						}
 					}
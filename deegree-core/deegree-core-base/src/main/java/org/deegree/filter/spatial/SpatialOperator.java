@@ -34,8 +34,8 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.filter.spatial;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.genericxml.GenericXMLElement;
@@ -48,6 +48,7 @@ import org.deegree.filter.expression.ValueReference;
 import org.deegree.filter.i18n.Messages;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.standard.JTSPreparedGeometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,7 +62,11 @@ public abstract class SpatialOperator implements Operator {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SpatialOperator.class);
 
-	private final Map<String, Geometry> srsNameToTransformedGeometry = new HashMap<String, Geometry>();
+	private final ConcurrentMap<String, Geometry> srsNameToTransformedGeometry = new ConcurrentHashMap<String, Geometry>();
+
+	private final ConcurrentMap<String, JTSPreparedGeometry> srsNameToPreparedLiteral = new ConcurrentHashMap<String, JTSPreparedGeometry>();
+
+	private volatile JTSPreparedGeometry preparedLiteral;
 
 	protected final Expression param1;
 
@@ -248,7 +253,7 @@ public abstract class SpatialOperator implements Operator {
 		Geometry transformedLiteral = literal;
 		ICRS paramCRS = param.getCoordinateSystem();
 		ICRS literalCRS = literal.getCoordinateSystem();
-		if (literalCRS != null && !(paramCRS.equals(literalCRS))) {
+		if (needsTransformation(paramCRS, literalCRS)) {
 			LOG.debug("Need transformed literal geometry for evaluation: {} -> {}", literalCRS.getAlias(),
 					paramCRS.getAlias());
 			transformedLiteral = srsNameToTransformedGeometry.get(paramCRS.getAlias());
@@ -266,6 +271,39 @@ public abstract class SpatialOperator implements Operator {
 		return transformedLiteral;
 	}
 
+	/**
+	 * Returns the geometry literal (second parameter) of this operator, transformed to
+	 * the srs of the given geometry parameter and prepared for repeated evaluation. The
+	 * prepared literal is created only once per srs.
+	 * @param param geometry parameter, must not be <code>null</code>
+	 * @return prepared literal geometry with the same srs as the parameter geometry
+	 * @throws FilterEvaluationException if the transformation failed
+	 */
+	protected JTSPreparedGeometry getPreparedLiteral(Geometry param) throws FilterEvaluationException {
+		ICRS paramCRS = param.getCoordinateSystem();
+		ICRS literalCRS = param2AsGeometry.getCoordinateSystem();
+		if (!needsTransformation(paramCRS, literalCRS)) {
+			JTSPreparedGeometry prepared = preparedLiteral;
+			if (prepared == null) {
+				preparedLiteral = prepared = new JTSPreparedGeometry(param2AsGeometry);
+			}
+			return prepared;
+		}
+		JTSPreparedGeometry prepared = srsNameToPreparedLiteral.get(paramCRS.getAlias());
+		if (prepared == null) {
+			prepared = new JTSPreparedGeometry(getCompatibleGeometry(param, param2AsGeometry));
+			JTSPreparedGeometry concurrent = srsNameToPreparedLiteral.putIfAbsent(paramCRS.getAlias(), prepared);
+			if (concurrent != null) {
+				prepared = concurrent;
+			}
+		}
+		return prepared;
+	}
+
+	private static boolean needsTransformation(ICRS paramCRS, ICRS literalCRS) {
+		return literalCRS != null && paramCRS != null && paramCRS != literalCRS && !paramCRS.equals(literalCRS);
+	}
+
 	public abstract Object[] getParams();
 
 }
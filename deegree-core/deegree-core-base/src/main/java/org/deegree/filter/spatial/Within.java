@@ -70,8 +70,7 @@ public class Within extends SpatialOperator {
 		for (TypedObjectNode paramValue : param1.evaluate(obj, xpathEvaluator)) {
 			Geometry geom = checkGeometryOrNull(paramValue);
 			if (geom != null) {
-				Geometry transformedLiteral = getCompatibleGeometry(geom, param2AsGeometry);
-				return geom.isWithin(transformedLiteral);
+				return getPreparedLiteral(geom).contains(geom);
 			}
 		}
 		return false;
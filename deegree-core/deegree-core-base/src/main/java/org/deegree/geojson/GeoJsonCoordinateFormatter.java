@@ -0,0 +1,139 @@
+package org.deegree.geojson;
+
+/**
+ * Formats coordinates as JSON numbers.
+ * <p>
+ * Without a precision, the shortest decimal representation that parses back to the same
+ * <code>double</code> is determined with integer arithmetic. With a precision, the
+ * coordinates are rounded to the given number of fraction digits (trailing zeros are
+ * omitted). Values that cannot be handled this way (very large or very small) are
+ * formatted with {@link Double#toString(double)}.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public class GeoJsonCoordinateFormatter {
+
+	// largest integer that is exactly representable as double
+	private static final double MAX_EXACT = 9007199254740992d;
+
+	private static final int MAX_FRACTION_DIGITS = 17;
+
+	private static final double[] POWERS_OF_TEN = new double[MAX_FRACTION_DIGITS + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private final int precision;
+
+	private final char[] buffer = new char[40];
+
+	/**
+	 * Instantiates a new {@link GeoJsonCoordinateFormatter} that writes coordinates with
+	 * full precision.
+	 */
+	public GeoJsonCoordinateFormatter() {
+		this(-1);
+	}
+
+	/**
+	 * Instantiates a new {@link GeoJsonCoordinateFormatter}.
+	 * @param precision maximum number of fraction digits (0 to 17), -1 for full precision
+	 * @throws IllegalArgumentException if the precision is out of range
+	 */
+	public GeoJsonCoordinateFormatter(int precision) {
+		if (precision < -1 || precision > MAX_FRACTION_DIGITS) {
+			throw new IllegalArgumentException("Precision must be between 0 and " + MAX_FRACTION_DIGITS
+					+ " (or -1 for full precision), but is " + precision);
+		}
+		this.precision = precision;
+	}
+
+	/**
+	 * @return maximum number of fraction digits, -1 for full precision
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Formats the given coordinate.
+	 * @param value coordinate to format
+	 * @return JSON number, never <code>null</code>
+	 * @throws IllegalArgumentException if the value is <code>NaN</code> or infinite
+	 */
+	public String format(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+		}
+		if (value == 0) {
+			// keeps the sign of -0.0
+			return Double.toString(value);
+		}
+		double abs = Math.abs(value);
+		if (precision >= 0) {
+			double scaled = abs * POWERS_OF_TEN[precision];
+			if (scaled < MAX_EXACT) {
+				return format(value < 0, Math.round(scaled), precision);
+			}
+			return Double.toString(value);
+		}
+		for (int fractionDigits = 0; fractionDigits <= MAX_FRACTION_DIGITS; fractionDigits++) {
+			double scaled = abs * POWERS_OF_TEN[fractionDigits];
+			if (scaled >= MAX_EXACT) {
+				break;
+			}
+			long unscaled = Math.round(scaled);
+			// division of exact values is correctly rounded, just like parsing the
+			// decimal representation
+			if (unscaled / POWERS_OF_TEN[fractionDigits] == abs) {
+				return format(value < 0, unscaled, fractionDigits);
+			}
+		}
+		return Double.toString(value);
+	}
+
+	private String format(boolean negative, long unscaled, int fractionDigits) {
+		// strip trailing zeros of the fraction
+		while (fractionDigits > 0 && unscaled % 10 == 0) {
+			unscaled /= 10;
+			fractionDigits--;
+		}
+		int pos = buffer.length;
+		if (fractionDigits == 0) {
+			// same as Double#toString(), keeps the value a floating point number for
+			// JSON readers
+			buffer[--pos] = '0';
+			buffer[--pos] = '.';
+		}
+		int digits = 0;
+		do {
+			buffer[--pos] = (char) ('0' + unscaled % 10);
+			unscaled /= 10;
+			if (++digits == fractionDigits) {
+				buffer[--pos] = '.';
+				if (unscaled == 0) {
+					buffer[--pos] = '0';
+				}
+			}
+		}
+		while (unscaled != 0);
+		while (digits < fractionDigits) {
+			buffer[--pos] = '0';
+			if (++digits == fractionDigits) {
+				buffer[--pos] = '.';
+				buffer[--pos] = '0';
+			}
+		}
+		if (negative) {
+			buffer[--pos] = '-';
+		}
+		return new String(buffer, pos, buffer.length - pos);
+	}
+
+}
@@ -22,6 +22,7 @@ import org.deegree.geometry.primitive.Point;
 import org.deegree.geometry.primitive.Polygon;
 import org.deegree.geometry.primitive.Ring;
 import org.deegree.geometry.primitive.Surface;
+import org.deegree.geometry.standard.points.PackedPoints;
 
 import com.google.gson.stream.JsonWriter;
 
@@ -39,16 +40,36 @@ public class GeoJsonGeometryWriter {
 
 	private final JsonWriter jsonWriter;
 
+	private final GeoJsonCoordinateFormatter coordinateFormatter;
+
+	// reused for all geometries, keeps the last transformation
+	private GeometryTransformer geometryTransformer;
+
 	/**
-	 * Instantiates a new {@link GeoJsonGeometryWriter}
+	 * Instantiates a new {@link GeoJsonGeometryWriter} writing coordinates with full
+	 * precision.
 	 * @param jsonWriter used to write the GeoJSON geometries, never <code>null</code>
 	 * @param crs the target crs of the geometries, may be <code>null</code>, then
 	 * "EPSG:4326" will be used
 	 * @throws UnknownCRSException if "crs:84" is not known as CRS (should never happen)
 	 */
 	public GeoJsonGeometryWriter(JsonWriter jsonWriter, ICRS crs) throws UnknownCRSException {
+		this(jsonWriter, crs, new GeoJsonCoordinateFormatter());
+	}
+
+	/**
+	 * Instantiates a new {@link GeoJsonGeometryWriter}
+	 * @param jsonWriter used to write the GeoJSON geometries, never <code>null</code>
+	 * @param crs the target crs of the geometries, may be <code>null</code>, then
+	 * "EPSG:4326" will be used
+	 * @param coordinateFormatter used to format the coordinates, never <code>null</code>
+	 * @throws UnknownCRSException if "crs:84" is not known as CRS (should never happen)
+	 */
+	public GeoJsonGeometryWriter(JsonWriter jsonWriter, ICRS crs, GeoJsonCoordinateFormatter coordinateFormatter)
+			throws UnknownCRSException {
 		this.jsonWriter = jsonWriter;
 		this.geoJsonCrs = ensureCrs(crs);
+		this.coordinateFormatter = coordinateFormatter;
 	}
 
 	/**
@@ -69,7 +90,9 @@ public class GeoJsonGeometryWriter {
 		if (geoJsonCrs.equals(geometry.getCoordinateSystem())) {
 			return geometry;
 		}
-		GeometryTransformer geometryTransformer = new GeometryTransformer(geoJsonCrs);
+		if (geometryTransformer == null) {
+			geometryTransformer = new GeometryTransformer(geoJsonCrs);
+		}
 		return geometryTransformer.transform(geometry);
 	}
 
@@ -219,21 +242,44 @@ public class GeoJsonGeometryWriter {
 
 	private void exportPoints(Points points) throws IOException {
 		jsonWriter.beginArray();
-		for (Point point : points) {
-			exportPointArray(point);
+		if (points instanceof PackedPoints) {
+			exportPackedPoints((PackedPoints) points);
+		}
+		else {
+			for (Point point : points) {
+				exportPointArray(point);
+			}
 		}
 		jsonWriter.endArray();
 	}
 
+	private void exportPackedPoints(PackedPoints points) throws IOException {
+		// avoids creating a point object for every position
+		double[] coordinates = points.getAsArray();
+		int dimension = points.getDimension();
+		for (int i = 0; i < coordinates.length; i += dimension) {
+			jsonWriter.beginArray();
+			writeCoordinate(coordinates[i]);
+			writeCoordinate(coordinates[i + 1]);
+			if (dimension > 2 && !Double.isNaN(coordinates[i + 2]))
+				writeCoordinate(coordinates[i + 2]);
+			jsonWriter.endArray();
+		}
+	}
+
 	private void exportPointArray(Point point) throws IOException {
 		jsonWriter.beginArray();
-		jsonWriter.value(point.get0());
-		jsonWriter.value(point.get1());
+		writeCoordinate(point.get0());
+		writeCoordinate(point.get1());
 		if (!Double.isNaN(point.get2()))
-			jsonWriter.value(point.get2());
+			writeCoordinate(point.get2());
 		jsonWriter.endArray();
 	}
 
+	private void writeCoordinate(double value) throws IOException {
+		jsonWriter.jsonValue(coordinateFormatter.format(value));
+	}
+
 	private boolean containsOnlyPolygons(MultiSurface<Surface> multiSurface) {
 		for (Surface surface : multiSurface) {
 			if (!Surface.SurfaceType.Polygon.equals(surface.getSurfaceType()))
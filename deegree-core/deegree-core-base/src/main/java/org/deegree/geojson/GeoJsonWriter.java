@@ -70,11 +70,29 @@ public class GeoJsonWriter extends JsonWriter implements GeoJsonFeatureWriter, G
 	 * @throws UnknownCRSException if "crs:84" is not known as CRS (should never happen)
 	 */
 	public GeoJsonWriter(Writer writer, ICRS crs, boolean skipGeometries) throws UnknownCRSException {
+		this(writer, crs, skipGeometries, -1);
+	}
+
+	/**
+	 * Instantiates a new {@link GeoJsonWriter}.
+	 * @param writer the writer to write the GeoJSON into, never <code>null</code>
+	 * @param crs the target crs of the geometries, may be <code>null</code>, then
+	 * "EPSG:4326" will be used
+	 * @param skipGeometries <code>true</code> if geometries should not be exported,
+	 * <code>false</code> otherwise
+	 * @param coordinatePrecision maximum number of fraction digits of the coordinates
+	 * (0 to 17), -1 for full precision
+	 * @throws UnknownCRSException if "crs:84" is not known as CRS (should never happen)
+	 * @throws IllegalArgumentException if the coordinate precision is out of range
+	 */
+	public GeoJsonWriter(Writer writer, ICRS crs, boolean skipGeometries, int coordinatePrecision)
+			throws UnknownCRSException {
 		super(writer);
 		setIndent("  ");
 		setHtmlSafe(true);
 		if (!skipGeometries) {
-			this.geoJsonGeometryWriter = new GeoJsonGeometryWriter(this, crs);
+			this.geoJsonGeometryWriter = new GeoJsonGeometryWriter(this, crs,
+					new GeoJsonCoordinateFormatter(coordinatePrecision));
 		}
 		this.crs = crs;
 	}
@@ -116,6 +116,10 @@ public class GMLAppSchemaReader {
 
 	/**
 	 * Creates a new {@link GMLAppSchemaReader} from the given schema URL(s).
+	 * <p>
+	 * The parsed schemas are shared with other readers for the same schema URL(s), see
+	 * {@link GMLSchemaInfoSetCache}.
+	 * </p>
 	 * @param gmlVersion gml version of the schema files, can be null (auto-detect GML
 	 * version)
 	 * @param namespaceHints optional hints (key: prefix, value: namespaces) for
@@ -128,7 +132,7 @@ public class GMLAppSchemaReader {
 	 */
 	public GMLAppSchemaReader(GMLVersion gmlVersion, Map<String, String> namespaceHints, String... schemaUrls)
 			throws ClassCastException, ClassNotFoundException, InstantiationException, IllegalAccessException {
-		this(new GMLSchemaInfoSet(gmlVersion, schemaUrls), namespaceHints);
+		this(GMLSchemaInfoSetCache.get(gmlVersion, schemaUrls), namespaceHints);
 	}
 
 	/**
@@ -0,0 +1,198 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.gml.schema;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.deegree.gml.GMLVersion;
+import org.slf4j.Logger;
+
+/**
+ * JVM-wide cache of {@link GMLSchemaInfoSet}s, so schemas that are used by multiple
+ * resources (e.g. INSPIRE or AAA schemas shared by several feature stores) are parsed
+ * only once.
+ * <p>
+ * Entries are identified by the GML version and the set of schema URLs. Each entry
+ * remembers a SHA-256 hash of the contents of all local (<code>file:</code>) schema
+ * documents that contributed to the infoset. If any of them has been changed (e.g. before
+ * a workspace reload), the schemas are parsed again. Schema documents from other
+ * locations (e.g. bundled OGC schemas in jar files) are assumed not to change during the
+ * lifetime of the JVM. Cached infosets are only softly referenced, so they can be
+ * reclaimed if no resource uses them anymore and memory gets scarce.
+ * </p>
+ * <p>
+ * The cache can be disabled by setting the tunable parameter
+ * <code>deegree.gml.schema.cache</code> to <code>false</code>.
+ * </p>
+ *
+ * @see GMLAppSchemaReader
+ */
+public final class GMLSchemaInfoSetCache {
+
+	private static final Logger LOG = getLogger(GMLSchemaInfoSetCache.class);
+
+	private static final boolean ENABLED = TunableParameter.get("deegree.gml.schema.cache", true);
+
+	private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<String, Entry>();
+
+	private GMLSchemaInfoSetCache() {
+		// avoid instantiation
+	}
+
+	/**
+	 * Returns the {@link GMLSchemaInfoSet} for the given GML version and schemas, the
+	 * schemas are only parsed if no up-to-date infoset is cached.
+	 * @param version gml version of the schema files, can be null (auto-detect GML
+	 * version)
+	 * @param schemaUrls URLs of the schema files to load, must not be <code>null</code>
+	 * @return the infoset, never <code>null</code>
+	 * @throws ClassCastException
+	 * @throws ClassNotFoundException
+	 * @throws InstantiationException
+	 * @throws IllegalAccessException
+	 */
+	public static GMLSchemaInfoSet get(GMLVersion version, String... schemaUrls)
+			throws ClassCastException, ClassNotFoundException, InstantiationException, IllegalAccessException {
+		if (!ENABLED) {
+			return new GMLSchemaInfoSet(version, schemaUrls);
+		}
+		String key = createKey(version, schemaUrls);
+		Entry entry = ENTRIES.computeIfAbsent(key, k -> new Entry());
+		synchronized (entry) {
+			GMLSchemaInfoSet infoSet = entry.infoSet != null ? entry.infoSet.get() : null;
+			if (infoSet != null) {
+				String contentHash = hashContents(infoSet);
+				if (contentHash != null && contentHash.equals(entry.contentHash)) {
+					LOG.debug("Using cached schema infoset for {}", key);
+					return infoSet;
+				}
+				LOG.info("Schema documents of {} have been modified, parsing them again.", key);
+			}
+			long before = System.currentTimeMillis();
+			// loading may redirect the urls in place
+			infoSet = new GMLSchemaInfoSet(version, schemaUrls.clone());
+			LOG.debug("Parsing schema infoset for {} took {} ms.", key, System.currentTimeMillis() - before);
+			String contentHash = hashContents(infoSet);
+			if (contentHash != null) {
+				entry.infoSet = new SoftReference<GMLSchemaInfoSet>(infoSet);
+				entry.contentHash = contentHash;
+			}
+			else {
+				entry.infoSet = null;
+				entry.contentHash = null;
+			}
+			return infoSet;
+		}
+	}
+
+	/**
+	 * Removes all cached infosets.
+	 */
+	public static void clear() {
+		ENTRIES.clear();
+	}
+
+	static String createKey(GMLVersion version, String... schemaUrls) {
+		TreeSet<String> sorted = new TreeSet<String>();
+		for (String schemaUrl : schemaUrls) {
+			sorted.add(schemaUrl);
+		}
+		return (version != null ? version.name() : "auto") + " " + sorted;
+	}
+
+	/**
+	 * Hashes the contents of all local schema documents that contributed to the given
+	 * infoset.
+	 * @return hex encoded hash, or <code>null</code> if a document could not be read
+	 */
+	static String hashContents(GMLSchemaInfoSet infoSet) {
+		TreeSet<String> locations = new TreeSet<String>();
+		for (String ns : infoSet.getSchemaNamespaces()) {
+			List<String> componentLocations = infoSet.getComponentLocations(ns);
+			if (componentLocations != null) {
+				for (String location : componentLocations) {
+					if (location != null && location.startsWith("file:")) {
+						locations.add(location);
+					}
+				}
+			}
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			for (String location : locations) {
+				digest.update(location.getBytes("UTF-8"));
+				try (InputStream is = Files.newInputStream(Paths.get(new URI(location)))) {
+					int read;
+					while ((read = is.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every JVM has to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		catch (Exception e) {
+			LOG.debug("Cannot hash schema documents, not caching schema infoset: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private static class Entry {
+
+		private SoftReference<GMLSchemaInfoSet> infoSet;
+
+		private String contentHash;
+
+	}
+
+}
@@ -0,0 +1,263 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.stream;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.Features;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelFeatureInputStream}.
+ */
+public class ParallelFeatureInputStreamTest {
+
+	@Test
+	public void testOrderIsPreserved() {
+		List<Feature> features = createFeatures(6);
+		List<ListFeatureInputStream> streams = new ArrayList<ListFeatureInputStream>();
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		queries.add(slowQuery(features.subList(0, 3), streams));
+		queries.add(query(features.subList(3, 4), streams));
+		queries.add(query(features.subList(4, 6), streams));
+
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 3, 1);
+		try {
+			assertEquals(features, readAll(rs));
+		}
+		finally {
+			rs.close();
+		}
+		assertEquals(3, streams.size());
+		for (ListFeatureInputStream stream : streams) {
+			assertTrue(stream.closed);
+		}
+	}
+
+	@Test
+	public void testQueriesRunConcurrently() {
+		List<Feature> features = createFeatures(2);
+		CountDownLatch secondStarted = new CountDownLatch(1);
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		queries.add(() -> {
+			// only returns if the second query is performed at the same time
+			if (!secondStarted.await(10, SECONDS)) {
+				throw new IllegalStateException("Second query has not been started.");
+			}
+			return new ListFeatureInputStream(features.subList(0, 1));
+		});
+		queries.add(() -> {
+			secondStarted.countDown();
+			return new ListFeatureInputStream(features.subList(1, 2));
+		});
+
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 2, 10);
+		try {
+			assertEquals(features, readAll(rs));
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	@Test
+	public void testCloseDoesNotStartPendingQueries() {
+		List<Feature> features = createFeatures(3);
+		AtomicInteger performed = new AtomicInteger();
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		for (Feature feature : features) {
+			queries.add(() -> {
+				performed.incrementAndGet();
+				return new ListFeatureInputStream(asList(feature));
+			});
+		}
+
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 1, 10);
+		assertEquals(features.get(0), rs.iterator().next());
+		rs.close();
+		assertEquals(1, performed.get());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testQueryException() {
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		queries.add(query(createFeatures(1), new ArrayList<ListFeatureInputStream>()));
+		queries.add(() -> {
+			throw new Exception("Query failed.");
+		});
+
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 2, 10);
+		try {
+			readAll(rs);
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	@Test
+	public void testRuntimeExceptionIsNotWrapped() {
+		IllegalArgumentException exception = new IllegalArgumentException("Invalid parameter.");
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		queries.add(query(createFeatures(1), new ArrayList<ListFeatureInputStream>()));
+		queries.add(() -> {
+			throw exception;
+		});
+
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 2, 10);
+		try {
+			readAll(rs);
+			fail("Exception of the query expected.");
+		}
+		catch (IllegalArgumentException e) {
+			assertSame(exception, e);
+		}
+		finally {
+			rs.close();
+		}
+	}
+
+	@Test
+	public void testCloseWhilePendingQueryHasFailed() throws Exception {
+		List<Feature> features = createFeatures(20);
+		List<ListFeatureInputStream> streams = new ArrayList<ListFeatureInputStream>();
+		CountDownLatch started = new CountDownLatch(2);
+		List<Callable<FeatureInputStream>> queries = new ArrayList<Callable<FeatureInputStream>>();
+		queries.add(query(features.subList(0, 10), streams));
+		queries.add(() -> {
+			started.countDown();
+			throw new Exception("Query failed.");
+		});
+		Callable<FeatureInputStream> lastQuery = query(features.subList(10, 20), streams);
+		queries.add(() -> {
+			started.countDown();
+			return lastQuery.call();
+		});
+
+		// small read-ahead buffer, so the producer of the last query is blocked
+		FeatureInputStream rs = new ParallelFeatureInputStream(queries, 3, 1);
+		assertEquals(features.get(0), rs.iterator().next());
+		assertTrue(started.await(10, SECONDS));
+		rs.close();
+
+		assertEquals(2, streams.size());
+		for (ListFeatureInputStream stream : streams) {
+			assertTrue(stream.closed);
+		}
+	}
+
+	private static List<Feature> readAll(FeatureInputStream rs) {
+		List<Feature> features = new ArrayList<Feature>();
+		for (Feature feature : rs) {
+			features.add(feature);
+		}
+		return features;
+	}
+
+	private static List<Feature> createFeatures(int num) {
+		List<Feature> features = new ArrayList<Feature>();
+		for (int i = 0; i < num; i++) {
+			features.add(mock(Feature.class));
+		}
+		return features;
+	}
+
+	private static Callable<FeatureInputStream> query(List<Feature> features, List<ListFeatureInputStream> streams) {
+		return () -> {
+			ListFeatureInputStream stream = new ListFeatureInputStream(features);
+			synchronized (streams) {
+				streams.add(stream);
+			}
+			return stream;
+		};
+	}
+
+	private static Callable<FeatureInputStream> slowQuery(List<Feature> features,
+			List<ListFeatureInputStream> streams) {
+		Callable<FeatureInputStream> query = query(features, streams);
+		return () -> {
+			Thread.sleep(100);
+			return query.call();
+		};
+	}
+
+	private static class ListFeatureInputStream implements FeatureInputStream {
+
+		private final List<Feature> features;
+
+		private volatile boolean closed;
+
+		private ListFeatureInputStream(List<Feature> features) {
+			this.features = features;
+		}
+
+		@Override
+		public Iterator<Feature> iterator() {
+			return features.iterator();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		@Override
+		public FeatureCollection toCollection() {
+			return Features.toCollection(this);
+		}
+
+		@Override
+		public int count() {
+			return features.size();
+		}
+
+	}
+
+}
@@ -0,0 +1,227 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.ElementNode;
+import org.deegree.commons.tom.Reference;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.GenericFeatureCollection;
+import org.deegree.feature.types.AppSchema;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.sort.SortProperty;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.io.WKTWriter;
+import org.deegree.gml.GMLInputFactory;
+import org.deegree.gml.GMLStreamReader;
+import org.deegree.gml.GMLVersion;
+import org.deegree.gml.schema.GMLAppSchemaReader;
+import org.deegree.workspace.standard.DefaultWorkspace;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SortedFeatureInputStream}.
+ */
+public class SortedFeatureInputStreamTest {
+
+	private static final String APP_NS = "http://www.deegree.org/app";
+
+	private List<Feature> features;
+
+	@Before
+	public void setUp() throws Exception {
+		new DefaultWorkspace(new File("nix")).initAll();
+		String schemaURL = SortedFeatureInputStreamTest.class.getResource("../../gml/misc/schema/Philosopher.xsd")
+			.toString();
+		URL docURL = SortedFeatureInputStreamTest.class
+			.getResource("../../gml/misc/feature/Philosopher_FeatureCollection.xml");
+		AppSchema schema = new GMLAppSchemaReader(GMLVersion.GML_31, null, schemaURL).extractAppSchema();
+		GMLStreamReader gmlReader = GMLInputFactory.createGMLStreamReader(GMLVersion.GML_31, docURL);
+		gmlReader.setApplicationSchema(schema);
+		FeatureCollection fc = (FeatureCollection) gmlReader.readFeature();
+		gmlReader.getIdContext().resolveLocalRefs();
+		features = new ArrayList<Feature>();
+		for (Feature feature : fc) {
+			features.add(feature);
+		}
+	}
+
+	@Test
+	public void testSortInMemory() {
+		List<String> names = getNames(sort(new SortedFeatureInputStream(stream(), sortBy("name", true))));
+		assertEquals(features.size(), names.size());
+		for (int i = 1; i < names.size(); i++) {
+			assertTrue(names.get(i - 1).compareTo(names.get(i)) <= 0);
+		}
+	}
+
+	@Test
+	public void testSortDescending() {
+		List<String> ids = getIds(
+				sort(new SortedFeatureInputStream(stream(), sortBy("id", false), 0, -1, Integer.MAX_VALUE)));
+		assertEquals("PHILOSOPHER_7", ids.get(0));
+		assertEquals("PHILOSOPHER_1", ids.get(ids.size() - 1));
+	}
+
+	@Test
+	public void testSortWithSortedRunsOnDisk() {
+		SortProperty[] sortCrits = sortBy("name", true);
+		List<String> expected = getIds(sort(new SortedFeatureInputStream(stream(), sortCrits)));
+		List<Feature> sorted = sort(new SortedFeatureInputStream(stream(), sortCrits, 0, -1, 2));
+		assertEquals(expected, getIds(sorted));
+		assertEquals(getNames(sort(new SortedFeatureInputStream(stream(), sortCrits))), getNames(sorted));
+	}
+
+	@Test
+	public void testSortWithSortedRunsOnDiskKeepsReferences() {
+		SortProperty[] sortCrits = sortBy("name", true);
+		List<Feature> expected = sort(new SortedFeatureInputStream(stream(), sortCrits));
+		List<Feature> sorted = sort(new SortedFeatureInputStream(stream(), sortCrits, 0, -1, 2));
+		assertEquals(getIds(expected), getIds(sorted));
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(describe(expected.get(i)), describe(sorted.get(i)));
+		}
+		// features without references have been written to disk
+		Feature rousseau = sorted.get(getIds(sorted).indexOf("PHILOSOPHER_3"));
+		assertNotSame(features.get(getIds(features).indexOf("PHILOSOPHER_3")), rousseau);
+	}
+
+	@Test
+	public void testTopK() {
+		SortProperty[] sortCrits = sortBy("name", false);
+		List<String> all = getIds(sort(new SortedFeatureInputStream(stream(), sortCrits)));
+		assertEquals(all.subList(0, 3), getIds(sort(new SortedFeatureInputStream(stream(), sortCrits, 0, 3))));
+		assertEquals(all.subList(2, 5), getIds(sort(new SortedFeatureInputStream(stream(), sortCrits, 2, 3))));
+		assertEquals(all.subList(2, 5), getIds(sort(new SortedFeatureInputStream(stream(), sortCrits, 2, 3, 2))));
+		assertEquals(0, new SortedFeatureInputStream(stream(), sortCrits, 0, 0).count());
+	}
+
+	@Test
+	public void testStableForEqualKeys() {
+		List<String> ids = getIds(sort(new SortedFeatureInputStream(stream(), sortBy("doesNotExist", true))));
+		assertEquals(getIds(features), ids);
+	}
+
+	private FeatureInputStream stream() {
+		return new MemoryFeatureInputStream(new GenericFeatureCollection(null, features));
+	}
+
+	private static SortProperty[] sortBy(String propName, boolean ascending) {
+		return new SortProperty[] { new SortProperty(new ValueReference(new QName(APP_NS, propName)), ascending) };
+	}
+
+	private static List<Feature> sort(FeatureInputStream fis) {
+		List<Feature> sorted = new ArrayList<Feature>();
+		try {
+			for (Feature feature : fis) {
+				sorted.add(feature);
+			}
+		}
+		finally {
+			fis.close();
+		}
+		return sorted;
+	}
+
+	private static List<String> getIds(List<Feature> features) {
+		List<String> ids = new ArrayList<String>();
+		for (Feature feature : features) {
+			ids.add(feature.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Full content of a feature (references are described by their target, standard GML
+	 * properties such as <code>gml:boundedBy</code> are ignored).
+	 */
+	private static String describe(Feature feature) {
+		StringBuilder sb = new StringBuilder(feature.getId()).append('{');
+		for (Property prop : feature.getProperties()) {
+			if (prop.getName().getNamespaceURI().startsWith("http://www.opengis.net/gml")) {
+				continue;
+			}
+			sb.append(prop.getName()).append('=').append(describe(prop.getValue())).append(';');
+		}
+		return sb.append('}').toString();
+	}
+
+	private static String describe(TypedObjectNode node) {
+		if (node instanceof Reference) {
+			Reference<?> ref = (Reference<?>) node;
+			return "ref(" + ref.getURI() + (ref.isResolved() ? " -> " + ref.getReferencedObject().getId() : "") + ")";
+		}
+		if (node instanceof Feature) {
+			return describe((Feature) node);
+		}
+		if (node instanceof Geometry) {
+			return WKTWriter.write((Geometry) node);
+		}
+		if (node instanceof ElementNode) {
+			StringBuilder sb = new StringBuilder(((ElementNode) node).getName().toString()).append('[');
+			if (((ElementNode) node).getChildren() != null) {
+				for (TypedObjectNode child : ((ElementNode) node).getChildren()) {
+					sb.append(describe(child)).append(',');
+				}
+			}
+			return sb.append(']').toString();
+		}
+		return String.valueOf(node);
+	}
+
+	private static List<String> getNames(List<Feature> features) {
+		List<String> names = new ArrayList<String>();
+		for (Feature feature : features) {
+			TypedObjectNode value = feature.getProperties(new QName(APP_NS, "name")).get(0).getValue();
+			names.add(value.toString());
+		}
+		return names;
+	}
+
+}
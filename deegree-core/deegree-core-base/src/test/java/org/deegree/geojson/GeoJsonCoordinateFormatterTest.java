@@ -0,0 +1,72 @@
+package org.deegree.geojson;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class GeoJsonCoordinateFormatterTest {
+
+	@Test
+	public void testFormat_FullPrecision() {
+		GeoJsonCoordinateFormatter formatter = new GeoJsonCoordinateFormatter();
+
+		assertThat(formatter.format(7.14), is("7.14"));
+		assertThat(formatter.format(-50.68), is("-50.68"));
+		assertThat(formatter.format(0.00001), is("0.00001"));
+		assertThat(formatter.format(12345678d), is("12345678.0"));
+		assertThat(formatter.format(0.1 + 0.2), is("0.30000000000000004"));
+		assertThat(formatter.format(0d), is("0.0"));
+		assertThat(formatter.format(-0d), is("-0.0"));
+	}
+
+	@Test
+	public void testFormat_FullPrecisionFallback() {
+		GeoJsonCoordinateFormatter formatter = new GeoJsonCoordinateFormatter();
+
+		assertThat(formatter.format(1e300), is("1.0E300"));
+		assertThat(formatter.format(1e-300), is("1.0E-300"));
+	}
+
+	@Test
+	public void testFormat_FullPrecisionRoundTrip() {
+		GeoJsonCoordinateFormatter formatter = new GeoJsonCoordinateFormatter();
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			double value = (random.nextDouble() - 0.5) * 1000000;
+			assertThat(Double.parseDouble(formatter.format(value)), is(value));
+		}
+	}
+
+	@Test
+	public void testFormat_WithPrecision() {
+		GeoJsonCoordinateFormatter formatter = new GeoJsonCoordinateFormatter(3);
+
+		assertThat(formatter.format(7.14159), is("7.142"));
+		assertThat(formatter.format(-7.14159), is("-7.142"));
+		assertThat(formatter.format(50.5), is("50.5"));
+		assertThat(formatter.format(0.0004), is("0.0"));
+		assertThat(formatter.format(362000.9999), is("362001.0"));
+	}
+
+	@Test
+	public void testFormat_WithPrecisionZero() {
+		GeoJsonCoordinateFormatter formatter = new GeoJsonCoordinateFormatter(0);
+
+		assertThat(formatter.format(362000.5), is("362001.0"));
+		assertThat(formatter.format(5650123.4), is("5650123.0"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFormat_NaN() {
+		new GeoJsonCoordinateFormatter().format(Double.NaN);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPrecision() {
+		new GeoJsonCoordinateFormatter(18);
+	}
+
+}
@@ -0,0 +1,113 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.gml.schema;
+
+import static org.deegree.gml.GMLVersion.GML_31;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link GMLSchemaInfoSetCache}.
+ */
+public class GMLSchemaInfoSetCacheTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@After
+	public void clearCache() {
+		GMLSchemaInfoSetCache.clear();
+	}
+
+	@Test
+	public void testSameSchemasAreParsedOnce() throws Exception {
+		String schemaUrl = copySchema().toURI().toString();
+		GMLSchemaInfoSet infoSet = GMLSchemaInfoSetCache.get(GML_31, schemaUrl);
+		assertSame(infoSet, GMLSchemaInfoSetCache.get(GML_31, schemaUrl));
+		assertNotSame(infoSet, GMLSchemaInfoSetCache.get(null, schemaUrl));
+	}
+
+	@Test
+	public void testModifiedSchemaIsParsedAgain() throws Exception {
+		File schema = copySchema();
+		String schemaUrl = schema.toURI().toString();
+		GMLSchemaInfoSet infoSet = GMLSchemaInfoSetCache.get(GML_31, schemaUrl);
+		String hash = GMLSchemaInfoSetCache.hashContents(infoSet);
+		Files.write(schema.toPath(), "<!-- modified -->".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		assertNotEquals(hash, GMLSchemaInfoSetCache.hashContents(infoSet));
+		GMLSchemaInfoSet reparsed = GMLSchemaInfoSetCache.get(GML_31, schemaUrl);
+		assertNotSame(infoSet, reparsed);
+		assertSame(reparsed, GMLSchemaInfoSetCache.get(GML_31, schemaUrl));
+	}
+
+	@Test
+	public void testKeyIgnoresOrderOfUrls() {
+		assertEquals(GMLSchemaInfoSetCache.createKey(GML_31, "file:/a.xsd", "file:/b.xsd"),
+				GMLSchemaInfoSetCache.createKey(GML_31, "file:/b.xsd", "file:/a.xsd"));
+	}
+
+	@Test
+	public void testAppSchemaFromCachedInfoSet() throws Exception {
+		String schemaUrl = copySchema().toURI().toString();
+		GMLAppSchemaReader reader1 = new GMLAppSchemaReader(GML_31, null, schemaUrl);
+		GMLAppSchemaReader reader2 = new GMLAppSchemaReader(GML_31, null, schemaUrl);
+		assertSame(reader1.extractAppSchema().getGMLSchema(), reader2.extractAppSchema().getGMLSchema());
+		assertEquals(reader1.extractAppSchema().getFeatureTypes().length,
+				reader2.extractAppSchema().getFeatureTypes().length);
+	}
+
+	private File copySchema() throws Exception {
+		File schema = new File(tmp.getRoot(), "Philosopher.xsd");
+		try (InputStream is = getClass().getResourceAsStream("../misc/schema/Philosopher.xsd")) {
+			Files.copy(is, schema.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		return schema;
+	}
+
+}
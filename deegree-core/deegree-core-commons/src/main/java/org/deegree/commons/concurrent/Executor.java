@@ -76,7 +76,7 @@ public class Executor {
 	 * Private constructor required for singleton pattern.
 	 */
 	private Executor() {
-		this.execService = Executors.newCachedThreadPool();
+		this.execService = VirtualThreads.newExecutor("deegree-executor-", Executors::newCachedThreadPool);
 	}
 
 	/**
@@ -0,0 +1,161 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.concurrent;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.slf4j.Logger;
+
+/**
+ * Provides executors for internal fan-out (e.g. fetching tiles or features in parallel)
+ * that use virtual threads, if enabled by <code>deegree.threads.virtual</code> and
+ * supported by the JVM (Java 21 or later).
+ * <p>
+ * Virtual threads are cheap to create and don't block a platform thread while waiting
+ * for I/O (JDBC, HTTP, files), so tasks that mostly wait for upstream servers don't need
+ * a bounded pool. Tasks that hold scarce resources still need to be bounded, see
+ * {@link #newFixedExecutor(String, int)}. As deegree is built for Java 17, the virtual thread API is accessed
+ * reflectively.
+ * </p>
+ */
+public final class VirtualThreads {
+
+	private static final Logger LOG = getLogger(VirtualThreads.class);
+
+	private static final boolean REQUESTED = TunableParameter.get("deegree.threads.virtual", false);
+
+	private static final Method OF_VIRTUAL;
+
+	private static final Method NAME;
+
+	private static final Method FACTORY;
+
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method newThreadPerTaskExecutor = null;
+		if (REQUESTED) {
+			try {
+				Class<?> builder = Class.forName("java.lang.Thread$Builder");
+				ofVirtual = Thread.class.getMethod("ofVirtual");
+				name = builder.getMethod("name", String.class, long.class);
+				factory = builder.getMethod("factory");
+				newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+				LOG.info("Using virtual threads for internal tasks.");
+			}
+			catch (ReflectiveOperationException e) {
+				LOG.warn("Virtual threads have been requested, but require Java 21 or later (running on {}).",
+						Runtime.version());
+				ofVirtual = null;
+			}
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+		// avoid instantiation
+	}
+
+	/**
+	 * @return <code>true</code>, if virtual threads are enabled and supported
+	 */
+	public static boolean isEnabled() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Returns an executor that starts a new virtual thread for each task, if virtual
+	 * threads are enabled, otherwise the executor created by the given supplier.
+	 * @param namePrefix prefix of the thread names, must not be <code>null</code>
+	 * @param platformExecutor creates the executor to use if virtual threads are not
+	 * enabled, must not be <code>null</code>
+	 * @return executor, never <code>null</code>
+	 */
+	public static ExecutorService newExecutor(String namePrefix, Supplier<ExecutorService> platformExecutor) {
+		ThreadFactory factory = newFactory(namePrefix);
+		if (factory != null) {
+			try {
+				return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+			}
+			catch (ReflectiveOperationException e) {
+				LOG.warn("Could not create virtual thread executor: {}", e.getMessage());
+			}
+		}
+		return platformExecutor.get();
+	}
+
+	/**
+	 * Returns an executor that runs at most the given number of tasks concurrently (on
+	 * virtual threads, if enabled), further tasks are queued. Use this for tasks that
+	 * hold scarce resources (e.g. JDBC connections) while running.
+	 * @param namePrefix prefix of the thread names, must not be <code>null</code>
+	 * @param threads maximum number of concurrently running tasks
+	 * @return executor, never <code>null</code>
+	 */
+	public static ExecutorService newFixedExecutor(String namePrefix, int threads) {
+		ThreadFactory factory = newFactory(namePrefix);
+		if (factory != null) {
+			return Executors.newFixedThreadPool(threads, factory);
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+
+	private static ThreadFactory newFactory(String namePrefix) {
+		if (isEnabled()) {
+			try {
+				Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+				return (ThreadFactory) FACTORY.invoke(builder);
+			}
+			catch (ReflectiveOperationException e) {
+				LOG.warn("Could not create virtual thread factory: {}", e.getMessage());
+			}
+		}
+		return null;
+	}
+
+}
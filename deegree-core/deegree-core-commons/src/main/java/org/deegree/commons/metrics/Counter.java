@@ -0,0 +1,86 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Metric} that counts events, e.g. cache hits.
+ */
+public class Counter extends Metric {
+
+	static final Counter DISABLED = new Counter("disabled", "", new String[0], false);
+
+	private final LongAdder count = new LongAdder();
+
+	private final boolean enabled;
+
+	Counter(String name, String help, String[] labels, boolean enabled) {
+		super(name, help, labels);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Increments the counter by one.
+	 */
+	public void increment() {
+		if (enabled) {
+			count.increment();
+		}
+	}
+
+	/**
+	 * Increments the counter.
+	 * @param value value to add, must not be negative
+	 */
+	public void add(long value) {
+		if (enabled) {
+			count.add(value);
+		}
+	}
+
+	/**
+	 * @return the current value
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public Type getType() {
+		return Type.COUNTER;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Base class of all metrics: a named time series with a fixed set of labels.
+ */
+public abstract class Metric {
+
+	/**
+	 * Types of metrics, corresponds to the metric types of the Prometheus text format.
+	 */
+	public enum Type {
+
+		/** monotonically increasing value */
+		COUNTER,
+
+		/** value that can go up and down */
+		GAUGE,
+
+		/** distribution of durations */
+		HISTOGRAM
+
+	}
+
+	private final String name;
+
+	private final String help;
+
+	private final String[] labels;
+
+	/**
+	 * @param name name of the metric, must not be <code>null</code>
+	 * @param help description of the metric, must not be <code>null</code>
+	 * @param labels label names and values (alternating), must not be <code>null</code>
+	 * @throws IllegalArgumentException if the number of label names and values differs
+	 */
+	Metric(String name, String help, String[] labels) {
+		checkLabels(labels);
+		this.name = name;
+		this.help = help;
+		this.labels = labels;
+	}
+
+	/**
+	 * @return the name, never <code>null</code>
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the description, never <code>null</code>
+	 */
+	public String getHelp() {
+		return help;
+	}
+
+	/**
+	 * @return label names and values (alternating), never <code>null</code>
+	 */
+	public String[] getLabels() {
+		return labels.clone();
+	}
+
+	/**
+	 * @return the type, never <code>null</code>
+	 */
+	public abstract Type getType();
+
+	/**
+	 * @return identifier of the time series (name and labels), never <code>null</code>
+	 */
+	public String getKey() {
+		return createKey(name, labels);
+	}
+
+	static String createKey(String name, String[] labels) {
+		checkLabels(labels);
+		StringBuilder sb = new StringBuilder(name);
+		if (labels.length > 0) {
+			sb.append('{');
+			for (int i = 0; i < labels.length; i += 2) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(labels[i]).append('=').append(labels[i + 1]);
+			}
+			sb.append('}');
+		}
+		return sb.toString();
+	}
+
+	private static void checkLabels(String[] labels) {
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be given as name/value pairs: " + Arrays.toString(labels));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getKey();
+	}
+
+}
@@ -0,0 +1,180 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Keeps the {@link Metric}s, each time series (name and label values) is registered only
+ * once.
+ * <p>
+ * The number of time series is limited, as label values may be derived from requests
+ * (e.g. request names). If the limit is exceeded, new metrics are still returned, but
+ * not registered (and therefore not exported).
+ * </p>
+ *
+ * @see Metrics
+ */
+public class MetricRegistry {
+
+	private static final Logger LOG = getLogger(MetricRegistry.class);
+
+	private static final Comparator<Metric> ORDER = Comparator.comparing(Metric::getName)
+		.thenComparing(Metric::getKey);
+
+	private final ConcurrentHashMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+
+	private final int maxSeries;
+
+	private final AtomicBoolean limitLogged = new AtomicBoolean();
+
+	/**
+	 * @param maxSeries maximum number of registered time series
+	 */
+	public MetricRegistry(int maxSeries) {
+		this.maxSeries = maxSeries;
+	}
+
+	/**
+	 * Returns the {@link Timer} with the given name and labels, it is created if it does
+	 * not exist yet.
+	 * @param name name of the metric, must not be <code>null</code>
+	 * @param help description of the metric, must not be <code>null</code>
+	 * @param labels label names and values (alternating)
+	 * @return the timer, never <code>null</code>
+	 * @throws IllegalArgumentException if a metric of another type with the same name and
+	 * labels exists
+	 */
+	public Timer timer(String name, String help, String... labels) {
+		return get(Timer.class, name, labels, () -> new Timer(name, help, labels, true));
+	}
+
+	/**
+	 * Returns the {@link Counter} with the given name and labels, it is created if it does
+	 * not exist yet.
+	 * @param name name of the metric, must not be <code>null</code>
+	 * @param help description of the metric, must not be <code>null</code>
+	 * @param labels label names and values (alternating)
+	 * @return the counter, never <code>null</code>
+	 * @throws IllegalArgumentException if a metric of another type with the same name and
+	 * labels exists
+	 */
+	public Counter counter(String name, String help, String... labels) {
+		return get(Counter.class, name, labels, () -> new Counter(name, help, labels, true));
+	}
+
+	/**
+	 * Registers a {@link Gauge}, an existing gauge with the same name and labels is
+	 * replaced (e.g. after a resource has been re-initialized).
+	 * @param name name of the metric, must not be <code>null</code>
+	 * @param help description of the metric, must not be <code>null</code>
+	 * @param value provides the current value, must not be <code>null</code>
+	 * @param labels label names and values (alternating)
+	 * @return the gauge, never <code>null</code>
+	 */
+	public Gauge gauge(String name, String help, DoubleSupplier value, String... labels) {
+		Gauge gauge = new Gauge(name, help, labels, value);
+		if (metrics.containsKey(gauge.getKey()) || checkLimit(gauge.getKey())) {
+			metrics.put(gauge.getKey(), gauge);
+		}
+		return gauge;
+	}
+
+	/**
+	 * Removes the given metric.
+	 * @param metric metric to remove, must not be <code>null</code>
+	 */
+	public void remove(Metric metric) {
+		metrics.remove(metric.getKey(), metric);
+	}
+
+	/**
+	 * Removes all metrics.
+	 */
+	public void clear() {
+		metrics.clear();
+	}
+
+	/**
+	 * @return snapshot of all registered metrics, sorted by name, never <code>null</code>
+	 */
+	public List<Metric> getMetrics() {
+		List<Metric> list = new ArrayList<Metric>(metrics.values());
+		list.sort(ORDER);
+		return list;
+	}
+
+	private <T extends Metric> T get(Class<T> type, String name, String[] labels, MetricFactory<T> factory) {
+		String key = Metric.createKey(name, labels);
+		Metric metric = metrics.get(key);
+		if (metric == null) {
+			if (!checkLimit(key)) {
+				return factory.create();
+			}
+			metric = metrics.computeIfAbsent(key, k -> factory.create());
+		}
+		if (!type.isInstance(metric)) {
+			throw new IllegalArgumentException("Metric " + key + " is a " + metric.getType() + ", not a "
+					+ type.getSimpleName().toLowerCase() + ".");
+		}
+		return type.cast(metric);
+	}
+
+	private boolean checkLimit(String key) {
+		if (metrics.size() < maxSeries) {
+			return true;
+		}
+		if (limitLogged.compareAndSet(false, true)) {
+			LOG.warn("More than {} metrics, {} and further metrics are not registered.", maxSeries, key);
+		}
+		return false;
+	}
+
+	private interface MetricFactory<T extends Metric> {
+
+		T create();
+
+	}
+
+}
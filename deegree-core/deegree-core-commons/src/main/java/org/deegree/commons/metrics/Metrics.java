@@ -0,0 +1,150 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.slf4j.Logger;
+
+/**
+ * Entry point for recording metrics (request durations, cache hits, ...).
+ * <p>
+ * Metrics can be disabled with the tunable parameter <code>deegree.metrics.enabled</code>,
+ * in this case all returned timers and counters are shared no-op instances, so that
+ * instrumented code does not need to check {@link #isEnabled()} itself. The registered
+ * metrics can be exported in the Prometheus text format (see
+ * {@link PrometheusTextWriter}) and via JMX (see {@link #registerMBean()}).
+ * </p>
+ */
+public final class Metrics {
+
+	private static final Logger LOG = getLogger(Metrics.class);
+
+	private static final boolean ENABLED = TunableParameter.get("deegree.metrics.enabled", true);
+
+	private static final MetricRegistry REGISTRY = new MetricRegistry(
+			TunableParameter.get("deegree.metrics.maxSeries", 10000));
+
+	private static final String OBJECT_NAME = "org.deegree:type=Metrics";
+
+	private Metrics() {
+		// avoid instantiation
+	}
+
+	/**
+	 * @return <code>true</code> if metrics are recorded, <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return the registry, never <code>null</code>
+	 */
+	public static MetricRegistry getRegistry() {
+		return REGISTRY;
+	}
+
+	/**
+	 * @see MetricRegistry#timer(String, String, String...)
+	 */
+	public static Timer timer(String name, String help, String... labels) {
+		return ENABLED ? REGISTRY.timer(name, help, labels) : Timer.DISABLED;
+	}
+
+	/**
+	 * @see MetricRegistry#counter(String, String, String...)
+	 */
+	public static Counter counter(String name, String help, String... labels) {
+		return ENABLED ? REGISTRY.counter(name, help, labels) : Counter.DISABLED;
+	}
+
+	/**
+	 * @see MetricRegistry#gauge(String, String, DoubleSupplier, String...)
+	 */
+	public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+		if (ENABLED) {
+			REGISTRY.gauge(name, help, value, labels);
+		}
+	}
+
+	/**
+	 * Registers the {@link MetricsMBean} with the platform MBean server (if metrics are
+	 * enabled and it is not registered yet).
+	 */
+	public static synchronized void registerMBean() {
+		if (!ENABLED) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new MetricsMBean(REGISTRY), name);
+				LOG.debug("Registered metrics MBean {}.", name);
+			}
+		}
+		catch (JMException e) {
+			LOG.warn("Could not register metrics MBean: {}", e.getMessage());
+			LOG.trace("Stack trace:", e);
+		}
+	}
+
+	/**
+	 * Unregisters the {@link MetricsMBean} from the platform MBean server.
+	 */
+	public static synchronized void unregisterMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		}
+		catch (JMException e) {
+			LOG.debug("Could not unregister metrics MBean: {}", e.getMessage());
+			LOG.trace("Stack trace:", e);
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes the metrics of a {@link MetricRegistry} as read-only JMX attributes.
+ * <p>
+ * Counters and gauges are exposed with their key (name and labels), timers as
+ * <code>&lt;key&gt;.count</code>, <code>&lt;key&gt;.meanMillis</code> and
+ * <code>&lt;key&gt;.maxMillis</code>.
+ * </p>
+ */
+public class MetricsMBean implements DynamicMBean {
+
+	private static final String COUNT = ".count";
+
+	private static final String MEAN = ".meanMillis";
+
+	private static final String MAX = ".maxMillis";
+
+	private final MetricRegistry registry;
+
+	/**
+	 * @param registry registry to expose, must not be <code>null</code>
+	 */
+	public MetricsMBean(MetricRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Object value = getValues().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		Map<String, Object> values = getValues();
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			Object value = values.get(attribute);
+			if (value != null) {
+				list.add(new Attribute(attribute, value));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read-only.");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (Metric metric : registry.getMetrics()) {
+			String key = metric.getKey();
+			switch (metric.getType()) {
+				case COUNTER:
+					attributes.add(createInfo(key, Long.class, metric.getHelp()));
+					break;
+				case GAUGE:
+					attributes.add(createInfo(key, Double.class, metric.getHelp()));
+					break;
+				case HISTOGRAM:
+					attributes.add(createInfo(key + COUNT, Long.class, metric.getHelp() + " (count)"));
+					attributes.add(createInfo(key + MEAN, Double.class, metric.getHelp() + " (mean, ms)"));
+					attributes.add(createInfo(key + MAX, Double.class, metric.getHelp() + " (max, ms)"));
+					break;
+			}
+		}
+		return new MBeanInfo(getClass().getName(), "deegree metrics",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[0],
+				null);
+	}
+
+	private static MBeanAttributeInfo createInfo(String name, Class<?> type, String description) {
+		return new MBeanAttributeInfo(name, type.getName(), description, true, false, false);
+	}
+
+	private Map<String, Object> getValues() {
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		for (Metric metric : registry.getMetrics()) {
+			String key = metric.getKey();
+			if (metric instanceof Counter) {
+				values.put(key, ((Counter) metric).getCount());
+			}
+			else if (metric instanceof Gauge) {
+				values.put(key, ((Gauge) metric).getValue());
+			}
+			else if (metric instanceof Timer) {
+				Timer timer = (Timer) metric;
+				long count = timer.getCount();
+				values.put(key + COUNT, count);
+				values.put(key + MEAN, count == 0 ? 0d : timer.getTotalNanos() / 1000000d / count);
+				values.put(key + MAX, timer.getMaxNanos() / 1000000d);
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,144 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes {@link Metric}s in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * {@link Timer}s are written as histograms in seconds.
+ * </p>
+ */
+public class PrometheusTextWriter {
+
+	/** content type of the format */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private PrometheusTextWriter() {
+		// avoid instantiation
+	}
+
+	/**
+	 * Writes the given metrics.
+	 * @param metrics metrics to write, sorted by name (see
+	 * {@link MetricRegistry#getMetrics()}), must not be <code>null</code>
+	 * @param writer writer to write to, must not be <code>null</code>, is not closed
+	 * @throws IOException
+	 */
+	public static void write(List<Metric> metrics, Writer writer) throws IOException {
+		String lastName = null;
+		for (Metric metric : metrics) {
+			if (!metric.getName().equals(lastName)) {
+				lastName = metric.getName();
+				writer.write("# HELP " + lastName + " " + escapeHelp(metric.getHelp()) + "\n");
+				writer.write("# TYPE " + lastName + " " + metric.getType().name().toLowerCase() + "\n");
+			}
+			if (metric instanceof Counter) {
+				writeSample(writer, lastName, metric.getLabels(), null, Long.toString(((Counter) metric).getCount()));
+			}
+			else if (metric instanceof Gauge) {
+				writeSample(writer, lastName, metric.getLabels(), null, format(((Gauge) metric).getValue()));
+			}
+			else if (metric instanceof Timer) {
+				writeHistogram(writer, (Timer) metric);
+			}
+		}
+		writer.flush();
+	}
+
+	private static void writeHistogram(Writer writer, Timer timer) throws IOException {
+		String name = timer.getName();
+		String[] labels = timer.getLabels();
+		double[] buckets = Timer.getBuckets();
+		long[] counts = timer.getBucketCounts();
+		long cumulative = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			cumulative += counts[i];
+			writeSample(writer, name + "_bucket", labels, format(buckets[i]), Long.toString(cumulative));
+		}
+		cumulative += counts[buckets.length];
+		writeSample(writer, name + "_bucket", labels, "+Inf", Long.toString(cumulative));
+		writeSample(writer, name + "_sum", labels, null, format(timer.getTotalNanos() / 1000000000d));
+		writeSample(writer, name + "_count", labels, null, Long.toString(cumulative));
+	}
+
+	private static void writeSample(Writer writer, String name, String[] labels, String le, String value)
+			throws IOException {
+		StringBuilder sb = new StringBuilder(name);
+		if (labels.length > 0 || le != null) {
+			sb.append('{');
+			for (int i = 0; i < labels.length; i += 2) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(labels[i]).append("=\"").append(escapeLabelValue(labels[i + 1])).append('"');
+			}
+			if (le != null) {
+				if (labels.length > 0) {
+					sb.append(',');
+				}
+				sb.append("le=\"").append(le).append('"');
+			}
+			sb.append('}');
+		}
+		sb.append(' ').append(value).append('\n');
+		writer.write(sb.toString());
+	}
+
+	private static String format(double value) {
+		if (Double.isNaN(value)) {
+			return "NaN";
+		}
+		if (Double.isInfinite(value)) {
+			return value > 0 ? "+Inf" : "-Inf";
+		}
+		return Double.toString(value);
+	}
+
+	private static String escapeHelp(String help) {
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+
+	private static String escapeLabelValue(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
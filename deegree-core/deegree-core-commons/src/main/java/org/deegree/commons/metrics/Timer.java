@@ -0,0 +1,177 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Metric} that records the distribution of durations in a histogram with fixed
+ * buckets.
+ * <p>
+ * Recording is lock-free (one {@link LongAdder} per bucket), so timers can be shared by
+ * all request threads. Typical usage:
+ * </p>
+ *
+ * <pre>
+ * long start = timer.start();
+ * try {
+ *     ...
+ * }
+ * finally {
+ *     timer.stop(start);
+ * }
+ * </pre>
+ */
+public class Timer extends Metric {
+
+	private static final double[] BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10,
+			30, 60 };
+
+	private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+	static {
+		for (int i = 0; i < BUCKETS.length; i++) {
+			BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1000000000d);
+		}
+	}
+
+	static final Timer DISABLED = new Timer("disabled", "", new String[0], false);
+
+	// last element counts durations above the largest bucket
+	private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+	private final boolean enabled;
+
+	Timer(String name, String help, String[] labels, boolean enabled) {
+		super(name, help, labels);
+		this.enabled = enabled;
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @return start time to pass to {@link #stop(long)}
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the time elapsed since the given start time.
+	 * @param start value returned by {@link #start()}
+	 */
+	public void stop(long start) {
+		if (enabled) {
+			record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Records a duration.
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (!enabled) {
+			return;
+		}
+		int bucket = 0;
+		while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+			bucket++;
+		}
+		counts[bucket].increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	/**
+	 * @return upper bounds of the buckets in seconds (without the implicit infinite
+	 * bucket), never <code>null</code>
+	 */
+	public static double[] getBuckets() {
+		return BUCKETS.clone();
+	}
+
+	/**
+	 * Returns the number of recorded durations per bucket (not cumulative). As recording
+	 * is not synchronized, the values of a snapshot may be slightly inconsistent with
+	 * each other.
+	 * @return counts per bucket, the last element is the number of durations above the
+	 * largest bucket, never <code>null</code>
+	 */
+	public long[] getBucketCounts() {
+		long[] snapshot = new long[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			snapshot[i] = counts[i].sum();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return number of recorded durations
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder adder : counts) {
+			count += adder.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * @return sum of all recorded durations in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	/**
+	 * @return longest recorded duration in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	@Override
+	public Type getType() {
+		return Type.HISTOGRAM;
+	}
+
+}
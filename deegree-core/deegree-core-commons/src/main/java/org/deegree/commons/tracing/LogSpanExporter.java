@@ -0,0 +1,60 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.slf4j.Logger;
+
+/**
+ * Writes each trace as one line of OTLP/JSON to the log category
+ * <code>org.deegree.tracing</code> (level <code>INFO</code>).
+ * <p>
+ * The log configuration decides where the traces end up, e.g. in a separate file that
+ * is picked up by an OpenTelemetry collector.
+ * </p>
+ */
+public class LogSpanExporter implements SpanExporter {
+
+	private static final Logger TRACES = getLogger("org.deegree.tracing");
+
+	@Override
+	public void export(Trace trace) {
+		if (TRACES.isInfoEnabled()) {
+			TRACES.info(OtlpJson.toJson(trace));
+		}
+	}
+
+}
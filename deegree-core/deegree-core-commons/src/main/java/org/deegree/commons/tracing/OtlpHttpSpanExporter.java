@@ -0,0 +1,116 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Sends traces to an OpenTelemetry collector using OTLP/HTTP with JSON encoding.
+ * <p>
+ * Traces are sent asynchronously. If the collector is slow or not available and too
+ * many traces are pending, further traces are dropped instead of blocking requests.
+ * </p>
+ */
+public class OtlpHttpSpanExporter implements SpanExporter {
+
+	private static final Logger LOG = getLogger(OtlpHttpSpanExporter.class);
+
+	private static final int MAX_PENDING = 32;
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private final URI endpoint;
+
+	private final HttpClient client;
+
+	private final Semaphore pending = new Semaphore(MAX_PENDING);
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Creates a new {@link OtlpHttpSpanExporter}.
+	 * @param endpoint traces endpoint of the collector (e.g.
+	 * <code>http://localhost:4318/v1/traces</code>), must not be <code>null</code>
+	 */
+	public OtlpHttpSpanExporter(URI endpoint) {
+		this.endpoint = endpoint;
+		this.client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+	}
+
+	@Override
+	public void export(final Trace trace) {
+		if (!pending.tryAcquire()) {
+			if (dropped.getAndIncrement() % 1000 == 0) {
+				LOG.warn("Too many traces are pending for {}, dropping trace(s) (dropped so far: {}).", endpoint,
+						dropped.get());
+			}
+			return;
+		}
+		HttpRequest request = HttpRequest.newBuilder(endpoint)
+			.timeout(TIMEOUT)
+			.header("Content-Type", "application/json")
+			.POST(BodyPublishers.ofString(OtlpJson.toJson(trace)))
+			.build();
+		client.sendAsync(request, BodyHandlers.discarding()).whenComplete((response, e) -> {
+			pending.release();
+			if (e != null) {
+				LOG.debug("Sending trace {} to {} failed: {}", trace.getTraceId(), endpoint, e.getLocalizedMessage());
+			}
+			else if (response.statusCode() >= 300) {
+				LOG.debug("Collector {} rejected trace {} with status {}.", endpoint, trace.getTraceId(),
+						response.statusCode());
+			}
+		});
+	}
+
+	/**
+	 * @return number of traces that have been dropped so far
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+}
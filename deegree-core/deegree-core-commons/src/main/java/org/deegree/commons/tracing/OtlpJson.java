@@ -0,0 +1,127 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Encodes traces in the JSON encoding of the OpenTelemetry protocol (OTLP), as accepted
+ * by the <code>/v1/traces</code> endpoint of OpenTelemetry collectors.
+ * <p>
+ * Stage timings of the trace are added to the root span as attributes
+ * <code>deegree.stage.&lt;stage&gt;.ms</code>.
+ * </p>
+ */
+public final class OtlpJson {
+
+	static final String SERVICE_NAME = "deegree";
+
+	private static final int SPAN_KIND_INTERNAL = 1;
+
+	private static final int SPAN_KIND_SERVER = 2;
+
+	private OtlpJson() {
+		// avoid instantiation
+	}
+
+	/**
+	 * @param trace trace to encode, must not be <code>null</code>
+	 * @return OTLP/JSON <code>ExportTraceServiceRequest</code> (single line), never
+	 * <code>null</code>
+	 */
+	public static String toJson(Trace trace) {
+		StringWriter sw = new StringWriter();
+		try (JsonWriter writer = new JsonWriter(sw)) {
+			writer.beginObject().name("resourceSpans").beginArray().beginObject();
+			writer.name("resource").beginObject().name("attributes").beginArray();
+			writeAttribute(writer, "service.name", SERVICE_NAME);
+			writer.endArray().endObject();
+			writer.name("scopeSpans").beginArray().beginObject();
+			writer.name("scope").beginObject().name("name").value("org.deegree.tracing").endObject();
+			writer.name("spans").beginArray();
+			for (Span span : trace.getSpans()) {
+				writeSpan(writer, trace, span);
+			}
+			writer.endArray();
+			writer.endObject().endArray();
+			writer.endObject().endArray().endObject();
+		}
+		catch (IOException e) {
+			// cannot happen with a StringWriter
+			throw new UncheckedIOException(e);
+		}
+		return sw.toString();
+	}
+
+	private static void writeSpan(JsonWriter writer, Trace trace, Span span) throws IOException {
+		boolean isRoot = span == trace.getRoot();
+		writer.beginObject();
+		writer.name("traceId").value(trace.getTraceId());
+		writer.name("spanId").value(span.getSpanId());
+		if (span.getParentSpanId() != null) {
+			writer.name("parentSpanId").value(span.getParentSpanId());
+		}
+		writer.name("name").value(span.getName());
+		writer.name("kind").value(isRoot ? SPAN_KIND_SERVER : SPAN_KIND_INTERNAL);
+		// 64 bit integers are encoded as strings in OTLP/JSON
+		writer.name("startTimeUnixNano").value(Long.toString(span.getStartEpochNanos()));
+		writer.name("endTimeUnixNano").value(Long.toString(span.getEndEpochNanos()));
+		writer.name("attributes").beginArray();
+		for (Map.Entry<String, String> attribute : span.getAttributes().entrySet()) {
+			writeAttribute(writer, attribute.getKey(), attribute.getValue());
+		}
+		if (isRoot) {
+			for (Map.Entry<String, Long> stage : trace.getStageTimes().entrySet()) {
+				writer.beginObject().name("key").value("deegree.stage." + stage.getKey() + ".ms");
+				writer.name("value").beginObject().name("doubleValue").value(stage.getValue() / 1000000.0).endObject();
+				writer.endObject();
+			}
+		}
+		writer.endArray();
+		writer.endObject();
+	}
+
+	private static void writeAttribute(JsonWriter writer, String key, String value) throws IOException {
+		writer.beginObject().name("key").value(key);
+		writer.name("value").beginObject().name("stringValue").value(value).endObject();
+		writer.endObject();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Summarizes a trace as value of the HTTP <code>Server-Timing</code> response header.
+ * <p>
+ * The durations of spans with the same name and the stage timings are added up, the
+ * duration of the root span is reported as <code>total</code>. Example:
+ * <code>featurestore.query;dur=12.3, style;dur=4.1, render;dur=30.8, encode;dur=9.6, total;dur=61.2</code>
+ * (durations in milliseconds). Spans may be nested, so the durations don't add up to the
+ * total.
+ * </p>
+ */
+public final class ServerTiming {
+
+	/** Name of the HTTP response header. */
+	public static final String HEADER = "Server-Timing";
+
+	private ServerTiming() {
+		// avoid instantiation
+	}
+
+	/**
+	 * @param trace the trace, must not be <code>null</code>
+	 * @return header value, never <code>null</code>
+	 */
+	public static String format(Trace trace) {
+		Span root = trace.getRoot();
+		Map<String, Long> durations = new LinkedHashMap<String, Long>();
+		for (Span span : trace.getSpans()) {
+			if (span != root) {
+				durations.merge(span.getName(), span.getDurationNanos(), Long::sum);
+			}
+		}
+		for (Map.Entry<String, Long> stage : trace.getStageTimes().entrySet()) {
+			durations.merge(stage.getKey(), stage.getValue(), Long::sum);
+		}
+		durations.put("total", root.getDurationNanos());
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Long> duration : durations.entrySet()) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(toToken(duration.getKey()));
+			sb.append(String.format(Locale.ROOT, ";dur=%.1f", duration.getValue() / 1000000.0));
+		}
+		return sb.toString();
+	}
+
+	private static String toToken(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.'
+					|| c == '_' || c == '-';
+			sb.append(valid ? c : '_');
+		}
+		return sb.toString();
+	}
+
+}
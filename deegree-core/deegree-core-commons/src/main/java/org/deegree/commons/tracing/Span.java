@@ -0,0 +1,183 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation (stage) of a request, e.g. a feature store query or the encoding of
+ * an image.
+ * <p>
+ * Spans are started with {@link Tracing#start(String)} and must be closed, preferably
+ * with try-with-resources. If no trace is active on the current thread, a shared no-op
+ * instance is returned, so instrumented code does not need to check whether tracing is
+ * enabled.
+ * </p>
+ */
+public final class Span implements AutoCloseable {
+
+	static final Span NOOP = new Span(null, null, null, null);
+
+	private final Trace trace;
+
+	private final Span parent;
+
+	private final String name;
+
+	private final String spanId;
+
+	private final long startNanos;
+
+	private volatile long endNanos = -1;
+
+	private Map<String, String> attributes;
+
+	Span(Trace trace, Span parent, String name, String spanId) {
+		this.trace = trace;
+		this.parent = parent;
+		this.name = name;
+		this.spanId = spanId;
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return <code>true</code> if this span belongs to an active trace,
+	 * <code>false</code> for the no-op span
+	 */
+	public boolean isRecording() {
+		return trace != null;
+	}
+
+	/**
+	 * Sets an attribute of this span.
+	 * @param key attribute name, must not be <code>null</code>
+	 * @param value attribute value, ignored if <code>null</code>
+	 * @return this span
+	 */
+	public Span setAttribute(String key, Object value) {
+		if (trace != null && value != null) {
+			synchronized (this) {
+				if (attributes == null) {
+					attributes = new LinkedHashMap<String, String>();
+				}
+				attributes.put(key, String.valueOf(value));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Ends this span, subsequent calls have no effect.
+	 */
+	@Override
+	public void close() {
+		if (trace == null || endNanos != -1) {
+			return;
+		}
+		endNanos = System.nanoTime();
+		trace.finished(this);
+		Tracing.closed(this);
+	}
+
+	Trace getTrace() {
+		return trace;
+	}
+
+	Span getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return the name of the span, <code>null</code> for the no-op span
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the id of the span (16 hex digits), <code>null</code> for the no-op span
+	 */
+	public String getSpanId() {
+		return spanId;
+	}
+
+	/**
+	 * @return the id of the parent span, <code>null</code> for a root span without remote
+	 * parent
+	 */
+	public String getParentSpanId() {
+		if (parent != null) {
+			return parent.spanId;
+		}
+		return trace == null ? null : trace.getRemoteParentSpanId();
+	}
+
+	/**
+	 * @return start of the span in nanoseconds since the epoch
+	 */
+	public long getStartEpochNanos() {
+		return trace == null ? 0 : trace.toEpochNanos(startNanos);
+	}
+
+	/**
+	 * @return end of the span in nanoseconds since the epoch, or the current time if the
+	 * span has not been closed yet
+	 */
+	public long getEndEpochNanos() {
+		return trace == null ? 0 : trace.toEpochNanos(startNanos + getDurationNanos());
+	}
+
+	/**
+	 * @return duration of the span in nanoseconds (until now if it has not been closed
+	 * yet)
+	 */
+	public long getDurationNanos() {
+		long end = endNanos;
+		return (end == -1 ? System.nanoTime() : end) - startNanos;
+	}
+
+	/**
+	 * @return the attributes of this span, never <code>null</code>
+	 */
+	public synchronized Map<String, String> getAttributes() {
+		if (attributes == null) {
+			return Collections.emptyMap();
+		}
+		return new LinkedHashMap<String, String>(attributes);
+	}
+
+}
@@ -0,0 +1,155 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The spans and stage timings recorded while processing a single request.
+ * <p>
+ * Besides spans, a trace collects stage timings (see
+ * {@link Tracing#addStageTime(String, long)}): accumulated durations of fine grained
+ * operations (e.g. evaluating the style of each feature) that would be too expensive to
+ * record as individual spans.
+ * </p>
+ */
+public final class Trace {
+
+	static final int MAX_SPANS = 1000;
+
+	private final String traceId;
+
+	private final String remoteParentSpanId;
+
+	private final long startEpochNanos;
+
+	private final long startNanos;
+
+	private final List<Span> spans = new ArrayList<Span>();
+
+	private final Map<String, long[]> stages = new LinkedHashMap<String, long[]>();
+
+	private int droppedSpans;
+
+	private Span root;
+
+	Trace(String traceId, String remoteParentSpanId) {
+		this.traceId = traceId;
+		this.remoteParentSpanId = remoteParentSpanId;
+		this.startEpochNanos = System.currentTimeMillis() * 1000000;
+		this.startNanos = System.nanoTime();
+	}
+
+	void setRoot(Span root) {
+		this.root = root;
+	}
+
+	long toEpochNanos(long nanos) {
+		return startEpochNanos + (nanos - startNanos);
+	}
+
+	synchronized void finished(Span span) {
+		if (spans.size() < MAX_SPANS || span == root) {
+			spans.add(span);
+		}
+		else {
+			droppedSpans++;
+		}
+	}
+
+	synchronized void addStageTime(String stage, long nanos) {
+		long[] total = stages.get(stage);
+		if (total == null) {
+			stages.put(stage, new long[] { nanos });
+		}
+		else {
+			total[0] += nanos;
+		}
+	}
+
+	/**
+	 * @return the id of the trace (32 hex digits), never <code>null</code>
+	 */
+	public String getTraceId() {
+		return traceId;
+	}
+
+	/**
+	 * @return the id of the span of the caller (from the <code>traceparent</code>
+	 * header), may be <code>null</code>
+	 */
+	public String getRemoteParentSpanId() {
+		return remoteParentSpanId;
+	}
+
+	/**
+	 * @return the span that covers the whole request, never <code>null</code>
+	 */
+	public Span getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return the finished spans in the order they have been closed, never
+	 * <code>null</code>
+	 */
+	public synchronized List<Span> getSpans() {
+		return new ArrayList<Span>(spans);
+	}
+
+	/**
+	 * @return number of spans that have not been recorded because the trace already
+	 * contained {@value #MAX_SPANS} spans
+	 */
+	public synchronized int getDroppedSpans() {
+		return droppedSpans;
+	}
+
+	/**
+	 * @return accumulated stage timings in nanoseconds (key: stage name), in the order the
+	 * stages have been recorded first, never <code>null</code>
+	 */
+	public synchronized Map<String, Long> getStageTimes() {
+		Map<String, Long> times = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+			times.put(stage.getKey(), stage.getValue()[0]);
+		}
+		return times;
+	}
+
+}
@@ -0,0 +1,301 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.slf4j.Logger;
+
+/**
+ * Entry point for tracing requests.
+ * <p>
+ * A trace is started for every OGC request by the front controller (see
+ * {@link #beginTrace(String, String)}), instrumented code starts child spans with
+ * {@link #start(String)}. The current span is kept in a thread local, tasks that are
+ * executed by other threads can be bound to the current span with
+ * {@link #wrap(Callable)}. If no trace is active, {@link #start(String)} returns a shared
+ * no-op span.
+ * </p>
+ * <p>
+ * Tracing is disabled by default. It is enabled by the tunable parameter
+ * <code>deegree.tracing.enabled</code>, finished traces are then exported in the
+ * OpenTelemetry (OTLP/JSON) format, either to the log category
+ * <code>org.deegree.tracing</code> (<code>deegree.tracing.exporter=log</code>, default)
+ * or to an OTLP/HTTP collector (<code>deegree.tracing.exporter=otlp</code>, endpoint
+ * <code>deegree.tracing.otlp.endpoint</code>). Independently of the export, the tunable
+ * parameter <code>deegree.tracing.serverTiming</code> adds a <code>Server-Timing</code>
+ * header with the stage breakdown to the responses (see {@link ServerTiming}).
+ * </p>
+ */
+public final class Tracing {
+
+	private static final Logger LOG = getLogger(Tracing.class);
+
+	private static final boolean ENABLED = TunableParameter.get("deegree.tracing.enabled", false);
+
+	private static final boolean SERVER_TIMING = TunableParameter.get("deegree.tracing.serverTiming", false);
+
+	private static final ThreadLocal<Span> CURRENT = new ThreadLocal<Span>();
+
+	private static volatile SpanExporter exporter = createExporter();
+
+	private Tracing() {
+		// avoid instantiation
+	}
+
+	private static SpanExporter createExporter() {
+		if (!ENABLED) {
+			return null;
+		}
+		String type = TunableParameter.get("deegree.tracing.exporter", "log");
+		if ("otlp".equalsIgnoreCase(type)) {
+			String endpoint = TunableParameter.get("deegree.tracing.otlp.endpoint", "http://localhost:4318/v1/traces");
+			LOG.info("Exporting traces to OTLP collector at {}.", endpoint);
+			return new OtlpHttpSpanExporter(URI.create(endpoint));
+		}
+		if (!"log".equalsIgnoreCase(type)) {
+			LOG.warn("Unknown trace exporter '{}', exporting traces to the log.", type);
+		}
+		return new LogSpanExporter();
+	}
+
+	/**
+	 * @return <code>true</code> if traces are exported, <code>false</code> otherwise
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return <code>true</code> if responses should contain a <code>Server-Timing</code>
+	 * header, <code>false</code> otherwise
+	 */
+	public static boolean isServerTimingEnabled() {
+		return SERVER_TIMING;
+	}
+
+	/**
+	 * Replaces the exporter for finished traces.
+	 * @param exporter exporter to use, may be <code>null</code> (no export)
+	 */
+	public static void setExporter(SpanExporter exporter) {
+		Tracing.exporter = exporter;
+	}
+
+	/**
+	 * Starts a new trace on the current thread, if tracing or the
+	 * <code>Server-Timing</code> header is enabled.
+	 * @param name name of the root span, must not be <code>null</code>
+	 * @param traceparent value of the W3C <code>traceparent</code> header of the request,
+	 * may be <code>null</code>
+	 * @return the trace, <code>null</code> if neither tracing nor the
+	 * <code>Server-Timing</code> header is enabled
+	 */
+	public static Trace beginTrace(String name, String traceparent) {
+		if (!ENABLED && !SERVER_TIMING) {
+			return null;
+		}
+		return startTrace(name, traceparent);
+	}
+
+	static Trace startTrace(String name, String traceparent) {
+		String traceId = null;
+		String parentSpanId = null;
+		if (traceparent != null) {
+			String[] parts = traceparent.trim().split("-");
+			if (parts.length >= 4 && parts[0].matches("[0-9a-f]{2}") && !"ff".equals(parts[0])
+					&& isValidId(parts[1], 32) && isValidId(parts[2], 16)) {
+				traceId = parts[1];
+				parentSpanId = parts[2];
+			}
+			else {
+				LOG.debug("Ignoring invalid traceparent header '{}'.", traceparent);
+			}
+		}
+		if (traceId == null) {
+			traceId = newId(32);
+		}
+		Trace trace = new Trace(traceId, parentSpanId);
+		Span root = new Span(trace, null, name, newId(16));
+		trace.setRoot(root);
+		CURRENT.set(root);
+		return trace;
+	}
+
+	private static boolean isValidId(String id, int length) {
+		return id.length() == length && id.matches("[0-9a-f]+") && !id.matches("0+");
+	}
+
+	private static String newId(int length) {
+		StringBuilder sb = new StringBuilder(length);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (sb.length() < length) {
+			String hex = Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+			sb.append(hex, 0, Math.min(hex.length(), length - sb.length()));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Ends the given trace, removes it from the current thread and exports it (if
+	 * tracing is enabled).
+	 * @param trace trace to end, may be <code>null</code> (nothing happens then)
+	 */
+	public static void endTrace(Trace trace) {
+		if (trace == null) {
+			return;
+		}
+		trace.getRoot().close();
+		CURRENT.remove();
+		SpanExporter exporter = Tracing.exporter;
+		if (ENABLED && exporter != null) {
+			try {
+				exporter.export(trace);
+			}
+			catch (RuntimeException e) {
+				LOG.warn("Exporting trace {} failed: {}", trace.getTraceId(), e.getLocalizedMessage());
+				LOG.trace("Stack trace:", e);
+			}
+		}
+	}
+
+	/**
+	 * Starts a child span of the current span.
+	 * @param name name of the span, must not be <code>null</code>
+	 * @return the started span (the current span until it is closed), or a no-op span if
+	 * no trace is active on this thread, never <code>null</code>
+	 */
+	public static Span start(String name) {
+		Span parent = CURRENT.get();
+		if (parent == null) {
+			return Span.NOOP;
+		}
+		Span span = new Span(parent.getTrace(), parent, name, newId(16));
+		CURRENT.set(span);
+		return span;
+	}
+
+	/**
+	 * @return <code>true</code> if a trace is active on the current thread
+	 */
+	public static boolean isTracing() {
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Adds the given duration to a stage of the current trace. Use this instead of spans
+	 * for operations that are executed many times per request.
+	 * @param stage name of the stage, must not be <code>null</code>
+	 * @param nanos duration in nanoseconds
+	 */
+	public static void addStageTime(String stage, long nanos) {
+		Span current = CURRENT.get();
+		if (current != null) {
+			current.getTrace().addStageTime(stage, nanos);
+		}
+	}
+
+	/**
+	 * Binds the given task to the current span, so that spans started by the task
+	 * (executed by another thread) become children of the current span.
+	 * @param task task to wrap, must not be <code>null</code>
+	 * @return the wrapped task, or the task itself if no trace is active
+	 */
+	public static <T> Callable<T> wrap(final Callable<T> task) {
+		final Span parent = CURRENT.get();
+		if (parent == null) {
+			return task;
+		}
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				Span previous = CURRENT.get();
+				CURRENT.set(parent);
+				try {
+					return task.call();
+				}
+				finally {
+					restore(previous);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Binds the given task to the current span, see {@link #wrap(Callable)}.
+	 * @param task task to wrap, must not be <code>null</code>
+	 * @return the wrapped task, or the task itself if no trace is active
+	 */
+	public static Runnable wrap(final Runnable task) {
+		final Span parent = CURRENT.get();
+		if (parent == null) {
+			return task;
+		}
+		return new Runnable() {
+			@Override
+			public void run() {
+				Span previous = CURRENT.get();
+				CURRENT.set(parent);
+				try {
+					task.run();
+				}
+				finally {
+					restore(previous);
+				}
+			}
+		};
+	}
+
+	private static void restore(Span previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(previous);
+		}
+	}
+
+	static void closed(Span span) {
+		if (CURRENT.get() == span) {
+			restore(span.getParent());
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link MetricRegistry}, {@link Timer}, {@link PrometheusTextWriter} and
+ * {@link MetricsMBean}.
+ */
+public class MetricRegistryTest {
+
+	@Test
+	public void testSameSeriesIsRegisteredOnce() {
+		MetricRegistry registry = new MetricRegistry(100);
+		Timer timer = registry.timer("test_seconds", "test", "service", "wms");
+		assertSame(timer, registry.timer("test_seconds", "test", "service", "wms"));
+		assertNotSame(timer, registry.timer("test_seconds", "test", "service", "wfs"));
+		assertEquals(2, registry.getMetrics().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTypeConflict() {
+		MetricRegistry registry = new MetricRegistry(100);
+		registry.timer("test", "test");
+		registry.counter("test", "test");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOddNumberOfLabels() {
+		new MetricRegistry(100).counter("test_total", "test", "service");
+	}
+
+	@Test
+	public void testLimit() {
+		MetricRegistry registry = new MetricRegistry(1);
+		registry.counter("test_total", "test", "request", "GetMap");
+		Counter unregistered = registry.counter("test_total", "test", "request", "GetFeatureInfo");
+		unregistered.increment();
+		assertEquals(1, unregistered.getCount());
+		assertEquals(1, registry.getMetrics().size());
+	}
+
+	@Test
+	public void testTimerBuckets() {
+		Timer timer = new MetricRegistry(100).timer("test_seconds", "test");
+		timer.record(500000L);
+		timer.record(1000000L);
+		timer.record(3000000L);
+		timer.record(120000000000L);
+		long[] counts = timer.getBucketCounts();
+		assertEquals(2, counts[0]);
+		assertEquals(1, counts[2]);
+		assertEquals(1, counts[counts.length - 1]);
+		assertEquals(4, timer.getCount());
+		assertEquals(120004500000L, timer.getTotalNanos());
+		assertEquals(120000000000L, timer.getMaxNanos());
+	}
+
+	@Test
+	public void testDisabled() {
+		Timer.DISABLED.stop(Timer.DISABLED.start());
+		Counter.DISABLED.increment();
+		assertEquals(0, Timer.DISABLED.getCount());
+		assertEquals(0, Counter.DISABLED.getCount());
+	}
+
+	@Test
+	public void testPrometheusTextFormat() throws Exception {
+		MetricRegistry registry = new MetricRegistry(100);
+		registry.counter("test_hits_total", "Cache hits", "store", "a\"b").add(3);
+		registry.gauge("test_active", "Active requests", () -> 2);
+		registry.timer("test_seconds", "Duration", "service", "wms").record(2000000L);
+
+		StringWriter writer = new StringWriter();
+		PrometheusTextWriter.write(registry.getMetrics(), writer);
+		String text = writer.toString();
+
+		assertTrue(text.contains("# HELP test_hits_total Cache hits\n# TYPE test_hits_total counter\n"));
+		assertTrue(text.contains("test_hits_total{store=\"a\\\"b\"} 3\n"));
+		assertTrue(text.contains("# TYPE test_active gauge\ntest_active 2.0\n"));
+		assertTrue(text.contains("# TYPE test_seconds histogram\n"));
+		assertTrue(text.contains("test_seconds_bucket{service=\"wms\",le=\"0.001\"} 0\n"));
+		assertTrue(text.contains("test_seconds_bucket{service=\"wms\",le=\"0.0025\"} 1\n"));
+		assertTrue(text.contains("test_seconds_bucket{service=\"wms\",le=\"+Inf\"} 1\n"));
+		assertTrue(text.contains("test_seconds_sum{service=\"wms\"} 0.002\n"));
+		assertTrue(text.contains("test_seconds_count{service=\"wms\"} 1\n"));
+	}
+
+	@Test
+	public void testMBeanAttributes() throws Exception {
+		MetricRegistry registry = new MetricRegistry(100);
+		registry.counter("test_hits_total", "Cache hits", "store", "tiles").add(3);
+		registry.timer("test_seconds", "Duration").record(4000000L);
+		MetricsMBean mbean = new MetricsMBean(registry);
+
+		assertEquals(3L, mbean.getAttribute("test_hits_total{store=tiles}"));
+		assertEquals(1L, mbean.getAttribute("test_seconds.count"));
+		assertEquals(4d, mbean.getAttribute("test_seconds.meanMillis"));
+		assertArrayEquals(new String[] { "test_hits_total{store=tiles}", "test_seconds.count",
+				"test_seconds.meanMillis", "test_seconds.maxMillis" },
+				Arrays.stream(mbean.getMBeanInfo().getAttributes()).map(a -> a.getName()).toArray());
+	}
+
+}
@@ -0,0 +1,173 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link Tracing}, {@link ServerTiming} and {@link OtlpJson}.
+ */
+public class TracingTest {
+
+	private Trace trace;
+
+	@After
+	public void endTrace() {
+		Tracing.endTrace(trace);
+	}
+
+	@Test
+	public void testNoopSpanWithoutTrace() {
+		assertFalse(Tracing.isTracing());
+		Span span = Tracing.start("query");
+		assertSame(Span.NOOP, span);
+		assertFalse(span.isRecording());
+		span.setAttribute("store", "test").close();
+		assertFalse(Tracing.isTracing());
+	}
+
+	@Test
+	public void testNestedSpans() {
+		trace = Tracing.startTrace("request", null);
+		try (Span outer = Tracing.start("getmap")) {
+			try (Span inner = Tracing.start("render")) {
+				assertTrue(inner.isRecording());
+			}
+			try (Span sibling = Tracing.start("encode")) {
+				assertEquals(outer.getSpanId(), sibling.getParentSpanId());
+			}
+		}
+		trace.getRoot().close();
+
+		List<Span> spans = trace.getSpans();
+		assertEquals(4, spans.size());
+		assertEquals("render", spans.get(0).getName());
+		assertEquals("encode", spans.get(1).getName());
+		assertEquals("getmap", spans.get(2).getName());
+		assertSame(trace.getRoot(), spans.get(3));
+		assertEquals(spans.get(2).getSpanId(), spans.get(0).getParentSpanId());
+		assertEquals(trace.getRoot().getSpanId(), spans.get(2).getParentSpanId());
+		assertNull(trace.getRoot().getParentSpanId());
+		assertTrue(trace.getTraceId().matches("[0-9a-f]{32}"));
+		assertTrue(trace.getRoot().getSpanId().matches("[0-9a-f]{16}"));
+	}
+
+	@Test
+	public void testClosedSpanRestoresParent() {
+		trace = Tracing.startTrace("request", null);
+		Tracing.start("query").close();
+		Span next = Tracing.start("render");
+		assertEquals(trace.getRoot().getSpanId(), next.getParentSpanId());
+		next.close();
+	}
+
+	@Test
+	public void testTraceparentIsContinued() {
+		trace = Tracing.startTrace("request", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", trace.getTraceId());
+		assertEquals("00f067aa0ba902b7", trace.getRoot().getParentSpanId());
+	}
+
+	@Test
+	public void testInvalidTraceparentIsIgnored() {
+		trace = Tracing.startTrace("request", "00-00000000000000000000000000000000-00f067aa0ba902b7-01");
+		assertNotEquals("00000000000000000000000000000000", trace.getTraceId());
+		assertNull(trace.getRoot().getParentSpanId());
+	}
+
+	@Test
+	public void testWrappedTaskContinuesTrace() throws Exception {
+		trace = Tracing.startTrace("request", null);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			String parentId = executor.submit(Tracing.wrap(() -> {
+				try (Span span = Tracing.start("tile")) {
+					return span.getParentSpanId();
+				}
+			})).get();
+			assertEquals(trace.getRoot().getSpanId(), parentId);
+			assertFalse(executor.submit(() -> Tracing.isTracing()).get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertEquals("tile", trace.getSpans().get(0).getName());
+	}
+
+	@Test
+	public void testServerTiming() {
+		trace = Tracing.startTrace("request", null);
+		Tracing.addStageTime("style", 1500000);
+		Tracing.addStageTime("style", 2500000);
+		Tracing.start("encode").close();
+		Tracing.start("encode").close();
+		trace.getRoot().close();
+
+		String header = ServerTiming.format(trace);
+		String[] metrics = header.split(", ");
+		assertEquals(3, metrics.length);
+		assertTrue(metrics[0], metrics[0].startsWith("encode;dur="));
+		assertEquals("style;dur=4.0", metrics[1]);
+		assertTrue(metrics[2], metrics[2].startsWith("total;dur="));
+	}
+
+	@Test
+	public void testOtlpJson() {
+		trace = Tracing.startTrace("request", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+		Tracing.start("query").setAttribute("store", "roads").close();
+		Tracing.addStageTime("style", 1000000);
+		trace.getRoot().close();
+
+		String json = OtlpJson.toJson(trace);
+		assertTrue(json, json.startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\""));
+		assertTrue(json, json.contains("\"traceId\":\"4bf92f3577b34da6a3ce929d0e0e4736\""));
+		assertTrue(json, json.contains("\"parentSpanId\":\"00f067aa0ba902b7\""));
+		assertTrue(json, json.contains("{\"key\":\"store\",\"value\":{\"stringValue\":\"roads\"}}"));
+		assertTrue(json, json.contains("{\"key\":\"deegree.stage.style.ms\",\"value\":{\"doubleValue\":1.0}}"));
+	}
+
+}
@@ -37,11 +37,15 @@ package org.deegree.coverage.raster;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
+import javax.media.jai.Warp;
+import javax.media.jai.WarpGrid;
 import javax.media.jai.WarpPolynomial;
 import javax.vecmath.Point3d;
 
 import org.deegree.coverage.raster.data.RasterData;
+import org.deegree.coverage.raster.data.nio.ByteBufferRasterData;
 import org.deegree.coverage.raster.geom.RasterGeoReference;
 import org.deegree.coverage.raster.geom.RasterRect;
 import org.deegree.coverage.raster.interpolation.Interpolation;
@@ -61,6 +65,14 @@ import org.slf4j.LoggerFactory;
 /**
  * This class transforms raster to a taget coordinate system .
  *
+ * <p>
+ * The destination raster is split into tiles, which are warped in parallel using the
+ * common fork/join pool. By default, the sample positions are calculated with a
+ * polynomial that approximates the transformation, alternatively they can be
+ * interpolated from a grid of exactly transformed positions (see
+ * {@link #setWarpGridStep(int)}).
+ * </p>
+ *
  * @author <a href="mailto:tonnhofer@lat-lon.de">Oliver Tonnhofer</a>
  *
  */
@@ -72,8 +84,15 @@ public class RasterTransformer extends Transformer {
 
 	private final int refPointsGridSize = 10;
 
+	// destination tiles with less pixels are not split any further
+	private static final int TILE_SIZE = 256 * 256;
+
+	private int tileSize = TILE_SIZE;
+
 	private byte[] backgroundValue;
 
+	private int warpGridStep;
+
 	// private CoordinateSystem srcCRS;
 
 	/**
@@ -142,9 +161,6 @@ public class RasterTransformer extends Transformer {
 				srcData.setNoDataValue(backgroundValue);
 			}
 
-			// interpolation is needed.
-			Interpolation interpolation = InterpolationFactory.getInterpolation(interpolationType, srcData);
-
 			RasterRect rr = new RasterRect(0, 0, dstWidth, dstHeight);
 			RasterData dstData = srcData.createCompatibleWritableRasterData(rr, null);
 			RasterGeoReference dstREnv = RasterGeoReference
@@ -153,9 +169,16 @@ public class RasterTransformer extends Transformer {
 			// use warp to calculate the correct sample positions in the source raster.
 			// the warp is a cubic polynomial function created of 100 points in the
 			// dstEnvelope. This function will map
-			// points from the source crs to the target crs very accurate.
-			WarpPolynomial warp = createWarp(dstWidth, dstHeight, srcCRS, srcREnv, dstREnv);
-			warpTransform(warp, interpolation, dstData);
+			// points from the source crs to the target crs very accurate. Alternatively,
+			// the positions are interpolated from a grid of exactly transformed points.
+			Warp warp;
+			if (warpGridStep > 0) {
+				warp = createGridWarp(dstWidth, dstHeight, srcCRS, srcREnv, dstREnv);
+			}
+			else {
+				warp = createWarp(dstWidth, dstHeight, srcCRS, srcREnv, dstREnv);
+			}
+			warpTransform(warp, interpolationType, srcData, dstData);
 
 			return new SimpleRaster(dstData, dstEnvelope, dstREnv, null);
 		}
@@ -163,25 +186,24 @@ public class RasterTransformer extends Transformer {
 
 	/**
 	 * @param warp
-	 * @param interpolation
+	 * @param interpolationType
+	 * @param srcData
 	 * @param dstData
 	 */
-	private void warpTransform(WarpPolynomial warp, Interpolation interpolation, RasterData dstData) {
-		byte[] pixel = new byte[dstData.getBands() * dstData.getDataType().getSize()];
-		float[] srcCoords = new float[dstData.getColumns() * 2];
-		for (int y = 0; y < dstData.getRows(); y++) {
-			// look-up the pixel positions in the source raster for every pixel in this
-			// row, the srcCoords will contain
-			// the x,y ([2n],[2n+1]) values in the source raster (defined in the native
-			// CRS) for this row of pixels.
-			warp.warpRect(0, y, dstData.getColumns(), 1, srcCoords);
-			for (int x = 0; x < dstData.getColumns(); x++) {
-				// get the interpolated pixel and set the value into the result raster
-				interpolation.getPixel(srcCoords[x * 2], srcCoords[x * 2 + 1], pixel);
-				dstData.setPixel(x, y, pixel);
-			}
+	private void warpTransform(Warp warp, InterpolationType interpolationType, RasterData srcData,
+			RasterData dstData) {
+		WarpTask task = new WarpTask(warp, interpolationType, srcData, dstData,
+				new RasterRect(0, 0, dstData.getColumns(), dstData.getRows()), tileSize);
+		if (srcData instanceof ByteBufferRasterData && dstData instanceof ByteBufferRasterData) {
+			// the buffers are loaded lazily, make sure this happens before the tiles are
+			// processed concurrently
+			((ByteBufferRasterData) srcData).getByteBuffer();
+			((ByteBufferRasterData) dstData).getByteBuffer();
+			task.invoke();
+		}
+		else {
+			task.warpTile();
 		}
-
 	}
 
 	/**
@@ -255,6 +277,32 @@ public class RasterTransformer extends Transformer {
 		return WarpPolynomial.createWarp(srcCoords, 0, dstCoords, 0, srcCoords.length, 1f, 1f, 1f, 1f, polynomialOrder);
 	}
 
+	private WarpGrid createGridWarp(int dstWidth, int dstHeight, ICRS srcCRS, RasterGeoReference srcREnv,
+			RasterGeoReference dstREnv) throws TransformationException {
+		// the grid has to cover the whole destination raster, points outside of the grid
+		// would not be transformed at all
+		int xNumCells = Math.max(1, (dstWidth + warpGridStep - 1) / warpGridStep);
+		int yNumCells = Math.max(1, (dstHeight + warpGridStep - 1) / warpGridStep);
+		List<Point3d> points = new ArrayList<Point3d>((xNumCells + 1) * (yNumCells + 1));
+		for (int j = 0; j <= yNumCells; j++) {
+			for (int i = 0; i <= xNumCells; i++) {
+				double[] dstWCoords = dstREnv.getWorldCoordinate(i * warpGridStep, j * warpGridStep);
+				points.add(new Point3d(dstWCoords[0], dstWCoords[1], Double.NaN));
+			}
+		}
+		List<Point3d> resultList = transformDstToSrc(srcCRS, points);
+
+		float[] warpPositions = new float[resultList.size() * 2];
+		int k = 0;
+		for (Point3d point : resultList) {
+			double[] srcRCoords = srcREnv.getRasterCoordinateUnrounded(point.x, point.y);
+			warpPositions[k] = (float) srcRCoords[0];
+			warpPositions[k + 1] = (float) srcRCoords[1];
+			k += 2;
+		}
+		return new WarpGrid(0, warpGridStep, xNumCells, 0, warpGridStep, yNumCells, warpPositions);
+	}
+
 	private List<Point3d> transformDstToSrc(ICRS srcCRS, List<Point3d> points) throws TransformationException {
 		// transform all grid points
 		return new CoordinateTransformer(srcCRS).transform(getTargetCRS(), points);
@@ -314,6 +362,104 @@ public class RasterTransformer extends Transformer {
 		this.backgroundValue = backgroundValue == null ? null : Arrays.copyOf(backgroundValue, backgroundValue.length);
 	}
 
+	/**
+	 * Sets the step (in destination pixels) of the grid used to approximate the
+	 * transformation. If set, the positions of the grid points are transformed exactly,
+	 * all positions in between are interpolated bilinearly. This is faster than the
+	 * default polynomial approximation for large rasters and more accurate for large
+	 * areas with strong distortion.
+	 * @param warpGridStep step of the grid, <code>0</code> to use the polynomial
+	 * approximation (default)
+	 * @throws IllegalArgumentException if the step is negative
+	 */
+	public void setWarpGridStep(int warpGridStep) {
+		if (warpGridStep < 0) {
+			throw new IllegalArgumentException("The warp grid step must not be negative: " + warpGridStep);
+		}
+		this.warpGridStep = warpGridStep;
+	}
+
+	/**
+	 * Sets the maximum number of pixels of the destination tiles that are warped in one
+	 * task, {@link Integer#MAX_VALUE} to warp the whole raster in the calling thread.
+	 * @param tileSize maximum number of pixels of a tile, at least 1
+	 */
+	void setTileSize(int tileSize) {
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Warps a tile of the destination raster, tiles that are too large are split and
+	 * processed in parallel. Every tile uses its own {@link Interpolation}, as these are
+	 * not thread-safe.
+	 */
+	private static class WarpTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -4606437245542446416L;
+
+		private final Warp warp;
+
+		private final InterpolationType interpolationType;
+
+		private final RasterData srcData;
+
+		private final RasterData dstData;
+
+		private final RasterRect tile;
+
+		private final int tileSize;
+
+		private WarpTask(Warp warp, InterpolationType interpolationType, RasterData srcData, RasterData dstData,
+				RasterRect tile, int tileSize) {
+			this.warp = warp;
+			this.interpolationType = interpolationType;
+			this.srcData = srcData;
+			this.dstData = dstData;
+			this.tile = tile;
+			this.tileSize = tileSize;
+		}
+
+		@Override
+		protected void compute() {
+			if ((long) tile.width * tile.height <= tileSize) {
+				warpTile();
+				return;
+			}
+			RasterRect first;
+			RasterRect second;
+			if (tile.width >= tile.height) {
+				int half = tile.width / 2;
+				first = new RasterRect(tile.x, tile.y, half, tile.height);
+				second = new RasterRect(tile.x + half, tile.y, tile.width - half, tile.height);
+			}
+			else {
+				int half = tile.height / 2;
+				first = new RasterRect(tile.x, tile.y, tile.width, half);
+				second = new RasterRect(tile.x, tile.y + half, tile.width, tile.height - half);
+			}
+			invokeAll(new WarpTask(warp, interpolationType, srcData, dstData, first, tileSize),
+					new WarpTask(warp, interpolationType, srcData, dstData, second, tileSize));
+		}
+
+		private void warpTile() {
+			Interpolation interpolation = InterpolationFactory.getInterpolation(interpolationType, srcData);
+			byte[] pixel = new byte[dstData.getBands() * dstData.getDataType().getSize()];
+			float[] srcCoords = new float[tile.width * 2];
+			for (int y = tile.y; y < tile.y + tile.height; y++) {
+				// look-up the pixel positions in the source raster for every pixel in
+				// this row of the tile, the srcCoords will contain the x,y ([2n],[2n+1])
+				// values in the source raster (defined in the native CRS).
+				warp.warpRect(tile.x, y, tile.width, 1, srcCoords);
+				for (int x = 0; x < tile.width; x++) {
+					// get the interpolated pixel and set the value into the result raster
+					interpolation.getPixel(srcCoords[x * 2], srcCoords[x * 2 + 1], pixel);
+					dstData.setPixel(tile.x + x, y, pixel);
+				}
+			}
+		}
+
+	}
+
 	// private void debugRasterFile( AbstractRaster source ) {
 	// File tmpFile = null;
 	// try {
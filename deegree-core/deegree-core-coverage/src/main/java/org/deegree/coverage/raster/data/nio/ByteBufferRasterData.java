@@ -605,9 +605,7 @@ public abstract class ByteBufferRasterData implements RasterData {
 				System.arraycopy(getView().dataInfo.noDataPixel, b * sampleSize, result, b * sampleSize, sampleSize);
 			}
 			else {
-				ByteBuffer buf = getByteBuffer();
-				buf.position(pos);
-				buf.get(result, b * sampleSize, sampleSize);
+				getByteBuffer().get(pos, result, b * sampleSize, sampleSize);
 			}
 		}
 
@@ -624,9 +622,7 @@ public abstract class ByteBufferRasterData implements RasterData {
 					getView().dataInfo.dataSize);
 		}
 		else {
-			ByteBuffer buf = getByteBuffer();
-			buf.position(pos);
-			buf.get(result, 0, getView().dataInfo.dataSize);
+			getByteBuffer().get(pos, result, 0, getView().dataInfo.dataSize);
 		}
 		return result;
 	}
@@ -831,8 +827,7 @@ public abstract class ByteBufferRasterData implements RasterData {
 			int sampleSize = getView().dataInfo.dataSize;
 			ByteBuffer buf = getByteBuffer();
 			for (int b = 0; b < getView().dataInfo.bands; b++) {
-				buf.position(calculatePos(x, y, b));
-				buf.put(result, b * sampleSize, sampleSize);
+				buf.put(calculatePos(x, y, b), result, b * sampleSize, sampleSize);
 			}
 		}
 	}
@@ -885,9 +880,7 @@ public abstract class ByteBufferRasterData implements RasterData {
 		if (value == null || value.length < getView().dataInfo.dataSize) {
 			return;
 		}
-		ByteBuffer buf = getByteBuffer();
-		buf.position(calculatePos(x, y, band));
-		buf.put(value, 0, getView().dataInfo.dataSize);
+		getByteBuffer().put(calculatePos(x, y, band), value, 0, getView().dataInfo.dataSize);
 	}
 
 	public void setSubset(int x0, int y0, int width, int height, RasterData sourceRaster) {
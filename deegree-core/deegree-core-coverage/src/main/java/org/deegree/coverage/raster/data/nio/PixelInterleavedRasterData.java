@@ -142,9 +142,8 @@ public class PixelInterleavedRasterData extends ByteBufferRasterData {
 			System.arraycopy(dataInfo.noDataPixel, 0, result, 0, result.length);
 		}
 		else {
-			ByteBuffer data = getByteBuffer().asReadOnlyBuffer();
-			data.position(pos);
-			data.get(result, 0, dataInfo.noDataPixel.length);
+			// absolute get, does not touch the buffer position (thread-safe for readers)
+			getByteBuffer().get(pos, result, 0, dataInfo.noDataPixel.length);
 		}
 
 		return result;
@@ -157,9 +156,7 @@ public class PixelInterleavedRasterData extends ByteBufferRasterData {
 			super.setPixel(x, y, result);
 			return;
 		}
-		ByteBuffer data = getByteBuffer();
-		data.position(calculatePos(x, y));
-		data.put(result, 0, dataInfo.noDataPixel.length);
+		getByteBuffer().put(calculatePos(x, y), result, 0, dataInfo.noDataPixel.length);
 	}
 
 	@Override
@@ -0,0 +1,196 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.coverage.raster;
+
+import static org.deegree.coverage.raster.interpolation.InterpolationType.BILINEAR;
+import static org.deegree.coverage.raster.interpolation.InterpolationType.NEAREST_NEIGHBOR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.vecmath.Point3d;
+
+import org.deegree.coverage.raster.data.RasterData;
+import org.deegree.coverage.raster.data.RasterDataFactory;
+import org.deegree.coverage.raster.data.info.DataType;
+import org.deegree.coverage.raster.geom.RasterGeoReference;
+import org.deegree.coverage.raster.geom.RasterGeoReference.OriginLocation;
+import org.deegree.coverage.raster.interpolation.Interpolation;
+import org.deegree.coverage.raster.interpolation.InterpolationFactory;
+import org.deegree.coverage.raster.interpolation.InterpolationType;
+import org.deegree.cs.CoordinateTransformer;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.junit.Test;
+
+/**
+ * Compares the rasters created by the (parallel) grid warp of {@link RasterTransformer}
+ * with the rasters created by a single-threaded warp of the whole raster and with
+ * rasters where every sample position has been transformed exactly.
+ * <p>
+ * The source rasters contain a high-frequency pattern (neighbouring samples always
+ * differ), so shifting sample positions by a pixel or less changes the samples.
+ * </p>
+ */
+public class RasterTransformerTest {
+
+	// destination rasters with more pixels are split into tiles
+	private static final int TILE_SIZE = 256 * 256;
+
+	private static final int WARP_GRID_STEP = 16;
+
+	@Test
+	public void testParallelWarpMatchesSingleThreadedWarp() throws Exception {
+		SimpleRaster warped = assertWarpMatchesSingleThreadedWarp(400, 300, BILINEAR, TILE_SIZE);
+		assertTrue(warped.getColumns() * warped.getRows() > TILE_SIZE);
+	}
+
+	@Test
+	public void testWarpOfSmallTilesMatchesSingleThreadedWarp() throws Exception {
+		// many tiles with odd sizes, i.e. many seams
+		assertWarpMatchesSingleThreadedWarp(400, 300, BILINEAR, 999);
+		assertWarpMatchesSingleThreadedWarp(400, 300, NEAREST_NEIGHBOR, 999);
+	}
+
+	@Test
+	public void testGridWarpOfSmallRasterMatchesExactTransform() throws Exception {
+		SimpleRaster warped = assertGridWarpMatchesExactTransform(100, 80);
+		assertTrue(warped.getColumns() * warped.getRows() <= TILE_SIZE);
+	}
+
+	@Test
+	public void testGridWarpOfLargeRasterMatchesExactTransform() throws Exception {
+		SimpleRaster warped = assertGridWarpMatchesExactTransform(400, 300);
+		assertTrue(warped.getColumns() * warped.getRows() > TILE_SIZE);
+	}
+
+	private SimpleRaster assertWarpMatchesSingleThreadedWarp(int width, int height,
+			InterpolationType interpolationType, int tileSize) throws Exception {
+		ICRS srcCRS = CRSManager.lookup("EPSG:25832");
+		ICRS dstCRS = CRSManager.lookup("EPSG:31467");
+		SimpleRaster source = createPatternRaster(width, height, srcCRS);
+
+		RasterTransformer transformer = new RasterTransformer(dstCRS);
+		transformer.setWarpGridStep(WARP_GRID_STEP);
+		transformer.setTileSize(tileSize);
+		SimpleRaster warped = transformer.transform(source, interpolationType).getAsSimpleRaster();
+
+		RasterTransformer singleThreaded = new RasterTransformer(dstCRS);
+		singleThreaded.setWarpGridStep(WARP_GRID_STEP);
+		singleThreaded.setTileSize(Integer.MAX_VALUE);
+		SimpleRaster expected = singleThreaded.transform(source, interpolationType).getAsSimpleRaster();
+
+		assertEquals(expected.getColumns(), warped.getColumns());
+		assertEquals(expected.getRows(), warped.getRows());
+		RasterData warpedData = warped.getReadOnlyRasterData();
+		RasterData expectedData = expected.getReadOnlyRasterData();
+		for (int y = 0; y < warped.getRows(); y++) {
+			for (int x = 0; x < warped.getColumns(); x++) {
+				assertEquals("Sample at " + x + "," + y, expectedData.getByteSample(x, y, 0),
+						warpedData.getByteSample(x, y, 0));
+			}
+		}
+		return warped;
+	}
+
+	private SimpleRaster assertGridWarpMatchesExactTransform(int width, int height) throws Exception {
+		ICRS srcCRS = CRSManager.lookup("EPSG:25832");
+		ICRS dstCRS = CRSManager.lookup("EPSG:31467");
+		SimpleRaster source = createPatternRaster(width, height, srcCRS);
+
+		RasterTransformer transformer = new RasterTransformer(dstCRS);
+		transformer.setWarpGridStep(WARP_GRID_STEP);
+		SimpleRaster warped = transformer.transform(source, NEAREST_NEIGHBOR).getAsSimpleRaster();
+		RasterData warpedData = warped.getReadOnlyRasterData();
+		RasterGeoReference dstRef = warped.getRasterReference();
+
+		// transform the position of every destination pixel to the source raster
+		List<Point3d> points = new ArrayList<Point3d>(warped.getColumns() * warped.getRows());
+		for (int y = 0; y < warped.getRows(); y++) {
+			for (int x = 0; x < warped.getColumns(); x++) {
+				double[] world = dstRef.getWorldCoordinate(x, y);
+				points.add(new Point3d(world[0], world[1], Double.NaN));
+			}
+		}
+		List<Point3d> srcPoints = new CoordinateTransformer(srcCRS).transform(dstCRS, points);
+
+		RasterGeoReference srcRef = source.getRasterReference();
+		Interpolation interpolation = InterpolationFactory.getInterpolation(NEAREST_NEIGHBOR,
+				source.getReadOnlyRasterData());
+		byte[] expected = new byte[1];
+		int compared = 0;
+		int equal = 0;
+		int i = 0;
+		for (int y = 0; y < warped.getRows(); y++) {
+			for (int x = 0; x < warped.getColumns(); x++) {
+				Point3d p = srcPoints.get(i++);
+				double[] srcPos = srcRef.getRasterCoordinateUnrounded(p.x, p.y);
+				// skip the border, positions outside the source raster are no data
+				if (srcPos[0] < 1 || srcPos[1] < 1 || srcPos[0] > width - 2 || srcPos[1] > height - 2) {
+					continue;
+				}
+				interpolation.getPixel((float) srcPos[0], (float) srcPos[1], expected);
+				if (warpedData.getByteSample(x, y, 0) == expected[0]) {
+					equal++;
+				}
+				compared++;
+			}
+		}
+		assertTrue(compared > warped.getColumns() * warped.getRows() / 2);
+		// the interpolated grid positions deviate from the exact positions by far less
+		// than a pixel, only positions right at the pixel borders may select another
+		// sample, whereas shifting the positions by half a pixel changes about half of
+		// the samples
+		assertTrue(equal + " of " + compared + " samples are equal", equal >= compared * 0.99);
+		return warped;
+	}
+
+	/**
+	 * Creates a raster with 10m pixels where neighbouring samples always differ.
+	 */
+	private SimpleRaster createPatternRaster(int width, int height, ICRS crs) {
+		RasterData data = RasterDataFactory.createRasterData(width, height, DataType.BYTE, false);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				data.setByteSample(x, y, 0, (byte) ((x * 31 + y * 17) % 251));
+			}
+		}
+		RasterGeoReference ref = new RasterGeoReference(OriginLocation.OUTER, 10, -10, 500000, 5700000, crs);
+		return new SimpleRaster(data, ref.getEnvelope(width, height, crs), ref, null);
+	}
+
+}
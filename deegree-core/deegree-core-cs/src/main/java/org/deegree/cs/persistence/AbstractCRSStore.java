@@ -38,8 +38,8 @@ package org.deegree.cs.persistence;
 import static org.deegree.cs.coordinatesystems.CRS.CRSType.COMPOUND;
 import static org.deegree.cs.coordinatesystems.CRS.CRSType.PROJECTED;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.deegree.cs.CRSCodeType;
 import org.deegree.cs.CRSIdentifiable;
@@ -77,9 +77,10 @@ public abstract class AbstractCRSStore implements CRSStore {
 
 	private static Logger LOG = LoggerFactory.getLogger(AbstractCRSStore.class);
 
-	private Map<CRSCodeType, CRSResource> cachedIdentifiables = new HashMap<CRSCodeType, CRSResource>();
+	// concurrent, as the caches are read without locking
+	private Map<CRSCodeType, CRSResource> cachedIdentifiables = new ConcurrentHashMap<CRSCodeType, CRSResource>();
 
-	private Map<CRSCodeType, CRSResource> cachedCRSXY = new HashMap<CRSCodeType, CRSResource>();
+	private Map<CRSCodeType, CRSResource> cachedCRSXY = new ConcurrentHashMap<CRSCodeType, CRSResource>();
 
 	private DSTransform prefTransformType = DSTransform.HELMERT;
 
@@ -188,8 +189,8 @@ public abstract class AbstractCRSStore implements CRSStore {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(cachedIdentifiables.keySet().toString());
 		}
-		if (cache.containsKey(id)) {
-			CRSResource r = cache.get(id);
+		CRSResource r = cache.get(id);
+		if (r != null) {
 			LOG.debug("Found CRSIdentifiable: {} from given id: {}", r.getCodeAndName(), id);
 			if (!(r instanceof ICRS)) {
 				LOG.error(
@@ -417,7 +418,7 @@ public abstract class AbstractCRSStore implements CRSStore {
 		for (CRSCodeType idString : identifiable.getCodes()) {
 			// if ( idString != null && !"".equals( idString.trim() ) ) {
 			if (idString != null) {
-				if (cache.containsKey(idString) && cache.get(idString) != null) {
+				if (cache.get(idString) != null) {
 					if (update) {
 						LOG.debug("Updating cache with new identifiable: {}", idString);
 						cache.put(idString, identifiable);
@@ -48,7 +48,10 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
@@ -96,6 +99,14 @@ public class CRSManager implements Initializable, Destroyable {
 
 	private static Map<String, TransformationFactory> idToTransF = new HashMap<String, TransformationFactory>();
 
+	// guards loading of stores, uncached lookups and transformation creation (a lock
+	// instead of the class monitor, as lookups may block on I/O, which would pin virtual
+	// threads)
+	private static final ReentrantLock LOCK = new ReentrantLock();
+
+	// successfully resolved CRSs, read without locking, only written while holding LOCK
+	private static final Map<LookupKey, ICRS> lookupCache = new ConcurrentHashMap<LookupKey, ICRS>();
+
 	private Workspace workspace;
 
 	private static boolean defaultInitialized = false;
@@ -105,7 +116,8 @@ public class CRSManager implements Initializable, Destroyable {
 	}
 
 	private void initDefault() {
-		synchronized (CRSManager.class) {
+		LOCK.lock();
+		try {
 			if (defaultInitialized) {
 				return;
 			}
@@ -122,6 +134,9 @@ public class CRSManager implements Initializable, Destroyable {
 				LOG.error("The default configuration could not be loaded: {}", t.getMessage());
 			}
 		}
+		finally {
+			LOCK.unlock();
+		}
 	}
 
 	@Override
@@ -137,6 +152,7 @@ public class CRSManager implements Initializable, Destroyable {
 		idToCRSStore.clear();
 		idToTransF.clear();
 		storeIds.clear();
+		clearLookupCache();
 		defaultInitialized = false;
 		new CRSManager().initDefault();
 	}
@@ -283,6 +299,18 @@ public class CRSManager implements Initializable, Destroyable {
 				storeIds.add(id);
 			}
 			crss.init();
+			clearLookupCache();
+		}
+	}
+
+	private static void clearLookupCache() {
+		// lookups that are in progress put their results while holding the lock
+		LOCK.lock();
+		try {
+			lookupCache.clear();
+		}
+		finally {
+			LOCK.unlock();
 		}
 	}
 
@@ -404,7 +432,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * {@link CRSRef}, using all configured {@link CRSStore}s.
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(String name) throws UnknownCRSException {
+	public static ICRS lookup(String name) throws UnknownCRSException {
 		return lookup(name, false);
 	}
 
@@ -420,7 +448,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * {@link CRSRef}, using all configured {@link CRSStore}s.
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(String name, boolean forceXY) throws UnknownCRSException {
+	public static ICRS lookup(String name, boolean forceXY) throws UnknownCRSException {
 		return lookup(null, name, forceXY);
 	}
 
@@ -434,7 +462,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * {@link CRSRef}
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(CRSCodeType codeType) throws UnknownCRSException {
+	public static ICRS lookup(CRSCodeType codeType) throws UnknownCRSException {
 		return lookup(null, codeType);
 	}
 
@@ -450,7 +478,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * the given name from the {@link CRSStore} with the given id
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(String storeId, String name) throws UnknownCRSException {
+	public static ICRS lookup(String storeId, String name) throws UnknownCRSException {
 		return lookup(storeId, name, false);
 	}
 
@@ -467,8 +495,23 @@ public class CRSManager implements Initializable, Destroyable {
 	 * the given name from the {@link CRSStore} with the given id
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(String storeIdName, String name, boolean forceXY)
-			throws UnknownCRSException {
+	public static ICRS lookup(String storeIdName, String name, boolean forceXY) throws UnknownCRSException {
+		LookupKey key = new LookupKey(storeIdName, name, forceXY);
+		ICRS crs = lookupCache.get(key);
+		if (crs == null) {
+			LOCK.lock();
+			try {
+				crs = lookupUncached(storeIdName, name, forceXY);
+				lookupCache.put(key, crs);
+			}
+			finally {
+				LOCK.unlock();
+			}
+		}
+		return crs;
+	}
+
+	private static ICRS lookupUncached(String storeIdName, String name, boolean forceXY) throws UnknownCRSException {
 		CRSStore crsStore = get(storeIdName);
 		if (crsStore != null) {
 			return lookupStore(crsStore, name, forceXY);
@@ -500,7 +543,23 @@ public class CRSManager implements Initializable, Destroyable {
 	 * @return a real {@link ICRS} not just a reference.
 	 * @throws UnknownCRSException if a {@link ICRS} with the name is not known
 	 */
-	public synchronized static ICRS lookup(String storeId, CRSCodeType crsCodeType) throws UnknownCRSException {
+	public static ICRS lookup(String storeId, CRSCodeType crsCodeType) throws UnknownCRSException {
+		LookupKey key = new LookupKey(storeId, crsCodeType, false);
+		ICRS crs = lookupCache.get(key);
+		if (crs == null) {
+			LOCK.lock();
+			try {
+				crs = lookupUncached(storeId, crsCodeType);
+				lookupCache.put(key, crs);
+			}
+			finally {
+				LOCK.unlock();
+			}
+		}
+		return crs;
+	}
+
+	private static ICRS lookupUncached(String storeId, CRSCodeType crsCodeType) throws UnknownCRSException {
 		CRSStore crsStore = get(storeId);
 		if (crsStore != null) {
 			return lookupStore(crsStore, crsCodeType, false);
@@ -620,21 +679,27 @@ public class CRSManager implements Initializable, Destroyable {
 	 * @return the identified {@link Transformation} or <code>null<code> if no such
 	 * transformation is found.
 	 */
-	public synchronized static Transformation getTransformation(String storeId, String id) {
-		CRSStore crsStore = idToCRSStore.get(storeId);
-		if (crsStore == null) {
-			for (String sId : storeIds) {
-				CRSStore store = idToCRSStore.get(sId);
-				Transformation transformation = getTransformation(store, id);
-				if (transformation != null) {
-					return transformation;
+	public static Transformation getTransformation(String storeId, String id) {
+		LOCK.lock();
+		try {
+			CRSStore crsStore = idToCRSStore.get(storeId);
+			if (crsStore == null) {
+				for (String sId : storeIds) {
+					CRSStore store = idToCRSStore.get(sId);
+					Transformation transformation = getTransformation(store, id);
+					if (transformation != null) {
+						return transformation;
+					}
 				}
 			}
+			else {
+				return getTransformation(crsStore, id);
+			}
+			return null;
 		}
-		else {
-			return getTransformation(crsStore, id);
+		finally {
+			LOCK.unlock();
 		}
-		return null;
 	}
 
 	/**
@@ -654,7 +719,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * @throws TransformationException
 	 * @throws IllegalArgumentException
 	 */
-	public synchronized static Transformation getTransformation(String storeId, ICRS sourceCRS, ICRS targetCRS)
+	public static Transformation getTransformation(String storeId, ICRS sourceCRS, ICRS targetCRS)
 			throws IllegalArgumentException, TransformationException {
 		return getTransformation(storeId, sourceCRS, targetCRS, null);
 	}
@@ -678,21 +743,28 @@ public class CRSManager implements Initializable, Destroyable {
 	 * @throws TransformationException
 	 * @throws IllegalArgumentException
 	 */
-	public synchronized static Transformation getTransformation(String storeId, ICRS sourceCRS, ICRS targetCRS,
+	public static Transformation getTransformation(String storeId, ICRS sourceCRS, ICRS targetCRS,
 			List<Transformation> transformationsToBeUsed) throws IllegalArgumentException, TransformationException {
-		if (storeId != null) {
-			TransformationFactory fac = getTransformationFactory(storeId);
-			return fac.createFromCoordinateSystems(sourceCRS, targetCRS, transformationsToBeUsed);
-		}
-		else {
-			for (TransformationFactory tf : idToTransF.values()) {
-				Transformation trans = tf.createFromCoordinateSystems(sourceCRS, targetCRS, transformationsToBeUsed);
-				if (trans != null) {
-					return trans;
+		LOCK.lock();
+		try {
+			if (storeId != null) {
+				TransformationFactory fac = getTransformationFactory(storeId);
+				return fac.createFromCoordinateSystems(sourceCRS, targetCRS, transformationsToBeUsed);
+			}
+			else {
+				for (TransformationFactory tf : idToTransF.values()) {
+					Transformation trans = tf.createFromCoordinateSystems(sourceCRS, targetCRS,
+							transformationsToBeUsed);
+					if (trans != null) {
+						return trans;
+					}
 				}
 			}
+			return null;
+		}
+		finally {
+			LOCK.unlock();
 		}
-		return null;
 	}
 
 	/**
@@ -705,7 +777,7 @@ public class CRSManager implements Initializable, Destroyable {
 	 * transformation is found.
 	 * @throws IllegalArgumentException if crsStore is null
 	 */
-	private synchronized static Transformation getTransformation(CRSStore crsStore, String id) {
+	private static Transformation getTransformation(CRSStore crsStore, String id) {
 		if (crsStore == null) {
 			throw new IllegalArgumentException(Messages.get("CRSManager.STORE_NULL"));
 		}
@@ -728,7 +800,42 @@ public class CRSManager implements Initializable, Destroyable {
 			storeIds.remove(id);
 			idToCRSStore.remove(id);
 			idToTransF.remove(id);
+			clearLookupCache();
 		}
 	}
 
+	/**
+	 * Key of the lookup cache, the code is either a {@link String} or a
+	 * {@link CRSCodeType}.
+	 */
+	private static final class LookupKey {
+
+		private final String storeId;
+
+		private final Object code;
+
+		private final boolean forceXY;
+
+		private LookupKey(String storeId, Object code, boolean forceXY) {
+			this.storeId = storeId;
+			this.code = code;
+			this.forceXY = forceXY;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof LookupKey)) {
+				return false;
+			}
+			LookupKey that = (LookupKey) o;
+			return forceXY == that.forceXY && Objects.equals(storeId, that.storeId) && Objects.equals(code, that.code);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(storeId, code, forceXY);
+		}
+
+	}
+
 }
@@ -0,0 +1,112 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2026 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://ICoordinateSystem.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.cs.persistence;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.deegree.cs.CRSCodeType;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.exceptions.UnknownCRSException;
+import org.junit.Test;
+
+/**
+ * Tests the lookup of CRSs by the {@link CRSManager}, especially by concurrent threads.
+ */
+public class CRSManagerTest {
+
+	private static final String[] CODES = { "EPSG:4326", "EPSG:25832", "EPSG:31467", "EPSG:3857",
+			"urn:ogc:def:crs:EPSG::4258" };
+
+	@Test
+	public void testLookupReturnsSameInstance() throws Exception {
+		ICRS crs = CRSManager.lookup("EPSG:4326");
+		assertSame(crs, CRSManager.lookup("EPSG:4326"));
+		assertSame(crs, CRSManager.lookup(CRSCodeType.valueOf("EPSG:4326")));
+	}
+
+	@Test
+	public void testLookupForceXY() throws Exception {
+		ICRS crs = CRSManager.lookup("urn:ogc:def:crs:EPSG::4326");
+		ICRS crsXY = CRSManager.lookup("urn:ogc:def:crs:EPSG::4326", true);
+		assertNotSame(crs, crsXY);
+		assertSame(crsXY, CRSManager.lookup("urn:ogc:def:crs:EPSG::4326", true));
+		assertSame(crs, CRSManager.lookup("urn:ogc:def:crs:EPSG::4326"));
+	}
+
+	@Test(expected = UnknownCRSException.class)
+	public void testLookupUnknown() throws Exception {
+		CRSManager.lookup("unknown");
+	}
+
+	@Test
+	public void testConcurrentLookup() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<ICRS[]>> futures = new ArrayList<Future<ICRS[]>>();
+			for (int i = 0; i < 32; i++) {
+				futures.add(executor.submit(new Callable<ICRS[]>() {
+					@Override
+					public ICRS[] call() throws Exception {
+						ICRS[] result = new ICRS[CODES.length];
+						for (int j = 0; j < 100; j++) {
+							for (int k = 0; k < CODES.length; k++) {
+								result[k] = CRSManager.lookup(CODES[k]);
+							}
+						}
+						return result;
+					}
+				}));
+			}
+			for (Future<ICRS[]> future : futures) {
+				ICRS[] result = future.get();
+				for (int k = 0; k < CODES.length; k++) {
+					assertSame(CRSManager.lookup(CODES[k]), result[k]);
+				}
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+}
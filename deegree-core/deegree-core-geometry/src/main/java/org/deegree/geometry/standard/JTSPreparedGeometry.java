@@ -0,0 +1,155 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.geometry.standard;
+
+import org.deegree.geometry.Geometry;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * Wraps a {@link Geometry} that is evaluated against many other geometries (e.g. the
+ * literal of a spatial filter operator).
+ * <p>
+ * The JTS representation is built once and indexed as a JTS {@link PreparedGeometry},
+ * each predicate first compares the envelopes before the exact (indexed) evaluation is
+ * performed. The other geometries must use the same coordinate system as the prepared
+ * geometry, no transformation is performed.
+ * </p>
+ * <p>
+ * Instances of this class are thread-safe.
+ * </p>
+ */
+public class JTSPreparedGeometry {
+
+	private final Geometry geometry;
+
+	private final org.locationtech.jts.geom.Geometry jtsGeometry;
+
+	private final PreparedGeometry prepared;
+
+	private final Envelope envelope;
+
+	/**
+	 * Creates a new {@link JTSPreparedGeometry}.
+	 * @param geometry geometry to prepare, must not be <code>null</code>
+	 */
+	public JTSPreparedGeometry(Geometry geometry) {
+		this.geometry = geometry;
+		this.jtsGeometry = toJTS(geometry);
+		this.prepared = PreparedGeometryFactory.prepare(jtsGeometry);
+		this.envelope = jtsGeometry.getEnvelopeInternal();
+	}
+
+	/**
+	 * @return the prepared geometry, never <code>null</code>
+	 */
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * @param other must not be <code>null</code>
+	 * @return <code>true</code>, if the prepared geometry intersects the other geometry
+	 * @see Geometry#intersects(Geometry)
+	 */
+	public boolean intersects(Geometry other) {
+		org.locationtech.jts.geom.Geometry jtsOther = toJTS(other);
+		if (!envelope.intersects(jtsOther.getEnvelopeInternal())) {
+			return false;
+		}
+		return prepared.intersects(jtsOther);
+	}
+
+	/**
+	 * @param other must not be <code>null</code>
+	 * @return <code>true</code>, if the prepared geometry contains the other geometry
+	 * @see Geometry#contains(Geometry)
+	 */
+	public boolean contains(Geometry other) {
+		org.locationtech.jts.geom.Geometry jtsOther = toJTS(other);
+		if (!envelope.covers(jtsOther.getEnvelopeInternal())) {
+			return false;
+		}
+		return prepared.contains(jtsOther);
+	}
+
+	/**
+	 * @param other must not be <code>null</code>
+	 * @return <code>true</code>, if the prepared geometry is within the other geometry
+	 * @see Geometry#isWithin(Geometry)
+	 */
+	public boolean isWithin(Geometry other) {
+		org.locationtech.jts.geom.Geometry jtsOther = toJTS(other);
+		if (!jtsOther.getEnvelopeInternal().covers(envelope)) {
+			return false;
+		}
+		return prepared.within(jtsOther);
+	}
+
+	/**
+	 * @param other must not be <code>null</code>
+	 * @return <code>true</code>, if the prepared geometry overlaps the other geometry
+	 * @see Geometry#overlaps(Geometry)
+	 */
+	public boolean overlaps(Geometry other) {
+		org.locationtech.jts.geom.Geometry jtsOther = toJTS(other);
+		if (!envelope.intersects(jtsOther.getEnvelopeInternal())) {
+			return false;
+		}
+		return prepared.overlaps(jtsOther);
+	}
+
+	/**
+	 * @param other must not be <code>null</code>
+	 * @param distance maximum distance in units of the coordinate system
+	 * @return <code>true</code>, if the distance between the prepared geometry and the
+	 * other geometry is less than or equal to the given distance
+	 * @see Geometry#isWithinDistance(Geometry, org.deegree.commons.uom.Measure)
+	 */
+	public boolean isWithinDistance(Geometry other, double distance) {
+		org.locationtech.jts.geom.Geometry jtsOther = toJTS(other);
+		if (envelope.distance(jtsOther.getEnvelopeInternal()) > distance) {
+			return false;
+		}
+		return jtsGeometry.isWithinDistance(jtsOther, distance);
+	}
+
+	private static org.locationtech.jts.geom.Geometry toJTS(Geometry geometry) {
+		return AbstractDefaultGeometry.getAsDefaultGeometry(geometry).getJTSGeometry();
+	}
+
+}
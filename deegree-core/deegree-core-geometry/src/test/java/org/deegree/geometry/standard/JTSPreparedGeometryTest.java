@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.geometry.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.deegree.commons.uom.Measure;
+import org.deegree.cs.CRSUtils;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.WKTReader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the predicates of {@link JTSPreparedGeometry} yield the same results as the
+ * corresponding {@link Geometry} methods.
+ */
+public class JTSPreparedGeometryTest {
+
+	private static final String POLYGON = "POLYGON((0 0, 10 0, 10 10, 5 4, 0 10, 0 0),(2 1, 3 1, 3 2, 2 2, 2 1))";
+
+	private final GeometryFactory fac = new GeometryFactory();
+
+	private final List<Geometry> candidates = new ArrayList<Geometry>();
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			candidates.add(fac.createPoint(null, random.nextDouble() * 14 - 2, random.nextDouble() * 14 - 2,
+					CRSUtils.EPSG_4326));
+		}
+		WKTReader reader = new WKTReader(CRSUtils.EPSG_4326);
+		candidates.add(reader.read("LINESTRING(-1 5, 11 5)"));
+		candidates.add(reader.read("LINESTRING(1 1, 1 3)"));
+		candidates.add(reader.read("POLYGON((1 0.5, 4 0.5, 4 3, 1 3, 1 0.5))"));
+		candidates.add(reader.read("POLYGON((-1 -1, 11 -1, 11 11, -1 11, -1 -1))"));
+		candidates.add(reader.read("POLYGON((20 20, 21 20, 21 21, 20 21, 20 20))"));
+		candidates.add(reader.read(POLYGON));
+		candidates.add(fac.createEnvelope(4, 4, 6, 6, CRSUtils.EPSG_4326));
+	}
+
+	@Test
+	public void testPredicatesMatchUnprepared() throws Exception {
+		Geometry literal = new WKTReader(CRSUtils.EPSG_4326).read(POLYGON);
+		JTSPreparedGeometry prepared = new JTSPreparedGeometry(literal);
+		for (Geometry candidate : candidates) {
+			String msg = candidate.toString();
+			assertEquals(msg, literal.intersects(candidate), prepared.intersects(candidate));
+			assertEquals(msg, literal.contains(candidate), prepared.contains(candidate));
+			assertEquals(msg, literal.isWithin(candidate), prepared.isWithin(candidate));
+			assertEquals(msg, literal.overlaps(candidate), prepared.overlaps(candidate));
+			assertEquals(msg, literal.isWithinDistance(candidate, new Measure("0.5", null)),
+					prepared.isWithinDistance(candidate, 0.5));
+		}
+	}
+
+	@Test
+	public void testEnvelopeLiteral() {
+		Geometry literal = fac.createEnvelope(0, 0, 10, 10, CRSUtils.EPSG_4326);
+		JTSPreparedGeometry prepared = new JTSPreparedGeometry(literal);
+		assertTrue(prepared.intersects(fac.createPoint(null, 10, 5, CRSUtils.EPSG_4326)));
+		assertTrue(prepared.contains(fac.createPoint(null, 5, 5, CRSUtils.EPSG_4326)));
+		assertFalse(prepared.intersects(fac.createPoint(null, 10.5, 5, CRSUtils.EPSG_4326)));
+		assertFalse(prepared.contains(fac.createEnvelope(5, 5, 11, 11, CRSUtils.EPSG_4326)));
+		assertTrue(prepared.isWithin(fac.createEnvelope(-1, -1, 11, 11, CRSUtils.EPSG_4326)));
+	}
+
+}
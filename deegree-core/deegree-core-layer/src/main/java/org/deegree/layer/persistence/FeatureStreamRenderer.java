@@ -42,8 +42,10 @@ package org.deegree.layer.persistence;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.commons.utils.Triple;
 import org.deegree.feature.Feature;
 import org.deegree.feature.stream.FeatureInputStream;
@@ -86,33 +88,73 @@ public class FeatureStreamRenderer {
 		LabelRenderer labelRenderer = context.getLabelRenderer();
 		// ArrayList<Label> labelList = new ArrayList<Label>();
 
-		for (Feature f : features) {
-			if (Thread.interrupted()) {
-				throw new InterruptedException();
-			}
-			try {
-				LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evalds = style.evaluate(f,
-						(XPathEvaluator<Feature>) evaluator);
-				for (Triple<Styling, LinkedList<Geometry>, String> evald : evalds) {
-					if (evald.first instanceof TextStyling) {
-						// textRenderer.render( (TextStyling) evald.first, evald.third,
-						// evald.second );
-						// labelList.addAll(
-						labelRenderer.createLabel((TextStyling) evald.first, evald.third, evald.second);
+		// stage times are only measured if the request is traced
+		boolean traced = Tracing.isTracing();
+		long fetchNanos = 0, styleNanos = 0, renderNanos = 0, labelNanos = 0;
+		long time = traced ? System.nanoTime() : 0;
+
+		Iterator<Feature> iter = features.iterator();
+		try {
+			while (iter.hasNext()) {
+				Feature f = iter.next();
+				if (traced) {
+					long now = System.nanoTime();
+					fetchNanos += now - time;
+					time = now;
+				}
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+				try {
+					LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evalds = style.evaluate(f,
+							(XPathEvaluator<Feature>) evaluator);
+					if (traced) {
+						long now = System.nanoTime();
+						styleNanos += now - time;
+						time = now;
 					}
-					else {
-						renderer.render(evald.first, evald.second);
+					for (Triple<Styling, LinkedList<Geometry>, String> evald : evalds) {
+						if (evald.first instanceof TextStyling) {
+							// textRenderer.render( (TextStyling) evald.first, evald.third,
+							// evald.second );
+							// labelList.addAll(
+							labelRenderer.createLabel((TextStyling) evald.first, evald.third, evald.second);
+							if (traced) {
+								long now = System.nanoTime();
+								labelNanos += now - time;
+								time = now;
+							}
+						}
+						else {
+							renderer.render(evald.first, evald.second);
+							if (traced) {
+								long now = System.nanoTime();
+								renderNanos += now - time;
+								time = now;
+							}
+						}
 					}
 				}
+				catch (Throwable e) {
+					LOG.warn("Unable to render feature, probably a curve had multiple/non-linear segments.");
+					LOG.warn("Error message was: {}", e.getLocalizedMessage());
+					LOG.trace("Stack trace:", e);
+				}
+				if (maxFeatures > 0 && ++cnt == maxFeatures) {
+					LOG.debug("Reached max features of {} for layer '{}', stopping.", maxFeatures, this);
+					break;
+				}
+				if (traced) {
+					time = System.nanoTime();
+				}
 			}
-			catch (Throwable e) {
-				LOG.warn("Unable to render feature, probably a curve had multiple/non-linear segments.");
-				LOG.warn("Error message was: {}", e.getLocalizedMessage());
-				LOG.trace("Stack trace:", e);
-			}
-			if (maxFeatures > 0 && ++cnt == maxFeatures) {
-				LOG.debug("Reached max features of {} for layer '{}', stopping.", maxFeatures, this);
-				break;
+		}
+		finally {
+			if (traced) {
+				Tracing.addStageTime("features", fetchNanos);
+				Tracing.addStageTime("style", styleNanos);
+				Tracing.addStageTime("render", renderNanos);
+				Tracing.addStageTime("label.create", labelNanos);
 			}
 		}
 	}
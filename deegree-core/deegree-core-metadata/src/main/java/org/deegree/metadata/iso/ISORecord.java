@@ -240,16 +240,31 @@ public class ISORecord implements MetadataRecord {
 		this(root.getXMLStreamReader());
 	}
 
+	/**
+	 * Creates a new {@link ISORecord} instance without root element, subclasses have to
+	 * provide it by overriding {@link #getRoot()}.
+	 */
+	protected ISORecord() {
+	}
+
+	/**
+	 * Returns the root element of the record.
+	 * @return the root element, never <code>null</code>
+	 */
+	protected OMElement getRoot() {
+		return root;
+	}
+
 	private synchronized ParsedProfileElement getParsedProfileElement() {
 		if (pElem == null) {
-			pElem = new RecordPropertyParser(root).parse();
+			pElem = new RecordPropertyParser(getRoot()).parse();
 		}
 		return pElem;
 	}
 
 	@Override
 	public QName getName() {
-		return root.getQName();
+		return getRoot().getQName();
 	}
 
 	@Override
@@ -387,30 +402,30 @@ public class ISORecord implements MetadataRecord {
 	 * @throws XMLStreamException
 	 */
 	public XMLStreamReader getAsXMLStream() throws XMLStreamException {
-		root.declareDefaultNamespace("http://www.isotc211.org/2005/gmd");
-		XMLStreamReader xmlStream = root.getXMLStreamReader();
+		getRoot().declareDefaultNamespace("http://www.isotc211.org/2005/gmd");
+		XMLStreamReader xmlStream = getRoot().getXMLStreamReader();
 		XMLStreamUtils.skipStartDocument(xmlStream);
 		return xmlStream;
 	}
 
 	@Override
 	public OMElement getAsOMElement() {
-		return root;
+		return getRoot();
 	}
 
 	public byte[] getAsByteArray() throws FactoryConfigurationError {
-		root.declareDefaultNamespace("http://www.isotc211.org/2005/gmd");
+		getRoot().declareDefaultNamespace("http://www.isotc211.org/2005/gmd");
 		try {
 			ByteArrayOutputStream out = new ByteArrayOutputStream(20000);
-			root.serialize(out);
+			getRoot().serialize(out);
 			out.close();
 			return out.toByteArray();
 		}
 		catch (XMLStreamException e) {
-			return root.toString().getBytes();
+			return getRoot().toString().getBytes();
 		}
 		catch (IOException e) {
-			return root.toString().getBytes();
+			return getRoot().toString().getBytes();
 		}
 
 	}
@@ -425,7 +440,7 @@ public class ISORecord implements MetadataRecord {
 				toISOSummary(writer);
 				break;
 			case full:
-				root.serialize(writer);
+				getRoot().serialize(writer);
 				break;
 			default:
 				toISOSummary(writer);
@@ -443,7 +458,7 @@ public class ISORecord implements MetadataRecord {
 		if (!xpathEN.isEmpty()) {
 			writer = new FilteringXMLStreamWriter(writer, xpathEN);
 		}
-		root.serialize(writer);
+		getRoot().serialize(writer);
 	}
 
 	@Override
@@ -507,25 +522,25 @@ public class ISORecord implements MetadataRecord {
 	}
 
 	public String getStringFromXPath(XPath xpath) {
-		return new XMLAdapter().getNodeAsString(root, xpath, null);
+		return new XMLAdapter().getNodeAsString(getRoot(), xpath, null);
 	}
 
 	public OMElement getNodeFromXPath(XPath xpath) {
-		return new XMLAdapter().getElement(root, xpath);
+		return new XMLAdapter().getElement(getRoot(), xpath);
 	}
 
 	public String[] getStringsFromXPath(XPath xpath) {
-		return new XMLAdapter().getNodesAsStrings(root, xpath);
+		return new XMLAdapter().getNodesAsStrings(getRoot(), xpath);
 	}
 
 	private void toISOSummary(XMLStreamWriter writer) throws XMLStreamException {
 		writer = new FilteringXMLStreamWriter(writer, summaryFilterElementsXPath);
-		root.serialize(writer);
+		getRoot().serialize(writer);
 	}
 
 	private void toISOBrief(XMLStreamWriter writer) throws XMLStreamException {
 		writer = new FilteringXMLStreamWriter(writer, briefFilterElementsXPath);
-		root.serialize(writer);
+		getRoot().serialize(writer);
 	}
 
 	@Override
@@ -534,7 +549,7 @@ public class ISORecord implements MetadataRecord {
 		Object node;
 		try {
 			path = getAsXPath(propName);
-			node = path.selectSingleNode(root);
+			node = path.selectSingleNode(getRoot());
 		}
 		catch (JaxenException e) {
 			String msg = "Could not propName as xPath and locate in in the record: " + propName;
@@ -561,7 +576,7 @@ public class ISORecord implements MetadataRecord {
 		Object rootNode;
 		try {
 			path = getAsXPath(propName);
-			rootNode = path.selectSingleNode(root);
+			rootNode = path.selectSingleNode(getRoot());
 		}
 		catch (JaxenException e) {
 			String msg = "Could not propName as xPath and locate in in the record: " + propName;
@@ -605,7 +620,7 @@ public class ISORecord implements MetadataRecord {
 		Object rootNode;
 		try {
 			path = getAsXPath(propName);
-			rootNode = path.selectSingleNode(root);
+			rootNode = path.selectSingleNode(getRoot());
 		}
 		catch (JaxenException e) {
 			String msg = "Could not propName as xPath and locate in in the record: " + propName;
@@ -224,6 +224,51 @@ public class ISORecordEvaluator implements XPathEvaluator<ISORecord> {
 		QP_LANGUAGE.add(new QName(APISO_NS, "language"));
 	}
 
+	/**
+	 * @param valueRef never <code>null</code>
+	 * @return <code>true</code> if the value reference is evaluated against the AnyText
+	 * of the record, <code>false</code> otherwise
+	 */
+	public static boolean isAnyText(ValueReference valueRef) {
+		return QP_ANYTEXT.contains(valueRef.getAsQName());
+	}
+
+	/**
+	 * @param valueRef never <code>null</code>
+	 * @return <code>true</code> if the value reference is evaluated against the bounding
+	 * box of the record, <code>false</code> otherwise
+	 */
+	public static boolean isBoundingBox(ValueReference valueRef) {
+		return QP_BBOX.contains(valueRef.getAsQName());
+	}
+
+	/**
+	 * @param valueRef never <code>null</code>
+	 * @return <code>true</code> if the value reference is evaluated against the
+	 * identifier of the record, <code>false</code> otherwise
+	 */
+	public static boolean isIdentifier(ValueReference valueRef) {
+		return QP_IDENTIFIER.contains(valueRef.getAsQName());
+	}
+
+	/**
+	 * @param valueRef never <code>null</code>
+	 * @return <code>true</code> if the value reference is evaluated against the titles
+	 * of the record, <code>false</code> otherwise
+	 */
+	public static boolean isTitle(ValueReference valueRef) {
+		return QP_TITLE.contains(valueRef.getAsQName());
+	}
+
+	/**
+	 * @param valueRef never <code>null</code>
+	 * @return <code>true</code> if the value reference is evaluated against the type of
+	 * the record, <code>false</code> otherwise
+	 */
+	public static boolean isType(ValueReference valueRef) {
+		return QP_TYPE.contains(valueRef.getAsQName());
+	}
+
 	@Override
 	public TypedObjectNode[] eval(ISORecord context, ValueReference valueRef) throws FilterEvaluationException {
 		QueryableProperties qp = context.getParsedElement().getQueryableProperties();
@@ -48,15 +48,15 @@ import static java.awt.RenderingHints.VALUE_RENDER_QUALITY;
 import static java.awt.RenderingHints.VALUE_RENDER_SPEED;
 import static java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_OFF;
 import static java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON;
-import static javax.imageio.ImageIO.write;
 import static org.apache.commons.io.IOUtils.closeQuietly;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
 
-import org.deegree.style.utils.ColorQuantizer;
+import org.deegree.rendering.r2d.encoding.ImageEncoders;
 import org.deegree.style.utils.ImageUtils;
 
 /**
@@ -96,21 +96,13 @@ public class ImageRenderContext extends Java2DRenderContext {
 			graphics.dispose();
 
 			if (outputStream != null) {
-				BufferedImage image = this.image;
-				String format = this.format.substring(this.format.indexOf("/") + 1);
-				if (format.equals("x-ms-bmp")) {
-					format = "bmp";
-				}
-				if (format.equals("png; subtype=8bit") || format.equals("png; mode=8bit")) {
-					image = ColorQuantizer.quantizeImage(image, 256, false, false);
-					format = "png";
-				}
-
+				String paletteKey = getPaletteKey();
 				if (info.getSerializer() != null) {
+					BufferedImage image = ImageEncoders.prepare(this.image, format, paletteKey);
 					info.getSerializer().serialize(info, image, outputStream);
 				}
 				else {
-					return write(image, format, outputStream);
+					return ImageEncoders.encode(image, format, paletteKey, outputStream);
 				}
 			}
 		}
@@ -120,6 +112,18 @@ public class ImageRenderContext extends Java2DRenderContext {
 		return false;
 	}
 
+	/**
+	 * @return the requested layers and styles, so that images of the same layers can
+	 * share a palette, <code>null</code> if not available
+	 */
+	private String getPaletteKey() {
+		Map<String, String> parameters = info.getParameterMap();
+		if (parameters == null || parameters.get("LAYERS") == null) {
+			return null;
+		}
+		return parameters.get("LAYERS") + "|" + parameters.get("STYLES");
+	}
+
 	@Override
 	public void applyOptions(MapOptions options) {
 		applyQuality(options);
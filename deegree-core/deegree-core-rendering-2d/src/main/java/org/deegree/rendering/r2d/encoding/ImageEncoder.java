@@ -0,0 +1,69 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.encoding;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes images into a specific image format.
+ * <p>
+ * Additional implementations can be registered using the {@link java.util.ServiceLoader}
+ * mechanism, they take precedence over the built-in encoders, see {@link ImageEncoders}.
+ * Implementations must be thread-safe.
+ * </p>
+ */
+public interface ImageEncoder {
+
+	/**
+	 * @param formatName the image format name as used by {@link javax.imageio.ImageIO},
+	 * e.g. <code>png</code> or <code>jpeg</code>, never <code>null</code>
+	 * @param image the image to encode, never <code>null</code>
+	 * @return <code>true</code> if this encoder can encode the image in the given format
+	 */
+	boolean canEncode(String formatName, BufferedImage image);
+
+	/**
+	 * @param formatName the image format name, never <code>null</code>
+	 * @param image the image to encode, never <code>null</code>
+	 * @param out the stream to write to, never <code>null</code>, is not closed
+	 * @return <code>false</code> if the image could not be encoded (nothing has been
+	 * written in this case)
+	 * @throws IOException
+	 */
+	boolean encode(String formatName, BufferedImage image, OutputStream out) throws IOException;
+
+}
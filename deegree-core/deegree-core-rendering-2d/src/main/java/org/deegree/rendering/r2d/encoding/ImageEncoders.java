@@ -0,0 +1,206 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.encoding;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
+import org.deegree.style.utils.PaletteQuantizer;
+import org.slf4j.Logger;
+
+/**
+ * Entry point for encoding rendered images, selects the {@link ImageEncoder} for the
+ * requested format and keeps encoding statistics per format (also recorded as
+ * {@link Metrics}).
+ * <p>
+ * Encoders registered via {@link ServiceLoader} are asked first, then the built-in
+ * {@link PngImageEncoder} and finally the {@link ImageIOImageEncoder}. 8 bit PNG formats
+ * (<code>image/png; subtype=8bit</code>, <code>image/png; mode=8bit</code>) are converted
+ * to palette images using a {@link PaletteQuantizer} first.
+ * </p>
+ */
+public class ImageEncoders {
+
+	private static final Logger LOG = getLogger(ImageEncoders.class);
+
+	private static final List<ImageEncoder> ENCODERS = loadEncoders();
+
+	private static final PaletteQuantizer QUANTIZER = new PaletteQuantizer();
+
+	private static final Map<String, EncodingStatistics> STATISTICS = new ConcurrentHashMap<String, EncodingStatistics>();
+
+	private ImageEncoders() {
+		// avoid instantiation
+	}
+
+	private static List<ImageEncoder> loadEncoders() {
+		List<ImageEncoder> encoders = new ArrayList<ImageEncoder>();
+		for (ImageEncoder encoder : ServiceLoader.load(ImageEncoder.class)) {
+			LOG.debug("Found image encoder {}.", encoder.getClass().getName());
+			encoders.add(encoder);
+		}
+		encoders.add(new PngImageEncoder());
+		encoders.add(new ImageIOImageEncoder());
+		return Collections.unmodifiableList(encoders);
+	}
+
+	/**
+	 * Encodes the image in the given format.
+	 * @param image the image to encode, never <code>null</code>
+	 * @param format the mime type (e.g. <code>image/png</code>), never <code>null</code>
+	 * @param paletteKey identifies images that may share a palette when encoding 8 bit
+	 * PNGs (e.g. the requested layers), may be <code>null</code>
+	 * @param out the stream to write to, never <code>null</code>, is not closed
+	 * @return <code>false</code> if no encoder could encode the image, nothing has been
+	 * written in this case
+	 * @throws IOException
+	 */
+	public static boolean encode(BufferedImage image, String format, String paletteKey, OutputStream out)
+			throws IOException {
+		long start = System.nanoTime();
+		try (Span span = Tracing.start("encode").setAttribute("deegree.format", format)) {
+			String formatName = getFormatName(format);
+			image = prepare(image, format, paletteKey);
+			for (ImageEncoder encoder : ENCODERS) {
+				if (encoder.canEncode(formatName, image)) {
+					boolean encoded = encoder.encode(formatName, image, out);
+					if (encoded) {
+						long nanos = System.nanoTime() - start;
+						STATISTICS.computeIfAbsent(format, f -> new EncodingStatistics()).add(nanos);
+						Metrics.timer("deegree_image_encode_seconds", "Duration of encoding rendered images", "format",
+								format)
+							.record(nanos);
+						LOG.debug("Encoded {}x{} image as {} in {} ms using {}.", image.getWidth(), image.getHeight(),
+								format, nanos / 1000000, encoder.getClass().getSimpleName());
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Converts the image to a palette image, if 8 bit PNG is requested.
+	 * @param image the image to encode, never <code>null</code>
+	 * @param format the mime type, never <code>null</code>
+	 * @param paletteKey see {@link #encode(BufferedImage, String, String, OutputStream)}
+	 * @return the image to encode
+	 */
+	public static BufferedImage prepare(BufferedImage image, String format, String paletteKey) {
+		if (isPalettePng(format)) {
+			return QUANTIZER.quantize(image, paletteKey);
+		}
+		return image;
+	}
+
+	/**
+	 * @return the encoding statistics per mime type, never <code>null</code>
+	 */
+	public static Map<String, EncodingStatistics> getStatistics() {
+		return Collections.unmodifiableMap(new TreeMap<String, EncodingStatistics>(STATISTICS));
+	}
+
+	/**
+	 * @param format the mime type, never <code>null</code>
+	 * @return the ImageIO format name
+	 */
+	static String getFormatName(String format) {
+		String formatName = format.substring(format.indexOf("/") + 1);
+		if (formatName.equals("x-ms-bmp")) {
+			return "bmp";
+		}
+		if (isPalettePng(format)) {
+			return "png";
+		}
+		return formatName;
+	}
+
+	private static boolean isPalettePng(String format) {
+		return format.equals("image/png; subtype=8bit") || format.equals("image/png; mode=8bit");
+	}
+
+	/**
+	 * Number of encoded images and time spent for encoding (including palette
+	 * conversion).
+	 */
+	public static class EncodingStatistics {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder nanos = new LongAdder();
+
+		private void add(long nanos) {
+			this.count.increment();
+			this.nanos.add(nanos);
+		}
+
+		/**
+		 * @return number of encoded images
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * @return total encoding time in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return nanos.sum();
+		}
+
+		@Override
+		public String toString() {
+			long count = getCount();
+			return count + " images, " + (count == 0 ? 0 : getTotalNanos() / count / 1000) + " us on average";
+		}
+
+	}
+
+}
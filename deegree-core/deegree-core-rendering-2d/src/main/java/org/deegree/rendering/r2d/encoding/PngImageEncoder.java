@@ -0,0 +1,502 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.encoding;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.deegree.rendering.r2d.ImageSerializer;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+
+/**
+ * {@link ImageEncoder} for 8 bit PNG images (truecolor with or without alpha and
+ * palette images), with configurable deflate level and row filter.
+ * <p>
+ * The deflater and the row buffers are pooled and reused for subsequent images.
+ * Images that are not supported (e.g. 16 bit or packed palette images) are left to the
+ * next encoder, see {@link #canEncode(String, BufferedImage)}. The default settings
+ * produce the same output size as the ImageIO PNG writer. Lower compression levels are
+ * faster. For rendered maps, the default filter <code>NONE</code> usually produces the
+ * smallest images, <code>SUB</code> or <code>ADAPTIVE</code> only reduce the size of
+ * photographic or continuous-tone images (e.g. aerial images).
+ * </p>
+ * <p>
+ * Can also be configured as custom GetMap format (image serializer) of the WMS, the
+ * properties <code>compressionLevel</code> and <code>filter</code> are supported.
+ * </p>
+ */
+public class PngImageEncoder implements ImageEncoder, ImageSerializer {
+
+	/**
+	 * The PNG row filter.
+	 */
+	public enum Filter {
+
+		/** no filtering, fastest, usually the smallest result for rendered maps */
+		NONE,
+		/** difference to the left pixel */
+		SUB,
+		/** difference to the pixel above */
+		UP,
+		/** difference to the average of the left and upper pixel */
+		AVERAGE,
+		/** Paeth predictor */
+		PAETH,
+		/** best filter per row (by minimum sum of absolute differences) */
+		ADAPTIVE
+
+	}
+
+	private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+
+	private static final int COLOR_TYPE_TRUECOLOR = 2;
+
+	private static final int COLOR_TYPE_PALETTE = 3;
+
+	private static final int COLOR_TYPE_TRUECOLOR_ALPHA = 6;
+
+	private static final int IDAT_SIZE = 64 * 1024;
+
+	private static final Filter[] ADAPTIVE_CANDIDATES = { Filter.NONE, Filter.SUB, Filter.UP, Filter.AVERAGE,
+			Filter.PAETH };
+
+	// encoding is CPU bound, so there are rarely more concurrent encodings than cores
+	private static final BlockingQueue<Buffers> BUFFERS = new ArrayBlockingQueue<Buffers>(
+			Runtime.getRuntime().availableProcessors());
+
+	private volatile int compressionLevel = 4;
+
+	private volatile Filter filter = Filter.NONE;
+
+	/**
+	 * @param compressionLevel the deflate level, 0 (no compression) to 9 (best
+	 * compression), default is 4
+	 * @throws IllegalArgumentException if the level is out of range
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		if (compressionLevel < 0 || compressionLevel > 9) {
+			throw new IllegalArgumentException("The compression level must be between 0 and 9: " + compressionLevel);
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * @return the deflate level
+	 */
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	/**
+	 * @param filter name of the row filter, see {@link Filter}, default is
+	 * <code>NONE</code>
+	 * @throws IllegalArgumentException if the filter is unknown
+	 */
+	public void setFilter(String filter) {
+		this.filter = Filter.valueOf(filter.trim().toUpperCase());
+	}
+
+	/**
+	 * @return name of the row filter
+	 */
+	public String getFilter() {
+		return filter.name();
+	}
+
+	@Override
+	public boolean canEncode(String formatName, BufferedImage image) {
+		if (!"png".equalsIgnoreCase(formatName)) {
+			return false;
+		}
+		ColorModel colorModel = image.getColorModel();
+		if (colorModel instanceof IndexColorModel) {
+			Raster raster = image.getRaster();
+			return raster.getNumBands() == 1 && raster.getTransferType() == DataBuffer.TYPE_BYTE
+					&& raster.getSampleModel().getSampleSize(0) == 8;
+		}
+		for (int size : colorModel.getComponentSize()) {
+			if (size > 8) {
+				return false;
+			}
+		}
+		return colorModel.getNumColorComponents() == 3;
+	}
+
+	@Override
+	public void serialize(RenderingInfo rinfo, BufferedImage img, OutputStream out) throws IOException {
+		if (canEncode("png", img)) {
+			encode("png", img, out);
+		}
+		else {
+			new ImageIOImageEncoder().encode("png", img, out);
+		}
+	}
+
+	@Override
+	public boolean encode(String formatName, BufferedImage image, OutputStream out) throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		ColorModel colorModel = image.getColorModel();
+		int colorType;
+		int bytesPerPixel;
+		if (colorModel instanceof IndexColorModel) {
+			colorType = COLOR_TYPE_PALETTE;
+			bytesPerPixel = 1;
+		}
+		else if (colorModel.hasAlpha()) {
+			colorType = COLOR_TYPE_TRUECOLOR_ALPHA;
+			bytesPerPixel = 4;
+		}
+		else {
+			colorType = COLOR_TYPE_TRUECOLOR;
+			bytesPerPixel = 3;
+		}
+
+		Buffers buffers = borrowBuffers();
+		try {
+			buffers.prepare(width, bytesPerPixel);
+			Filter filter = this.filter;
+			Deflater deflater = buffers.deflater;
+			deflater.reset();
+			deflater.setLevel(compressionLevel);
+			deflater.setStrategy(filter == Filter.NONE ? Deflater.DEFAULT_STRATEGY : Deflater.FILTERED);
+
+			out.write(SIGNATURE);
+			writeHeader(buffers, out, width, height, colorType);
+			if (colorType == COLOR_TYPE_PALETTE) {
+				writePalette(buffers, out, (IndexColorModel) colorModel);
+			}
+
+			int rowLength = width * bytesPerPixel;
+			byte[] previous = buffers.previous;
+			byte[] current = buffers.current;
+			Arrays.fill(previous, 0, rowLength, (byte) 0);
+			Raster raster = image.getRaster();
+			for (int y = 0; y < height; y++) {
+				readRow(image, raster, colorType, y, buffers, current);
+				byte[] filtered = filterRow(filter, current, previous, rowLength, bytesPerPixel, buffers);
+				deflater.setInput(filtered, 0, rowLength + 1);
+				while (!deflater.needsInput()) {
+					deflate(buffers, out);
+				}
+				byte[] tmp = previous;
+				previous = current;
+				current = tmp;
+			}
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate(buffers, out);
+			}
+			if (buffers.idatLength > 0) {
+				writeChunk(buffers, out, "IDAT", buffers.idat, buffers.idatLength);
+				buffers.idatLength = 0;
+			}
+			writeChunk(buffers, out, "IEND", buffers.idat, 0);
+			return true;
+		}
+		finally {
+			returnBuffers(buffers);
+		}
+	}
+
+	private static Buffers borrowBuffers() {
+		Buffers buffers = BUFFERS.poll();
+		return buffers != null ? buffers : new Buffers();
+	}
+
+	private static void returnBuffers(Buffers buffers) {
+		if (!BUFFERS.offer(buffers)) {
+			// release the native memory of the deflater right away
+			buffers.deflater.end();
+		}
+	}
+
+	private static void deflate(Buffers buffers, OutputStream out) throws IOException {
+		int length = buffers.deflater.deflate(buffers.idat, buffers.idatLength, IDAT_SIZE - buffers.idatLength);
+		buffers.idatLength += length;
+		if (buffers.idatLength == IDAT_SIZE) {
+			writeChunk(buffers, out, "IDAT", buffers.idat, IDAT_SIZE);
+			buffers.idatLength = 0;
+		}
+	}
+
+	private static void readRow(BufferedImage image, Raster raster, int colorType, int y, Buffers buffers,
+			byte[] row) {
+		int width = image.getWidth();
+		if (colorType == COLOR_TYPE_PALETTE) {
+			raster.getDataElements(0, y, width, 1, row);
+			return;
+		}
+		int[] argb = buffers.argb;
+		int type = image.getType();
+		if (type == TYPE_INT_ARGB || type == TYPE_INT_RGB) {
+			// no color model conversion needed
+			raster.getDataElements(0, y, width, 1, argb);
+		}
+		else {
+			image.getRGB(0, y, width, 1, argb, 0, width);
+		}
+		int i = 0;
+		if (colorType == COLOR_TYPE_TRUECOLOR_ALPHA) {
+			for (int x = 0; x < width; x++) {
+				int pixel = argb[x];
+				row[i++] = (byte) (pixel >> 16);
+				row[i++] = (byte) (pixel >> 8);
+				row[i++] = (byte) pixel;
+				row[i++] = (byte) (pixel >>> 24);
+			}
+		}
+		else {
+			for (int x = 0; x < width; x++) {
+				int pixel = argb[x];
+				row[i++] = (byte) (pixel >> 16);
+				row[i++] = (byte) (pixel >> 8);
+				row[i++] = (byte) pixel;
+			}
+		}
+	}
+
+	private static byte[] filterRow(Filter filter, byte[] current, byte[] previous, int rowLength,
+			int bytesPerPixel, Buffers buffers) {
+		if (filter != Filter.ADAPTIVE) {
+			applyFilter(filter, current, previous, rowLength, bytesPerPixel, buffers.filtered);
+			return buffers.filtered;
+		}
+		byte[] best = buffers.filtered;
+		byte[] candidate = buffers.candidate;
+		long bestSum = Long.MAX_VALUE;
+		for (Filter f : ADAPTIVE_CANDIDATES) {
+			long sum = applyFilter(f, current, previous, rowLength, bytesPerPixel, candidate);
+			if (sum < bestSum) {
+				bestSum = sum;
+				byte[] tmp = best;
+				best = candidate;
+				candidate = tmp;
+			}
+		}
+		buffers.filtered = best;
+		buffers.candidate = candidate;
+		return best;
+	}
+
+	/**
+	 * @return the sum of the absolute values of the filtered bytes (as signed values)
+	 */
+	private static long applyFilter(Filter filter, byte[] current, byte[] previous, int rowLength,
+			int bytesPerPixel, byte[] result) {
+		long sum = 0;
+		switch (filter) {
+			case SUB:
+				result[0] = 1;
+				for (int i = 0; i < rowLength; i++) {
+					int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+					byte value = (byte) ((current[i] & 0xff) - left);
+					result[i + 1] = value;
+					sum += Math.abs(value);
+				}
+				break;
+			case UP:
+				result[0] = 2;
+				for (int i = 0; i < rowLength; i++) {
+					byte value = (byte) ((current[i] & 0xff) - (previous[i] & 0xff));
+					result[i + 1] = value;
+					sum += Math.abs(value);
+				}
+				break;
+			case AVERAGE:
+				result[0] = 3;
+				for (int i = 0; i < rowLength; i++) {
+					int left = i < bytesPerPixel ? 0 : current[i - bytesPerPixel] & 0xff;
+					byte value = (byte) ((current[i] & 0xff) - ((left + (previous[i] & 0xff)) >>> 1));
+					result[i + 1] = value;
+					sum += Math.abs(value);
+				}
+				break;
+			case PAETH:
+				result[0] = 4;
+				for (int i = 0; i < rowLength; i++) {
+					int left = 0;
+					int upperLeft = 0;
+					if (i >= bytesPerPixel) {
+						left = current[i - bytesPerPixel] & 0xff;
+						upperLeft = previous[i - bytesPerPixel] & 0xff;
+					}
+					byte value = (byte) ((current[i] & 0xff) - paeth(left, previous[i] & 0xff, upperLeft));
+					result[i + 1] = value;
+					sum += Math.abs(value);
+				}
+				break;
+			default:
+				result[0] = 0;
+				System.arraycopy(current, 0, result, 1, rowLength);
+				for (int i = 0; i < rowLength; i++) {
+					sum += Math.abs(current[i]);
+				}
+				break;
+		}
+		return sum;
+	}
+
+	private static int paeth(int left, int up, int upperLeft) {
+		int p = left + up - upperLeft;
+		int pLeft = Math.abs(p - left);
+		int pUp = Math.abs(p - up);
+		int pUpperLeft = Math.abs(p - upperLeft);
+		if (pLeft <= pUp && pLeft <= pUpperLeft) {
+			return left;
+		}
+		if (pUp <= pUpperLeft) {
+			return up;
+		}
+		return upperLeft;
+	}
+
+	private static void writeHeader(Buffers buffers, OutputStream out, int width, int height, int colorType)
+			throws IOException {
+		byte[] header = new byte[13];
+		writeInt(header, 0, width);
+		writeInt(header, 4, height);
+		// bit depth
+		header[8] = 8;
+		header[9] = (byte) colorType;
+		// compression, filter and interlace method
+		header[10] = 0;
+		header[11] = 0;
+		header[12] = 0;
+		writeChunk(buffers, out, "IHDR", header, header.length);
+	}
+
+	private static void writePalette(Buffers buffers, OutputStream out, IndexColorModel colorModel)
+			throws IOException {
+		int size = colorModel.getMapSize();
+		byte[] palette = new byte[size * 3];
+		byte[] alpha = new byte[size];
+		int alphaLength = 0;
+		for (int i = 0; i < size; i++) {
+			int rgb = colorModel.getRGB(i);
+			palette[i * 3] = (byte) (rgb >> 16);
+			palette[i * 3 + 1] = (byte) (rgb >> 8);
+			palette[i * 3 + 2] = (byte) rgb;
+			alpha[i] = (byte) (rgb >>> 24);
+			if ((rgb >>> 24) != 0xff) {
+				alphaLength = i + 1;
+			}
+		}
+		writeChunk(buffers, out, "PLTE", palette, palette.length);
+		if (alphaLength > 0) {
+			// trailing opaque entries may be omitted
+			writeChunk(buffers, out, "tRNS", alpha, alphaLength);
+		}
+	}
+
+	private static void writeChunk(Buffers buffers, OutputStream out, String type, byte[] data, int length)
+			throws IOException {
+		byte[] chunkHeader = buffers.chunkHeader;
+		writeInt(chunkHeader, 0, length);
+		byte[] typeBytes = type.getBytes(US_ASCII);
+		System.arraycopy(typeBytes, 0, chunkHeader, 4, 4);
+		CRC32 crc = buffers.crc;
+		crc.reset();
+		crc.update(chunkHeader, 4, 4);
+		crc.update(data, 0, length);
+		out.write(chunkHeader, 0, 8);
+		out.write(data, 0, length);
+		writeInt(chunkHeader, 0, (int) crc.getValue());
+		out.write(chunkHeader, 0, 4);
+	}
+
+	private static void writeInt(byte[] buffer, int offset, int value) {
+		buffer[offset] = (byte) (value >>> 24);
+		buffer[offset + 1] = (byte) (value >>> 16);
+		buffer[offset + 2] = (byte) (value >>> 8);
+		buffer[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Buffers of one encoding, grown as needed.
+	 */
+	private static class Buffers {
+
+		private final Deflater deflater = new Deflater();
+
+		private final CRC32 crc = new CRC32();
+
+		private final byte[] chunkHeader = new byte[8];
+
+		private final byte[] idat = new byte[IDAT_SIZE];
+
+		private int idatLength;
+
+		private int[] argb = new int[0];
+
+		private byte[] previous = new byte[0];
+
+		private byte[] current = new byte[0];
+
+		private byte[] filtered = new byte[0];
+
+		private byte[] candidate = new byte[0];
+
+		private void prepare(int width, int bytesPerPixel) {
+			int rowLength = width * bytesPerPixel;
+			idatLength = 0;
+			if (argb.length < width) {
+				argb = new int[width];
+			}
+			if (previous.length < rowLength) {
+				previous = new byte[rowLength];
+				current = new byte[rowLength];
+				filtered = new byte[rowLength + 1];
+				candidate = new byte[rowLength + 1];
+			}
+		}
+
+	}
+
+}
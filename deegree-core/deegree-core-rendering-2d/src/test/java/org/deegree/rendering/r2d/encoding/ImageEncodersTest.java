@@ -0,0 +1,175 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.encoding;
+
+import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ * <code>ImageEncodersTest</code>
+ */
+public class ImageEncodersTest {
+
+	@Test
+	public void testEncodePngWithAlpha() throws Exception {
+		BufferedImage image = createImage(TYPE_INT_ARGB, Color.RED);
+		for (String filter : new String[] { "NONE", "SUB", "UP", "AVERAGE", "PAETH", "ADAPTIVE" }) {
+			PngImageEncoder encoder = new PngImageEncoder();
+			encoder.setFilter(filter);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertTrue(encoder.encode("png", image, out));
+			assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(out.toByteArray())));
+		}
+	}
+
+	@Test
+	public void testConcurrentPngEncoding() throws Exception {
+		BufferedImage image = createImage(TYPE_INT_ARGB, Color.RED);
+		PngImageEncoder encoder = new PngImageEncoder();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		assertTrue(encoder.encode("png", image, expected));
+		// more concurrent encodings than pooled buffers
+		int threads = Runtime.getRuntime().availableProcessors() * 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+			for (int i = 0; i < threads * 8; i++) {
+				tasks.add(() -> {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					assertTrue(encoder.encode("png", image, out));
+					return out.toByteArray();
+				});
+			}
+			for (Future<byte[]> result : executor.invokeAll(tasks)) {
+				assertArrayEquals(expected.toByteArray(), result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testEncodePngWithoutAlpha() throws Exception {
+		BufferedImage image = createImage(TYPE_3BYTE_BGR, Color.GREEN);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ImageEncoders.encode(image, "image/png", null, out));
+		assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testEncodePalettePng() throws Exception {
+		BufferedImage image = createImage(TYPE_INT_ARGB, Color.BLUE);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(ImageEncoders.encode(image, "image/png; mode=8bit", null, out));
+		BufferedImage encoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+		assertTrue(encoded.getColorModel() instanceof IndexColorModel);
+		assertSamePixels(image, encoded);
+	}
+
+	@Test
+	public void testPaletteIsReused() {
+		BufferedImage first = ImageEncoders.prepare(createImage(TYPE_INT_ARGB, Color.RED), "image/png; mode=8bit",
+				"testPaletteIsReused");
+		BufferedImage second = ImageEncoders.prepare(createImage(TYPE_INT_ARGB, Color.RED), "image/png; mode=8bit",
+				"testPaletteIsReused");
+		IndexColorModel firstColors = (IndexColorModel) first.getColorModel();
+		IndexColorModel secondColors = (IndexColorModel) second.getColorModel();
+		assertEquals(firstColors.getMapSize(), secondColors.getMapSize());
+		for (int i = 0; i < firstColors.getMapSize(); i++) {
+			assertEquals(firstColors.getRGB(i), secondColors.getRGB(i));
+		}
+	}
+
+	@Test
+	public void testFormatName() {
+		assertEquals("png", ImageEncoders.getFormatName("image/png; subtype=8bit"));
+		assertEquals("bmp", ImageEncoders.getFormatName("image/x-ms-bmp"));
+		assertEquals("jpeg", ImageEncoders.getFormatName("image/jpeg"));
+	}
+
+	@Test
+	public void testNonPaletteFormatIsNotQuantized() {
+		BufferedImage image = createImage(TYPE_INT_ARGB, Color.RED);
+		assertSame(image, ImageEncoders.prepare(image, "image/png", "testNonPaletteFormatIsNotQuantized"));
+	}
+
+	private static BufferedImage createImage(int type, Color color) {
+		BufferedImage image = new BufferedImage(97, 61, type);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillOval(5, 5, 60, 40);
+		g.setColor(new Color(0, 0, 0, 128));
+		g.fillRect(40, 20, 50, 30);
+		g.dispose();
+		return image;
+	}
+
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				int expectedPixel = expected.getRGB(x, y);
+				int actualPixel = actual.getRGB(x, y);
+				if ((expectedPixel >>> 24) != 0 || (actualPixel >>> 24) != 0) {
+					assertEquals("pixel " + x + "," + y, expectedPixel, actualPixel);
+				}
+			}
+		}
+	}
+
+}
@@ -34,6 +34,13 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.sqldialect;
 
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
 /**
  * Implementations provide the vendor-specific behavior for a spatial DBMS so it can be
  * accessed by deegree.
@@ -43,6 +50,12 @@ package org.deegree.sqldialect;
  */
 public abstract class AbstractSQLDialect implements SQLDialect {
 
+	/**
+	 * Number of rows fetched at once by streaming statements if no (positive) fetch size
+	 * is given.
+	 */
+	public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
 	private char defaultEscapeChar = Character.UNASSIGNED;
 
 	@Override
@@ -60,4 +73,16 @@ public abstract class AbstractSQLDialect implements SQLDialect {
 		return true;
 	}
 
+	@Override
+	public PreparedStatement prepareStreamingStatement(Connection conn, String sql, int fetchSize)
+			throws SQLException {
+		if (requiresTransactionForCursorMode() && conn.getAutoCommit()) {
+			// otherwise, the driver silently reads the complete result set into memory
+			conn.setAutoCommit(false);
+		}
+		PreparedStatement stmt = conn.prepareStatement(sql, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY);
+		stmt.setFetchSize(fetchSize > 0 ? fetchSize : DEFAULT_STREAMING_FETCH_SIZE);
+		return stmt;
+	}
+
 }
@@ -36,6 +36,7 @@ package org.deegree.sqldialect;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
@@ -189,6 +190,24 @@ public interface SQLDialect {
 	 */
 	boolean requiresTransactionForCursorMode();
 
+	/**
+	 * Prepares a statement for reading a potentially large result set with bounded
+	 * memory usage, i.e. the rows are fetched from the database in chunks while the
+	 * result set is being iterated.
+	 * <p>
+	 * The returned statement is forward-only and read-only. If the DBMS requires a
+	 * transaction context for cursor mode (see
+	 * {@link #requiresTransactionForCursorMode()}), auto commit is switched off for the
+	 * connection.
+	 * </p>
+	 * @param conn connection to use, must not be <code>null</code>
+	 * @param sql SQL statement, must not be <code>null</code>
+	 * @param fetchSize number of rows to fetch at once, if less than 1, a default is used
+	 * @return prepared statement, never <code>null</code>
+	 * @throws SQLException
+	 */
+	PreparedStatement prepareStreamingStatement(Connection conn, String sql, int fetchSize) throws SQLException;
+
 	/**
 	 * Returns a <code>SELECT</code> statement for retrieving the next value in the
 	 * specified DB sequence.
@@ -0,0 +1,203 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.style.utils;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.awt.image.BufferedImage.TYPE_INT_RGB;
+import static java.awt.image.DataBuffer.TYPE_BYTE;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts images to 8 bit palette images.
+ * <p>
+ * Images with at most 256 distinct colors (which is typical for rendered vector data)
+ * are converted without any loss by collecting the exact colors. The palettes are kept
+ * per key (e.g. the requested layers), so subsequent images (tiles) of the same layer
+ * reuse the palette and only append new colors to it. Images with more colors are
+ * quantized using the {@link ColorQuantizer}.
+ * </p>
+ * <p>
+ * Instances of this class are thread-safe.
+ * </p>
+ */
+public class PaletteQuantizer {
+
+	private static final int MAX_COLORS = 256;
+
+	private static final int MAX_PALETTES = 1024;
+
+	// power of two, larger than MAX_COLORS to keep the probe sequences short
+	private static final int TABLE_SIZE = 1024;
+
+	private final Map<String, int[]> palettes = new ConcurrentHashMap<String, int[]>();
+
+	/**
+	 * @param image the image to convert, never <code>null</code>
+	 * @param paletteKey identifies images that should share a palette, may be
+	 * <code>null</code> (no palette reuse)
+	 * @return an image with an {@link IndexColorModel} of at most 256 colors
+	 */
+	public BufferedImage quantize(BufferedImage image, String paletteKey) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] argb = getArgb(image);
+
+		int[] previous = paletteKey == null ? null : palettes.get(paletteKey);
+		byte[] indices = new byte[width * height];
+		int[] palette = null;
+		if (previous != null) {
+			palette = createExactPalette(argb, previous, indices);
+		}
+		if (palette == null) {
+			palette = createExactPalette(argb, new int[0], indices);
+		}
+		if (palette == null) {
+			return ColorQuantizer.quantizeImage(image, MAX_COLORS, false, false);
+		}
+		if (paletteKey != null && palette != previous) {
+			if (palettes.size() >= MAX_PALETTES) {
+				palettes.clear();
+			}
+			palettes.put(paletteKey, palette);
+		}
+		return createIndexedImage(width, height, palette, indices);
+	}
+
+	/**
+	 * Removes all kept palettes.
+	 */
+	public void clear() {
+		palettes.clear();
+	}
+
+	private static int[] getArgb(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int type = image.getType();
+		if (type == TYPE_INT_ARGB || type == TYPE_INT_RGB) {
+			// no color model conversion needed
+			int[] argb = (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+			if (type == TYPE_INT_RGB) {
+				for (int i = 0; i < argb.length; i++) {
+					argb[i] |= 0xff000000;
+				}
+			}
+			return argb;
+		}
+		return image.getRGB(0, 0, width, height, null, 0, width);
+	}
+
+	/**
+	 * @return the palette (the previous one if it already contains all colors), or
+	 * <code>null</code> if the image has too many colors
+	 */
+	private static int[] createExactPalette(int[] argb, int[] previous, byte[] indices) {
+		int[] keys = new int[TABLE_SIZE];
+		short[] values = new short[TABLE_SIZE];
+		Arrays.fill(values, (short) -1);
+		int[] palette = Arrays.copyOf(previous, MAX_COLORS);
+		int size = previous.length;
+		for (int i = 0; i < size; i++) {
+			put(keys, values, palette[i], i);
+		}
+
+		int lastColor = 0;
+		int lastIndex = -1;
+		for (int i = 0; i < argb.length; i++) {
+			int color = argb[i];
+			if ((color >>> 24) == 0) {
+				// all fully transparent pixels are the same
+				color = 0;
+			}
+			if (color != lastColor || lastIndex < 0) {
+				lastColor = color;
+				lastIndex = get(keys, values, color);
+				if (lastIndex < 0) {
+					if (size == MAX_COLORS) {
+						return null;
+					}
+					palette[size] = color;
+					put(keys, values, color, size);
+					lastIndex = size++;
+				}
+			}
+			indices[i] = (byte) lastIndex;
+		}
+		return size == previous.length ? previous : Arrays.copyOf(palette, size);
+	}
+
+	private static int get(int[] keys, short[] values, int color) {
+		int slot = hash(color);
+		while (values[slot] >= 0) {
+			if (keys[slot] == color) {
+				return values[slot];
+			}
+			slot = (slot + 1) & (TABLE_SIZE - 1);
+		}
+		return -1;
+	}
+
+	private static void put(int[] keys, short[] values, int color, int index) {
+		int slot = hash(color);
+		while (values[slot] >= 0) {
+			slot = (slot + 1) & (TABLE_SIZE - 1);
+		}
+		keys[slot] = color;
+		values[slot] = (short) index;
+	}
+
+	private static int hash(int color) {
+		int h = color * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & (TABLE_SIZE - 1);
+	}
+
+	private static BufferedImage createIndexedImage(int width, int height, int[] palette, byte[] indices) {
+		// the color model needs at least one entry
+		int[] colors = palette.length == 0 ? new int[1] : palette;
+		IndexColorModel colorModel = new IndexColorModel(8, colors.length, colors, 0, true, -1, TYPE_BYTE);
+		WritableRaster raster = Raster.createInterleavedRaster(new DataBufferByte(indices, indices.length), width,
+				height, width, 1, new int[] { 0 }, null);
+		return new BufferedImage(colorModel, raster, false, null);
+	}
+
+}
@@ -0,0 +1,63 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+ http://www.occamlabs.de/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile;
+
+/**
+ * A {@link TileDataLevel} that generates neighbouring tiles along with a requested tile,
+ * e.g. by requesting a block of tiles from a remote service at once.
+ * <p>
+ * Wrapping levels (e.g. caches) can register a {@link TileListener} to make use of these
+ * tiles, instead of requesting them again later.
+ * </p>
+ */
+public interface MetatilingTileDataLevel extends TileDataLevel {
+
+	/**
+	 * @param listener listener to notify about tiles generated along with a requested
+	 * tile, must not be <code>null</code>
+	 */
+	void addTileListener(TileListener listener);
+
+	/**
+	 * @param listener listener to remove, must not be <code>null</code>
+	 */
+	void removeTileListener(TileListener listener);
+
+}
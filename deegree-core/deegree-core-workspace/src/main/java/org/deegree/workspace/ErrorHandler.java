@@ -61,7 +61,7 @@ public class ErrorHandler {
 		errors = new HashMap<ResourceIdentifier<? extends Resource>, List<String>>();
 	}
 
-	public void registerError(ResourceIdentifier<? extends Resource> id, String error) {
+	public synchronized void registerError(ResourceIdentifier<? extends Resource> id, String error) {
 		List<String> list = errors.get(id);
 		if (list == null) {
 			list = new ArrayList<String>();
@@ -70,7 +70,7 @@ public class ErrorHandler {
 		list.add(error);
 	}
 
-	public List<String> getErrors(ResourceIdentifier<? extends Resource> id) {
+	public synchronized List<String> getErrors(ResourceIdentifier<? extends Resource> id) {
 		List<String> list = errors.get(id);
 		if (list == null) {
 			return Collections.emptyList();
@@ -78,15 +78,15 @@ public class ErrorHandler {
 		return list;
 	}
 
-	public void clear() {
+	public synchronized void clear() {
 		errors.clear();
 	}
 
-	public void clear(ResourceIdentifier<? extends Resource> id) {
+	public synchronized void clear(ResourceIdentifier<? extends Resource> id) {
 		errors.remove(id);
 	}
 
-	public boolean hasErrors() {
+	public synchronized boolean hasErrors() {
 		return !errors.isEmpty();
 	}
 
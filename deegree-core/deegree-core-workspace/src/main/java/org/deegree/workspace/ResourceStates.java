@@ -27,8 +27,8 @@
 ----------------------------------------------------------------------------*/
 package org.deegree.workspace;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class can be used to manage the states of the various resources.
@@ -41,7 +41,8 @@ public class ResourceStates {
 	private Map<ResourceIdentifier<? extends Resource>, ResourceState> map;
 
 	public ResourceStates() {
-		map = new HashMap<ResourceIdentifier<? extends Resource>, ResourceState>();
+		// resources are initialized concurrently
+		map = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, ResourceState>();
 	}
 
 	/**
@@ -45,6 +45,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.deegree.workspace.Resource;
 import org.deegree.workspace.ResourceException;
@@ -141,6 +146,7 @@ public class ResourceGraph {
 		HashSet<ResourceNode<? extends Resource>> nodes = new HashSet<ResourceNode<?>>(nodeMap.values());
 
 		List<ResourceMetadata<? extends Resource>> roots = getRoots(nodes);
+		Set<ResourceMetadata<? extends Resource>> sorted = new HashSet<>(roots);
 
 		boolean changed = true;
 
@@ -153,16 +159,17 @@ public class ResourceGraph {
 			}
 			inner: for (ResourceNode<? extends Resource> node : nodes) {
 				for (ResourceNode<? extends Resource> dep : node.getDependencies()) {
-					if (!roots.contains(dep.getMetadata())) {
+					if (!sorted.contains(dep.getMetadata())) {
 						continue inner;
 					}
 				}
 				for (ResourceNode<? extends Resource> dep : node.getSoftDependencies()) {
-					if (!roots.contains(dep.getMetadata())) {
+					if (!sorted.contains(dep.getMetadata())) {
 						continue inner;
 					}
 				}
 				roots.add(node.getMetadata());
+				sorted.add(node.getMetadata());
 				nodes.remove(node);
 				changed = true;
 				// could be optimized by continuing to inner, needs a little rewrite
@@ -173,6 +180,59 @@ public class ResourceGraph {
 		return roots;
 	}
 
+	/**
+	 * Passes the metadata of all resources of the graph to the given task, using the
+	 * given executor. A resource is passed as soon as the task has finished for all of its
+	 * (hard and soft) dependencies, so resources that don't depend on each other are
+	 * processed concurrently.
+	 * @param executor used to run the tasks, never <code>null</code>
+	 * @param task invoked once for every resource, must not throw exceptions, never
+	 * <code>null</code>
+	 * @throws InterruptedException if interrupted while waiting for the tasks to finish
+	 * @throws ResourceException if there are inconsistent dependency chains
+	 */
+	public void processInDependencyOrder(Executor executor, Consumer<ResourceMetadata<? extends Resource>> task)
+			throws InterruptedException {
+		// fails early if there are cycles, otherwise some resources would never be passed
+		toSortedList();
+
+		Map<ResourceNode<? extends Resource>, AtomicInteger> pending = new HashMap<>();
+		for (ResourceNode<? extends Resource> node : nodeMap.values()) {
+			pending.put(node, new AtomicInteger());
+		}
+		for (ResourceNode<? extends Resource> node : nodeMap.values()) {
+			for (ResourceNode<? extends Resource> dependent : node.getDependents()) {
+				pending.get(dependent).incrementAndGet();
+			}
+		}
+
+		CountDownLatch finished = new CountDownLatch(nodeMap.size());
+		for (ResourceNode<? extends Resource> node : nodeMap.values()) {
+			if (pending.get(node).get() == 0) {
+				submit(executor, task, node, pending, finished);
+			}
+		}
+		finished.await();
+	}
+
+	private void submit(Executor executor, Consumer<ResourceMetadata<? extends Resource>> task,
+			ResourceNode<? extends Resource> node, Map<ResourceNode<? extends Resource>, AtomicInteger> pending,
+			CountDownLatch finished) {
+		executor.execute(() -> {
+			try {
+				task.accept(node.getMetadata());
+			}
+			finally {
+				for (ResourceNode<? extends Resource> dependent : node.getDependents()) {
+					if (pending.get(dependent).decrementAndGet() == 0) {
+						submit(executor, task, dependent, pending, finished);
+					}
+				}
+				finished.countDown();
+			}
+		});
+	}
+
 	private List<ResourceMetadata<? extends Resource>> getRoots(HashSet<ResourceNode<? extends Resource>> nodes) {
 		List<ResourceMetadata<? extends Resource>> roots = new ArrayList<ResourceMetadata<? extends Resource>>();
 		for (ResourceNode<? extends Resource> node : nodeMap.values()) {
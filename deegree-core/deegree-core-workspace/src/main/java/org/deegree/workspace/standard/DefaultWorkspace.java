@@ -40,6 +40,7 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.workspace.standard;
 
+import static java.lang.System.currentTimeMillis;
 import static org.deegree.workspace.ResourceStates.ResourceState.Built;
 import static org.deegree.workspace.ResourceStates.ResourceState.Deactivated;
 import static org.deegree.workspace.ResourceStates.ResourceState.Error;
@@ -58,9 +59,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.deegree.moduleinfo.ModuleInfo;
 import org.deegree.workspace.Destroyable;
 import org.deegree.workspace.ErrorHandler;
@@ -93,6 +100,12 @@ public class DefaultWorkspace implements Workspace {
 
 	private static final Logger LOG = getLogger(DefaultWorkspace.class);
 
+	/**
+	 * System property for the number of threads used to build and initialize resources
+	 * (default: number of available processors), 1 initializes the resources one by one.
+	 */
+	public static final String INIT_THREADS = "deegree.workspace.init.threads";
+
 	private final File directory;
 
 	private ClassLoader moduleClassLoader;
@@ -137,41 +150,135 @@ public class DefaultWorkspace implements Workspace {
 			graph.insertNode(md);
 		}
 
-		outer: for (ResourceMetadata<? extends Resource> md : graph.toSortedList()) {
-			if (states.getState(md.getIdentifier()) == Deactivated) {
-				LOG.warn("Not building resource {} (deactivated).", md.getIdentifier());
-				continue;
+		Map<ResourceIdentifier<? extends Resource>, Long> timings = new ConcurrentHashMap<>();
+		long begin = currentTimeMillis();
+		int threads = Integer.getInteger(INIT_THREADS, Runtime.getRuntime().availableProcessors());
+		if (threads > 1) {
+			LOG.info("Using {} threads.", threads);
+			ExecutorService executor = createInitExecutor(threads);
+			try {
+				graph.processInDependencyOrder(executor, md -> buildAndInit(md, prepared, timings));
 			}
-			LOG.info("Building resource {}.", md.getIdentifier());
-			for (ResourceIdentifier<? extends Resource> dep : md.getDependencies()) {
-				if (states.getState(dep) != Initialized) {
-					states.setState(md.getIdentifier(), Error);
-					String msg = "Dependent resource " + dep + " failed to initialize.";
-					LOG.error("Unable to build resource {}: {}", msg, md.getIdentifier());
-					errors.registerError(md.getIdentifier(), msg);
-					continue outer;
-				}
+			catch (InterruptedException e) {
+				LOG.warn("Interrupted while initializing resources.");
+				Thread.currentThread().interrupt();
 			}
-			try {
-				Resource res = prepared.getBuilder(md.getIdentifier()).build();
-				if (res == null) {
-					errors.registerError(md.getIdentifier(), "Unable to prepare.");
-					states.setState(md.getIdentifier(), Error);
-					LOG.error("Unable to build resource {}.", md.getIdentifier());
-					continue;
-				}
-				states.setState(md.getIdentifier(), Built);
-				LOG.info("Initializing resource {}.", md.getIdentifier());
-				res.init();
-				states.setState(md.getIdentifier(), Initialized);
-				resources.put(res.getMetadata().getIdentifier(), res);
+			finally {
+				executor.shutdownNow();
 			}
-			catch (Exception ex) {
+		}
+		else {
+			for (ResourceMetadata<? extends Resource> md : graph.toSortedList()) {
+				buildAndInit(md, prepared, timings);
+			}
+		}
+		logTimings(timings, currentTimeMillis() - begin);
+	}
+
+	private void buildAndInit(ResourceMetadata<? extends Resource> md, PreparedResources prepared,
+			Map<ResourceIdentifier<? extends Resource>, Long> timings) {
+		if (states.getState(md.getIdentifier()) == Deactivated) {
+			LOG.warn("Not building resource {} (deactivated).", md.getIdentifier());
+			return;
+		}
+		LOG.info("Building resource {}.", md.getIdentifier());
+		for (ResourceIdentifier<? extends Resource> dep : md.getDependencies()) {
+			if (states.getState(dep) != Initialized) {
 				states.setState(md.getIdentifier(), Error);
-				String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+				String msg = "Dependent resource " + dep + " failed to initialize.";
+				LOG.error("Unable to build resource {}: {}", msg, md.getIdentifier());
 				errors.registerError(md.getIdentifier(), msg);
-				LOG.error(msg);
-				LOG.trace("Stack trace:", ex);
+				return;
+			}
+		}
+		long begin = currentTimeMillis();
+		try {
+			Resource res = prepared.getBuilder(md.getIdentifier()).build();
+			if (res == null) {
+				errors.registerError(md.getIdentifier(), "Unable to prepare.");
+				states.setState(md.getIdentifier(), Error);
+				LOG.error("Unable to build resource {}.", md.getIdentifier());
+				return;
+			}
+			states.setState(md.getIdentifier(), Built);
+			LOG.info("Initializing resource {}.", md.getIdentifier());
+			res.init();
+			states.setState(md.getIdentifier(), Initialized);
+			resources.put(res.getMetadata().getIdentifier(), res);
+			LOG.info("Initialized resource {} in {} [ms].", md.getIdentifier(), currentTimeMillis() - begin);
+		}
+		catch (Exception ex) {
+			states.setState(md.getIdentifier(), Error);
+			String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+			errors.registerError(md.getIdentifier(), msg);
+			LOG.error(msg);
+			LOG.trace("Stack trace:", ex);
+		}
+		finally {
+			timings.put(md.getIdentifier(), currentTimeMillis() - begin);
+		}
+	}
+
+	private ExecutorService createInitExecutor(int threads) {
+		// resources may use the service loader, so the workers need the same class loader
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "workspace-init-" + threadNumber.incrementAndGet());
+			t.setContextClassLoader(contextClassLoader);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Logs the overall initialization time and the critical path, i.e. the chain of
+	 * dependencies with the highest sum of initialization times. As a resource cannot be
+	 * initialized before its dependencies, this sum is the minimum time needed for the
+	 * initialization, regardless of the number of threads.
+	 */
+	private void logTimings(Map<ResourceIdentifier<? extends Resource>, Long> timings, long total) {
+		Map<ResourceIdentifier<?>, Long> pathTimes = new HashMap<>();
+		Map<ResourceIdentifier<?>, ResourceIdentifier<?>> predecessors = new HashMap<>();
+		ResourceIdentifier<?> last = null;
+		long criticalPathTime = 0;
+		long sum = 0;
+		for (ResourceMetadata<? extends Resource> md : graph.toSortedList()) {
+			ResourceIdentifier<?> id = md.getIdentifier();
+			long time = timings.getOrDefault(id, 0L);
+			sum += time;
+			List<ResourceNode<?>> deps = new ArrayList<>();
+			deps.addAll(graph.getNode(id).getDependencies());
+			deps.addAll(graph.getNode(id).getSoftDependencies());
+			long predecessorTime = 0;
+			for (ResourceNode<?> dep : deps) {
+				Long depTime = pathTimes.get(dep.getMetadata().getIdentifier());
+				if (depTime != null && depTime >= predecessorTime) {
+					predecessorTime = depTime;
+					predecessors.put(id, dep.getMetadata().getIdentifier());
+				}
+			}
+			pathTimes.put(id, predecessorTime + time);
+			if (last == null || predecessorTime + time > criticalPathTime) {
+				last = id;
+				criticalPathTime = predecessorTime + time;
+			}
+		}
+		LOG.info("Built and initialized {} resources in {} [ms] (sum of resource times: {} [ms]).", timings.size(),
+				total, sum);
+		if (last == null) {
+			return;
+		}
+		LinkedList<String> path = new LinkedList<>();
+		for (ResourceIdentifier<?> id = last; id != null; id = predecessors.get(id)) {
+			path.addFirst(id + " (" + timings.getOrDefault(id, 0L) + " [ms])");
+		}
+		LOG.info("Critical path ({} [ms]): {}", criticalPathTime, String.join(" -> ", path));
+		if (LOG.isDebugEnabled()) {
+			List<Entry<ResourceIdentifier<? extends Resource>, Long>> sorted = new ArrayList<>(timings.entrySet());
+			sorted.sort(Entry.<ResourceIdentifier<? extends Resource>, Long>comparingByValue().reversed());
+			for (Entry<ResourceIdentifier<? extends Resource>, Long> e : sorted) {
+				LOG.debug("{}: {} [ms]", e.getKey(), e.getValue());
 			}
 		}
 	}
@@ -326,7 +433,8 @@ public class DefaultWorkspace implements Workspace {
 		wsModules = new ArrayList<ModuleInfo>();
 		resourceManagers = new HashMap<Class<? extends ResourceProvider<? extends Resource>>, ResourceManager<? extends Resource>>();
 		resourceMetadata = new HashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
-		resources = new HashMap<ResourceIdentifier<? extends Resource>, Resource>();
+		// accessed concurrently during initialization
+		resources = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, Resource>();
 		initializables.clear();
 		graph = new ResourceGraph();
 		states = new ResourceStates();
@@ -0,0 +1,150 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2026 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.deegree.workspace.Resource;
+import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceException;
+import org.deegree.workspace.ResourceIdentifier;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.ResourceProvider;
+import org.deegree.workspace.standard.AbstractResourceMetadata;
+import org.deegree.workspace.standard.DefaultResourceIdentifier;
+import org.deegree.workspace.standard.DefaultResourceLocation;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the dependency aware processing of a {@link ResourceGraph}.
+ */
+public class ResourceGraphTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testProcessInDependencyOrder() throws Exception {
+		ResourceMetadata<?> md4 = metadata("md4");
+		ResourceMetadata<?> md3 = metadata("md3", "md4");
+		ResourceMetadata<?> md2 = metadata("md2", "md4");
+		ResourceMetadata<?> md1 = metadata("md1", "md2", "md3");
+		ResourceGraph graph = graph(md1, md2, md3, md4);
+
+		List<ResourceMetadata<?>> processed = Collections.synchronizedList(new ArrayList<ResourceMetadata<?>>());
+		graph.processInDependencyOrder(executor, md -> processed.add(md));
+
+		assertEquals(4, processed.size());
+		assertEquals(md4, processed.get(0));
+		assertEquals(md1, processed.get(3));
+	}
+
+	@Test
+	public void testIndependentResourcesAreProcessedConcurrently() throws Exception {
+		ResourceGraph graph = graph(metadata("md1"), metadata("md2"), metadata("md3", "md1", "md2"));
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		List<Boolean> results = Collections.synchronizedList(new ArrayList<Boolean>());
+
+		graph.processInDependencyOrder(executor, md -> {
+			if (md.getIdentifier().getId().equals("md3")) {
+				return;
+			}
+			bothStarted.countDown();
+			try {
+				results.add(bothStarted.await(5, TimeUnit.SECONDS));
+			}
+			catch (InterruptedException e) {
+				results.add(false);
+			}
+		});
+
+		assertEquals(2, results.size());
+		assertTrue(results.get(0) && results.get(1));
+	}
+
+	@Test(expected = ResourceException.class)
+	public void testCycle() throws Exception {
+		ResourceGraph graph = graph(metadata("md1", "md2"), metadata("md2", "md1"));
+		graph.processInDependencyOrder(executor, md -> {
+		});
+	}
+
+	private static ResourceGraph graph(ResourceMetadata<?>... metadata) {
+		ResourceGraph graph = new ResourceGraph();
+		for (ResourceMetadata<?> md : metadata) {
+			graph.insertNode(md);
+		}
+		return graph;
+	}
+
+	private static ResourceMetadata<?> metadata(String id, String... dependencyIds) {
+		ResourceIdentifier identifier = new DefaultResourceIdentifier(ResourceProvider.class, id);
+		return new AbstractResourceMetadata<Resource>(null,
+				new DefaultResourceLocation<Resource>(new File("/tmp/"), identifier), null) {
+			{
+				for (String dependencyId : dependencyIds) {
+					dependencies.add(new DefaultResourceIdentifier(ResourceProvider.class, dependencyId));
+				}
+			}
+
+			@Override
+			public ResourceBuilder<Resource> prepare() {
+				return null;
+			}
+		};
+	}
+
+}
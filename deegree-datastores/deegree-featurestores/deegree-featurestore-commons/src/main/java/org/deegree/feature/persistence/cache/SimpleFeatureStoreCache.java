@@ -35,9 +35,9 @@
 package org.deegree.feature.persistence.cache;
 
 import java.lang.ref.SoftReference;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.deegree.commons.tom.gml.GMLObject;
 import org.deegree.feature.persistence.FeatureStore;
@@ -55,6 +55,10 @@ public class SimpleFeatureStoreCache implements FeatureStoreCache {
 
 	private final Map<String, SoftReference<GMLObject>> idToObject;
 
+	// a lock instead of a synchronized map, so waiting virtual threads don't pin their
+	// carrier threads
+	private final ReentrantLock lock = new ReentrantLock();
+
 	/**
 	 * Creates a new {@link SimpleFeatureStoreCache} instance that allows to store a
 	 * default number of entries.
@@ -69,12 +73,19 @@ public class SimpleFeatureStoreCache implements FeatureStoreCache {
 	 * @param maxEntries maximum number of cached objects
 	 */
 	public SimpleFeatureStoreCache(int maxEntries) {
-		idToObject = Collections.synchronizedMap(new CacheMap(maxEntries));
+		idToObject = new CacheMap(maxEntries);
 	}
 
 	@Override
 	public GMLObject get(String id) {
-		SoftReference<GMLObject> ref = idToObject.get(id);
+		SoftReference<GMLObject> ref;
+		lock.lock();
+		try {
+			ref = idToObject.get(id);
+		}
+		finally {
+			lock.unlock();
+		}
 		if (ref == null) {
 			return null;
 		}
@@ -83,17 +94,36 @@ public class SimpleFeatureStoreCache implements FeatureStoreCache {
 
 	@Override
 	public void add(GMLObject obj) {
-		idToObject.put(obj.getId(), new SoftReference<GMLObject>(obj));
+		SoftReference<GMLObject> ref = new SoftReference<GMLObject>(obj);
+		lock.lock();
+		try {
+			idToObject.put(obj.getId(), ref);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
 	public void remove(String id) {
-		idToObject.remove(id);
+		lock.lock();
+		try {
+			idToObject.remove(id);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
 	public void clear() {
-		idToObject.clear();
+		lock.lock();
+		try {
+			idToObject.clear();
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	private class CacheMap extends LinkedHashMap<String, SoftReference<GMLObject>> {
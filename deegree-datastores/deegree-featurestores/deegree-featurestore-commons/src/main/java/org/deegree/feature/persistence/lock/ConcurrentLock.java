@@ -0,0 +1,199 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.feature.persistence.lock;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.utils.CloseableIterator;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.persistence.FeatureStoreException;
+import org.deegree.feature.persistence.lock.ConcurrentLockManager.CollectionIterator;
+import org.deegree.feature.persistence.query.Query;
+import org.deegree.filter.Filter;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.protocol.wfs.getfeature.TypeName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Lock} implementation that is kept in memory.
+ *
+ * @see ConcurrentLockManager
+ */
+class ConcurrentLock implements Lock {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ConcurrentLock.class);
+
+	private final ConcurrentLockManager manager;
+
+	private final String id;
+
+	private final long acquired;
+
+	private volatile long expires;
+
+	private final Set<String> lockedFids = ConcurrentHashMap.newKeySet();
+
+	private List<String> failedFids = Collections.emptyList();
+
+	/**
+	 * Creates a new {@link ConcurrentLock} instance.
+	 * @param manager corresponding {@link ConcurrentLockManager} instance, must not be
+	 * null
+	 * @param id lock id, must not be null
+	 * @param acquired time (milliseconds) that the lock has been acquired
+	 * @param expires time (milliseconds) that the lock will expire
+	 */
+	ConcurrentLock(ConcurrentLockManager manager, String id, long acquired, long expires) {
+		this.manager = manager;
+		this.id = id;
+		this.acquired = acquired;
+		this.expires = expires;
+	}
+
+	/**
+	 * Sets the features involved in this lock, must be called before the lock is
+	 * published.
+	 * @param locked ids of the locked features, must not be <code>null</code>
+	 * @param failed ids of the features that couldn't be locked, must not be
+	 * <code>null</code>
+	 */
+	void init(Collection<String> locked, List<String> failed) {
+		lockedFids.addAll(locked);
+		failedFids = Collections.unmodifiableList(new ArrayList<String>(failed));
+	}
+
+	Set<String> getLockedFids() {
+		return lockedFids;
+	}
+
+	long getExpires() {
+		return expires;
+	}
+
+	void setExpires(long expires) {
+		this.expires = expires;
+	}
+
+	boolean isActive(long now) {
+		return now < expires;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public long getAcquistionDate() {
+		return acquired;
+	}
+
+	@Override
+	public void setExpiryDate(long expiryDate) throws FeatureStoreException {
+		manager.renew(this, expiryDate);
+	}
+
+	@Override
+	public int getNumLocked() {
+		return lockedFids.size();
+	}
+
+	@Override
+	public int getNumFailedToLock() {
+		return failedFids.size();
+	}
+
+	@Override
+	public CloseableIterator<String> getLockedFeatures() {
+		return new CollectionIterator<String>(new ArrayList<String>(lockedFids));
+	}
+
+	@Override
+	public CloseableIterator<String> getFailedToLockFeatures() {
+		return new CollectionIterator<String>(failedFids);
+	}
+
+	@Override
+	public boolean isLocked(String fid) {
+		return manager.getActiveLock(fid, currentTimeMillis()) == this;
+	}
+
+	@Override
+	public void release() {
+		manager.release(this);
+	}
+
+	@Override
+	public void release(String fid) {
+		if (lockedFids.remove(fid)) {
+			manager.release(this, fid);
+		}
+	}
+
+	@Override
+	public void release(QName ftName, Filter filter) throws FeatureStoreException {
+		Query query = new Query(new TypeName[] { new TypeName(ftName, null) }, filter, null, null, null);
+		try {
+			// TODO don't actually fetch the feature collection, but only the fids of the
+			// features
+			FeatureCollection fc = manager.getStore().query(query).toCollection();
+			for (Feature feature : fc) {
+				release(feature.getId());
+			}
+		}
+		catch (FilterEvaluationException e) {
+			LOG.debug("Stack trace:", e);
+			throw new FeatureStoreException(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "{id=" + id + ",acquired=" + acquired + ",expires=" + expires + "}";
+	}
+
+}
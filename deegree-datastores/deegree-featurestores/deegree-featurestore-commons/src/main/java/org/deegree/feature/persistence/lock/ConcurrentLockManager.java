@@ -0,0 +1,482 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.feature.persistence.lock;
+
+import static java.lang.System.currentTimeMillis;
+import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
+import static org.deegree.commons.tom.datetime.ISO8601Converter.formatDateTime;
+import static org.deegree.feature.i18n.Messages.getMessage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.commons.tom.datetime.DateTime;
+import org.deegree.commons.utils.CloseableIterator;
+import org.deegree.db.ConnectionProvider;
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.persistence.FeatureStore;
+import org.deegree.feature.persistence.FeatureStoreException;
+import org.deegree.feature.persistence.query.Query;
+import org.deegree.filter.FilterEvaluationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link LockManager} implementation that keeps the lock table in memory.
+ * <p>
+ * Checking whether a feature is locked or modifiable doesn't block at all. Acquiring a
+ * lock only blocks acquisitions that involve the same lock stripes (derived from the
+ * feature ids), so transactions on different features don't serialize on a single
+ * monitor. Expired locks are removed by a timer wheel that is advanced by the calls to
+ * the manager (no background thread).
+ * </p>
+ * <p>
+ * If a {@link ConnectionProvider} is specified, all changes are written to the database
+ * asynchronously (write-behind) and the active locks are restored on startup, see
+ * {@link LockTableWriter}.
+ * </p>
+ *
+ * @see ConcurrentLock
+ */
+public class ConcurrentLockManager implements LockManager {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ConcurrentLockManager.class);
+
+	private static final int NUM_STRIPES = 64;
+
+	private static final long TICK_MILLIS = 1000;
+
+	private static final int WHEEL_SIZE = 512;
+
+	private final FeatureStore store;
+
+	private final ReentrantLock[] stripes = new ReentrantLock[NUM_STRIPES];
+
+	// key: feature id, value: lock (may be expired already)
+	private final ConcurrentHashMap<String, ConcurrentLock> lockedFids = new ConcurrentHashMap<String, ConcurrentLock>();
+
+	// key: lock id, value: lock (may be expired already)
+	private final ConcurrentHashMap<String, ConcurrentLock> locks = new ConcurrentHashMap<String, ConcurrentLock>();
+
+	private final ExpiryWheel wheel = new ExpiryWheel();
+
+	private final LockTableWriter writer;
+
+	/**
+	 * Creates a new {@link ConcurrentLockManager} for the given {@link FeatureStore}
+	 * without persistence (locks don't survive a restart).
+	 * @param store feature store, must not be <code>null</code>
+	 */
+	public ConcurrentLockManager(FeatureStore store) {
+		this.store = store;
+		this.writer = null;
+		initStripes();
+	}
+
+	/**
+	 * Creates a new {@link ConcurrentLockManager} for the given {@link FeatureStore} that
+	 * persists the locks in the given database.
+	 * @param store feature store, must not be <code>null</code>
+	 * @param connection connection to the lock database, must not be <code>null</code>
+	 * @param storeId identifies the locks of the feature store in the database, must not
+	 * be <code>null</code>
+	 * @throws FeatureStoreException if the initialization of the lock database fails
+	 */
+	public ConcurrentLockManager(FeatureStore store, ConnectionProvider connection, String storeId)
+			throws FeatureStoreException {
+		this.store = store;
+		this.writer = new LockTableWriter(connection, storeId);
+		initStripes();
+		restoreLocks();
+	}
+
+	private void initStripes() {
+		for (int i = 0; i < NUM_STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	private void restoreLocks() throws FeatureStoreException {
+		long now = currentTimeMillis();
+		int restored = 0;
+		for (ConcurrentLock lock : writer.readLocks(this)) {
+			if (!lock.isActive(now)) {
+				writer.deleteLock(lock.getId());
+				continue;
+			}
+			for (String fid : lock.getLockedFids()) {
+				lockedFids.put(fid, lock);
+			}
+			locks.put(lock.getId(), lock);
+			wheel.schedule(lock, lock.getExpires());
+			restored++;
+		}
+		LOG.debug("Restored {} active lock(s) from lock database.", restored);
+	}
+
+	/**
+	 * Returns the associated {@link FeatureStore}.
+	 * @return the associated store, never null
+	 */
+	FeatureStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Waits until all pending changes have been written to the lock database and frees
+	 * the resources.
+	 */
+	public void destroy() {
+		if (writer != null) {
+			writer.close();
+		}
+	}
+
+	@Override
+	public Lock acquireLock(List<Query> queries, boolean mustLockAll, long expireTimeout)
+			throws FeatureStoreException, OWSException {
+		long acquired = currentTimeMillis();
+		wheel.advance(acquired);
+
+		Set<String> fids = new LinkedHashSet<String>();
+		try {
+			for (Query query : queries) {
+				FeatureCollection fc = store.query(query).toCollection();
+				for (Feature feature : fc) {
+					fids.add(feature.getId());
+				}
+			}
+		}
+		catch (FilterEvaluationException e) {
+			LOG.debug("Stack trace:", e);
+			throw new FeatureStoreException(e);
+		}
+
+		ConcurrentLock lock = new ConcurrentLock(this, UUID.randomUUID().toString(), acquired,
+				acquired + expireTimeout);
+		List<String> locked = new ArrayList<String>(fids.size());
+		List<String> failed = new ArrayList<String>();
+
+		// always acquire the stripes in ascending order to prevent deadlocks
+		int[] stripeIndexes = getStripeIndexes(fids);
+		for (int stripeIndex : stripeIndexes) {
+			stripes[stripeIndex].lock();
+		}
+		try {
+			long now = currentTimeMillis();
+			for (String fid : fids) {
+				ConcurrentLock current = getActiveLock(fid, now);
+				if (current == null) {
+					locked.add(fid);
+				}
+				else if (mustLockAll) {
+					String msg = getMessage("LOCK_CANNOT_LOCK_ALL", fid,
+							formatDateTime(new DateTime(new Date(current.getExpires()), null)),
+							formatDateTime(new DateTime(new Date(current.getAcquistionDate()), null)));
+					throw new OWSException(msg, NO_APPLICABLE_CODE);
+				}
+				else {
+					failed.add(fid);
+				}
+			}
+			lock.init(locked, failed);
+			for (String fid : locked) {
+				lockedFids.put(fid, lock);
+			}
+		}
+		finally {
+			for (int i = stripeIndexes.length - 1; i >= 0; i--) {
+				stripes[stripeIndexes[i]].unlock();
+			}
+		}
+
+		locks.put(lock.getId(), lock);
+		wheel.schedule(lock, lock.getExpires());
+		if (writer != null) {
+			writer.insertLock(lock, locked, failed);
+		}
+		LOG.debug("Acquired lock {}: {} feature(s) locked, {} feature(s) failed to lock.", lock.getId(),
+				locked.size(), failed.size());
+		return lock;
+	}
+
+	private int[] getStripeIndexes(Collection<String> fids) {
+		boolean[] used = new boolean[NUM_STRIPES];
+		int numUsed = 0;
+		for (String fid : fids) {
+			int stripeIndex = (fid.hashCode() & 0x7fffffff) % NUM_STRIPES;
+			if (!used[stripeIndex]) {
+				used[stripeIndex] = true;
+				numUsed++;
+			}
+		}
+		int[] stripeIndexes = new int[numUsed];
+		int i = 0;
+		for (int stripeIndex = 0; stripeIndex < NUM_STRIPES; stripeIndex++) {
+			if (used[stripeIndex]) {
+				stripeIndexes[i++] = stripeIndex;
+			}
+		}
+		return stripeIndexes;
+	}
+
+	@Override
+	public CloseableIterator<Lock> getActiveLocks() {
+		long now = currentTimeMillis();
+		wheel.advance(now);
+		List<Lock> activeLocks = new ArrayList<Lock>();
+		for (ConcurrentLock lock : locks.values()) {
+			if (lock.isActive(now)) {
+				activeLocks.add(lock);
+			}
+		}
+		return new CollectionIterator<Lock>(activeLocks);
+	}
+
+	@Override
+	public Lock getLock(String lockId) throws FeatureStoreException {
+		long now = currentTimeMillis();
+		wheel.advance(now);
+		ConcurrentLock lock = lockId != null ? locks.get(lockId) : null;
+		if (lock == null || !lock.isActive(now)) {
+			String msg = getMessage("LOCK_NO_SUCH_ID", lockId);
+			throw new LockHasExpiredException(msg, "lockId");
+		}
+		return lock;
+	}
+
+	@Override
+	public boolean isFeatureLocked(String fid) {
+		long now = currentTimeMillis();
+		wheel.advance(now);
+		return getActiveLock(fid, now) != null;
+	}
+
+	@Override
+	public boolean isFeatureModifiable(String fid, String lockId) {
+		long now = currentTimeMillis();
+		wheel.advance(now);
+		ConcurrentLock lock = getActiveLock(fid, now);
+		return lock == null || lock.getId().equals(lockId);
+	}
+
+	/**
+	 * Returns the active lock of the specified feature.
+	 * @param fid id of the feature, must not be <code>null</code>
+	 * @param now current time in milliseconds
+	 * @return the active lock, or <code>null</code> if the feature is not locked
+	 */
+	ConcurrentLock getActiveLock(String fid, long now) {
+		ConcurrentLock lock = lockedFids.get(fid);
+		if (lock != null && lock.isActive(now)) {
+			return lock;
+		}
+		return null;
+	}
+
+	void renew(ConcurrentLock lock, long expiryDate) throws FeatureStoreException {
+		long now = currentTimeMillis();
+		wheel.advance(now);
+		if (locks.get(lock.getId()) != lock || !lock.isActive(now)) {
+			throw new FeatureStoreException("Could not reset expiry date for lock with id " + lock.getId());
+		}
+		lock.setExpires(expiryDate);
+		wheel.schedule(lock, expiryDate);
+		if (writer != null) {
+			writer.updateExpiry(lock.getId(), expiryDate);
+		}
+	}
+
+	void release(ConcurrentLock lock) {
+		if (!locks.remove(lock.getId(), lock)) {
+			return;
+		}
+		for (String fid : lock.getLockedFids()) {
+			lockedFids.remove(fid, lock);
+		}
+		if (writer != null) {
+			writer.deleteLock(lock.getId());
+		}
+		LOG.debug("Released lock {}.", lock.getId());
+	}
+
+	void release(ConcurrentLock lock, String fid) {
+		lockedFids.remove(fid, lock);
+		if (writer != null) {
+			writer.deleteLockedFid(lock.getId(), fid);
+		}
+	}
+
+	/**
+	 * Hashed timer wheel for the expiry of locks.
+	 * <p>
+	 * Each slot covers {@link ConcurrentLockManager#TICK_MILLIS} milliseconds, locks that
+	 * expire more than one revolution ahead stay in their slot until their tick has been
+	 * reached. As renewing a lock schedules it again, outdated entries are skipped.
+	 * </p>
+	 */
+	private class ExpiryWheel {
+
+		private final List<List<Entry>> slots = new ArrayList<List<Entry>>(WHEEL_SIZE);
+
+		private long currentTick = currentTimeMillis() / TICK_MILLIS;
+
+		private volatile long nextTickMillis = (currentTick + 1) * TICK_MILLIS;
+
+		private ExpiryWheel() {
+			for (int i = 0; i < WHEEL_SIZE; i++) {
+				slots.add(new ArrayList<Entry>());
+			}
+		}
+
+		private synchronized void schedule(ConcurrentLock lock, long expires) {
+			long tick = (expires + TICK_MILLIS - 1) / TICK_MILLIS;
+			if (tick <= currentTick) {
+				// process with the next tick
+				tick = currentTick + 1;
+			}
+			slots.get((int) (tick % WHEEL_SIZE)).add(new Entry(lock, expires, tick));
+		}
+
+		private void advance(long now) {
+			if (now < nextTickMillis) {
+				return;
+			}
+			List<Entry> due = new ArrayList<Entry>();
+			synchronized (this) {
+				long targetTick = now / TICK_MILLIS;
+				if (targetTick <= currentTick) {
+					return;
+				}
+				// no need to visit a slot twice
+				long firstTick = Math.max(currentTick + 1, targetTick - WHEEL_SIZE + 1);
+				for (long tick = firstTick; tick <= targetTick; tick++) {
+					Iterator<Entry> iter = slots.get((int) (tick % WHEEL_SIZE)).iterator();
+					while (iter.hasNext()) {
+						Entry entry = iter.next();
+						if (entry.tick <= targetTick) {
+							iter.remove();
+							due.add(entry);
+						}
+					}
+				}
+				currentTick = targetTick;
+				nextTickMillis = (targetTick + 1) * TICK_MILLIS;
+			}
+			for (Entry entry : due) {
+				// skip entries of renewed locks
+				if (entry.lock.getExpires() == entry.expires && !entry.lock.isActive(now)) {
+					LOG.debug("Lock {} has expired.", entry.lock.getId());
+					release(entry.lock);
+				}
+			}
+		}
+
+	}
+
+	private static class Entry {
+
+		private final ConcurrentLock lock;
+
+		private final long expires;
+
+		private final long tick;
+
+		private Entry(ConcurrentLock lock, long expires, long tick) {
+			this.lock = lock;
+			this.expires = expires;
+			this.tick = tick;
+		}
+
+	}
+
+	/**
+	 * {@link CloseableIterator} for a collection in memory.
+	 */
+	static class CollectionIterator<T> implements CloseableIterator<T> {
+
+		private final Iterator<T> iter;
+
+		CollectionIterator(Collection<T> elements) {
+			this.iter = elements.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return iter.hasNext();
+		}
+
+		@Override
+		public T next() {
+			return iter.next();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() {
+			// nothing to do
+		}
+
+		@Override
+		public List<T> getAsListAndClose() {
+			return (List<T>) getAsCollectionAndClose(new ArrayList<T>());
+		}
+
+		@Override
+		public Collection<T> getAsCollectionAndClose(Collection<T> collection) {
+			while (iter.hasNext()) {
+				collection.add(iter.next());
+			}
+			return collection;
+		}
+
+	}
+
+}
@@ -0,0 +1,302 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.feature.persistence.lock;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.deegree.commons.utils.JDBCUtils.close;
+import static org.deegree.commons.utils.JDBCUtils.rollbackQuietly;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.deegree.db.ConnectionProvider;
+import org.deegree.feature.i18n.Messages;
+import org.deegree.feature.persistence.FeatureStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the lock table of a {@link ConcurrentLockManager} in an SQL database
+ * (write-behind).
+ * <p>
+ * Changes are written in order by a single worker thread, so callers never wait for the
+ * database. The tables are only read on startup to restore the active locks. Rows are
+ * qualified with the id of the feature store, so several stores can share the same
+ * database.
+ * </p>
+ */
+class LockTableWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LockTableWriter.class);
+
+	private final ConnectionProvider connection;
+
+	private final String storeId;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Creates a new {@link LockTableWriter} and creates the tables if necessary.
+	 * @param connection connection to the lock database, must not be <code>null</code>
+	 * @param storeId id of the feature store, must not be <code>null</code>
+	 * @throws FeatureStoreException if the tables cannot be created
+	 */
+	LockTableWriter(ConnectionProvider connection, String storeId) throws FeatureStoreException {
+		this.connection = connection;
+		this.storeId = storeId;
+		executor = new ThreadPoolExecutor(1, 1, 30, SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+			Thread thread = new Thread(r, "lock-table-writer-" + storeId);
+			thread.setDaemon(true);
+			return thread;
+		});
+		// don't keep a thread for idle stores
+		executor.allowCoreThreadTimeOut(true);
+		initTables();
+	}
+
+	private void initTables() throws FeatureStoreException {
+		Connection conn = null;
+		Statement stmt = null;
+		try {
+			conn = connection.getConnection();
+			stmt = conn.createStatement();
+			stmt.execute("CREATE TABLE IF NOT EXISTS LOCK_TABLE (STORE_ID VARCHAR(255) NOT NULL,"
+					+ "LOCK_ID VARCHAR(64) NOT NULL,ACQUIRED TIMESTAMP NOT NULL,EXPIRES TIMESTAMP NOT NULL,"
+					+ "PRIMARY KEY (STORE_ID,LOCK_ID))");
+			stmt.execute("CREATE TABLE IF NOT EXISTS LOCK_TABLE_FIDS (STORE_ID VARCHAR(255) NOT NULL,"
+					+ "LOCK_ID VARCHAR(64) NOT NULL,FID VARCHAR(255) NOT NULL,LOCKED BOOLEAN NOT NULL)");
+		}
+		catch (SQLException e) {
+			String msg = Messages.getMessage("LOCK_DB_CREATE_ERROR", e.getMessage());
+			LOG.error(msg, e);
+			throw new FeatureStoreException(msg, e);
+		}
+		finally {
+			close(null, stmt, conn, LOG);
+		}
+	}
+
+	/**
+	 * Reads all persisted locks of the feature store (including expired ones).
+	 * @param manager manager of the locks, must not be <code>null</code>
+	 * @return persisted locks, never <code>null</code>
+	 * @throws FeatureStoreException
+	 */
+	List<ConcurrentLock> readLocks(ConcurrentLockManager manager) throws FeatureStoreException {
+		Map<String, ConcurrentLock> locks = new LinkedHashMap<String, ConcurrentLock>();
+		Map<String, List<String>> locked = new LinkedHashMap<String, List<String>>();
+		Map<String, List<String>> failed = new LinkedHashMap<String, List<String>>();
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		try {
+			conn = connection.getConnection();
+			stmt = conn.prepareStatement("SELECT LOCK_ID,ACQUIRED,EXPIRES FROM LOCK_TABLE WHERE STORE_ID=?");
+			stmt.setString(1, storeId);
+			rs = stmt.executeQuery();
+			while (rs.next()) {
+				String lockId = rs.getString(1);
+				locks.put(lockId, new ConcurrentLock(manager, lockId, rs.getTimestamp(2).getTime(),
+						rs.getTimestamp(3).getTime()));
+				locked.put(lockId, new ArrayList<String>());
+				failed.put(lockId, new ArrayList<String>());
+			}
+			rs.close();
+			stmt.close();
+
+			stmt = conn.prepareStatement("SELECT LOCK_ID,FID,LOCKED FROM LOCK_TABLE_FIDS WHERE STORE_ID=?");
+			stmt.setString(1, storeId);
+			rs = stmt.executeQuery();
+			while (rs.next()) {
+				String lockId = rs.getString(1);
+				Map<String, List<String>> fids = rs.getBoolean(3) ? locked : failed;
+				if (fids.containsKey(lockId)) {
+					fids.get(lockId).add(rs.getString(2));
+				}
+			}
+		}
+		catch (SQLException e) {
+			String msg = "Could not restore locks from lock database: " + e.getMessage();
+			LOG.debug(msg, e);
+			throw new FeatureStoreException(msg, e);
+		}
+		finally {
+			close(rs, stmt, conn, LOG);
+		}
+		for (ConcurrentLock lock : locks.values()) {
+			lock.init(locked.get(lock.getId()), failed.get(lock.getId()));
+		}
+		return new ArrayList<ConcurrentLock>(locks.values());
+	}
+
+	void insertLock(ConcurrentLock lock, List<String> locked, List<String> failed) {
+		String lockId = lock.getId();
+		long acquired = lock.getAcquistionDate();
+		long expires = lock.getExpires();
+		submit("insert lock " + lockId, conn -> {
+			try (PreparedStatement stmt = conn
+				.prepareStatement("INSERT INTO LOCK_TABLE (STORE_ID,LOCK_ID,ACQUIRED,EXPIRES) VALUES (?,?,?,?)")) {
+				stmt.setString(1, storeId);
+				stmt.setString(2, lockId);
+				stmt.setTimestamp(3, new Timestamp(acquired));
+				stmt.setTimestamp(4, new Timestamp(expires));
+				stmt.executeUpdate();
+			}
+			try (PreparedStatement stmt = conn
+				.prepareStatement("INSERT INTO LOCK_TABLE_FIDS (STORE_ID,LOCK_ID,FID,LOCKED) VALUES (?,?,?,?)")) {
+				addFidBatch(stmt, lockId, locked, true);
+				addFidBatch(stmt, lockId, failed, false);
+				stmt.executeBatch();
+			}
+		});
+	}
+
+	private void addFidBatch(PreparedStatement stmt, String lockId, List<String> fids, boolean locked)
+			throws SQLException {
+		for (String fid : fids) {
+			stmt.setString(1, storeId);
+			stmt.setString(2, lockId);
+			stmt.setString(3, fid);
+			stmt.setBoolean(4, locked);
+			stmt.addBatch();
+		}
+	}
+
+	void updateExpiry(String lockId, long expires) {
+		submit("update expiry of lock " + lockId, conn -> {
+			try (PreparedStatement stmt = conn
+				.prepareStatement("UPDATE LOCK_TABLE SET EXPIRES=? WHERE STORE_ID=? AND LOCK_ID=?")) {
+				stmt.setTimestamp(1, new Timestamp(expires));
+				stmt.setString(2, storeId);
+				stmt.setString(3, lockId);
+				stmt.executeUpdate();
+			}
+		});
+	}
+
+	void deleteLock(String lockId) {
+		submit("delete lock " + lockId, conn -> {
+			try (PreparedStatement stmt = conn
+				.prepareStatement("DELETE FROM LOCK_TABLE_FIDS WHERE STORE_ID=? AND LOCK_ID=?")) {
+				stmt.setString(1, storeId);
+				stmt.setString(2, lockId);
+				stmt.executeUpdate();
+			}
+			try (PreparedStatement stmt = conn
+				.prepareStatement("DELETE FROM LOCK_TABLE WHERE STORE_ID=? AND LOCK_ID=?")) {
+				stmt.setString(1, storeId);
+				stmt.setString(2, lockId);
+				stmt.executeUpdate();
+			}
+		});
+	}
+
+	void deleteLockedFid(String lockId, String fid) {
+		submit("release feature " + fid + " from lock " + lockId, conn -> {
+			try (PreparedStatement stmt = conn.prepareStatement(
+					"DELETE FROM LOCK_TABLE_FIDS WHERE STORE_ID=? AND LOCK_ID=? AND FID=? AND LOCKED=TRUE")) {
+				stmt.setString(1, storeId);
+				stmt.setString(2, lockId);
+				stmt.setString(3, fid);
+				stmt.executeUpdate();
+			}
+		});
+	}
+
+	private void submit(String description, Change change) {
+		if (executor.isShutdown()) {
+			LOG.warn("Lock database has been closed, cannot {}.", description);
+			return;
+		}
+		executor.execute(() -> {
+			Connection conn = null;
+			try {
+				conn = connection.getConnection();
+				conn.setAutoCommit(false);
+				change.apply(conn);
+				conn.commit();
+			}
+			catch (SQLException e) {
+				rollbackQuietly(conn);
+				LOG.warn("Could not {} in lock database: {}", description, e.getMessage());
+				LOG.trace("Stack trace:", e);
+			}
+			finally {
+				try {
+					if (conn != null) {
+						conn.setAutoCommit(true);
+					}
+				}
+				catch (SQLException e) {
+					LOG.warn("Error resetting auto commit on lock db connection: {}", e.getMessage(), e);
+				}
+				close(conn);
+			}
+		});
+	}
+
+	/**
+	 * Writes all pending changes and stops the worker thread.
+	 */
+	void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(30, SECONDS)) {
+				LOG.warn("Not all changes could be written to the lock database.");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private interface Change {
+
+		void apply(Connection conn) throws SQLException;
+
+	}
+
+}
@@ -49,7 +49,7 @@ import org.deegree.feature.i18n.Messages;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
-import org.deegree.feature.persistence.lock.DefaultLockManager;
+import org.deegree.feature.persistence.lock.ConcurrentLockManager;
 import org.deegree.feature.persistence.lock.LockManager;
 import org.deegree.feature.persistence.query.Query;
 import org.deegree.feature.stream.CombinedFeatureInputStream;
@@ -78,7 +78,7 @@ public class MemoryFeatureStore implements FeatureStore {
 
 	private Thread transactionHolder;
 
-	private DefaultLockManager lockManager;
+	private ConcurrentLockManager lockManager;
 
 	private StoredFeatures storedFeatures;
 
@@ -100,13 +100,17 @@ public class MemoryFeatureStore implements FeatureStore {
 		this.storageCRS = storageCRS;
 		this.metadata = metadata;
 		this.storedFeatures = new StoredFeatures(schema, storageCRS, null);
-		// TODO
-		lockManager = new DefaultLockManager(this, lockConnection);
+		if (lockConnection != null && metadata != null) {
+			lockManager = new ConcurrentLockManager(this, lockConnection, metadata.getIdentifier().getId());
+		}
+		else {
+			lockManager = new ConcurrentLockManager(this);
+		}
 	}
 
 	@Override
 	public void destroy() {
-		// nothing to do
+		lockManager.destroy();
 	}
 
 	@Override
@@ -43,6 +43,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.FactoryConfigurationError;
@@ -51,6 +53,7 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.deegree.commons.config.ResourceInitException;
+import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.tom.ReferenceResolvingException;
 import org.deegree.commons.xml.XMLParsingException;
 import org.deegree.cs.exceptions.TransformationException;
@@ -61,6 +64,8 @@ import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
+import org.deegree.feature.persistence.lock.Lock;
+import org.deegree.feature.persistence.lock.LockManager;
 import org.deegree.feature.persistence.query.Query;
 import org.deegree.feature.types.AppSchema;
 import org.deegree.filter.Filter;
@@ -205,4 +210,56 @@ public class MemoryFeatureStoreTest {
 		gmlStream.write((Geometry) o);
 	}
 
+	@Test
+	public void testLockFeatures() throws Exception {
+		LockManager lockManager = store.getLockManager();
+		List<Query> queries = philosopherQuery("PHILOSOPHER_1", "PHILOSOPHER_2");
+		Lock lock = lockManager.acquireLock(queries, true, 60000);
+		Assert.assertEquals(2, lock.getNumLocked());
+		Assert.assertEquals(0, lock.getNumFailedToLock());
+		Assert.assertTrue(lockManager.isFeatureLocked("PHILOSOPHER_1"));
+		Assert.assertFalse(lockManager.isFeatureLocked("PHILOSOPHER_3"));
+		Assert.assertTrue(lockManager.isFeatureModifiable("PHILOSOPHER_1", lock.getId()));
+		Assert.assertFalse(lockManager.isFeatureModifiable("PHILOSOPHER_1", null));
+		Assert.assertSame(lock, lockManager.getLock(lock.getId()));
+
+		Lock secondLock = lockManager.acquireLock(philosopherQuery("PHILOSOPHER_2", "PHILOSOPHER_3"), false, 60000);
+		Assert.assertEquals(1, secondLock.getNumLocked());
+		Assert.assertEquals(1, secondLock.getNumFailedToLock());
+		Assert.assertFalse(lockManager.isFeatureModifiable("PHILOSOPHER_3", lock.getId()));
+
+		lock.release("PHILOSOPHER_1");
+		Assert.assertFalse(lockManager.isFeatureLocked("PHILOSOPHER_1"));
+		lock.release();
+		Assert.assertFalse(lockManager.isFeatureLocked("PHILOSOPHER_2"));
+		Assert.assertTrue(lockManager.isFeatureLocked("PHILOSOPHER_3"));
+	}
+
+	@Test(expected = OWSException.class)
+	public void testLockFeaturesMustLockAll() throws Exception {
+		LockManager lockManager = store.getLockManager();
+		lockManager.acquireLock(philosopherQuery("PHILOSOPHER_1"), true, 60000);
+		try {
+			lockManager.acquireLock(philosopherQuery("PHILOSOPHER_1", "PHILOSOPHER_2"), true, 60000);
+		}
+		finally {
+			Assert.assertFalse(lockManager.isFeatureLocked("PHILOSOPHER_2"));
+		}
+	}
+
+	@Test
+	public void testLockExpires() throws Exception {
+		LockManager lockManager = store.getLockManager();
+		Lock lock = lockManager.acquireLock(philosopherQuery("PHILOSOPHER_4"), true, 0);
+		Assert.assertEquals(1, lock.getNumLocked());
+		Assert.assertFalse(lockManager.isFeatureLocked("PHILOSOPHER_4"));
+		Assert.assertTrue(lockManager.isFeatureModifiable("PHILOSOPHER_4", null));
+	}
+
+	private List<Query> philosopherQuery(String... ids) {
+		TypeName[] typeNames = new TypeName[] {
+				new TypeName(QName.valueOf("{http://www.deegree.org/app}Philosopher"), null) };
+		return Collections.singletonList(new Query(typeNames, new IdFilter(ids), null, null, null));
+	}
+
 }
@@ -73,7 +73,6 @@ import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.cs.exceptions.WKTParsingException;
 import org.deegree.cs.persistence.CRSManager;
 import org.deegree.feature.Feature;
-import org.deegree.feature.Features;
 import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
@@ -89,6 +88,7 @@ import org.deegree.feature.stream.FeatureInputStream;
 import org.deegree.feature.stream.FilteredFeatureInputStream;
 import org.deegree.feature.stream.IteratorFeatureInputStream;
 import org.deegree.feature.stream.MemoryFeatureInputStream;
+import org.deegree.feature.stream.SortedFeatureInputStream;
 import org.deegree.feature.types.AppSchema;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.feature.types.GenericAppSchema;
@@ -416,7 +416,9 @@ public class ShapeFeatureStore implements FeatureStore {
 
 		if (p.second != null && p.second.length > 0) {
 			LOG.debug("Applying in-memory sorting.");
-			rs = new MemoryFeatureInputStream(Features.sortFc(rs.toCollection(), p.second));
+			// start index and max features are applied by the caller
+			int maxFeatures = query.getMaxFeatures() > -1 ? query.getStartIndex() + query.getMaxFeatures() : -1;
+			rs = new SortedFeatureInputStream(rs, p.second, 0, maxFeatures);
 		}
 
 		return rs;
@@ -0,0 +1,260 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2026 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.deegree.commons.utils.JDBCUtils;
+import org.deegree.commons.utils.RequestUtils;
+import org.slf4j.Logger;
+
+/**
+ * Keeps track of the feature streams of a {@link SQLFeatureStore} that hold a database
+ * connection of their own, so that connections are never kept open indefinitely.
+ * <p>
+ * A stream that becomes unreachable without being closed is reported as a leak (together
+ * with the request that opened it) and its resources are released. If a maximum duration
+ * is configured, streams that are still open after this duration are closed forcibly.
+ * </p>
+ */
+class FeatureStreamMonitor {
+
+	private static final Logger LOG = getLogger(FeatureStreamMonitor.class);
+
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	private static final long MIN_CHECK_INTERVAL = 1000;
+
+	private static final long MAX_CHECK_INTERVAL = 60000;
+
+	private final String storeId;
+
+	private final long maxDurationNanos;
+
+	private final Set<OpenStream> openStreams = ConcurrentHashMap.newKeySet();
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Creates a new {@link FeatureStreamMonitor}.
+	 * @param storeId id of the feature store, used for logging only
+	 * @param maxDurationMillis maximum time a stream may be kept open (in milliseconds),
+	 * 0 or less for no limit
+	 */
+	FeatureStreamMonitor(String storeId, long maxDurationMillis) {
+		this.storeId = storeId;
+		this.maxDurationNanos = MILLISECONDS.toNanos(maxDurationMillis);
+		if (maxDurationMillis > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "feature-stream-monitor-" + storeId);
+				t.setDaemon(true);
+				return t;
+			});
+			long interval = Math.max(MIN_CHECK_INTERVAL, Math.min(maxDurationMillis / 10, MAX_CHECK_INTERVAL));
+			scheduler.scheduleWithFixedDelay(this::closeExpired, interval, interval, MILLISECONDS);
+		}
+		else {
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Starts monitoring the resources of a feature stream.
+	 * @param owner object that represents the stream (e.g. the result set iterator), the
+	 * resources are considered leaked if it becomes unreachable before the returned
+	 * handle has been closed, must not be <code>null</code>
+	 * @param rs result set, may be <code>null</code>
+	 * @param stmt statement, may be <code>null</code>
+	 * @param conn connection, may be <code>null</code>
+	 * @return handle for closing the resources, never <code>null</code>
+	 */
+	StreamHandle register(Object owner, ResultSet rs, Statement stmt, Connection conn) {
+		Throwable origin = LOG.isDebugEnabled() ? new Throwable("Feature stream opened here") : null;
+		OpenStream stream = new OpenStream(rs, stmt, conn, describeRequest(), origin);
+		openStreams.add(stream);
+		return new StreamHandle(stream, CLEANER.register(owner, stream));
+	}
+
+	/**
+	 * @return number of streams that are currently open
+	 */
+	int getOpenStreams() {
+		return openStreams.size();
+	}
+
+	/**
+	 * Closes all streams that have been open for longer than the maximum duration.
+	 */
+	void closeExpired() {
+		if (maxDurationNanos <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		for (OpenStream stream : openStreams) {
+			long openNanos = now - stream.opened;
+			if (openNanos > maxDurationNanos && openStreams.remove(stream)) {
+				LOG.warn(
+						"Feature stream of SQL feature store '{}' has been open for {} [ms], closing it forcibly. Opened by {}.",
+						storeId, NANOSECONDS.toMillis(openNanos), stream.request, stream.origin);
+				stream.cancel();
+				stream.release();
+			}
+		}
+	}
+
+	/**
+	 * Stops monitoring and closes all streams that are still open.
+	 */
+	void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		for (OpenStream stream : openStreams) {
+			if (openStreams.remove(stream)) {
+				LOG.warn("Feature stream of SQL feature store '{}' is still open on shutdown, closing it. Opened by {}.",
+						storeId, stream.request, stream.origin);
+				stream.cancel();
+				stream.release();
+			}
+		}
+	}
+
+	private static String describeRequest() {
+		StringBuilder sb = new StringBuilder("thread '").append(Thread.currentThread().getName()).append("'");
+		Map<String, String> params = RequestUtils.getCurrentThreadRequestParameters().get();
+		if (params != null && !params.isEmpty()) {
+			sb.append(", request parameters ").append(params);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Closes the resources of a monitored feature stream.
+	 */
+	static class StreamHandle {
+
+		private final OpenStream stream;
+
+		private final Cleanable cleanable;
+
+		private StreamHandle(OpenStream stream, Cleanable cleanable) {
+			this.stream = stream;
+			this.cleanable = cleanable;
+		}
+
+		/**
+		 * Releases the resources, does nothing if they have already been released.
+		 */
+		void close() {
+			stream.closed = true;
+			cleanable.clean();
+		}
+
+	}
+
+	/**
+	 * Resources of an open stream, must not reference the stream itself (otherwise it
+	 * would never become unreachable).
+	 */
+	private class OpenStream implements Runnable {
+
+		private final ResultSet rs;
+
+		private final Statement stmt;
+
+		private final Connection conn;
+
+		private final String request;
+
+		private final Throwable origin;
+
+		private final long opened = System.nanoTime();
+
+		private volatile boolean closed;
+
+		private OpenStream(ResultSet rs, Statement stmt, Connection conn, String request, Throwable origin) {
+			this.rs = rs;
+			this.stmt = stmt;
+			this.conn = conn;
+			this.request = request;
+			this.origin = origin;
+		}
+
+		@Override
+		public void run() {
+			if (!openStreams.remove(this)) {
+				// already closed because of the maximum duration or on shutdown
+				return;
+			}
+			if (!closed) {
+				LOG.warn("Feature stream of SQL feature store '{}' has not been closed, releasing its connection. "
+						+ "Opened by {}.", storeId, request, origin);
+			}
+			release();
+		}
+
+		private void cancel() {
+			if (stmt != null) {
+				try {
+					// aborts a fetch that may be in progress in another thread
+					stmt.cancel();
+				}
+				catch (SQLException e) {
+					LOG.debug("Cancelling statement failed: {}", e.getMessage());
+				}
+			}
+		}
+
+		private void release() {
+			JDBCUtils.close(rs, stmt, conn, LOG);
+		}
+
+	}
+
+}
@@ -56,12 +56,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import javax.xml.namespace.QName;
 
 import org.deegree.commons.jdbc.ResultSetIterator;
 import org.deegree.commons.jdbc.SQLIdentifier;
 import org.deegree.commons.jdbc.TableName;
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.commons.metrics.Timer;
 import org.deegree.commons.tom.CombinedReferenceResolver;
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.gml.GMLObject;
@@ -71,6 +74,8 @@ import org.deegree.commons.tom.primitive.PrimitiveType;
 import org.deegree.commons.tom.primitive.PrimitiveValue;
 import org.deegree.commons.tom.sql.ParticleConverter;
 import org.deegree.commons.tom.sql.SQLValueMangler;
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.commons.utils.JDBCUtils;
 import org.deegree.commons.utils.Pair;
 import org.deegree.commons.utils.kvp.InvalidParameterValueException;
@@ -79,7 +84,6 @@ import org.deegree.cs.persistence.CRSManager;
 import org.deegree.db.ConnectionProvider;
 import org.deegree.db.ConnectionProviderProvider;
 import org.deegree.feature.Feature;
-import org.deegree.feature.Features;
 import org.deegree.feature.persistence.FeatureInspector;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
@@ -89,9 +93,10 @@ import org.deegree.feature.persistence.FeatureStoreTransaction;
 import org.deegree.feature.persistence.cache.BBoxCache;
 import org.deegree.feature.persistence.cache.FeatureStoreCache;
 import org.deegree.feature.persistence.cache.SimpleFeatureStoreCache;
-import org.deegree.feature.persistence.lock.DefaultLockManager;
+import org.deegree.feature.persistence.lock.ConcurrentLockManager;
 import org.deegree.feature.persistence.lock.LockManager;
 import org.deegree.feature.persistence.query.Query;
+import org.deegree.feature.persistence.sql.FeatureStreamMonitor.StreamHandle;
 import org.deegree.feature.persistence.sql.blob.BlobCodec;
 import org.deegree.feature.persistence.sql.blob.BlobMapping;
 import org.deegree.feature.persistence.sql.blob.FeatureBuilderBlob;
@@ -114,7 +119,8 @@ import org.deegree.feature.stream.EmptyFeatureInputStream;
 import org.deegree.feature.stream.FeatureInputStream;
 import org.deegree.feature.stream.FilteredFeatureInputStream;
 import org.deegree.feature.stream.IteratorFeatureInputStream;
-import org.deegree.feature.stream.MemoryFeatureInputStream;
+import org.deegree.feature.stream.ParallelFeatureInputStream;
+import org.deegree.feature.stream.SortedFeatureInputStream;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.feature.types.property.GeometryPropertyType.CoordinateDimension;
 import org.deegree.feature.types.property.GeometryPropertyType.GeometryType;
@@ -159,6 +165,8 @@ public class SQLFeatureStore implements FeatureStore {
 
 	private static final int DEFAULT_FETCH_SIZE = 1000;
 
+	private static final int DEFAULT_MAX_STREAM_DURATION = 3600;
+
 	private static final int DEFAULT_CACHE_SIZE = 10000;
 
 	private final SQLFeatureStoreJAXB config;
@@ -185,12 +193,22 @@ public class SQLFeatureStore implements FeatureStore {
 
 	private Map<String, String> nsContext;
 
-	private DefaultLockManager lockManager;
+	private ConcurrentLockManager lockManager;
 
 	private final int fetchSize;
 
 	private final Boolean readAutoCommit;
 
+	private final long maxStreamDuration;
+
+	private FeatureStreamMonitor streamMonitor;
+
+	private Timer queryTimer;
+
+	private Timer hitsTimer;
+
+	private Timer connectionTimer;
+
 	private final List<FeatureInspector> inspectors = new ArrayList<FeatureInspector>();
 
 	private boolean nullEscalation;
@@ -223,6 +241,9 @@ public class SQLFeatureStore implements FeatureStore {
 		readAutoCommit = config.getJDBCConnId().isReadAutoCommit() != null ? config.getJDBCConnId().isReadAutoCommit()
 				: !dialect.requiresTransactionForCursorMode();
 		LOG.debug("Read auto commit: {}", readAutoCommit);
+		maxStreamDuration = config.getJDBCConnId().getMaxStreamDuration() != null
+				? config.getJDBCConnId().getMaxStreamDuration().longValue() : DEFAULT_MAX_STREAM_DURATION;
+		LOG.debug("Max stream duration: {} [s]", maxStreamDuration);
 
 		if (config.getFeatureCache() != null) {
 			cache = new SimpleFeatureStoreCache(DEFAULT_CACHE_SIZE);
@@ -714,7 +735,12 @@ public class SQLFeatureStore implements FeatureStore {
 
 	@Override
 	public void destroy() {
-		// nothing to do
+		if (lockManager != null) {
+			lockManager.destroy();
+		}
+		if (streamMonitor != null) {
+			streamMonitor.destroy();
+		}
 	}
 
 	@Override
@@ -728,18 +754,26 @@ public class SQLFeatureStore implements FeatureStore {
 		Filter filter = query.getFilter();
 
 		int hits = 0;
-		if (filter == null || filter instanceof OperatorFilter) {
-			hits = queryHitsByOperatorFilter(query, (OperatorFilter) filter);
-		}
-		else {
-			// must be an id filter based query
-			if (query.getFilter() == null || !(query.getFilter() instanceof IdFilter)) {
-				String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
-				throw new FilterEvaluationException(msg);
+		long start = hitsTimer.start();
+		Span span = startQuerySpan("featurestore.hits");
+		try {
+			if (filter == null || filter instanceof OperatorFilter) {
+				hits = queryHitsByOperatorFilter(query, (OperatorFilter) filter);
+			}
+			else {
+				// must be an id filter based query
+				if (query.getFilter() == null || !(query.getFilter() instanceof IdFilter)) {
+					String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
+					throw new FilterEvaluationException(msg);
+				}
+				// should be no problem iterating over the features (id queries usually
+				// request only a few ids)
+				hits = queryByIdFilter(query.getTypeNames(), (IdFilter) filter, query.getSortProperties()).count();
 			}
-			// should be no problem iterating over the features (id queries usually
-			// request only a few ids)
-			hits = queryByIdFilter(query.getTypeNames(), (IdFilter) filter, query.getSortProperties()).count();
+		}
+		finally {
+			span.close();
+			hitsTimer.stop(start);
 		}
 		return hits;
 	}
@@ -1023,6 +1057,14 @@ public class SQLFeatureStore implements FeatureStore {
 		if (wmsStyleQuery) {
 			return queryMultipleFtsFromBlob(queries, env, isMaxFeaturesAndStartIndexApplicable);
 		}
+		// the connection of a transaction is bound to the current thread
+		if (ParallelFeatureInputStream.isEnabled() && queries.length > 1 && !isTransactionActive()) {
+			List<Callable<FeatureInputStream>> subQueries = new ArrayList<Callable<FeatureInputStream>>();
+			for (Query query : queries) {
+				subQueries.add(() -> query(query, isMaxFeaturesAndStartIndexApplicable));
+			}
+			return new ParallelFeatureInputStream(subQueries);
+		}
 		Iterator<FeatureInputStream> rsIter = new Iterator<FeatureInputStream>() {
 			int i = 0;
 
@@ -1069,16 +1111,26 @@ public class SQLFeatureStore implements FeatureStore {
 		FeatureInputStream result = null;
 		Filter filter = query.getFilter();
 
-		if (filter == null || filter instanceof OperatorFilter) {
-			result = queryByOperatorFilter(query, (OperatorFilter) filter, isMaxFeaturesAndStartIndexApplicable);
-		}
-		else {
-			// must be an id filter based query
-			if (query.getFilter() == null || !(query.getFilter() instanceof IdFilter)) {
-				String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
-				throw new FilterEvaluationException(msg);
+		// measures the time until the result stream is available (the features are
+		// fetched lazily)
+		long start = queryTimer.start();
+		Span span = startQuerySpan("featurestore.query");
+		try {
+			if (filter == null || filter instanceof OperatorFilter) {
+				result = queryByOperatorFilter(query, (OperatorFilter) filter, isMaxFeaturesAndStartIndexApplicable);
+			}
+			else {
+				// must be an id filter based query
+				if (query.getFilter() == null || !(query.getFilter() instanceof IdFilter)) {
+					String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
+					throw new FilterEvaluationException(msg);
+				}
+				result = queryByIdFilter(query.getTypeNames(), (IdFilter) filter, query.getSortProperties());
 			}
-			result = queryByIdFilter(query.getTypeNames(), (IdFilter) filter, query.getSortProperties());
+		}
+		finally {
+			span.close();
+			queryTimer.stop(start);
 		}
 		return result;
 	}
@@ -1107,10 +1159,10 @@ public class SQLFeatureStore implements FeatureStore {
 				sb.append(",?");
 			}
 			long begin = System.currentTimeMillis();
-			stmt = conn.prepareStatement(
-					"SELECT gml_id,binary_object FROM " + blobMapping.getTable() + " A WHERE A.gml_id in (" + sb + ")");
+			stmt = dialect.prepareStreamingStatement(conn,
+					"SELECT gml_id,binary_object FROM " + blobMapping.getTable() + " A WHERE A.gml_id in (" + sb + ")",
+					fetchSize);
 			LOG.debug("Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
-			stmt.setFetchSize(fetchSize);
 			int idx = 0;
 			for (String id : filter.getMatchingIds()) {
 				stmt.setString(++idx, id);
@@ -1130,7 +1182,7 @@ public class SQLFeatureStore implements FeatureStore {
 
 		// sort features
 		if (sortCrit.length > 0) {
-			result = new MemoryFeatureInputStream(Features.sortFc(result.toCollection(), sortCrit));
+			result = new SortedFeatureInputStream(result, sortCrit);
 		}
 		return result;
 	}
@@ -1213,8 +1265,7 @@ public class SQLFeatureStore implements FeatureStore {
 			}
 			LOG.debug("SQL: {}", sql);
 
-			stmt = conn.prepareStatement(sql.toString());
-			stmt.setFetchSize(fetchSize);
+			stmt = dialect.prepareStreamingStatement(conn, sql.toString(), fetchSize);
 			LOG.debug("Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
 
 			int i = 1;
@@ -1246,7 +1297,9 @@ public class SQLFeatureStore implements FeatureStore {
 		if (isTransactionActive()) {
 			return transaction.get().getConnection();
 		}
+		long start = connectionTimer.start();
 		final Connection conn = connProvider.getConnection();
+		connectionTimer.stop(start);
 		conn.setAutoCommit(readAutoCommit);
 		return conn;
 	}
@@ -1355,12 +1408,12 @@ public class SQLFeatureStore implements FeatureStore {
 			// sql.append( wb.getOrderBy().getSQL() );
 			// }
 
-			if (isMaxFeaturesAndStartIndexApplicable)
+			if (isMaxFeaturesAndStartIndexApplicable && query.getSortProperties().length == 0)
 				appendOffsetAndFetch(sql, query.getMaxFeatures(), query.getStartIndex());
 
 			LOG.debug("SQL: {}", sql);
 			long begin = System.currentTimeMillis();
-			stmt = conn.prepareStatement(sql.toString());
+			stmt = dialect.prepareStreamingStatement(conn, sql.toString(), fetchSize);
 			LOG.debug("Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
 
 			int i = 1;
@@ -1384,7 +1437,6 @@ public class SQLFeatureStore implements FeatureStore {
 			// }
 
 			begin = System.currentTimeMillis();
-			stmt.setFetchSize(fetchSize);
 			rs = stmt.executeQuery();
 			LOG.debug("Executing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
 
@@ -1403,8 +1455,7 @@ public class SQLFeatureStore implements FeatureStore {
 		}
 
 		if (query.getSortProperties().length > 0) {
-			LOG.debug("Applying in-memory post-sorting.");
-			result = new MemoryFeatureInputStream(Features.sortFc(result.toCollection(), query.getSortProperties()));
+			result = sortInMemory(result, query.getSortProperties(), query, isMaxFeaturesAndStartIndexApplicable);
 		}
 		return result;
 	}
@@ -1496,12 +1547,12 @@ public class SQLFeatureStore implements FeatureStore {
 				sql.append(wb.getOrderBy().getSQL());
 			}
 
-			if (isMaxFeaturesAndStartIndexApplicable)
+			if (isMaxFeaturesAndStartIndexApplicable && wb.getPostSortCriteria() == null)
 				appendOffsetAndFetch(sql, query.getMaxFeatures(), query.getStartIndex());
 
 			LOG.debug("SQL: {}", sql);
 			long begin = System.currentTimeMillis();
-			stmt = conn.prepareStatement(sql.toString());
+			stmt = dialect.prepareStreamingStatement(conn, sql.toString(), fetchSize);
 			LOG.debug("Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
 
 			int i = 1;
@@ -1517,7 +1568,6 @@ public class SQLFeatureStore implements FeatureStore {
 			}
 
 			begin = System.currentTimeMillis();
-			stmt.setFetchSize(fetchSize);
 			rs = stmt.executeQuery();
 			LOG.debug("Executing SELECT took {} [ms] ", System.currentTimeMillis() - begin);
 
@@ -1541,8 +1591,7 @@ public class SQLFeatureStore implements FeatureStore {
 			result = new FilteredFeatureInputStream(result, wb.getPostFilter());
 		}
 		if (wb.getPostSortCriteria() != null) {
-			LOG.debug("Applying in-memory post-sorting.");
-			result = new MemoryFeatureInputStream(Features.sortFc(result.toCollection(), wb.getPostSortCriteria()));
+			result = sortInMemory(result, wb.getPostSortCriteria(), query, isMaxFeaturesAndStartIndexApplicable);
 		}
 		return result;
 	}
@@ -1592,8 +1641,7 @@ public class SQLFeatureStore implements FeatureStore {
 			if (queries.length > 1) {
 				sql.append(" ORDER BY QUERY_POS");
 			}
-			stmt = conn.prepareStatement(sql.toString());
-			stmt.setFetchSize(fetchSize);
+			stmt = dialect.prepareStreamingStatement(conn, sql.toString(), fetchSize);
 			int argIdx = 1;
 			for (final short ftId2 : ftIds) {
 				stmt.setShort(argIdx++, ftId2);
@@ -1709,17 +1757,26 @@ public class SQLFeatureStore implements FeatureStore {
 
 		private final Statement stmt;
 
+		// null, if the connection belongs to a transaction
+		private final StreamHandle handle;
+
 		public FeatureResultSetIterator(FeatureBuilder builder, ResultSet rs, Connection conn, Statement stmt) {
 			super(rs, conn, stmt);
 			this.builder = builder;
 			this.rs = rs;
 			this.conn = conn;
 			this.stmt = stmt;
+			this.handle = isTransactionActive() ? null : streamMonitor.register(this, rs, stmt, conn);
 		}
 
 		@Override
 		public void close() {
-			release(rs, stmt, conn);
+			if (handle != null) {
+				handle.close();
+			}
+			else {
+				release(rs, stmt, conn);
+			}
 		}
 
 		@Override
@@ -1734,10 +1791,31 @@ public class SQLFeatureStore implements FeatureStore {
 		return metadata;
 	}
 
+	private Span startQuerySpan(String name) {
+		Span span = Tracing.start(name);
+		if (span.isRecording()) {
+			span.setAttribute("deegree.store", getMetadata().getIdentifier().getId());
+		}
+		return span;
+	}
+
+	private void initMetrics(String id) {
+		queryTimer = Metrics.timer("deegree_featurestore_query_seconds",
+				"Duration of feature store queries until the result stream is available", "store", id, "operation",
+				"query");
+		hitsTimer = Metrics.timer("deegree_featurestore_query_seconds",
+				"Duration of feature store queries until the result stream is available", "store", id, "operation",
+				"hits");
+		connectionTimer = Metrics.timer("deegree_featurestore_connection_wait_seconds",
+				"Time spent waiting for a database connection from the pool", "store", id);
+	}
+
 	@Override
 	public void init() {
 		connProvider = workspace.getResource(ConnectionProviderProvider.class, getConnId());
 		LOG.debug("init");
+		streamMonitor = new FeatureStreamMonitor(getMetadata().getIdentifier().getId(), maxStreamDuration * 1000);
+		initMetrics(getMetadata().getIdentifier().getId());
 
 		List<String> resolverClasses = config.getCustomReferenceResolver();
 		List<GMLReferenceResolver> resolvers = new ArrayList<GMLReferenceResolver>();
@@ -1787,7 +1865,7 @@ public class SQLFeatureStore implements FeatureStore {
 		try {
 			// however TODO it properly on the DB
 			ConnectionProvider conn = this.workspace.getResource(ConnectionProviderProvider.class, "LOCK_DB");
-			lockManager = new DefaultLockManager(this, conn);
+			lockManager = new ConcurrentLockManager(this, conn, getMetadata().getIdentifier().getId());
 		}
 		catch (Throwable e) {
 			LOG.warn("Lock manager initialization failed, locking will not be available.");
@@ -1843,6 +1921,24 @@ public class SQLFeatureStore implements FeatureStore {
 		}
 	}
 
+	/**
+	 * Sorts the features of the given stream, used if the sort criteria cannot be mapped
+	 * to SQL. Only the requested features are kept in memory, the SQL query must not
+	 * apply start index and max features in this case.
+	 */
+	private FeatureInputStream sortInMemory(FeatureInputStream result, SortProperty[] sortCrit, Query query,
+			boolean isMaxFeaturesAndStartIndexApplicable) {
+		LOG.debug("Applying in-memory post-sorting.");
+		if (isMaxFeaturesAndStartIndexApplicable) {
+			return new SortedFeatureInputStream(result, sortCrit, query.getStartIndex(), query.getMaxFeatures());
+		}
+		// start index and max features are applied by the caller
+		if (query.getMaxFeatures() > -1) {
+			return new SortedFeatureInputStream(result, sortCrit, 0, query.getStartIndex() + query.getMaxFeatures());
+		}
+		return new SortedFeatureInputStream(result, sortCrit);
+	}
+
 	private void appendOffsetAndFetch(StringBuilder sql, int maxFeatures, int startIndex) {
 		if (startIndex > 0)
 			sql.append(" OFFSET ").append(startIndex).append(" ROWS");
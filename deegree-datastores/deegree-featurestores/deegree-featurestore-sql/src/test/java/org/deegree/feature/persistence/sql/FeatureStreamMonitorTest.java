@@ -0,0 +1,129 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2026 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+package org.deegree.feature.persistence.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.deegree.feature.persistence.sql.FeatureStreamMonitor.StreamHandle;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FeatureStreamMonitor}.
+ */
+public class FeatureStreamMonitorTest {
+
+	private FeatureStreamMonitor monitor;
+
+	@After
+	public void destroyMonitor() {
+		if (monitor != null) {
+			monitor.destroy();
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		monitor = new FeatureStreamMonitor("test", 0);
+		ResultSet rs = mock(ResultSet.class);
+		Statement stmt = mock(Statement.class);
+		Connection conn = mock(Connection.class);
+		StreamHandle handle = monitor.register(new Object(), rs, stmt, conn);
+		assertEquals(1, monitor.getOpenStreams());
+
+		handle.close();
+		handle.close();
+
+		assertEquals(0, monitor.getOpenStreams());
+		verify(rs, times(1)).close();
+		verify(stmt, times(1)).close();
+		verify(conn, times(1)).close();
+	}
+
+	@Test
+	public void testCloseExpired() throws Exception {
+		monitor = new FeatureStreamMonitor("test", 1);
+		Statement stmt = mock(Statement.class);
+		Connection conn = mock(Connection.class);
+		Object owner = new Object();
+		StreamHandle handle = monitor.register(owner, null, stmt, conn);
+		Thread.sleep(10);
+
+		monitor.closeExpired();
+
+		assertEquals(0, monitor.getOpenStreams());
+		verify(stmt).cancel();
+		verify(conn, times(1)).close();
+		handle.close();
+		verify(conn, times(1)).close();
+	}
+
+	@Test
+	public void testCloseUnreachable() throws Exception {
+		monitor = new FeatureStreamMonitor("test", 0);
+		Connection conn = mock(Connection.class);
+		monitor.register(new Object(), null, null, conn);
+
+		for (int i = 0; i < 100 && monitor.getOpenStreams() > 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		assertEquals(0, monitor.getOpenStreams());
+		verify(conn).close();
+	}
+
+	@Test
+	public void testDestroy() throws Exception {
+		monitor = new FeatureStreamMonitor("test", 0);
+		Connection conn = mock(Connection.class);
+		Object owner = new Object();
+		StreamHandle handle = monitor.register(owner, null, null, conn);
+
+		monitor.destroy();
+
+		assertEquals(0, monitor.getOpenStreams());
+		verify(conn).close();
+		handle.close();
+		verify(conn, times(1)).close();
+	}
+
+}
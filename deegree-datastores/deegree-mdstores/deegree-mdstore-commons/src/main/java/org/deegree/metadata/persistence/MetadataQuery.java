@@ -38,6 +38,7 @@ import javax.xml.namespace.QName;
 
 import org.deegree.filter.Filter;
 import org.deegree.filter.sort.SortProperty;
+import org.deegree.protocol.csw.CSWConstants.ReturnableElement;
 
 /**
  * A query to be performed against a {@link MetadataStore}.
@@ -60,6 +61,10 @@ public class MetadataQuery {
 
 	private final int maxRecords;
 
+	private final ReturnableElement elementSetName;
+
+	private final String outputSchema;
+
 	/**
 	 * Creates a new {@link MetadataQuery} instance.
 	 * @param queryTypeNames names of record types on which the query will be performed,
@@ -75,12 +80,38 @@ public class MetadataQuery {
 	 */
 	public MetadataQuery(QName[] queryTypeNames, QName[] returnTypeNames, Filter filter, SortProperty[] sortCriteria,
 			int startPosition, int maxRecords) {
+		this(queryTypeNames, returnTypeNames, filter, sortCriteria, startPosition, maxRecords, null, null);
+	}
+
+	/**
+	 * Creates a new {@link MetadataQuery} instance that also states how the records will
+	 * be returned. Stores may use this to deliver precomputed representations of the
+	 * records.
+	 * @param queryTypeNames names of record types on which the query will be performed,
+	 * can be <code>null</code> (depending on the metadata profile)
+	 * @param returnTypeNames names of record types to be returned, can be
+	 * <code>null</code> (depending on the metadata profile)
+	 * @param filter constraint on the queried records, can be <code>null</code>
+	 * @param sortCriteria sort criteria, can be <code>null</code>
+	 * @param startPosition number of the first hit to be included in the result, starting
+	 * at one
+	 * @param maxRecords maximum number of hits to include in the results or -1
+	 * (unrestricted)
+	 * @param elementSetName element set the records will be serialized with, can be
+	 * <code>null</code> (unknown or individual element names)
+	 * @param outputSchema namespace of the output schema the records will be serialized
+	 * with, can be <code>null</code> (unknown)
+	 */
+	public MetadataQuery(QName[] queryTypeNames, QName[] returnTypeNames, Filter filter, SortProperty[] sortCriteria,
+			int startPosition, int maxRecords, ReturnableElement elementSetName, String outputSchema) {
 		this.queryTypeNames = queryTypeNames == null ? new QName[0] : queryTypeNames;
 		this.returnTypeNames = returnTypeNames == null ? new QName[0] : returnTypeNames;
 		this.filter = filter;
 		this.sortCriteria = sortCriteria;
 		this.startPosition = startPosition;
 		this.maxRecords = maxRecords;
+		this.elementSetName = elementSetName;
+		this.outputSchema = outputSchema;
 	}
 
 	/**
@@ -139,4 +170,20 @@ public class MetadataQuery {
 		return maxRecords;
 	}
 
+	/**
+	 * Returns the element set the records will be serialized with.
+	 * @return element set, can be <code>null</code> (unknown or individual element names)
+	 */
+	public ReturnableElement getElementSetName() {
+		return elementSetName;
+	}
+
+	/**
+	 * Returns the namespace of the output schema the records will be serialized with.
+	 * @return namespace of the output schema, can be <code>null</code> (unknown)
+	 */
+	public String getOutputSchema() {
+		return outputSchema;
+	}
+
 }
\ No newline at end of file
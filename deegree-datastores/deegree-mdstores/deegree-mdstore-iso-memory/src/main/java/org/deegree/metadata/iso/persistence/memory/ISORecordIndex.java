@@ -0,0 +1,645 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.deegree.commons.index.RTree;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.utils.Pair;
+import org.deegree.cs.CRSUtils;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.filter.Expression;
+import org.deegree.filter.Filter;
+import org.deegree.filter.IdFilter;
+import org.deegree.filter.MatchAction;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.ComparisonOperator;
+import org.deegree.filter.comparison.PropertyIsEqualTo;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.LogicalOperator;
+import org.deegree.filter.spatial.SpatialOperator;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.ISORecordEvaluator;
+import org.deegree.metadata.iso.parsing.QueryableProperties;
+import org.deegree.metadata.iso.types.BoundingBox;
+
+/**
+ * In-memory indexes over the {@link ISORecord}s kept by {@link StoredISORecords}, used
+ * to narrow down the records a {@link Filter} has to be evaluated against.
+ * <p>
+ * The index only ever determines a superset of the matching records (the candidates),
+ * the exact evaluation of the filter is still done on each candidate. Indexed are:
+ * <ul>
+ * <li>the tokens of the AnyText of each record (inverted index, used for
+ * <code>PropertyIsLike</code> and <code>PropertyIsEqualTo</code>)</li>
+ * <li>the bounding box of each record ({@link RTree}, used for all spatial operators
+ * implying an intersection of the envelopes)</li>
+ * <li>identifier, titles and type of each record (sorted indexes, used for
+ * <code>PropertyIsEqualTo</code> and <code>PropertyIsLike</code> with a literal
+ * prefix)</li>
+ * </ul>
+ * Candidates of <code>And</code> operands are intersected, candidates of
+ * <code>Or</code> operands are united. All other operators are not supported and
+ * evaluate to 'all records'.
+ * </p>
+ * <p>
+ * Strings are indexed case-folded, so the index serves both case sensitive and case
+ * insensitive comparisons.
+ * </p>
+ * <p>
+ * The index is thread-safe: modifications exclude concurrent queries, the {@link RTree}
+ * is rebuilt on the first query after a modification and only published when it is
+ * complete.
+ * </p>
+ */
+class ISORecordIndex {
+
+	private static final int RTREE_NODE_SIZE = 64;
+
+	private final Map<String, Integer> identifierToOrdinal = new HashMap<String, Integer>();
+
+	private final Map<String, Set<String>> identifierToTokens = new HashMap<String, Set<String>>();
+
+	private final Map<String, Set<String>> tokenToIdentifiers = new HashMap<String, Set<String>>();
+
+	private final TreeMap<String, Set<String>> identifierIndex = new TreeMap<String, Set<String>>();
+
+	private final TreeMap<String, Set<String>> titleIndex = new TreeMap<String, Set<String>>();
+
+	private final TreeMap<String, Set<String>> typeIndex = new TreeMap<String, Set<String>>();
+
+	private final Map<String, List<String>> identifierToTitles = new HashMap<String, List<String>>();
+
+	private final Map<String, String> identifierToType = new HashMap<String, String>();
+
+	private final Map<String, float[]> identifierToBbox = new HashMap<String, float[]>();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final ReentrantLock bboxIndexLock = new ReentrantLock();
+
+	private volatile RTree<String> bboxIndex;
+
+	private volatile boolean bboxIndexOutdated = true;
+
+	private int nextOrdinal = 0;
+
+	/**
+	 * Adds the record to the index, an indexed record with the same identifier is
+	 * replaced but keeps its position.
+	 * @param identifier never <code>null</code>
+	 * @param record never <code>null</code>
+	 */
+	void add(String identifier, ISORecord record) {
+		lock.writeLock().lock();
+		try {
+			if (identifierToOrdinal.containsKey(identifier)) {
+				removeValues(identifier);
+			}
+			else {
+				identifierToOrdinal.put(identifier, nextOrdinal++);
+			}
+			QueryableProperties qp = record.getParsedElement().getQueryableProperties();
+			addTokens(identifier, qp.getAnyText());
+			addSortedValue(identifierIndex, identifier, identifier);
+			if (qp.getTitle() != null) {
+				List<String> titles = new ArrayList<String>(qp.getTitle());
+				for (String title : titles) {
+					addSortedValue(titleIndex, title, identifier);
+				}
+				identifierToTitles.put(identifier, titles);
+			}
+			if (qp.getType() != null) {
+				addSortedValue(typeIndex, qp.getType(), identifier);
+				identifierToType.put(identifier, qp.getType());
+			}
+			float[] bbox = asFloatEnvelope(qp.getBoundingBox());
+			if (bbox != null) {
+				identifierToBbox.put(identifier, bbox);
+			}
+			bboxIndexOutdated = true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the record with the passed identifier from the index.
+	 * @param identifier never <code>null</code>
+	 */
+	void remove(String identifier) {
+		lock.writeLock().lock();
+		try {
+			if (identifierToOrdinal.remove(identifier) != null) {
+				removeValues(identifier);
+				bboxIndexOutdated = true;
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Determines the records which may match the passed filter.
+	 * @param filter never <code>null</code>
+	 * @return the identifiers of the candidates in insertion order,
+	 * <code>null</code> if the filter cannot be narrowed down by the index (all records
+	 * are candidates)
+	 */
+	List<String> getCandidates(Filter filter) {
+		lock.readLock().lock();
+		try {
+			Set<String> candidates = null;
+			switch (filter.getType()) {
+				case ID_FILTER:
+					candidates = new HashSet<String>(((IdFilter) filter).getMatchingIds());
+					break;
+				case OPERATOR_FILTER:
+					candidates = getCandidates(((OperatorFilter) filter).getOperator());
+					break;
+			}
+			if (candidates == null) {
+				return null;
+			}
+			List<String> ordered = new ArrayList<String>(candidates.size());
+			for (String candidate : candidates) {
+				if (identifierToOrdinal.containsKey(candidate)) {
+					ordered.add(candidate);
+				}
+			}
+			Collections.sort(ordered, new Comparator<String>() {
+				@Override
+				public int compare(String id1, String id2) {
+					return identifierToOrdinal.get(id1).compareTo(identifierToOrdinal.get(id2));
+				}
+			});
+			return ordered;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Set<String> getCandidates(Operator operator) {
+		switch (operator.getType()) {
+			case LOGICAL:
+				return getCandidates((LogicalOperator) operator);
+			case COMPARISON:
+				return getCandidates((ComparisonOperator) operator);
+			case SPATIAL:
+				return getCandidates((SpatialOperator) operator);
+			default:
+				return null;
+		}
+	}
+
+	private Set<String> getCandidates(LogicalOperator operator) {
+		switch (operator.getSubType()) {
+			case AND:
+				Set<String> intersection = null;
+				for (Operator param : operator.getParams()) {
+					Set<String> candidates = getCandidates(param);
+					if (candidates != null) {
+						intersection = intersection == null ? candidates : intersect(intersection, candidates);
+					}
+				}
+				return intersection;
+			case OR:
+				Set<String> union = new HashSet<String>();
+				for (Operator param : operator.getParams()) {
+					Set<String> candidates = getCandidates(param);
+					if (candidates == null) {
+						return null;
+					}
+					union.addAll(candidates);
+				}
+				return union;
+			default:
+				return null;
+		}
+	}
+
+	private Set<String> getCandidates(ComparisonOperator operator) {
+		if (operator.getMatchAction() != null && operator.getMatchAction() != MatchAction.ANY) {
+			return null;
+		}
+		switch (operator.getSubType()) {
+			case PROPERTY_IS_EQUAL_TO:
+				return getCandidates((PropertyIsEqualTo) operator);
+			case PROPERTY_IS_LIKE:
+				return getCandidates((PropertyIsLike) operator);
+			default:
+				return null;
+		}
+	}
+
+	private Set<String> getCandidates(PropertyIsEqualTo operator) {
+		ValueReference valueRef = asValueReference(operator.getParameter1(), operator.getParameter2());
+		String value = asLiteralValue(operator.getParameter1(), operator.getParameter2());
+		if (valueRef == null || value == null) {
+			return null;
+		}
+		if (ISORecordEvaluator.isAnyText(valueRef)) {
+			return getTokenCandidates(Collections.singletonList(value));
+		}
+		TreeMap<String, Set<String>> sortedIndex = getSortedIndex(valueRef);
+		if (sortedIndex != null) {
+			Set<String> candidates = sortedIndex.get(fold(value));
+			return candidates != null ? new HashSet<String>(candidates) : new HashSet<String>();
+		}
+		return null;
+	}
+
+	private Set<String> getCandidates(PropertyIsLike operator) {
+		if (!(operator.getExpression() instanceof ValueReference)) {
+			return null;
+		}
+		ValueReference valueRef = (ValueReference) operator.getExpression();
+		String pattern = asLiteralValue(operator.getPattern());
+		if (pattern == null || operator.getWildCard().length() != 1 || operator.getSingleChar().length() != 1
+				|| operator.getEscapeChar().length() != 1) {
+			return null;
+		}
+		List<String> fragments = parseFragments(pattern, operator.getWildCard().charAt(0),
+				operator.getSingleChar().charAt(0), operator.getEscapeChar().charAt(0));
+		if (ISORecordEvaluator.isAnyText(valueRef)) {
+			return getTokenCandidates(fragments);
+		}
+		TreeMap<String, Set<String>> sortedIndex = getSortedIndex(valueRef);
+		if (sortedIndex != null && !fragments.get(0).isEmpty()) {
+			String prefix = fold(fragments.get(0));
+			Set<String> candidates = new HashSet<String>();
+			SortedMap<String, Set<String>> matching = sortedIndex.subMap(prefix, prefix + Character.MAX_VALUE);
+			for (Set<String> identifiers : matching.values()) {
+				candidates.addAll(identifiers);
+			}
+			return candidates;
+		}
+		return null;
+	}
+
+	private Set<String> getCandidates(SpatialOperator operator) {
+		switch (operator.getSubType()) {
+			case BBOX:
+			case INTERSECTS:
+			case WITHIN:
+			case CONTAINS:
+			case OVERLAPS:
+			case EQUALS:
+			case TOUCHES:
+			case CROSSES:
+				break;
+			default:
+				return null;
+		}
+		Geometry literal = operator.getGeometry();
+		if (!(operator.getParam1() instanceof ValueReference) || literal == null
+				|| !ISORecordEvaluator.isBoundingBox((ValueReference) operator.getParam1())) {
+			return null;
+		}
+		ICRS literalCrs = literal.getCoordinateSystem();
+		if (literalCrs != null && !CRSUtils.EPSG_4326.equals(literalCrs)) {
+			// literal is transformed during evaluation
+			return null;
+		}
+		Envelope env = literal.getEnvelope();
+		float[] queryBox = asFloatEnvelope(env.getMin().get0(), env.getMin().get1(), env.getMax().get0(),
+				env.getMax().get1());
+		RTree<String> rtree = getBboxIndex();
+		if (rtree == null) {
+			return new HashSet<String>();
+		}
+		return new HashSet<String>(rtree.query(queryBox));
+	}
+
+	private RTree<String> getBboxIndex() {
+		if (!bboxIndexOutdated) {
+			return bboxIndex;
+		}
+		// concurrent queries hold the read lock as well, so the indexed boxes can't change,
+		// but only one of them has to rebuild the tree
+		bboxIndexLock.lock();
+		try {
+			if (bboxIndexOutdated) {
+				bboxIndex = buildBboxIndex();
+				bboxIndexOutdated = false;
+			}
+			return bboxIndex;
+		}
+		finally {
+			bboxIndexLock.unlock();
+		}
+	}
+
+	private RTree<String> buildBboxIndex() {
+		if (identifierToBbox.isEmpty()) {
+			return null;
+		}
+		float[] rootBox = null;
+		List<Pair<float[], String>> entries = new ArrayList<Pair<float[], String>>(identifierToBbox.size());
+		for (Map.Entry<String, float[]> entry : identifierToBbox.entrySet()) {
+			float[] box = entry.getValue();
+			if (rootBox == null) {
+				rootBox = box.clone();
+			}
+			else {
+				rootBox[0] = Math.min(rootBox[0], box[0]);
+				rootBox[1] = Math.min(rootBox[1], box[1]);
+				rootBox[2] = Math.max(rootBox[2], box[2]);
+				rootBox[3] = Math.max(rootBox[3], box[3]);
+			}
+			entries.add(new Pair<float[], String>(box, entry.getKey()));
+		}
+		RTree<String> rtree = new RTree<String>(rootBox, RTREE_NODE_SIZE);
+		rtree.insertBulk(entries);
+		return rtree;
+	}
+
+	/**
+	 * A record may only match if each alphanumeric run of each literal fragment is
+	 * contained in one of the tokens of its AnyText.
+	 */
+	private Set<String> getTokenCandidates(List<String> fragments) {
+		Set<String> candidates = null;
+		for (String fragment : fragments) {
+			for (String run : tokenize(fragment)) {
+				Set<String> runCandidates = new HashSet<String>();
+				Set<String> exactMatch = tokenToIdentifiers.get(run);
+				if (exactMatch != null) {
+					runCandidates.addAll(exactMatch);
+				}
+				for (Map.Entry<String, Set<String>> entry : tokenToIdentifiers.entrySet()) {
+					if (entry.getKey().length() > run.length() && entry.getKey().contains(run)) {
+						runCandidates.addAll(entry.getValue());
+					}
+				}
+				candidates = candidates == null ? runCandidates : intersect(candidates, runCandidates);
+				if (candidates.isEmpty()) {
+					return candidates;
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private TreeMap<String, Set<String>> getSortedIndex(ValueReference valueRef) {
+		if (ISORecordEvaluator.isIdentifier(valueRef)) {
+			return identifierIndex;
+		}
+		if (ISORecordEvaluator.isTitle(valueRef)) {
+			return titleIndex;
+		}
+		if (ISORecordEvaluator.isType(valueRef)) {
+			return typeIndex;
+		}
+		return null;
+	}
+
+	private void addTokens(String identifier, String anyText) {
+		Set<String> tokens = tokenize(anyText);
+		for (String token : tokens) {
+			Set<String> identifiers = tokenToIdentifiers.get(token);
+			if (identifiers == null) {
+				identifiers = new HashSet<String>();
+				tokenToIdentifiers.put(token, identifiers);
+			}
+			identifiers.add(identifier);
+		}
+		identifierToTokens.put(identifier, tokens);
+	}
+
+	private void removeValues(String identifier) {
+		Set<String> tokens = identifierToTokens.remove(identifier);
+		if (tokens != null) {
+			for (String token : tokens) {
+				removeFromSet(tokenToIdentifiers, token, identifier);
+			}
+		}
+		removeFromSet(identifierIndex, fold(identifier), identifier);
+		List<String> titles = identifierToTitles.remove(identifier);
+		if (titles != null) {
+			for (String title : titles) {
+				removeFromSet(titleIndex, fold(title), identifier);
+			}
+		}
+		String type = identifierToType.remove(identifier);
+		if (type != null) {
+			removeFromSet(typeIndex, fold(type), identifier);
+		}
+		identifierToBbox.remove(identifier);
+	}
+
+	private static void addSortedValue(TreeMap<String, Set<String>> index, String value, String identifier) {
+		if (value == null) {
+			return;
+		}
+		String key = fold(value);
+		Set<String> identifiers = index.get(key);
+		if (identifiers == null) {
+			identifiers = new HashSet<String>();
+			index.put(key, identifiers);
+		}
+		identifiers.add(identifier);
+	}
+
+	private static void removeFromSet(Map<String, Set<String>> index, String key, String identifier) {
+		Set<String> identifiers = index.get(key);
+		if (identifiers != null) {
+			identifiers.remove(identifier);
+			if (identifiers.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	private static Set<String> intersect(Set<String> set1, Set<String> set2) {
+		Set<String> smaller = set1.size() <= set2.size() ? set1 : set2;
+		Set<String> larger = smaller == set1 ? set2 : set1;
+		Set<String> intersection = new HashSet<String>();
+		for (String value : smaller) {
+			if (larger.contains(value)) {
+				intersection.add(value);
+			}
+		}
+		return intersection;
+	}
+
+	/**
+	 * Splits the pattern into the literal fragments between the (unescaped) wildcard and
+	 * single character placeholders. The first fragment is the literal prefix of the
+	 * pattern and may be empty. Escapes are resolved the same way as
+	 * {@link PropertyIsLike} does.
+	 */
+	static List<String> parseFragments(String pattern, char wildCard, char singleChar, char escapeChar) {
+		List<String> fragments = new ArrayList<String>();
+		StringBuilder fragment = new StringBuilder();
+		boolean escapeMode = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (escapeMode) {
+				if (c != escapeChar) {
+					fragment.append(c);
+				}
+				escapeMode = false;
+			}
+			else if (c == escapeChar) {
+				escapeMode = true;
+			}
+			else if (c == wildCard || c == singleChar) {
+				fragments.add(fragment.toString());
+				fragment.setLength(0);
+			}
+			else {
+				fragment.append(c);
+			}
+		}
+		fragments.add(fragment.toString());
+		return fragments;
+	}
+
+	/**
+	 * Splits the text into the maximal runs of letters and digits, case-folded.
+	 */
+	static Set<String> tokenize(String text) {
+		Set<String> tokens = new HashSet<String>();
+		if (text == null) {
+			return tokens;
+		}
+		StringBuilder token = new StringBuilder();
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				token.append(fold(c));
+			}
+			else if (token.length() > 0) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+		}
+		if (token.length() > 0) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	/**
+	 * Case folding compatible with {@link String#equalsIgnoreCase(String)}.
+	 */
+	static String fold(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			sb.append(fold(value.charAt(i)));
+		}
+		return sb.toString();
+	}
+
+	private static char fold(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	private static ValueReference asValueReference(Expression param1, Expression param2) {
+		if (param1 instanceof ValueReference && param2 instanceof Literal) {
+			return (ValueReference) param1;
+		}
+		if (param2 instanceof ValueReference && param1 instanceof Literal) {
+			return (ValueReference) param2;
+		}
+		return null;
+	}
+
+	private static String asLiteralValue(Expression param1, Expression param2) {
+		if (param1 instanceof Literal && param2 instanceof ValueReference) {
+			return asLiteralValue(param1);
+		}
+		if (param2 instanceof Literal && param1 instanceof ValueReference) {
+			return asLiteralValue(param2);
+		}
+		return null;
+	}
+
+	private static String asLiteralValue(Expression expression) {
+		if (!(expression instanceof Literal)) {
+			return null;
+		}
+		TypedObjectNode value = ((Literal<?>) expression).getValue();
+		return value != null ? value.toString() : null;
+	}
+
+	private static float[] asFloatEnvelope(Collection<BoundingBox> bboxes) {
+		if (bboxes == null || bboxes.isEmpty()) {
+			return null;
+		}
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (BoundingBox bbox : bboxes) {
+			minX = Math.min(minX, Math.min(bbox.getWestBoundLongitude(), bbox.getEastBoundLongitude()));
+			maxX = Math.max(maxX, Math.max(bbox.getWestBoundLongitude(), bbox.getEastBoundLongitude()));
+			minY = Math.min(minY, Math.min(bbox.getSouthBoundLatitude(), bbox.getNorthBoundLatitude()));
+			maxY = Math.max(maxY, Math.max(bbox.getSouthBoundLatitude(), bbox.getNorthBoundLatitude()));
+		}
+		return asFloatEnvelope(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Rounds outwards, so the float envelope always covers the double envelope.
+	 */
+	private static float[] asFloatEnvelope(double minX, double minY, double maxX, double maxY) {
+		return new float[] { Math.nextDown((float) minX), Math.nextDown((float) minY), Math.nextUp((float) maxX),
+				Math.nextUp((float) maxY) };
+	}
+
+}
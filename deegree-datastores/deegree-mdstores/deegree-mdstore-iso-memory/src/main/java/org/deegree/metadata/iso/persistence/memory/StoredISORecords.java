@@ -39,6 +39,7 @@ import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 
@@ -68,6 +69,8 @@ public class StoredISORecords {
 
 	private final LinkedHashMap<String, ISORecord> identifierToRecord = new LinkedHashMap<String, ISORecord>();
 
+	private final ISORecordIndex index = new ISORecordIndex();
+
 	/**
 	 * Creates an empty store.
 	 */
@@ -118,6 +121,7 @@ public class StoredISORecords {
 		if (identifierToRecord.containsKey(identifier)) {
 			identifierToRecord.remove(identifier);
 			identifierToFile.remove(identifier);
+			index.remove(identifier);
 			return true;
 		}
 		return false;
@@ -147,6 +151,7 @@ public class StoredISORecords {
 			if (identifierToRecord.containsKey(identifier)) {
 				LOG.debug("Overwrite record with fileIdentifier {}.", identifier);
 			}
+			index.add(identifier, record);
 			identifierToRecord.put(identifier, record);
 			identifierToFile.put(identifier, file);
 			return identifier;
@@ -196,7 +201,7 @@ public class StoredISORecords {
 		}
 		List<ISORecord> result = new ArrayList<ISORecord>(maxRecords);
 		int matched = 1;
-		for (ISORecord record : identifierToRecord.values()) {
+		for (ISORecord record : getCandidates(filter)) {
 			if (record.eval(filter)) {
 				if (matched >= startPosition) {
 					result.add(record);
@@ -225,6 +230,29 @@ public class StoredISORecords {
 		return result;
 	}
 
+	/**
+	 * Narrows down the records the filter has to be evaluated against by means of the
+	 * {@link ISORecordIndex}.
+	 * @param filter never <code>null</code>
+	 * @return the records which may match the filter in insertion order, never
+	 * <code>null</code>
+	 */
+	private Collection<ISORecord> getCandidates(Filter filter) {
+		List<String> identifiers = index.getCandidates(filter);
+		if (identifiers == null) {
+			return identifierToRecord.values();
+		}
+		LOG.debug("Evaluating filter against {} of {} records.", identifiers.size(), identifierToRecord.size());
+		List<ISORecord> candidates = new ArrayList<ISORecord>(identifiers.size());
+		for (String identifier : identifiers) {
+			ISORecord record = identifierToRecord.get(identifier);
+			if (record != null) {
+				candidates.add(record);
+			}
+		}
+		return candidates;
+	}
+
 	/**
 	 * Requests the number of records kept in memory
 	 * @return the number of records kept in memory
@@ -245,7 +273,7 @@ public class StoredISORecords {
 			result.addAll(identifierToRecord.values());
 		}
 		else {
-			for (ISORecord record : identifierToRecord.values()) {
+			for (ISORecord record : getCandidates(filter)) {
 				if (record.eval(filter)) {
 					result.add(record);
 				}
@@ -0,0 +1,232 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence.memory;
+
+import static java.util.Arrays.asList;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.xml.CommonNamespaces;
+import org.deegree.commons.xml.NamespaceBindings;
+import org.deegree.cs.CRSUtils;
+import org.deegree.filter.Filter;
+import org.deegree.filter.Operator;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.PropertyIsBetween;
+import org.deegree.filter.comparison.PropertyIsEqualTo;
+import org.deegree.filter.comparison.PropertyIsLike;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.logical.And;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.metadata.iso.ISORecord;
+import org.junit.Test;
+
+/**
+ * Tests that the candidates determined by the {@link ISORecordIndex} always cover the
+ * records matched by a full evaluation of the filter.
+ */
+public class ISORecordIndexTest {
+
+	private static final NamespaceBindings nsContext = CommonNamespaces.getNamespaceContext();
+
+	@Test
+	public void testTokenize() {
+		assertEquals(new HashSet<String>(asList("ikonos", "2", "raw", "2007", "04")),
+				ISORecordIndex.tokenize("IKONOS 2 RAW 2007-04"));
+	}
+
+	@Test
+	public void testParseFragments() {
+		assertEquals(asList("", "water", ""), ISORecordIndex.parseFragments("%water%", '%', '_', '\\'));
+		assertEquals(asList("wa", "er 100%"), ISORecordIndex.parseFragments("wa_er 100\\%", '%', '_', '\\'));
+	}
+
+	@Test
+	public void testAnyTextLikeCaseInsensitive() throws Exception {
+		Operator operator = like("apiso:AnyText", "%ikonos%", false);
+		assertSameAsFullEvaluation(new OperatorFilter(operator));
+	}
+
+	@Test
+	public void testAnyTextLikeCaseSensitive() throws Exception {
+		Operator operator = like("apiso:AnyText", "%RAW 2006%", true);
+		assertSameAsFullEvaluation(new OperatorFilter(operator));
+	}
+
+	@Test
+	public void testAnyTextLikeUnknownToken() throws Exception {
+		Operator operator = like("apiso:AnyText", "%doesnotexist%", false);
+		List<ISORecord> records = getStoredIsoRecords().getRecords(new OperatorFilter(operator));
+		assertEquals(0, records.size());
+	}
+
+	@Test
+	public void testTitleLikePrefix() throws Exception {
+		Operator operator = like("apiso:Title", "IKONOS%", true);
+		List<ISORecord> records = assertSameAsFullEvaluation(new OperatorFilter(operator));
+		assertEquals(4, records.size());
+	}
+
+	@Test
+	public void testTitleEqualToIgnoreCase() throws Exception {
+		Operator operator = new PropertyIsEqualTo(new ValueReference("apiso:Title", nsContext),
+				new Literal<PrimitiveValue>("spot 2 raw 2007-03-05T11:39:14"), false, null);
+		List<ISORecord> records = assertSameAsFullEvaluation(new OperatorFilter(operator));
+		assertEquals(1, records.size());
+	}
+
+	@Test
+	public void testBBoxAndUnindexedOperator() throws Exception {
+		GeometryFactory geomFactory = new GeometryFactory();
+		ValueReference reference = new ValueReference("apiso:BoundingBox", nsContext);
+		Operator bbox = new BBOX(reference, geomFactory.createEnvelope(10, 45.22, 11., 45.5, CRSUtils.EPSG_4326));
+		Operator creation = new PropertyIsBetween(new ValueReference("apiso:CreationDate", nsContext),
+				new Literal<PrimitiveValue>("2006-06-14"), new Literal<PrimitiveValue>("2006-06-16"), true, null);
+		assertSameAsFullEvaluation(new OperatorFilter(bbox));
+		assertSameAsFullEvaluation(new OperatorFilter(new And(bbox, creation)));
+	}
+
+	@Test
+	public void testBBoxOutside() throws Exception {
+		GeometryFactory geomFactory = new GeometryFactory();
+		ValueReference reference = new ValueReference("apiso:BoundingBox", nsContext);
+		Operator bbox = new BBOX(reference, geomFactory.createEnvelope(-80, -40, -70, -30, CRSUtils.EPSG_4326));
+		List<ISORecord> records = assertSameAsFullEvaluation(new OperatorFilter(bbox));
+		assertEquals(0, records.size());
+	}
+
+	@Test
+	public void testUnindexedOperator() throws Exception {
+		ISORecordIndex index = new ISORecordIndex();
+		Operator creation = new PropertyIsBetween(new ValueReference("apiso:CreationDate", nsContext),
+				new Literal<PrimitiveValue>("2006-06-14"), new Literal<PrimitiveValue>("2006-06-16"), true, null);
+		assertNull(index.getCandidates(new OperatorFilter(creation)));
+	}
+
+	@Test
+	public void testDeletedRecordIsNoCandidate() throws Exception {
+		StoredISORecords storedRecords = getStoredIsoRecords();
+		ISORecord record = GetTestRecordsUtils.getRecord("2.xml");
+		storedRecords.deleteRecord(record.getIdentifier());
+		Operator operator = like("apiso:Title", "SPOT%", true);
+		List<ISORecord> records = storedRecords.getRecords(new OperatorFilter(operator));
+		assertTrue(records.isEmpty());
+	}
+
+	@Test
+	public void testBBoxCandidatesWhileRecordsAreReplaced() throws Exception {
+		GeometryFactory geomFactory = new GeometryFactory();
+		ValueReference reference = new ValueReference("apiso:BoundingBox", nsContext);
+		Operator bbox = new BBOX(reference, geomFactory.createEnvelope(-180, -90, 180, 90, CRSUtils.EPSG_4326));
+		final OperatorFilter filter = new OperatorFilter(bbox);
+		final List<ISORecord> records = GetTestRecordsUtils.getAllRecords();
+		final ISORecordIndex index = new ISORecordIndex();
+		for (ISORecord record : records) {
+			index.add(record.getIdentifier(), record);
+		}
+		final List<String> expected = index.getCandidates(filter);
+		assertTrue(expected.size() > 0);
+
+		final AtomicBoolean replacing = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> readers = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 3; i++) {
+				readers.add(executor.submit(() -> {
+					while (replacing.get()) {
+						// replacing a record must not make the index lose any box
+						if (!expected.equals(index.getCandidates(filter))) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (int i = 0; i < 2000; i++) {
+				ISORecord record = records.get(i % records.size());
+				index.add(record.getIdentifier(), record);
+			}
+			replacing.set(false);
+			for (Future<Boolean> reader : readers) {
+				assertTrue(reader.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<ISORecord> assertSameAsFullEvaluation(Filter filter) throws Exception {
+		List<String> expected = new ArrayList<String>();
+		for (ISORecord record : GetTestRecordsUtils.getAllRecords()) {
+			if (record.eval(filter)) {
+				expected.add(record.getIdentifier());
+			}
+		}
+		List<ISORecord> records = getStoredIsoRecords().getRecords(filter);
+		List<String> actual = new ArrayList<String>();
+		for (ISORecord record : records) {
+			actual.add(record.getIdentifier());
+		}
+		assertEquals(expected, actual);
+		return records;
+	}
+
+	private PropertyIsLike like(String propName, String pattern, boolean matchCase) {
+		return new PropertyIsLike(new ValueReference(propName, nsContext), new Literal<PrimitiveValue>(pattern), "%",
+				"_", "\\", matchCase, null);
+	}
+
+	private StoredISORecords getStoredIsoRecords() throws Exception {
+		StoredISORecords storedRecords = new StoredISORecords();
+		for (ISORecord record : GetTestRecordsUtils.getAllRecords()) {
+			storedRecords.insertRecord(record, null);
+		}
+		return storedRecords;
+	}
+
+}
@@ -41,8 +41,10 @@ import java.sql.ResultSet;
 import javax.xml.stream.XMLStreamReader;
 
 import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.persistence.sql.RecordProjection;
 import org.deegree.metadata.persistence.MetadataResultSet;
 import org.deegree.metadata.persistence.XMLMetadataResultSet;
+import org.deegree.protocol.csw.MetadataStoreException;
 
 /**
  * {@link MetadataResultSet} for the {@link ISOMetadataStore}.
@@ -51,8 +53,45 @@ import org.deegree.metadata.persistence.XMLMetadataResultSet;
  */
 public class ISOMetadataResultSet extends XMLMetadataResultSet<ISORecord> {
 
+	private final ResultSet rs;
+
+	private final RecordProjection projection;
+
 	public ISOMetadataResultSet(ResultSet rs, Connection conn, PreparedStatement stmt) {
+		this(rs, conn, stmt, null);
+	}
+
+	/**
+	 * Creates a new {@link ISOMetadataResultSet} for a query that selected a
+	 * {@link RecordProjection}.
+	 * @param rs result set, the first column contains the projection, the second column
+	 * the full record (only used if the projection has not been computed yet)
+	 * @param conn
+	 * @param stmt
+	 * @param projection selected projection, may be <code>null</code> (the first column
+	 * contains the full record)
+	 */
+	public ISOMetadataResultSet(ResultSet rs, Connection conn, PreparedStatement stmt, RecordProjection projection) {
 		super(rs, conn, stmt);
+		this.rs = rs;
+		this.projection = projection;
+	}
+
+	@Override
+	public ISORecord getRecord() throws MetadataStoreException {
+		if (projection == null) {
+			return super.getRecord();
+		}
+		try {
+			byte[] projected = rs.getBytes(1);
+			if (projected != null) {
+				return new ProjectedISORecord(projected, projection);
+			}
+			return getRecord(ProjectedISORecord.createReader(rs.getBytes(2)));
+		}
+		catch (Exception e) {
+			throw new MetadataStoreException("Error re-creating MetadataRecord from result set: " + e.getMessage());
+		}
 	}
 
 	@Override
@@ -44,6 +44,7 @@ import java.util.List;
 import javax.xml.namespace.QName;
 
 import org.deegree.commons.config.ResourceInitException;
+import org.deegree.commons.utils.JDBCUtils;
 import org.deegree.commons.xml.CommonNamespaces;
 import org.deegree.commons.xml.NamespaceBindings;
 import org.deegree.commons.xml.XPath;
@@ -60,6 +61,7 @@ import org.deegree.metadata.iso.persistence.inspectors.NamespaceNormalizationIns
 import org.deegree.metadata.iso.persistence.queryable.Queryable;
 import org.deegree.metadata.iso.persistence.queryable.QueryableConverter;
 import org.deegree.metadata.iso.persistence.sql.QueryService;
+import org.deegree.metadata.iso.persistence.sql.RecordProjection;
 import org.deegree.metadata.iso.persistence.sql.ServiceManager;
 import org.deegree.metadata.iso.persistence.sql.ServiceManagerProvider;
 import org.deegree.metadata.persistence.MetadataQuery;
@@ -117,6 +119,8 @@ public class ISOMetadataStore implements MetadataStore<ISORecord> {
 
 	private ResourceMetadata<MetadataStore<? extends MetadataRecord>> metadata;
 
+	private boolean projectionsAvailable;
+
 	/**
 	 * Creates a new {@link ISOMetadataStore} instance from the given JAXB configuration
 	 * object.
@@ -215,7 +219,25 @@ public class ISOMetadataStore implements MetadataStore<ISORecord> {
 
 	@Override
 	public void init() {
-		// nothing to do
+		Connection conn = null;
+		try {
+			conn = getConnection();
+			projectionsAvailable = RecordProjection.isAvailable(conn, dialect);
+		}
+		catch (Exception e) {
+			LOG.warn("Could not determine if precomputed record projections are available: {}", e.getMessage());
+			LOG.trace("Stack trace:", e);
+		}
+		finally {
+			JDBCUtils.rollbackQuietly(conn);
+			JDBCUtils.close(conn);
+		}
+		if (!projectionsAvailable) {
+			LOG.info("Database of JDBC connection '{}' does not provide precomputed record projections, brief and "
+					+ "summary records are derived from the full records. Add the projection columns to the database "
+					+ "and update the projections of existing records to speed up GetRecords requests.",
+					connectionId);
+		}
 	}
 
 	@Override
@@ -223,7 +245,11 @@ public class ISOMetadataStore implements MetadataStore<ISORecord> {
 		final String operationName = "getRecords";
 		LOG.debug(Messages.getMessage("INFO_EXEC", operationName));
 		QueryService queryService = getReadOnlySqlService();
-		return queryService.execute(query, getConnection());
+		RecordProjection projection = null;
+		if (projectionsAvailable) {
+			projection = RecordProjection.select(query.getOutputSchema(), query.getElementSetName());
+		}
+		return queryService.execute(query, projection, getConnection());
 	}
 
 	/**
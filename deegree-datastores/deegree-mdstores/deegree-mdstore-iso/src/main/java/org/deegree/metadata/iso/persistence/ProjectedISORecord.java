@@ -0,0 +1,134 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence;
+
+import java.io.ByteArrayInputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.axiom.om.OMElement;
+import org.deegree.commons.xml.stax.XMLStreamUtils;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.persistence.sql.RecordProjection;
+import org.deegree.protocol.csw.CSWConstants.ReturnableElement;
+
+/**
+ * {@link ISORecord} that has been loaded from a precomputed {@link RecordProjection}.
+ * <p>
+ * Serializing the record with the element set of the projection copies the stored XML
+ * to the writer without building an object model. The object model is only built when
+ * another method (except {@link #getName()}) is called. Note that all other methods only
+ * see the contents of the projection, e.g. for Dublin Core projections, the root element
+ * is a <code>csw:Record</code> (or brief/summary record), not a
+ * <code>gmd:MD_Metadata</code> element.
+ * </p>
+ */
+class ProjectedISORecord extends ISORecord {
+
+	private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newInstance();
+
+	private final byte[] projection;
+
+	private final ReturnableElement elementSetName;
+
+	private QName name;
+
+	private OMElement root;
+
+	ProjectedISORecord(byte[] projection, RecordProjection type) {
+		this.projection = projection;
+		this.elementSetName = type.getElementSetName();
+	}
+
+	@Override
+	public synchronized QName getName() {
+		if (root != null) {
+			return root.getQName();
+		}
+		if (name == null) {
+			try {
+				XMLStreamReader reader = createReader(projection);
+				try {
+					reader.nextTag();
+					name = reader.getName();
+				}
+				finally {
+					reader.close();
+				}
+			}
+			catch (XMLStreamException e) {
+				throw new IllegalStateException("Stored record projection is not well-formed: " + e.getMessage(), e);
+			}
+		}
+		return name;
+	}
+
+	@Override
+	public void serialize(XMLStreamWriter writer, ReturnableElement returnType) throws XMLStreamException {
+		if (returnType != elementSetName) {
+			super.serialize(writer, returnType);
+			return;
+		}
+		XMLStreamReader reader = createReader(projection);
+		try {
+			XMLStreamUtils.copy(writer, reader);
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	@Override
+	protected synchronized OMElement getRoot() {
+		if (root == null) {
+			try {
+				root = new ISORecord(createReader(projection)).getAsOMElement();
+			}
+			catch (XMLStreamException e) {
+				throw new IllegalStateException("Stored record projection is not well-formed: " + e.getMessage(), e);
+			}
+		}
+		return root;
+	}
+
+	static XMLStreamReader createReader(byte[] xml) throws XMLStreamException {
+		return XML_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
+	}
+
+}
@@ -86,6 +86,12 @@ public class DefaultQueryService extends AbstractSqlHelper implements QueryServi
 
 	@Override
 	public ISOMetadataResultSet execute(MetadataQuery query, Connection conn) throws MetadataStoreException {
+		return execute(query, null, conn);
+	}
+
+	@Override
+	public ISOMetadataResultSet execute(MetadataQuery query, RecordProjection projection, Connection conn)
+			throws MetadataStoreException {
 		List<TypedObjectNode> arguments = new ArrayList<TypedObjectNode>();
 		String sql = null;
 		ResultSet rs = null;
@@ -151,7 +157,16 @@ public class DefaultQueryService extends AbstractSqlHelper implements QueryServi
 			}
 
 			StringBuilder outerSelect = new StringBuilder("SELECT ");
-			outerSelect.append(recordColumn);
+			if (projection != null) {
+				// full record is only fetched if the projection has not been computed yet
+				String projectionColumn = projection.getColumn();
+				outerSelect.append(projectionColumn);
+				outerSelect.append(", CASE WHEN ").append(projectionColumn).append(" IS NULL THEN ");
+				outerSelect.append(recordColumn).append(" END");
+			}
+			else {
+				outerSelect.append(recordColumn);
+			}
 			outerSelect.append(" FROM ");
 			outerSelect.append(ISOPropertyNameMapper.DatabaseTables.idxtb_main);
 			outerSelect.append(" A INNER JOIN (");
@@ -202,7 +217,7 @@ public class DefaultQueryService extends AbstractSqlHelper implements QueryServi
 
 			preparedStatement.setFetchSize(DEFAULT_FETCH_SIZE);
 			rs = preparedStatement.executeQuery();
-			return new ISOMetadataResultSet(rs, conn, preparedStatement);
+			return new ISOMetadataResultSet(rs, conn, preparedStatement, projection);
 		}
 		catch (SQLException e) {
 			JDBCUtils.close(rs, preparedStatement, conn, LOG);
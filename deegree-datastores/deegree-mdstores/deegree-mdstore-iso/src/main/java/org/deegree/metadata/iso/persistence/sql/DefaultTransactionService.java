@@ -92,6 +92,9 @@ public class DefaultTransactionService extends AbstractSqlHelper implements Tran
 
 	private AnyText anyTextConfig;
 
+	// null: not checked yet
+	private Boolean projectionsAvailable;
+
 	public DefaultTransactionService(SQLDialect dialect, List<Queryable> queryables, AnyText anyTextConfig) {
 		super(dialect, queryables);
 		this.anyTextConfig = anyTextConfig;
@@ -113,6 +116,7 @@ public class DefaultTransactionService extends AbstractSqlHelper implements Tran
 			ir.addPreparedArgument("status", null);
 
 			appendValues(rec, ir);
+			appendProjections(conn, rec, ir);
 
 			LOG.debug(ir.getSql());
 			ir.performInsert(conn);
@@ -218,6 +222,7 @@ public class DefaultTransactionService extends AbstractSqlHelper implements Tran
 				ur.addPreparedArgument(recordColumn, rec.getAsByteArray());
 
 				appendValues(rec, ur);
+				appendProjections(conn, rec, ur);
 
 				ur.setWhereClause(idColumn + " = " + Integer.toString(requestedId));
 				LOG.debug(stmt.toString());
@@ -234,7 +239,7 @@ public class DefaultTransactionService extends AbstractSqlHelper implements Tran
 			LOG.debug(msg);
 			throw new MetadataStoreException(msg);
 		}
-		catch (FactoryConfigurationError e) {
+		catch (FactoryConfigurationError | XMLStreamException e) {
 			LOG.debug("error: {}", e.getMessage(), e);
 			throw new MetadataStoreException(e.getMessage());
 		}
@@ -261,6 +266,21 @@ public class DefaultTransactionService extends AbstractSqlHelper implements Tran
 		deleteExistingRows(conn, requestedId, constraintTable);
 	}
 
+	private void appendProjections(Connection conn, ISORecord rec, TransactionRow tr)
+			throws SQLException, XMLStreamException {
+		if (projectionsAvailable == null) {
+			projectionsAvailable = RecordProjection.isAvailable(conn, dialect);
+			if (!projectionsAvailable) {
+				LOG.debug("Columns for precomputed record projections are not available, skipping them.");
+			}
+		}
+		if (projectionsAvailable) {
+			for (RecordProjection projection : RecordProjection.values()) {
+				tr.addPreparedArgument(projection.getColumn(), projection.serialize(rec));
+			}
+		}
+	}
+
 	private void appendValues(ISORecord rec, TransactionRow tr) throws SQLException {
 		tr.addPreparedArgument("abstract", concatenate(Arrays.asList(rec.getAbstract())));
 		tr.addPreparedArgument("anytext", AnyTextHelper.getAnyText(rec, anyTextConfig));
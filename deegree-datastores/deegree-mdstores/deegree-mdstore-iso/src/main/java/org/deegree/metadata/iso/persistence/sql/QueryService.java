@@ -53,6 +53,23 @@ public interface QueryService {
 
 	ISOMetadataResultSet execute(MetadataQuery query, Connection conn) throws MetadataStoreException;
 
+	/**
+	 * Performs the query and delivers the records as the given projection. If a record's
+	 * projection has not been computed yet, the full record is delivered instead.
+	 * <p>
+	 * The default implementation ignores the projection.
+	 * </p>
+	 * @param query the query, must not be <code>null</code>
+	 * @param projection the projection to deliver, may be <code>null</code> (full records)
+	 * @param conn the database connection, must not be <code>null</code>
+	 * @return the result set, never <code>null</code>
+	 * @throws MetadataStoreException
+	 */
+	default ISOMetadataResultSet execute(MetadataQuery query, RecordProjection projection, Connection conn)
+			throws MetadataStoreException {
+		return execute(query, conn);
+	}
+
 	int executeCounting(MetadataQuery query, Connection conn)
 			throws MetadataStoreException, FilterEvaluationException, UnmappableException;
 
@@ -0,0 +1,188 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence.sql;
+
+import static org.deegree.protocol.csw.CSWConstants.CSW_202_NS;
+import static org.deegree.protocol.csw.CSWConstants.GMD_NS;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.brief;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.full;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.summary;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.deegree.commons.jdbc.TableName;
+import org.deegree.commons.utils.JDBCUtils;
+import org.deegree.metadata.MetadataRecord;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.persistence.ISOPropertyNameMapper.DatabaseTables;
+import org.deegree.protocol.csw.CSWConstants.ReturnableElement;
+import org.deegree.sqldialect.SQLDialect;
+
+/**
+ * Serializations of an {@link ISORecord} that are computed when the record is inserted
+ * or updated and stored in dedicated columns of the main table, so that GetRecords
+ * requests for these element sets don't have to load and parse the full record.
+ *
+ * @see RecordProjectionUpdater
+ */
+public enum RecordProjection {
+
+	/** ISO 19139, element set brief */
+	ISO_BRIEF("recordbrief", GMD_NS, brief),
+
+	/** ISO 19139, element set summary */
+	ISO_SUMMARY("recordsummary", GMD_NS, summary),
+
+	/** Dublin Core (csw:BriefRecord) */
+	DC_BRIEF("recorddcbrief", CSW_202_NS, brief),
+
+	/** Dublin Core (csw:SummaryRecord) */
+	DC_SUMMARY("recorddcsummary", CSW_202_NS, summary),
+
+	/** Dublin Core (csw:Record) */
+	DC_FULL("recorddcfull", CSW_202_NS, full);
+
+	private static final XMLOutputFactory XML_FACTORY = XMLOutputFactory.newInstance();
+
+	static {
+		XML_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+	}
+
+	private final String column;
+
+	private final String outputSchema;
+
+	private final ReturnableElement elementSetName;
+
+	private RecordProjection(String column, String outputSchema, ReturnableElement elementSetName) {
+		this.column = column;
+		this.outputSchema = outputSchema;
+		this.elementSetName = elementSetName;
+	}
+
+	/**
+	 * @return name of the column in the main table, never <code>null</code>
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * @return namespace of the output schema, never <code>null</code>
+	 */
+	public String getOutputSchema() {
+		return outputSchema;
+	}
+
+	/**
+	 * @return the element set, never <code>null</code>
+	 */
+	public ReturnableElement getElementSetName() {
+		return elementSetName;
+	}
+
+	/**
+	 * Serializes the given record.
+	 * @param record record to serialize, must not be <code>null</code>
+	 * @return the encoded (UTF-8) XML, never <code>null</code>
+	 * @throws XMLStreamException
+	 */
+	public byte[] serialize(ISORecord record) throws XMLStreamException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		XMLStreamWriter writer = XML_FACTORY.createXMLStreamWriter(out, "UTF-8");
+		MetadataRecord projected = GMD_NS.equals(outputSchema) ? record : record.toDublinCore();
+		projected.serialize(writer, elementSetName);
+		writer.close();
+		return out.toByteArray();
+	}
+
+	/**
+	 * Returns the projection that matches the given output schema and element set.
+	 * @param outputSchema namespace of the requested output schema, may be
+	 * <code>null</code>
+	 * @param elementSetName requested element set, may be <code>null</code>
+	 * @return matching projection, <code>null</code> if there is none (the full record
+	 * has to be used)
+	 */
+	public static RecordProjection select(String outputSchema, ReturnableElement elementSetName) {
+		if (outputSchema == null || elementSetName == null) {
+			return null;
+		}
+		for (RecordProjection projection : values()) {
+			if (projection.elementSetName == elementSetName && projection.outputSchema.equalsIgnoreCase(outputSchema)) {
+				return projection;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the main table contains the columns for all projections (databases set
+	 * up with older versions have to be migrated first).
+	 * @param conn connection to use, must not be <code>null</code>
+	 * @param dialect SQL dialect of the database, must not be <code>null</code>
+	 * @return <code>true</code> if all columns are available, <code>false</code> otherwise
+	 * @throws SQLException
+	 */
+	public static boolean isAvailable(Connection conn, SQLDialect dialect) throws SQLException {
+		Set<String> columns = new HashSet<String>();
+		ResultSet rs = null;
+		try {
+			rs = dialect.getTableColumnMetadata(conn.getMetaData(), new TableName(DatabaseTables.idxtb_main.name()));
+			while (rs.next()) {
+				columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+			}
+		}
+		finally {
+			JDBCUtils.close(rs);
+		}
+		for (RecordProjection projection : values()) {
+			if (!columns.contains(projection.column)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,210 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence.sql;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.commons.utils.JDBCUtils;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.persistence.ISOPropertyNameMapper.CommonColumnNames;
+import org.deegree.metadata.iso.persistence.ISOPropertyNameMapper.DatabaseTables;
+import org.slf4j.Logger;
+
+/**
+ * Computes the {@link RecordProjection}s of records that are already stored in the
+ * database, e.g. after the columns have been added to a database that has been set up
+ * with an older version.
+ */
+public class RecordProjectionUpdater {
+
+	private static final Logger LOG = getLogger(RecordProjectionUpdater.class);
+
+	private static final int BATCH_SIZE = 100;
+
+	private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newInstance();
+
+	private final Connection conn;
+
+	/**
+	 * @param conn connection to use, must not be <code>null</code>, transactions are
+	 * committed after each batch of records
+	 */
+	public RecordProjectionUpdater(Connection conn) {
+		this.conn = conn;
+	}
+
+	/**
+	 * Computes and stores the projections.
+	 * @param all <code>true</code> to update all records, <code>false</code> to update
+	 * only records without projections
+	 * @return number of updated records
+	 * @throws SQLException
+	 */
+	public int update(boolean all) throws SQLException {
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			List<Integer> ids = selectIds(all);
+			LOG.info("Updating projections of {} records.", ids.size());
+			int updated = 0;
+			for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+				List<Integer> batch = ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()));
+				updated += update(batch);
+				conn.commit();
+				LOG.info("Updated projections of {} of {} records.", start + batch.size(), ids.size());
+			}
+			return updated;
+		}
+		catch (SQLException e) {
+			JDBCUtils.rollbackQuietly(conn);
+			throw e;
+		}
+		finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+
+	private List<Integer> selectIds(boolean all) throws SQLException {
+		String idColumn = CommonColumnNames.id.name();
+		StringBuilder sql = new StringBuilder("SELECT ").append(idColumn);
+		sql.append(" FROM ").append(DatabaseTables.idxtb_main.name());
+		if (!all) {
+			sql.append(" WHERE ");
+			RecordProjection[] projections = RecordProjection.values();
+			for (int i = 0; i < projections.length; i++) {
+				if (i > 0) {
+					sql.append(" OR ");
+				}
+				sql.append(projections[i].getColumn()).append(" IS NULL");
+			}
+		}
+		sql.append(" ORDER BY ").append(idColumn);
+		List<Integer> ids = new ArrayList<Integer>();
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+		try {
+			stmt = conn.prepareStatement(sql.toString());
+			rs = stmt.executeQuery();
+			while (rs.next()) {
+				ids.add(rs.getInt(1));
+			}
+		}
+		finally {
+			JDBCUtils.close(rs, stmt, null, LOG);
+		}
+		return ids;
+	}
+
+	private int update(List<Integer> ids) throws SQLException {
+		String idColumn = CommonColumnNames.id.name();
+		String select = "SELECT " + CommonColumnNames.recordfull.name() + " FROM " + DatabaseTables.idxtb_main.name()
+				+ " WHERE " + idColumn + " = ?";
+		StringBuilder update = new StringBuilder("UPDATE ").append(DatabaseTables.idxtb_main.name()).append(" SET ");
+		RecordProjection[] projections = RecordProjection.values();
+		for (int i = 0; i < projections.length; i++) {
+			if (i > 0) {
+				update.append(',');
+			}
+			update.append(projections[i].getColumn()).append(" = ?");
+		}
+		update.append(" WHERE ").append(idColumn).append(" = ?");
+
+		int updated = 0;
+		PreparedStatement selectStmt = null;
+		PreparedStatement updateStmt = null;
+		try {
+			selectStmt = conn.prepareStatement(select);
+			updateStmt = conn.prepareStatement(update.toString());
+			for (int id : ids) {
+				ISORecord record = readRecord(selectStmt, id);
+				if (record == null) {
+					continue;
+				}
+				try {
+					for (int i = 0; i < projections.length; i++) {
+						updateStmt.setBytes(i + 1, projections[i].serialize(record));
+					}
+				}
+				catch (Exception e) {
+					LOG.warn("Skipping record with id {}, projections could not be computed: {}", id, e.getMessage());
+					continue;
+				}
+				updateStmt.setInt(projections.length + 1, id);
+				updated += updateStmt.executeUpdate();
+			}
+		}
+		finally {
+			JDBCUtils.close(selectStmt);
+			JDBCUtils.close(updateStmt);
+		}
+		return updated;
+	}
+
+	private ISORecord readRecord(PreparedStatement selectStmt, int id) throws SQLException {
+		selectStmt.setInt(1, id);
+		ResultSet rs = null;
+		try {
+			rs = selectStmt.executeQuery();
+			if (!rs.next()) {
+				return null;
+			}
+			byte[] bytes = rs.getBytes(1);
+			XMLStreamReader xmlStream = XML_FACTORY.createXMLStreamReader(new ByteArrayInputStream(bytes));
+			return new ISORecord(xmlStream);
+		}
+		catch (SQLException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			LOG.warn("Skipping record with id {}, it could not be parsed: {}", id, e.getMessage());
+			return null;
+		}
+		finally {
+			JDBCUtils.close(rs);
+		}
+	}
+
+}
@@ -0,0 +1,8 @@
+-- Adds the columns for precomputed record projections to databases that have been set up with older versions.
+-- Afterwards, the projections of the stored records have to be computed (see RecordProjectionUpdater).
+ALTER TABLE IDXTB_MAIN ADD
+	recordbrief varbinary(max),
+	recordsummary varbinary(max),
+	recorddcbrief varbinary(max),
+	recorddcsummary varbinary(max),
+	recorddcfull varbinary(max);
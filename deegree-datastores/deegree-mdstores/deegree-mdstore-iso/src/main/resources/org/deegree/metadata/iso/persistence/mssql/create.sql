@@ -37,7 +37,12 @@ CREATE TABLE IDXTB_MAIN (
 	SpecDateType varchar(15),
 	SpecTitle varchar(500),
 	bbox geometry,
-	recordfull varbinary(max) NOT NULL
+	recordfull varbinary(max) NOT NULL,
+	recordbrief varbinary(max),
+	recordsummary varbinary(max),
+	recorddcbrief varbinary(max),
+	recorddcsummary varbinary(max),
+	recorddcfull varbinary(max)
 );
 CREATE TABLE IDXTB_Constraint ( 
 	id integer NOT NULL,
@@ -0,0 +1,9 @@
+-- Adds the columns for precomputed record projections to databases that have been set up with older versions.
+-- Afterwards, the projections of the stored records have to be computed (see RecordProjectionUpdater).
+ALTER TABLE IDXTB_MAIN ADD (
+	recordbrief BLOB,
+	recordsummary BLOB,
+	recorddcbrief BLOB,
+	recorddcsummary BLOB,
+	recorddcfull BLOB
+);
@@ -37,6 +37,11 @@ CREATE TABLE IDXTB_MAIN (
 	SpecDateType varchar(15),
 	SpecTitle varchar(500),
 	recordfull BLOB NOT NULL,
+	recordbrief BLOB,
+	recordsummary BLOB,
+	recorddcbrief BLOB,
+	recorddcsummary BLOB,
+	recorddcfull BLOB,
   	bbox sdo_geometry
 );
 
@@ -0,0 +1,7 @@
+-- Adds the columns for precomputed record projections to databases that have been set up with older versions.
+-- Afterwards, the projections of the stored records have to be computed (see RecordProjectionUpdater).
+ALTER TABLE IDXTB_MAIN ADD COLUMN recordbrief bytea;
+ALTER TABLE IDXTB_MAIN ADD COLUMN recordsummary bytea;
+ALTER TABLE IDXTB_MAIN ADD COLUMN recorddcbrief bytea;
+ALTER TABLE IDXTB_MAIN ADD COLUMN recorddcsummary bytea;
+ALTER TABLE IDXTB_MAIN ADD COLUMN recorddcfull bytea;
@@ -36,7 +36,12 @@ CREATE TABLE IDXTB_MAIN (
 	SpecDate timestamp,
 	SpecDateType varchar(15),
 	SpecTitle varchar(500),
-	recordfull bytea NOT NULL
+	recordfull bytea NOT NULL,
+	recordbrief bytea,
+	recordsummary bytea,
+	recorddcbrief bytea,
+	recorddcsummary bytea,
+	recorddcfull bytea
 );
 
 -- ISO AP CQPs
@@ -0,0 +1,152 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.metadata.iso.persistence;
+
+import static org.deegree.protocol.csw.CSWConstants.CSW_202_NS;
+import static org.deegree.protocol.csw.CSWConstants.GMD_NS;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.brief;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.full;
+import static org.deegree.protocol.csw.CSWConstants.ReturnableElement.summary;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.deegree.commons.xml.XMLAdapter;
+import org.deegree.metadata.MetadataRecord;
+import org.deegree.metadata.MetadataRecordFactory;
+import org.deegree.metadata.iso.ISORecord;
+import org.deegree.metadata.iso.persistence.sql.RecordProjection;
+import org.deegree.protocol.csw.CSWConstants.ReturnableElement;
+import org.junit.Test;
+
+/**
+ * Tests that records served from a {@link RecordProjection} are serialized exactly like
+ * the full record.
+ */
+public class ProjectedISORecordTest {
+
+	@Test
+	public void testSelect() {
+		assertEquals(RecordProjection.ISO_BRIEF, RecordProjection.select(GMD_NS, brief));
+		assertEquals(RecordProjection.ISO_SUMMARY, RecordProjection.select(GMD_NS, summary));
+		assertEquals(RecordProjection.DC_FULL, RecordProjection.select(CSW_202_NS, full));
+		assertNull(RecordProjection.select(GMD_NS, full));
+		assertNull(RecordProjection.select(null, brief));
+		assertNull(RecordProjection.select(CSW_202_NS, null));
+	}
+
+	@Test
+	public void testSerializeIsoBrief() throws Exception {
+		assertSameAsFullRecord(RecordProjection.ISO_BRIEF);
+	}
+
+	@Test
+	public void testSerializeIsoSummary() throws Exception {
+		assertSameAsFullRecord(RecordProjection.ISO_SUMMARY);
+	}
+
+	@Test
+	public void testSerializeDublinCore() throws Exception {
+		assertSameAsFullRecord(RecordProjection.DC_BRIEF);
+		assertSameAsFullRecord(RecordProjection.DC_SUMMARY);
+		assertSameAsFullRecord(RecordProjection.DC_FULL);
+	}
+
+	@Test
+	public void testAccessorsOfLazilyParsedRecord() throws Exception {
+		ISORecord record = (ISORecord) MetadataRecordFactory
+			.create(new XMLAdapter(TstConstants.tst_1).getRootElement());
+		ISORecord projected = new ProjectedISORecord(RecordProjection.ISO_SUMMARY.serialize(record),
+				RecordProjection.ISO_SUMMARY);
+		assertEquals(record.getName(), projected.getName());
+		assertEquals(record.getIdentifier(), projected.getIdentifier());
+		assertEquals(record.getName(), projected.getName());
+	}
+
+	private void assertSameAsFullRecord(RecordProjection projection) throws Exception {
+		ISORecord record = (ISORecord) MetadataRecordFactory
+			.create(new XMLAdapter(TstConstants.tst_1).getRootElement());
+		MetadataRecord expected = GMD_NS.equals(projection.getOutputSchema()) ? record : record.toDublinCore();
+		ISORecord projected = new ProjectedISORecord(projection.serialize(record), projection);
+
+		ReturnableElement elementSetName = projection.getElementSetName();
+		assertEquals(getEvents(serialize(expected, elementSetName)),
+				getEvents(serialize(projected, elementSetName)));
+	}
+
+	private String serialize(MetadataRecord record, ReturnableElement elementSetName) throws XMLStreamException {
+		StringWriter sw = new StringWriter();
+		XMLOutputFactory factory = XMLOutputFactory.newInstance();
+		factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+		XMLStreamWriter writer = factory.createXMLStreamWriter(sw);
+		record.serialize(writer, elementSetName);
+		writer.close();
+		return sw.toString();
+	}
+
+	/**
+	 * Element names, attributes and non-whitespace text in document order (namespace
+	 * declarations may differ).
+	 */
+	private List<String> getEvents(String xml) throws XMLStreamException {
+		List<String> events = new ArrayList<String>();
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamReader.START_ELEMENT) {
+				events.add("<" + reader.getName());
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					events.add("@" + reader.getAttributeName(i) + "=" + reader.getAttributeValue(i));
+				}
+			}
+			else if (event == XMLStreamReader.CHARACTERS && !reader.isWhiteSpace()) {
+				events.add(reader.getText().trim());
+			}
+		}
+		reader.close();
+		return events;
+	}
+
+}
@@ -41,6 +41,7 @@
 package org.deegree.tile.persistence.cache;
 
 import org.apache.commons.io.IOUtils;
+import org.deegree.commons.metrics.Counter;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
@@ -53,6 +54,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -72,12 +74,34 @@ public class CachedTile implements Tile {
 
 	private final String key;
 
-	private byte[] data;
+	private final Counter hits;
+
+	private final Counter misses;
+
+	// fetching the data blocks on I/O, a lock doesn't pin virtual threads (unlike
+	// synchronized)
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private volatile byte[] data;
 
 	public CachedTile(Tile tile, Cache<String, byte[]> cache, String key) {
+		this(tile, cache, key, null, null);
+	}
+
+	/**
+	 * @param tile the tile to cache
+	 * @param cache the cache
+	 * @param key key of the tile in the cache
+	 * @param hits counts accesses served from the cache, may be <code>null</code>
+	 * @param misses counts accesses that had to fetch the tile, may be
+	 * <code>null</code>
+	 */
+	public CachedTile(Tile tile, Cache<String, byte[]> cache, String key, Counter hits, Counter misses) {
 		this.tile = tile;
 		this.cache = cache;
 		this.key = key;
+		this.hits = hits;
+		this.misses = misses;
 	}
 
 	@Override
@@ -107,29 +131,47 @@ public class CachedTile implements Tile {
 		return tile.getFeatures(i, j, limit);
 	}
 
-	private synchronized byte[] getData() {
-		if (data == null) {
-			if (!cache.containsKey(key)) {
-				try {
-					InputStream is = tile.getAsStream();
-					if (is == null) {
-						data = new byte[] {};
+	private byte[] getData() {
+		byte[] data = this.data;
+		if (data != null) {
+			return data;
+		}
+		lock.lock();
+		try {
+			data = this.data;
+			if (data == null) {
+				if (!cache.containsKey(key)) {
+					if (misses != null) {
+						misses.increment();
+					}
+					try {
+						InputStream is = tile.getAsStream();
+						if (is == null) {
+							data = new byte[] {};
+						}
+						else {
+							data = IOUtils.toByteArray(is);
+						}
+						cache.put(key, data);
 					}
-					else {
-						data = IOUtils.toByteArray(is);
+					catch (IOException e) {
+						LOG.trace(e.getMessage(), e);
+						throw new TileIOException(e.getMessage(), e);
 					}
-					cache.put(key, data);
 				}
-				catch (IOException e) {
-					LOG.trace(e.getMessage(), e);
-					throw new TileIOException(e.getMessage(), e);
+				else {
+					if (hits != null) {
+						hits.increment();
+					}
+					data = cache.get(key);
 				}
 			}
-			else {
-				data = cache.get(key);
-			}
+			this.data = data;
+			return data;
+		}
+		finally {
+			lock.unlock();
 		}
-		return data;
 	}
 
 }
@@ -40,8 +40,11 @@
 
 package org.deegree.tile.persistence.cache;
 
+import org.deegree.commons.metrics.Counter;
+import org.deegree.tile.MetatilingTileDataLevel;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileListener;
 import org.deegree.tile.TileMatrix;
 import org.ehcache.Cache;
 
@@ -49,6 +52,10 @@ import java.util.List;
 
 /**
  * <code>CachingTileMatrix</code>
+ * <p>
+ * If the cached level is a {@link MetatilingTileDataLevel}, the tiles it generates along
+ * with a requested tile are put into the cache as well.
+ * </p>
  *
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  */
@@ -61,10 +68,46 @@ public class CachingTileMatrix implements TileDataLevel {
 
 	private final String identifier;
 
+	private final TileListener listener;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
 	public CachingTileMatrix(TileDataLevel tileMatrix, Cache<String, byte[]> cache) {
+		this(tileMatrix, cache, null, null);
+	}
+
+	/**
+	 * @param tileMatrix the cached level
+	 * @param cache the cache
+	 * @param hits counts tiles served from the cache, may be <code>null</code>
+	 * @param misses counts tiles fetched from the cached level, may be
+	 * <code>null</code>
+	 */
+	public CachingTileMatrix(TileDataLevel tileMatrix, Cache<String, byte[]> cache, Counter hits, Counter misses) {
 		this.tileMatrix = tileMatrix;
 		this.cache = cache;
+		this.hits = hits;
+		this.misses = misses;
 		this.identifier = tileMatrix.getMetadata().getIdentifier();
+		this.listener = (level, x, y, data) -> cache.putIfAbsent(getKey(x, y), data);
+		if (tileMatrix instanceof MetatilingTileDataLevel) {
+			((MetatilingTileDataLevel) tileMatrix).addTileListener(listener);
+		}
+	}
+
+	/**
+	 * Stops putting tiles generated along with requested tiles into the cache.
+	 */
+	void destroy() {
+		if (tileMatrix instanceof MetatilingTileDataLevel) {
+			((MetatilingTileDataLevel) tileMatrix).removeTileListener(listener);
+		}
+	}
+
+	private String getKey(long x, long y) {
+		return identifier + "_" + x + "_" + y;
 	}
 
 	@Override
@@ -78,8 +121,7 @@ public class CachingTileMatrix implements TileDataLevel {
 		if (tile == null) {
 			return null;
 		}
-		String key = identifier + "_" + x + "_" + y;
-		return new CachedTile(tile, cache, key);
+		return new CachedTile(tile, cache, getKey(x, y), hits, misses);
 	}
 
 	@Override
@@ -39,6 +39,8 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence.cache;
 
+import org.deegree.commons.metrics.Counter;
+import org.deegree.commons.metrics.Metrics;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.DefaultTileDataSet;
 import org.deegree.tile.Tile;
@@ -94,12 +96,17 @@ public class CachingTileStore implements TileStore {
 	@Override
 	public void init() {
 		Collection<String> ids = tileStore.getTileDataSetIds();
+		String storeId = metadata.getIdentifier().getId();
+		Counter hits = Metrics.counter("deegree_tilestore_cache_hits_total", "Tiles served from the cache", "store",
+				storeId);
+		Counter misses = Metrics.counter("deegree_tilestore_cache_misses_total",
+				"Tiles that were not cached and had to be fetched from the cached tile store", "store", storeId);
 		tileMatrixSets = new HashMap<>();
 		for (String id : ids) {
 			TileDataSet cachedDataset = tileStore.getTileDataSet(id);
 			List<TileDataLevel> list = new ArrayList<>();
 			for (TileDataLevel tm : cachedDataset.getTileDataLevels()) {
-				list.add(new CachingTileMatrix(tm, cache));
+				list.add(new CachingTileMatrix(tm, cache, hits, misses));
 			}
 			TileDataSet cachingDataset = new DefaultTileDataSet(list, cachedDataset.getTileMatrixSet(),
 					cachedDataset.getNativeImageFormat());
@@ -114,6 +121,13 @@ public class CachingTileStore implements TileStore {
 
 	@Override
 	public void destroy() {
+		if (tileMatrixSets != null) {
+			for (TileDataSet dataSet : tileMatrixSets.values()) {
+				for (TileDataLevel level : dataSet.getTileDataLevels()) {
+					((CachingTileMatrix) level).destroy();
+				}
+			}
+		}
 		cacheManager.close();
 	}
 
@@ -0,0 +1,76 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.seed;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Limits the rate of permits to a fixed number per second. Permits are handed out at
+ * fixed intervals, so there are no bursts.
+ */
+class RateLimiter {
+
+	private final long intervalNanos;
+
+	private long next;
+
+	/**
+	 * Creates a new {@link RateLimiter}.
+	 * @param permitsPerSecond maximum number of permits per second, must be positive
+	 */
+	RateLimiter(double permitsPerSecond) {
+		this.intervalNanos = (long) (1e9 / permitsPerSecond);
+		this.next = System.nanoTime();
+	}
+
+	/**
+	 * Blocks until the next permit is available.
+	 * @throws InterruptedException
+	 */
+	void acquire() throws InterruptedException {
+		long wait = reserve();
+		if (wait > 0) {
+			NANOSECONDS.sleep(wait);
+		}
+	}
+
+	private synchronized long reserve() {
+		long now = System.nanoTime();
+		long slot = Math.max(next, now);
+		next = slot + intervalNanos;
+		return slot - now;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.seed;
+
+/**
+ * Snapshot of the progress of a {@link TileSeeder} run.
+ */
+public class SeedingProgress {
+
+	private final long total;
+
+	private final long seeded;
+
+	private final long skipped;
+
+	private final long failed;
+
+	private final long elapsedMillis;
+
+	private final boolean finished;
+
+	SeedingProgress(long total, long seeded, long skipped, long failed, long elapsedMillis, boolean finished) {
+		this.total = total;
+		this.seeded = seeded;
+		this.skipped = skipped;
+		this.failed = failed;
+		this.elapsedMillis = elapsedMillis;
+		this.finished = finished;
+	}
+
+	/**
+	 * @return number of tiles in the seeding area (of all levels)
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return number of tiles that have been seeded in this run
+	 */
+	public long getSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * @return number of tiles that have been skipped, because they have been seeded by a
+	 * previous run or are outside of the seeding geometry
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return number of tiles that could not be seeded
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	/**
+	 * @return milliseconds since the start of the run
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return <code>true</code> if the run has ended (completed, cancelled or
+	 * interrupted)
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return number of seeded tiles per second in this run
+	 */
+	public double getTilesPerSecond() {
+		return elapsedMillis == 0 ? 0 : seeded * 1000.0 / elapsedMillis;
+	}
+
+	/**
+	 * @return percentage of processed (seeded, skipped or failed) tiles
+	 */
+	public double getPercentage() {
+		return total == 0 ? 100 : (seeded + skipped + failed) * 100.0 / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.1f%% (%d of %d tiles, %d seeded, %d skipped, %d failed, %.1f tiles/s)", getPercentage(),
+				seeded + skipped + failed, total, seeded, skipped, failed, getTilesPerSecond());
+	}
+
+}
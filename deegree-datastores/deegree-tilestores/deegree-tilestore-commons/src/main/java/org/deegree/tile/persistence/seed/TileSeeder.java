@@ -0,0 +1,533 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.seed;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.deegree.tile.Tiles.calcTileEnvelope;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.standard.JTSPreparedGeometry;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.Tiles;
+import org.deegree.tile.persistence.TileStoreTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Fills a tile store with the tiles of an area, so they don't have to be created on
+ * demand.
+ * <p>
+ * Tiles are requested from a source {@link TileDataSet} and either written to a target
+ * tile store using a {@link TileStoreTransaction} or, if no target is given, just read
+ * (which fills caching tile stores, e.g. the <code>CachingTileStore</code> or a
+ * <code>FileSystemTileStore</code> with a base tile data set).
+ * </p>
+ * <p>
+ * The levels are processed from coarse to fine. Each level is split into work units
+ * (up to {@value #CHUNK_SIZE} consecutive tiles of a row), which are processed in order
+ * by a fixed number of worker threads. If a checkpoint file is set, the number of
+ * completed work units of each level is saved regularly, and a subsequent run with the
+ * same area and levels continues where the previous run stopped.
+ * </p>
+ * <p>
+ * The envelope and geometry must be given in the CRS of the tile matrix set.
+ * </p>
+ */
+public class TileSeeder {
+
+	private static final Logger LOG = getLogger(TileSeeder.class);
+
+	static final int CHUNK_SIZE = 64;
+
+	private static final long CHECKPOINT_INTERVAL_MILLIS = 10000;
+
+	private static final String JOB_KEY = "job";
+
+	private static final String LEVEL_KEY_PREFIX = "level.";
+
+	private final TileDataSet source;
+
+	private final TileStoreTransaction target;
+
+	private final AtomicLong seeded = new AtomicLong();
+
+	private final AtomicLong skipped = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private Collection<String> levelIds;
+
+	private Envelope envelope;
+
+	private JTSPreparedGeometry clip;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private double maxTilesPerSecond;
+
+	private File checkpointFile;
+
+	private SeedingListener listener;
+
+	private long reportIntervalMillis = 10000;
+
+	private volatile boolean cancelled;
+
+	private String job;
+
+	private long total;
+
+	private long startMillis;
+
+	/**
+	 * Creates a new {@link TileSeeder} instance.
+	 * @param source tile data set to request the tiles from, must not be
+	 * <code>null</code>
+	 * @param target transaction to write the tiles to, may be <code>null</code> (tiles
+	 * are only requested from the source)
+	 */
+	public TileSeeder(TileDataSet source, TileStoreTransaction target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * @param levelIds identifiers of the tile matrices to seed, <code>null</code> for
+	 * all
+	 */
+	public void setLevels(Collection<String> levelIds) {
+		this.levelIds = levelIds;
+	}
+
+	/**
+	 * @param envelope area to seed, <code>null</code> for the full extent of the tile
+	 * matrices
+	 */
+	public void setEnvelope(Envelope envelope) {
+		this.envelope = envelope;
+	}
+
+	/**
+	 * Restricts seeding to the tiles that intersect the given geometry (e.g. a polygon),
+	 * also sets the envelope.
+	 * @param geometry area to seed, <code>null</code> for the full extent (or the
+	 * envelope)
+	 */
+	public void setGeometry(Geometry geometry) {
+		this.clip = geometry == null ? null : new JTSPreparedGeometry(geometry);
+		if (geometry != null) {
+			this.envelope = geometry.getEnvelope();
+		}
+	}
+
+	/**
+	 * @param threads number of worker threads, must be positive (default: number of
+	 * processors)
+	 */
+	public void setThreads(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of threads must be positive, but is " + threads);
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * @param maxTilesPerSecond maximum number of tiles that are requested per second, 0
+	 * for no limit
+	 */
+	public void setMaxTilesPerSecond(double maxTilesPerSecond) {
+		this.maxTilesPerSecond = maxTilesPerSecond;
+	}
+
+	/**
+	 * @param checkpointFile file to save the progress to (and to resume from), may be
+	 * <code>null</code>
+	 */
+	public void setCheckpointFile(File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	/**
+	 * @param listener receives progress reports, may be <code>null</code> (progress is
+	 * logged anyway)
+	 * @param reportIntervalMillis interval between progress reports
+	 */
+	public void setListener(SeedingListener listener, long reportIntervalMillis) {
+		this.listener = listener;
+		this.reportIntervalMillis = reportIntervalMillis;
+	}
+
+	/**
+	 * Stops a running {@link #seed()}. Work units that have been started are completed,
+	 * the progress is saved to the checkpoint file.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Seeds the configured area, blocks until all tiles have been processed or seeding
+	 * has been cancelled. Tiles that cannot be created or stored are logged and counted
+	 * as failed.
+	 * @return final progress, never <code>null</code>
+	 * @throws IOException if the checkpoint file cannot be read or written
+	 * @throws InterruptedException if the calling thread has been interrupted, the
+	 * progress is saved before
+	 */
+	public SeedingProgress seed() throws IOException, InterruptedException {
+		seeded.set(0);
+		skipped.set(0);
+		failed.set(0);
+		List<LevelProgress> levels = initLevels(loadCheckpoint());
+		startMillis = System.currentTimeMillis();
+		LOG.info("Seeding {} tiles of {} levels using {} threads.", total, levels.size(), threads);
+		RateLimiter limiter = maxTilesPerSecond > 0 ? new RateLimiter(maxTilesPerSecond) : null;
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new SeederThreadFactory());
+		// bounds the number of queued work units
+		Semaphore slots = new Semaphore(threads * 2);
+		long lastReport = startMillis;
+		long lastCheckpoint = startMillis;
+		try {
+			for (LevelProgress level : levels) {
+				for (long unit = level.getWatermark(); unit < level.units && !cancelled; unit++) {
+					while (!slots.tryAcquire(reportIntervalMillis, MILLISECONDS)) {
+						report(false);
+						lastReport = System.currentTimeMillis();
+					}
+					final long current = unit;
+					pool.execute(() -> {
+						try {
+							if (seedUnit(level, current, limiter)) {
+								level.complete(current);
+							}
+						}
+						finally {
+							slots.release();
+						}
+					});
+					long now = System.currentTimeMillis();
+					if (now - lastReport >= reportIntervalMillis) {
+						report(false);
+						lastReport = now;
+					}
+					if (now - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+						saveCheckpoint(levels);
+						lastCheckpoint = now;
+					}
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			cancelled = true;
+			pool.shutdownNow();
+			throw e;
+		}
+		finally {
+			pool.shutdown();
+			awaitTermination(pool);
+			saveCheckpoint(levels);
+			report(true);
+		}
+		return getProgress(true);
+	}
+
+	private List<LevelProgress> initLevels(Properties checkpoint) {
+		List<TileDataLevel> selected = new ArrayList<TileDataLevel>();
+		for (TileDataLevel level : source.getTileDataLevels()) {
+			if (levelIds == null || levelIds.contains(level.getMetadata().getIdentifier())) {
+				selected.add(level);
+			}
+		}
+		// coarse levels first, they are small and most frequently requested
+		selected.sort(Comparator.comparingDouble((TileDataLevel l) -> l.getMetadata().getResolution()).reversed());
+
+		List<LevelProgress> levels = new ArrayList<LevelProgress>();
+		StringBuilder key = new StringBuilder();
+		for (TileDataLevel level : selected) {
+			TileMatrix md = level.getMetadata();
+			long[] range = envelope == null ? new long[] { 0, 0, md.getNumTilesX() - 1, md.getNumTilesY() - 1 }
+					: Tiles.getTileIndexRange(level, envelope);
+			if (range != null) {
+				levels.add(new LevelProgress(level, range));
+				key.append(md.getIdentifier()).append(':');
+				key.append(range[0]).append(',').append(range[1]).append(',');
+				key.append(range[2]).append(',').append(range[3]).append(';');
+			}
+		}
+		key.append(CHUNK_SIZE);
+		this.job = key.toString();
+
+		if (checkpoint != null && !this.job.equals(checkpoint.getProperty(JOB_KEY))) {
+			LOG.warn("Checkpoint file '{}' belongs to a different seeding area, starting from scratch.",
+					checkpointFile);
+			checkpoint = null;
+		}
+		total = 0;
+		for (LevelProgress level : levels) {
+			if (checkpoint != null) {
+				String watermark = checkpoint.getProperty(LEVEL_KEY_PREFIX + level.id);
+				if (watermark != null) {
+					level.setWatermark(Math.min(Long.parseLong(watermark), level.units));
+					skipped.addAndGet(level.getTilesBefore(level.getWatermark()));
+				}
+			}
+			total += level.getTiles();
+		}
+		return levels;
+	}
+
+	/**
+	 * @return <code>true</code> if the unit has been processed completely
+	 */
+	private boolean seedUnit(LevelProgress level, long unit, RateLimiter limiter) {
+		long y = level.range[1] + unit / level.chunksPerRow;
+		long minX = level.range[0] + (unit % level.chunksPerRow) * CHUNK_SIZE;
+		long maxX = Math.min(level.range[2], minX + CHUNK_SIZE - 1);
+		TileMatrix md = level.level.getMetadata();
+		for (long x = minX; x <= maxX; x++) {
+			if (cancelled) {
+				return false;
+			}
+			if (clip != null && !clip.intersects(calcTileEnvelope(md, x, y))) {
+				skipped.incrementAndGet();
+				continue;
+			}
+			try {
+				if (limiter != null) {
+					limiter.acquire();
+				}
+				seedTile(level.level, x, y);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void seedTile(TileDataLevel level, long x, long y) {
+		String id = level.getMetadata().getIdentifier();
+		try {
+			Tile tile = level.getTile(x, y);
+			if (tile == null) {
+				skipped.incrementAndGet();
+				return;
+			}
+			if (target != null) {
+				target.put(id, tile, x, y);
+			}
+			else {
+				try (InputStream in = tile.getAsStream()) {
+					if (in != null) {
+						in.transferTo(OutputStream.nullOutputStream());
+					}
+				}
+			}
+			seeded.incrementAndGet();
+		}
+		catch (IOException | RuntimeException e) {
+			failed.incrementAndGet();
+			LOG.warn("Unable to seed tile {}/{} of level '{}': {}", x, y, id, e.getMessage());
+			LOG.trace("Stack trace:", e);
+		}
+	}
+
+	private void awaitTermination(ExecutorService pool) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				if (pool.awaitTermination(reportIntervalMillis, MILLISECONDS)) {
+					break;
+				}
+				report(false);
+			}
+			catch (InterruptedException e) {
+				interrupted = true;
+				cancelled = true;
+				pool.shutdownNow();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void report(boolean finished) {
+		SeedingProgress progress = getProgress(finished);
+		LOG.info("Seeding {}: {}", finished ? "finished" : "in progress", progress);
+		if (listener != null) {
+			listener.progress(progress);
+		}
+	}
+
+	private SeedingProgress getProgress(boolean finished) {
+		return new SeedingProgress(total, seeded.get(), skipped.get(), failed.get(),
+				System.currentTimeMillis() - startMillis, finished);
+	}
+
+	private Properties loadCheckpoint() throws IOException {
+		if (checkpointFile == null || !checkpointFile.exists()) {
+			return null;
+		}
+		Properties props = new Properties();
+		try (Reader reader = Files.newBufferedReader(checkpointFile.toPath(), StandardCharsets.UTF_8)) {
+			props.load(reader);
+		}
+		LOG.info("Resuming seeding from checkpoint file '{}'.", checkpointFile);
+		return props;
+	}
+
+	private void saveCheckpoint(List<LevelProgress> levels) throws IOException {
+		if (checkpointFile == null || levels.isEmpty()) {
+			return;
+		}
+		Properties props = new Properties();
+		props.setProperty(JOB_KEY, job);
+		for (LevelProgress level : levels) {
+			props.setProperty(LEVEL_KEY_PREFIX + level.id, Long.toString(level.getWatermark()));
+		}
+		File parent = checkpointFile.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory " + parent);
+		}
+		File tmp = new File(checkpointFile.getPath() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			props.store(writer, "deegree tile seeding checkpoint");
+		}
+		Files.move(tmp.toPath(), checkpointFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+	}
+
+	/**
+	 * Keeps track of the work units of a level, the watermark is the number of work
+	 * units (in order) that have been completed.
+	 */
+	private static class LevelProgress {
+
+		private final TileDataLevel level;
+
+		private final String id;
+
+		private final long[] range;
+
+		private final long chunksPerRow;
+
+		private final long units;
+
+		private final TreeSet<Long> completedAboveWatermark = new TreeSet<Long>();
+
+		private long watermark;
+
+		private LevelProgress(TileDataLevel level, long[] range) {
+			this.level = level;
+			this.id = level.getMetadata().getIdentifier();
+			this.range = range;
+			long width = range[2] - range[0] + 1;
+			this.chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.units = (range[3] - range[1] + 1) * chunksPerRow;
+		}
+
+		private long getTiles() {
+			return (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+		}
+
+		private long getTilesBefore(long unit) {
+			long width = range[2] - range[0] + 1;
+			return unit / chunksPerRow * width + Math.min((unit % chunksPerRow) * CHUNK_SIZE, width);
+		}
+
+		private synchronized long getWatermark() {
+			return watermark;
+		}
+
+		private synchronized void setWatermark(long watermark) {
+			this.watermark = watermark;
+		}
+
+		private synchronized void complete(long unit) {
+			if (unit != watermark) {
+				completedAboveWatermark.add(unit);
+				return;
+			}
+			watermark++;
+			while (!completedAboveWatermark.isEmpty() && completedAboveWatermark.first() == watermark) {
+				completedAboveWatermark.pollFirst();
+				watermark++;
+			}
+		}
+
+	}
+
+	private static class SeederThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger COUNT = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "tile-seeder-" + COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
@@ -0,0 +1,246 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.seed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.metadata.SpatialMetadata;
+import org.deegree.tile.DefaultTileDataSet;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.persistence.TileStoreTransaction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TileSeeder}.
+ */
+public class TileSeederTest {
+
+	private static final GeometryFactory FAC = new GeometryFactory();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordingTransaction target = new RecordingTransaction();
+
+	@Test
+	public void testSeedAll() throws Exception {
+		TileSeeder seeder = new TileSeeder(createDataSet(), target);
+		seeder.setThreads(4);
+		SeedingProgress progress = seeder.seed();
+		assertEquals(4 * 2 + 100 * 50, progress.getTotal());
+		assertEquals(progress.getTotal(), progress.getSeeded());
+		assertEquals(progress.getTotal(), target.tiles.size());
+		assertEquals(0, progress.getFailed());
+		assertTrue(progress.isFinished());
+	}
+
+	@Test
+	public void testSeedLevelAndEnvelope() throws Exception {
+		TileSeeder seeder = new TileSeeder(createDataSet(), target);
+		seeder.setLevels(Collections.singleton("fine"));
+		seeder.setEnvelope(FAC.createEnvelope(5, 5, 95, 95, null));
+		SeedingProgress progress = seeder.seed();
+		// rows are rounded up by Tiles#getTileIndexRange
+		assertEquals(10 * 11, progress.getSeeded());
+		assertTrue(target.tiles.contains("fine/0/49"));
+		assertTrue(target.tiles.contains("fine/9/39"));
+		assertFalse(target.tiles.contains("fine/10/39"));
+		assertFalse(target.tiles.contains("fine/9/38"));
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		File checkpoint = new File(folder.getRoot(), "seed.checkpoint");
+		TileDataSet dataSet = createDataSet();
+
+		TileSeeder seeder = new TileSeeder(dataSet, target);
+		seeder.setThreads(2);
+		seeder.setCheckpointFile(checkpoint);
+		target.cancelAfter(1000, seeder);
+		SeedingProgress first = seeder.seed();
+		assertTrue(first.getSeeded() < first.getTotal());
+		assertTrue(checkpoint.exists());
+
+		RecordingTransaction second = new RecordingTransaction();
+		seeder = new TileSeeder(dataSet, second);
+		seeder.setThreads(2);
+		seeder.setCheckpointFile(checkpoint);
+		SeedingProgress progress = seeder.seed();
+		assertTrue(progress.getSkipped() > 0);
+		assertEquals(progress.getTotal(), progress.getSeeded() + progress.getSkipped());
+
+		Set<String> all = ConcurrentHashMap.newKeySet();
+		all.addAll(target.tiles);
+		all.addAll(second.tiles);
+		assertEquals(progress.getTotal(), all.size());
+	}
+
+	@Test
+	public void testFailuresAreCounted() throws Exception {
+		target.failOn = "coarse/1/1";
+		TileSeeder seeder = new TileSeeder(createDataSet(), target);
+		seeder.setLevels(Collections.singleton("coarse"));
+		SeedingProgress progress = seeder.seed();
+		assertEquals(1, progress.getFailed());
+		assertEquals(7, progress.getSeeded());
+	}
+
+	private static TileDataSet createDataSet() {
+		Envelope env = FAC.createEnvelope(0, 0, 1000, 500, null);
+		SpatialMetadata md = new SpatialMetadata(env, Collections.emptyList());
+		List<TileDataLevel> levels = new ArrayList<TileDataLevel>();
+		levels.add(new SimpleLevel(new TileMatrix("coarse", md, 256, 256, 250.0 / 256, 4, 2)));
+		levels.add(new SimpleLevel(new TileMatrix("fine", md, 256, 256, 10.0 / 256, 100, 50)));
+		return new DefaultTileDataSet(levels, null, "image/png");
+	}
+
+	private static class SimpleLevel implements TileDataLevel {
+
+		private final TileMatrix md;
+
+		private SimpleLevel(TileMatrix md) {
+			this.md = md;
+		}
+
+		@Override
+		public TileMatrix getMetadata() {
+			return md;
+		}
+
+		@Override
+		public Tile getTile(long x, long y) {
+			return new SimpleTile(md.getIdentifier() + "/" + x + "/" + y);
+		}
+
+		@Override
+		public List<String> getStyles() {
+			return null;
+		}
+
+	}
+
+	private static class SimpleTile implements Tile {
+
+		private final String key;
+
+		private SimpleTile(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public BufferedImage getAsImage() {
+			return null;
+		}
+
+		@Override
+		public InputStream getAsStream() {
+			return new ByteArrayInputStream(key.getBytes());
+		}
+
+		@Override
+		public Envelope getEnvelope() {
+			return null;
+		}
+
+		@Override
+		public FeatureCollection getFeatures(int i, int j, int limit) {
+			return null;
+		}
+
+	}
+
+	private static class RecordingTransaction implements TileStoreTransaction {
+
+		private final Set<String> tiles = ConcurrentHashMap.newKeySet();
+
+		private final AtomicInteger puts = new AtomicInteger();
+
+		private String failOn;
+
+		private int cancelAfter = -1;
+
+		private TileSeeder seeder;
+
+		private void cancelAfter(int tiles, TileSeeder seeder) {
+			this.cancelAfter = tiles;
+			this.seeder = seeder;
+		}
+
+		@Override
+		public void put(String tileDataLevel, Tile tile, long x, long y) {
+			String key = tileDataLevel + "/" + x + "/" + y;
+			if (key.equals(failOn)) {
+				throw new IllegalStateException("Failure");
+			}
+			tiles.add(key);
+			if (puts.incrementAndGet() == cancelAfter) {
+				seeder.cancel();
+			}
+		}
+
+		@Override
+		public void delete(String tileDataLevel, long x, long y) {
+			tiles.remove(tileDataLevel + "/" + x + "/" + y);
+		}
+
+		@Override
+		public void delete(String tileDataLevel, Envelope envelope) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
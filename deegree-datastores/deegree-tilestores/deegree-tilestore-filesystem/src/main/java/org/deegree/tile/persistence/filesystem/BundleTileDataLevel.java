@@ -0,0 +1,162 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem;
+
+import static org.deegree.tile.Tiles.calcTileEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreProvider;
+import org.deegree.tile.persistence.filesystem.bundle.TileBundleLayout;
+import org.deegree.workspace.Workspace;
+
+/**
+ * {@link TileDataLevel} implementation for the {@link FileSystemTileStore} that keeps the
+ * tiles in bundle files.
+ *
+ * @see TileBundleLayout
+ */
+class BundleTileDataLevel implements TileDataLevel {
+
+	private final TileMatrix metadata;
+
+	private final TileBundleLayout layout;
+
+	private final String baseStoreId;
+
+	private final String baseDataSetId;
+
+	private final Workspace workspace;
+
+	/**
+	 * Creates a new {@link BundleTileDataLevel} instance.
+	 * @param metadata tile matrix, must not be <code>null</code>
+	 * @param layout bundle layout of the data set, must not be <code>null</code>
+	 * @param baseStoreId tile store to retrieve missing tiles from, may be
+	 * <code>null</code>
+	 * @param baseDataSetId tile data set to retrieve missing tiles from, may be
+	 * <code>null</code>
+	 * @param workspace workspace, must not be <code>null</code>
+	 */
+	BundleTileDataLevel(TileMatrix metadata, TileBundleLayout layout, String baseStoreId, String baseDataSetId,
+			Workspace workspace) {
+		this.metadata = metadata;
+		this.layout = layout;
+		this.baseStoreId = baseStoreId;
+		this.baseDataSetId = baseDataSetId;
+		this.workspace = workspace;
+	}
+
+	@Override
+	public TileMatrix getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public Tile getTile(long x, long y) {
+		if (metadata.getNumTilesX() <= x || metadata.getNumTilesY() <= y || x < 0 || y < 0) {
+			return null;
+		}
+		try {
+			ByteBuffer data = layout.get(metadata.getIdentifier(), x, y);
+			if (data == null && baseStoreId != null) {
+				data = fetchFromBase(x, y);
+			}
+			if (data == null) {
+				return null;
+			}
+			return new BundleTile(calcTileEnvelope(metadata, x, y), data);
+		}
+		catch (IOException e) {
+			throw new TileIOException("Error reading tile bundle: " + e.getMessage(), e);
+		}
+	}
+
+	private ByteBuffer fetchFromBase(long x, long y) throws IOException {
+		TileStore store = workspace.getResource(TileStoreProvider.class, baseStoreId);
+		TileDataLevel lev = store.getTileDataSet(baseDataSetId).getTileDataLevel(metadata.getIdentifier());
+		Tile tile = lev.getTile(x, y);
+		if (tile == null) {
+			return null;
+		}
+		put(x, y, tile);
+		return layout.get(metadata.getIdentifier(), x, y);
+	}
+
+	/**
+	 * Encodes the given tile and stores it in the bundle.
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @param tile tile to store, must not be <code>null</code>
+	 * @throws IOException
+	 */
+	void put(long x, long y, Tile tile) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		if (!ImageIO.write(tile.getAsImage(), layout.getFileType(), bos)) {
+			throw new IOException("No image writer available for file type '" + layout.getFileType() + "'.");
+		}
+		layout.put(metadata.getIdentifier(), x, y, bos.toByteArray());
+	}
+
+	/**
+	 * Removes the specified tile from the bundle.
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @throws IOException
+	 */
+	void delete(long x, long y) throws IOException {
+		layout.delete(metadata.getIdentifier(), x, y);
+	}
+
+	TileBundleLayout getLayout() {
+		return layout;
+	}
+
+	@Override
+	public List<String> getStyles() {
+		return null;
+	}
+
+}
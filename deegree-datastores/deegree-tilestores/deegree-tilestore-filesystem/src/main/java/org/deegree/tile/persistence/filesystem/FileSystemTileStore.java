@@ -32,13 +32,21 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence.filesystem;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
+import org.deegree.tile.TileDataLevel;
 import org.deegree.tile.TileDataSet;
 import org.deegree.tile.persistence.GenericTileStore;
 import org.deegree.tile.persistence.TileStore;
 import org.deegree.tile.persistence.TileStoreTransaction;
+import org.deegree.tile.persistence.filesystem.bundle.TileBundleLayout;
 import org.deegree.workspace.ResourceMetadata;
+import org.slf4j.Logger;
 
 /**
  * Generic {@link org.deegree.tile.persistence.TileStore}.
@@ -48,6 +56,8 @@ import org.deegree.workspace.ResourceMetadata;
  */
 public class FileSystemTileStore extends GenericTileStore {
 
+	private static final Logger LOG = getLogger(FileSystemTileStore.class);
+
 	/**
 	 * Creates a new {@link FileSystemTileStore} instance.
 	 * @param tileDataSets the tile data sets to serve, must not be <code>null</code>
@@ -63,4 +73,42 @@ public class FileSystemTileStore extends GenericTileStore {
 		return new FileSystemTileStoreTransaction(id, this);
 	}
 
+	/**
+	 * Compacts the bundle files of all tile data sets that use the bundle layout, i.e.
+	 * reclaims the space of replaced and deleted tiles.
+	 * @return number of bytes that have been reclaimed
+	 * @throws IOException
+	 */
+	public long compact() throws IOException {
+		long reclaimed = 0;
+		for (TileBundleLayout layout : getBundleLayouts()) {
+			reclaimed += layout.compact();
+		}
+		return reclaimed;
+	}
+
+	@Override
+	public void destroy() {
+		for (TileBundleLayout layout : getBundleLayouts()) {
+			try {
+				layout.close();
+			}
+			catch (IOException e) {
+				LOG.warn("Unable to close tile bundles: {}", e.getMessage());
+			}
+		}
+	}
+
+	private Set<TileBundleLayout> getBundleLayouts() {
+		Set<TileBundleLayout> layouts = new LinkedHashSet<TileBundleLayout>();
+		for (String id : getTileDataSetIds()) {
+			for (TileDataLevel level : getTileDataSet(id).getTileDataLevels()) {
+				if (level instanceof BundleTileDataLevel) {
+					layouts.add(((BundleTileDataLevel) level).getLayout());
+				}
+			}
+		}
+		return layouts;
+	}
+
 }
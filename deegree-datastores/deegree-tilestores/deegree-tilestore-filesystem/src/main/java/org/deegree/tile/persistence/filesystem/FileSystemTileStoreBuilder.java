@@ -41,6 +41,7 @@ import org.deegree.tile.TileDataSet;
 import org.deegree.tile.TileMatrix;
 import org.deegree.tile.TileMatrixSet;
 import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.filesystem.bundle.TileBundleLayout;
 import org.deegree.tile.persistence.filesystem.jaxb.FileSystemTileStoreJAXB;
 import org.deegree.tile.persistence.filesystem.layout.TileCacheDiskLayout;
 import org.deegree.tile.tilematrixset.TileMatrixSetProvider;
@@ -81,13 +82,6 @@ public class FileSystemTileStoreBuilder implements ResourceBuilder<TileStore> {
 			for (FileSystemTileStoreJAXB.TileDataSet tds : config.getTileDataSet()) {
 				String id = tds.getIdentifier();
 				String tmsId = tds.getTileMatrixSetId();
-				org.deegree.tile.persistence.filesystem.jaxb.FileSystemTileStoreJAXB.TileDataSet.TileCacheDiskLayout lay = tds
-					.getTileCacheDiskLayout();
-
-				File baseDir = new File(lay.getLayerDirectory());
-				if (!baseDir.isAbsolute()) {
-					baseDir = metadata.getLocation().resolveToFile(lay.getLayerDirectory());
-				}
 
 				String baseStore = null;
 				String baseDataSet = null;
@@ -96,20 +90,34 @@ public class FileSystemTileStoreBuilder implements ResourceBuilder<TileStore> {
 					baseDataSet = tds.getTileDataSetBase().getValue();
 				}
 
-				TileCacheDiskLayout layout = new TileCacheDiskLayout(baseDir, lay.getFileType());
-
 				TileMatrixSet tms = workspace.getResource(TileMatrixSetProvider.class, tmsId);
 
 				List<TileDataLevel> list = new ArrayList<TileDataLevel>(tms.getTileMatrices().size());
 
-				for (TileMatrix tm : tms.getTileMatrices()) {
-					list.add(new FileSystemTileDataLevel(tm, layout, baseStore, baseDataSet, workspace, metadata, id));
+				DefaultTileDataSet dataset;
+				if (tds.getBundleLayout() != null) {
+					FileSystemTileStoreJAXB.TileDataSet.BundleLayout lay = tds.getBundleLayout();
+					int bundleSize = lay.getBundleSize() != null ? lay.getBundleSize().intValue()
+							: TileBundleLayout.DEFAULT_BUNDLE_SIZE;
+					TileBundleLayout layout = new TileBundleLayout(resolveLayerDirectory(lay.getLayerDirectory()),
+							lay.getFileType(), bundleSize);
+					for (TileMatrix tm : tms.getTileMatrices()) {
+						list.add(new BundleTileDataLevel(tm, layout, baseStore, baseDataSet, workspace));
+					}
+					dataset = new DefaultTileDataSet(list, tms, "image/" + layout.getFileType());
+					layout.setTileMatrixSet(dataset);
+				}
+				else {
+					FileSystemTileStoreJAXB.TileDataSet.TileCacheDiskLayout lay = tds.getTileCacheDiskLayout();
+					TileCacheDiskLayout layout = new TileCacheDiskLayout(
+							resolveLayerDirectory(lay.getLayerDirectory()), lay.getFileType());
+					for (TileMatrix tm : tms.getTileMatrices()) {
+						list.add(new FileSystemTileDataLevel(tm, layout, baseStore, baseDataSet, workspace, metadata,
+								id));
+					}
+					dataset = new DefaultTileDataSet(list, tms, "image/" + layout.getFileType());
+					layout.setTileMatrixSet(dataset);
 				}
-
-				String format = "image/" + layout.getFileType();
-
-				DefaultTileDataSet dataset = new DefaultTileDataSet(list, tms, format);
-				layout.setTileMatrixSet(dataset);
 				map.put(id, dataset);
 			}
 
@@ -122,4 +130,12 @@ public class FileSystemTileStoreBuilder implements ResourceBuilder<TileStore> {
 		}
 	}
 
+	private File resolveLayerDirectory(String layerDirectory) {
+		File baseDir = new File(layerDirectory);
+		if (!baseDir.isAbsolute()) {
+			baseDir = metadata.getLocation().resolveToFile(layerDirectory);
+		}
+		return baseDir;
+	}
+
 }
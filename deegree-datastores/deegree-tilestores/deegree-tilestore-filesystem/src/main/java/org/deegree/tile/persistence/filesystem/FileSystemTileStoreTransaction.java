@@ -42,6 +42,7 @@ import javax.imageio.ImageIO;
 
 import org.apache.commons.io.IOUtils;
 import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
 import org.deegree.tile.TileIOException;
 import org.deegree.tile.persistence.AbstractTileStoreTransaction;
 
@@ -67,8 +68,17 @@ class FileSystemTileStoreTransaction extends AbstractTileStoreTransaction {
 
 	@Override
 	public void put(String matrixId, Tile tile, long x, long y) throws TileIOException {
-		DiskLayout layout = ((FileSystemTileDataLevel) this.store.getTileDataSet(this.tileMatrixSet)
-			.getTileDataLevel(matrixId)).getLayout();
+		TileDataLevel level = this.store.getTileDataSet(this.tileMatrixSet).getTileDataLevel(matrixId);
+		if (level instanceof BundleTileDataLevel) {
+			try {
+				((BundleTileDataLevel) level).put(x, y, tile);
+			}
+			catch (IOException e) {
+				throw new TileIOException("Error storing tile in bundle: " + e.getMessage(), e);
+			}
+			return;
+		}
+		DiskLayout layout = ((FileSystemTileDataLevel) level).getLayout();
 		FileOutputStream fos = null;
 		try {
 			File file = layout.resolve(matrixId, x, y);
@@ -90,8 +100,17 @@ class FileSystemTileStoreTransaction extends AbstractTileStoreTransaction {
 
 	@Override
 	public void delete(String matrixId, long x, long y) throws TileIOException {
-		DiskLayout layout = ((FileSystemTileDataLevel) this.store.getTileDataSet(this.tileMatrixSet)
-			.getTileDataLevel(matrixId)).getLayout();
+		TileDataLevel level = this.store.getTileDataSet(this.tileMatrixSet).getTileDataLevel(matrixId);
+		if (level instanceof BundleTileDataLevel) {
+			try {
+				((BundleTileDataLevel) level).delete(x, y);
+			}
+			catch (IOException e) {
+				throw new TileIOException("Error deleting tile from bundle: " + e.getMessage(), e);
+			}
+			return;
+		}
+		DiskLayout layout = ((FileSystemTileDataLevel) level).getLayout();
 		File file = layout.resolve(matrixId, x, y);
 		if (file.exists()) {
 			if (!file.delete()) {
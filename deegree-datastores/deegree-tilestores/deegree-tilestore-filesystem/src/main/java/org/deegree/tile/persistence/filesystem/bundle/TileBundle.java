@@ -0,0 +1,374 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A single file that packs the tiles of a square block of a tile matrix.
+ * <p>
+ * Structure: a header (magic number, version, number of tiles per side), followed by an
+ * index with one entry (offset and length of the tile data) per tile, followed by the
+ * tile data. Tiles are always appended at the end of the file and the index entry is
+ * updated afterwards, so an interrupted write never leaves the index pointing to
+ * incomplete data. Replaced and deleted tiles leave unused space in the file, which can
+ * be reclaimed by {@link #compact()}.
+ * </p>
+ * <p>
+ * Tiles are read from a read-only memory mapping of the file, the returned buffers are
+ * views of the mapping and don't copy any data. Writes are serialized using a lock (and
+ * an exclusive file lock, for writers in other processes). Instances are thread-safe.
+ * </p>
+ */
+public class TileBundle implements Closeable {
+
+	/** File suffix of tile bundles. */
+	public static final String SUFFIX = ".bundle";
+
+	private static final int MAGIC = 0x4454424e;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_LENGTH = 16;
+
+	private static final int ENTRY_LENGTH = 12;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final File file;
+
+	private final int size;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer mapping;
+
+	/**
+	 * Opens the given tile bundle, the file is created if it does not exist.
+	 * @param file bundle file, must not be <code>null</code>
+	 * @param size number of tiles per side, must match the size of an existing bundle
+	 * (or be 0 to use the size of an existing bundle)
+	 * @throws IOException if the file cannot be opened or is not a tile bundle of the
+	 * given size
+	 */
+	public TileBundle(File file, int size) throws IOException {
+		this.file = file;
+		if (!file.exists()) {
+			if (size <= 0) {
+				throw new IOException("Tile bundle '" + file + "' does not exist.");
+			}
+			create(file, size);
+		}
+		this.channel = FileChannel.open(file.toPath(), READ, WRITE);
+		this.size = readHeader(size);
+		this.mapping = channel.map(READ_ONLY, 0, channel.size());
+	}
+
+	/**
+	 * @return the bundle file, never <code>null</code>
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return number of tiles per side
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the data of the specified tile.
+	 * @param col column of the tile inside the bundle (0 to size - 1)
+	 * @param row row of the tile inside the bundle (0 to size - 1)
+	 * @return read-only view of the tile data, or <code>null</code> if the bundle does
+	 * not contain the tile
+	 * @throws IOException
+	 */
+	public ByteBuffer get(int col, int row) throws IOException {
+		int entry = getEntryPosition(col, row);
+		lock.readLock().lock();
+		try {
+			MappedByteBuffer current = mapping;
+			int length = current.getInt(entry + 8);
+			if (length == 0) {
+				return null;
+			}
+			long offset = current.getLong(entry);
+			if (offset + length <= current.capacity()) {
+				return slice(current, offset, length);
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		// the tile has been appended after the file was mapped, the mapping is only
+		// extended on demand to avoid remapping on every put
+		lock.writeLock().lock();
+		try {
+			mapping = channel.map(READ_ONLY, 0, channel.size());
+			int length = mapping.getInt(entry + 8);
+			return length == 0 ? null : slice(mapping, mapping.getLong(entry), length);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Stores the given tile data, an existing tile is replaced.
+	 * @param col column of the tile inside the bundle (0 to size - 1)
+	 * @param row row of the tile inside the bundle (0 to size - 1)
+	 * @param data encoded tile, must not be <code>null</code> or empty
+	 * @throws IOException
+	 */
+	public void put(int col, int row, byte[] data) throws IOException {
+		if (data.length == 0) {
+			throw new IllegalArgumentException("Tile data must not be empty.");
+		}
+		int entry = getEntryPosition(col, row);
+		lock.writeLock().lock();
+		try (FileLock fileLock = channel.lock()) {
+			long offset = channel.size();
+			if (offset + data.length > Integer.MAX_VALUE) {
+				throw new IOException("Tile bundle '" + file + "' is full, compact it or use a smaller bundle size.");
+			}
+			writeFully(channel, ByteBuffer.wrap(data), offset);
+			writeFully(channel, ByteBuffer.allocate(ENTRY_LENGTH).putLong(offset).putInt(data.length).flip(), entry);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the specified tile.
+	 * @param col column of the tile inside the bundle (0 to size - 1)
+	 * @param row row of the tile inside the bundle (0 to size - 1)
+	 * @return <code>true</code> if the bundle contained the tile, <code>false</code>
+	 * otherwise
+	 * @throws IOException
+	 */
+	public boolean delete(int col, int row) throws IOException {
+		int entry = getEntryPosition(col, row);
+		lock.writeLock().lock();
+		try (FileLock fileLock = channel.lock()) {
+			if (mapping.getInt(entry + 8) == 0) {
+				return false;
+			}
+			writeFully(channel, ByteBuffer.allocate(ENTRY_LENGTH), entry);
+			return true;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes that are occupied by replaced or deleted tiles.
+	 * @return number of bytes that would be reclaimed by {@link #compact()}
+	 * @throws IOException
+	 */
+	public long getUnusedBytes() throws IOException {
+		lock.readLock().lock();
+		try {
+			return channel.size() - getDataOffset(size) - getUsedBytes(mapping);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Rewrites the bundle so that it only contains the current tiles. The file is
+	 * replaced atomically, buffers returned by {@link #get(int, int)} before stay valid.
+	 * <p>
+	 * Must not be called while other processes access the bundle, as they would keep
+	 * accessing the replaced file.
+	 * </p>
+	 * @return number of bytes that have been reclaimed
+	 * @throws IOException
+	 */
+	public long compact() throws IOException {
+		lock.writeLock().lock();
+		try {
+			long before = channel.size();
+			File tmp = new File(file.getPath() + ".compact");
+			try (FileLock fileLock = channel.lock()) {
+				if (before - getDataOffset(size) == getUsedBytes(mapping)) {
+					return 0;
+				}
+				writeCompacted(tmp);
+			}
+			channel.close();
+			Files.move(tmp.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+			channel = FileChannel.open(file.toPath(), READ, WRITE);
+			mapping = channel.map(READ_ONLY, 0, channel.size());
+			return before - channel.size();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void writeCompacted(File tmp) throws IOException {
+		Files.deleteIfExists(tmp.toPath());
+		try (FileChannel target = FileChannel.open(tmp.toPath(), CREATE_NEW, WRITE)) {
+			ByteBuffer header = createHeader(size);
+			long offset = header.capacity();
+			for (int entry = HEADER_LENGTH; entry < getDataOffset(size); entry += ENTRY_LENGTH) {
+				int length = mapping.getInt(entry + 8);
+				if (length != 0) {
+					transferFully(mapping.getLong(entry), length, target, offset);
+					header.putLong(entry, offset).putInt(entry + 8, length);
+					offset += length;
+				}
+			}
+			writeFully(target, header, 0);
+			target.force(true);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		lock.writeLock().lock();
+		try {
+			channel.close();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static void create(File file, int size) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.exists()) {
+			throw new IOException("Unable to create parent directories for " + file);
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, WRITE);
+				FileLock fileLock = channel.lock()) {
+			// another process may have created the bundle in the meantime
+			if (channel.size() == 0) {
+				writeFully(channel, createHeader(size), 0);
+			}
+		}
+	}
+
+	private static ByteBuffer createHeader(int size) {
+		ByteBuffer header = ByteBuffer.allocate((int) getDataOffset(size));
+		header.putInt(MAGIC).putInt(VERSION).putInt(size);
+		header.position(0);
+		return header;
+	}
+
+	private int readHeader(int expectedSize) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				channel.close();
+				throw new IOException("File '" + file + "' is not a tile bundle.");
+			}
+		}
+		header.flip();
+		int actualSize = header.getInt(8);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || actualSize <= 0
+				|| channel.size() < getDataOffset(actualSize)) {
+			channel.close();
+			throw new IOException("File '" + file + "' is not a tile bundle.");
+		}
+		if (expectedSize > 0 && expectedSize != actualSize) {
+			channel.close();
+			throw new IOException("Tile bundle '" + file + "' contains " + actualSize + "x" + actualSize
+					+ " tiles, but " + expectedSize + "x" + expectedSize + " are expected.");
+		}
+		return actualSize;
+	}
+
+	private int getEntryPosition(int col, int row) {
+		if (col < 0 || row < 0 || col >= size || row >= size) {
+			throw new IndexOutOfBoundsException(
+					"Tile " + col + "/" + row + " is outside of tile bundle '" + file + "' (size " + size + ").");
+		}
+		return HEADER_LENGTH + (row * size + col) * ENTRY_LENGTH;
+	}
+
+	private static long getDataOffset(int size) {
+		return HEADER_LENGTH + (long) size * size * ENTRY_LENGTH;
+	}
+
+	private long getUsedBytes(ByteBuffer index) {
+		long used = 0;
+		for (int entry = HEADER_LENGTH; entry < getDataOffset(size); entry += ENTRY_LENGTH) {
+			used += index.getInt(entry + 8);
+		}
+		return used;
+	}
+
+	private static ByteBuffer slice(MappedByteBuffer mapping, long offset, int length) {
+		return mapping.slice((int) offset, length).asReadOnlyBuffer();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private void transferFully(long offset, int length, FileChannel target, long position) throws IOException {
+		long transferred = 0;
+		while (transferred < length) {
+			target.position(position + transferred);
+			transferred += channel.transferTo(offset + transferred, length - transferred, target);
+		}
+	}
+
+}
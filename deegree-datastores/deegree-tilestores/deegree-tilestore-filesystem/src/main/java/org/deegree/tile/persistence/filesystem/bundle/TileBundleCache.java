@@ -0,0 +1,206 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+/**
+ * Keeps a bounded number of {@link TileBundle}s open.
+ * <p>
+ * If the limit is exceeded, the least recently used bundle is closed. Bundles are only
+ * closed when no operation uses them anymore, so the number of open bundles may exceed
+ * the limit for the duration of concurrent operations.
+ * </p>
+ */
+class TileBundleCache implements Closeable {
+
+	private static final Logger LOG = getLogger(TileBundleCache.class);
+
+	private final int bundleSize;
+
+	private final Map<File, OpenBundle> bundles;
+
+	/**
+	 * Creates a new {@link TileBundleCache} instance.
+	 * @param bundleSize number of tiles per side of a bundle, must be positive
+	 * @param maxOpen maximum number of bundles that are kept open, must be positive
+	 */
+	TileBundleCache(int bundleSize, final int maxOpen) {
+		if (maxOpen <= 0) {
+			throw new IllegalArgumentException("Maximum number of open bundles must be positive, but is " + maxOpen);
+		}
+		this.bundleSize = bundleSize;
+		this.bundles = new LinkedHashMap<File, OpenBundle>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -4511062727563941374L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<File, OpenBundle> eldest) {
+				if (size() > maxOpen) {
+					evict(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Performs the given operation on the specified bundle, the bundle is not closed
+	 * while the operation is running.
+	 * @param file bundle file, may be <code>null</code>
+	 * @param create <code>true</code>, if the bundle should be created if it does not
+	 * exist
+	 * @param operation operation to perform, must not be <code>null</code>
+	 * @return result of the operation, <code>null</code> if the file is
+	 * <code>null</code> or the bundle does not exist (and is not created)
+	 * @throws IOException
+	 */
+	<T> T apply(File file, boolean create, BundleOperation<T> operation) throws IOException {
+		OpenBundle bundle = acquire(file, create);
+		if (bundle == null) {
+			return null;
+		}
+		try {
+			return operation.apply(bundle.bundle);
+		}
+		finally {
+			release(bundle);
+		}
+	}
+
+	/**
+	 * @return number of bundles in the cache
+	 */
+	int getNumOpen() {
+		synchronized (bundles) {
+			return bundles.size();
+		}
+	}
+
+	/**
+	 * Closes all bundles (bundles that are in use are closed when the operation has
+	 * finished).
+	 */
+	@Override
+	public void close() {
+		synchronized (bundles) {
+			for (OpenBundle bundle : bundles.values()) {
+				evict(bundle);
+			}
+			bundles.clear();
+		}
+	}
+
+	private OpenBundle acquire(File file, boolean create) throws IOException {
+		if (file == null) {
+			return null;
+		}
+		synchronized (bundles) {
+			OpenBundle bundle = bundles.get(file);
+			if (bundle == null) {
+				if (!create && !file.exists()) {
+					return null;
+				}
+				bundle = new OpenBundle(new TileBundle(file, bundleSize));
+				bundles.put(file, bundle);
+			}
+			bundle.users++;
+			return bundle;
+		}
+	}
+
+	private void release(OpenBundle bundle) {
+		synchronized (bundles) {
+			bundle.users--;
+			if (bundle.evicted && bundle.users == 0) {
+				closeQuietly(bundle);
+			}
+		}
+	}
+
+	private void evict(OpenBundle bundle) {
+		bundle.evicted = true;
+		if (bundle.users == 0) {
+			closeQuietly(bundle);
+		}
+	}
+
+	private void closeQuietly(OpenBundle bundle) {
+		try {
+			bundle.bundle.close();
+		}
+		catch (IOException e) {
+			LOG.warn("Unable to close tile bundle '{}': {}", bundle.bundle.getFile(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Operation on a {@link TileBundle}.
+	 */
+	interface BundleOperation<T> {
+
+		/**
+		 * @param bundle bundle to operate on, never <code>null</code>
+		 * @return result of the operation
+		 * @throws IOException
+		 */
+		T apply(TileBundle bundle) throws IOException;
+
+	}
+
+	private static class OpenBundle {
+
+		private final TileBundle bundle;
+
+		private int users;
+
+		private boolean evicted;
+
+		private OpenBundle(TileBundle bundle) {
+			this.bundle = bundle;
+		}
+
+	}
+
+}
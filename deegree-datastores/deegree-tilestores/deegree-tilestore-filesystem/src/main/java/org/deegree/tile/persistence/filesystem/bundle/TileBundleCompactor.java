@@ -0,0 +1,70 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Command line tool that compacts the {@link TileBundle}s of a layer directory, see
+ * {@link TileBundle#compact()}.
+ * <p>
+ * Usage: <code>TileBundleCompactor &lt;layerDirectory&gt; [&lt;layerDirectory&gt; ...]</code>
+ * </p>
+ * <p>
+ * Must not be run while a deegree instance uses the layer directory, running tile
+ * stores can be compacted using
+ * {@link org.deegree.tile.persistence.filesystem.FileSystemTileStore#compact()}.
+ * </p>
+ */
+public class TileBundleCompactor {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: TileBundleCompactor <layerDirectory> [<layerDirectory> ...]");
+			System.exit(1);
+		}
+		for (String arg : args) {
+			long reclaimed = 0;
+			for (File file : TileBundleLayout.findBundles(new File(arg))) {
+				try (TileBundle bundle = new TileBundle(file, 0)) {
+					reclaimed += bundle.compact();
+				}
+			}
+			System.out.println(arg + ": reclaimed " + reclaimed + " bytes");
+		}
+	}
+
+}
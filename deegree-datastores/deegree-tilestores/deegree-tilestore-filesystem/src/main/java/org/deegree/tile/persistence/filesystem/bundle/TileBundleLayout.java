@@ -0,0 +1,251 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import static java.io.File.separatorChar;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.deegree.commons.utils.TunableParameter;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.slf4j.Logger;
+
+/**
+ * Stores the tiles of a {@link TileDataSet} in {@link TileBundle}s instead of one file
+ * per tile.
+ * <p>
+ * Structure: <code>layername/zz/RrrrrCcccc.bundle</code>, each bundle contains a block
+ * of <code>size</code> x <code>size</code> tiles. <code>zz</code> is the index of the
+ * tile matrix (using 2 digits eg. 01, counting starts with 0), <code>rrrr</code> and
+ * <code>cccc</code> are the row and column of the block (tile index divided by the
+ * bundle size).
+ * </p>
+ * <p>
+ * At most <code>deegree.tilestore.bundle.maxopen</code> (tunable parameter, default
+ * 256) bundles are kept open, the least recently used ones are closed.
+ * </p>
+ */
+public class TileBundleLayout implements Closeable {
+
+	private static final Logger LOG = getLogger(TileBundleLayout.class);
+
+	/** Default number of tiles per side of a bundle. */
+	public static final int DEFAULT_BUNDLE_SIZE = 128;
+
+	private static final int MAX_OPEN_BUNDLES = TunableParameter.get("deegree.tilestore.bundle.maxopen", 256);
+
+	private final TileBundleCache bundles;
+
+	private final File layerDir;
+
+	private final String fileType;
+
+	private final int bundleSize;
+
+	private TileDataSet set;
+
+	/**
+	 * Creates a new {@link TileBundleLayout} instance.
+	 * @param layerDir layer directory, must not be <code>null</code>
+	 * @param fileType image format of the tiles (e.g. png), must not be
+	 * <code>null</code>
+	 * @param bundleSize number of tiles per side of a bundle, must be positive
+	 */
+	public TileBundleLayout(File layerDir, String fileType, int bundleSize) {
+		this(layerDir, fileType, bundleSize, MAX_OPEN_BUNDLES);
+	}
+
+	/**
+	 * Creates a new {@link TileBundleLayout} instance.
+	 * @param layerDir layer directory, must not be <code>null</code>
+	 * @param fileType image format of the tiles (e.g. png), must not be
+	 * <code>null</code>
+	 * @param bundleSize number of tiles per side of a bundle, must be positive
+	 * @param maxOpenBundles maximum number of bundles that are kept open, must be
+	 * positive
+	 */
+	public TileBundleLayout(File layerDir, String fileType, int bundleSize, int maxOpenBundles) {
+		if (bundleSize <= 0) {
+			throw new IllegalArgumentException("Bundle size must be positive, but is " + bundleSize);
+		}
+		this.layerDir = layerDir;
+		this.fileType = fileType;
+		this.bundleSize = bundleSize;
+		this.bundles = new TileBundleCache(bundleSize, maxOpenBundles);
+	}
+
+	/**
+	 * Assigns the given {@link TileDataSet}.
+	 * @param set tile matrix to assign, must not be <code>null</code>
+	 */
+	public void setTileMatrixSet(TileDataSet set) {
+		this.set = set;
+	}
+
+	/**
+	 * @return image format of the tiles (without '.'), never <code>null</code>
+	 */
+	public String getFileType() {
+		return fileType;
+	}
+
+	/**
+	 * Returns the bundle file that contains the specified tile.
+	 * @param matrixId identifier of the matrix in the matrix set, must not be
+	 * <code>null</code>
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @return bundle file or <code>null</code> if the tile matrix does not exist (or
+	 * indexes are out of range)
+	 */
+	public File resolve(String matrixId, long x, long y) {
+		TileDataLevel level = set.getTileDataLevel(matrixId);
+		if (level == null) {
+			return null;
+		}
+		if (level.getMetadata().getNumTilesX() <= x || level.getMetadata().getNumTilesY() <= y || x < 0 || y < 0) {
+			return null;
+		}
+		int levelIndex = set.getTileDataLevels().indexOf(level);
+		String path = String.format("%02d%cR%04xC%04x%s", levelIndex, separatorChar, y / bundleSize, x / bundleSize,
+				TileBundle.SUFFIX);
+		return new File(layerDir, path);
+	}
+
+	/**
+	 * Returns the data of the specified tile.
+	 * @param matrixId identifier of the matrix in the matrix set, must not be
+	 * <code>null</code>
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @return read-only view of the encoded tile, or <code>null</code> if the tile has
+	 * not been stored
+	 * @throws IOException
+	 */
+	public ByteBuffer get(String matrixId, long x, long y) throws IOException {
+		return bundles.apply(resolve(matrixId, x, y), false,
+				bundle -> bundle.get((int) (x % bundleSize), (int) (y % bundleSize)));
+	}
+
+	/**
+	 * Stores the specified tile, an existing tile is replaced.
+	 * @param matrixId identifier of the matrix in the matrix set, must not be
+	 * <code>null</code>
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @param data encoded tile, must not be <code>null</code>
+	 * @throws IOException
+	 */
+	public void put(String matrixId, long x, long y, byte[] data) throws IOException {
+		File file = resolve(matrixId, x, y);
+		if (file == null) {
+			throw new IOException("Tile " + x + "/" + y + " of tile matrix '" + matrixId + "' does not exist.");
+		}
+		bundles.apply(file, true, bundle -> {
+			bundle.put((int) (x % bundleSize), (int) (y % bundleSize), data);
+			return null;
+		});
+	}
+
+	/**
+	 * Removes the specified tile. The space is reclaimed by {@link #compact()}.
+	 * @param matrixId identifier of the matrix in the matrix set, must not be
+	 * <code>null</code>
+	 * @param x column index of the tile (starting at 0)
+	 * @param y row index of the tile (starting at 0)
+	 * @return <code>true</code> if the tile has been removed, <code>false</code> if it
+	 * did not exist
+	 * @throws IOException
+	 */
+	public boolean delete(String matrixId, long x, long y) throws IOException {
+		Boolean deleted = bundles.apply(resolve(matrixId, x, y), false,
+				bundle -> bundle.delete((int) (x % bundleSize), (int) (y % bundleSize)));
+		return deleted != null && deleted;
+	}
+
+	/**
+	 * Compacts all bundles in the layer directory, see {@link TileBundle#compact()}.
+	 * @return number of bytes that have been reclaimed
+	 * @throws IOException
+	 */
+	public long compact() throws IOException {
+		long reclaimed = 0;
+		for (File file : findBundles(layerDir)) {
+			Long bundleReclaimed = bundles.apply(file, false, TileBundle::compact);
+			if (bundleReclaimed != null) {
+				reclaimed += bundleReclaimed;
+			}
+		}
+		LOG.info("Compacted tile bundles in '{}', reclaimed {} bytes.", layerDir, reclaimed);
+		return reclaimed;
+	}
+
+	/**
+	 * Closes all opened bundles.
+	 */
+	@Override
+	public void close() throws IOException {
+		bundles.close();
+	}
+
+	/**
+	 * Returns all tile bundles in the given directory (and its subdirectories).
+	 * @param dir directory to search, must not be <code>null</code>
+	 * @return bundle files, never <code>null</code>
+	 * @throws IOException
+	 */
+	public static List<File> findBundles(File dir) throws IOException {
+		if (!dir.isDirectory()) {
+			return List.of();
+		}
+		try (Stream<Path> paths = Files.walk(dir.toPath())) {
+			return paths.filter(p -> p.getFileName().toString().endsWith(TileBundle.SUFFIX))
+				.map(Path::toFile)
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TileBundleCache}.
+ */
+public class TileBundleCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testNotExistingBundle() throws IOException {
+		try (TileBundleCache cache = new TileBundleCache(4, 2)) {
+			assertNull(cache.apply(bundleFile(0), false, bundle -> bundle.get(0, 0)));
+			assertNull(cache.apply(null, true, bundle -> bundle.get(0, 0)));
+			assertEquals(0, cache.getNumOpen());
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedBundlesAreClosed() throws IOException {
+		try (TileBundleCache cache = new TileBundleCache(4, 2)) {
+			for (int i = 0; i < 5; i++) {
+				put(cache, bundleFile(i), "tile-" + i);
+			}
+			assertEquals(2, cache.getNumOpen());
+			// closed bundles are opened again
+			for (int i = 0; i < 5; i++) {
+				assertArrayEquals(bytes("tile-" + i), get(cache, bundleFile(i)));
+			}
+			assertEquals(2, cache.getNumOpen());
+		}
+	}
+
+	@Test
+	public void testBundleInUseIsNotClosed() throws IOException {
+		try (TileBundleCache cache = new TileBundleCache(4, 1)) {
+			put(cache, bundleFile(0), "first");
+			cache.apply(bundleFile(0), false, bundle -> {
+				// evicts the bundle that is still in use
+				put(cache, bundleFile(1), "other");
+				bundle.put(1, 1, bytes("second"));
+				assertArrayEquals(bytes("second"), toArray(bundle.get(1, 1)));
+				return null;
+			});
+			assertEquals(1, cache.getNumOpen());
+			assertArrayEquals(bytes("first"), get(cache, bundleFile(0)));
+		}
+	}
+
+	private static void put(TileBundleCache cache, File file, String data) throws IOException {
+		cache.apply(file, true, bundle -> {
+			bundle.put(0, 0, bytes(data));
+			return null;
+		});
+	}
+
+	private static byte[] get(TileBundleCache cache, File file) throws IOException {
+		return toArray(cache.apply(file, false, bundle -> bundle.get(0, 0)));
+	}
+
+	private File bundleFile(int i) {
+		return new File(folder.getRoot(), "R0000C000" + i + TileBundle.SUFFIX);
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+}
@@ -0,0 +1,182 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.filesystem.bundle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link TileBundle}.
+ */
+public class TileBundleTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		try (TileBundle bundle = new TileBundle(newBundleFile(), 4)) {
+			assertNull(bundle.get(1, 2));
+			bundle.put(1, 2, bytes("tile-1-2"));
+			bundle.put(3, 3, bytes("tile-3-3"));
+			assertArrayEquals(bytes("tile-1-2"), toArray(bundle.get(1, 2)));
+			assertArrayEquals(bytes("tile-3-3"), toArray(bundle.get(3, 3)));
+			assertNull(bundle.get(2, 1));
+		}
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		File file = newBundleFile();
+		try (TileBundle bundle = new TileBundle(file, 4)) {
+			bundle.put(0, 0, bytes("first"));
+		}
+		try (TileBundle bundle = new TileBundle(file, 0)) {
+			assertEquals(4, bundle.getSize());
+			assertArrayEquals(bytes("first"), toArray(bundle.get(0, 0)));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReopenWithDifferentSize() throws IOException {
+		File file = newBundleFile();
+		new TileBundle(file, 4).close();
+		new TileBundle(file, 8);
+	}
+
+	@Test
+	public void testReplaceAndDelete() throws IOException {
+		try (TileBundle bundle = new TileBundle(newBundleFile(), 4)) {
+			bundle.put(1, 1, bytes("old"));
+			bundle.put(1, 1, bytes("new"));
+			assertArrayEquals(bytes("new"), toArray(bundle.get(1, 1)));
+			assertEquals(3, bundle.getUnusedBytes());
+			assertTrue(bundle.delete(1, 1));
+			assertFalse(bundle.delete(1, 1));
+			assertNull(bundle.get(1, 1));
+			assertEquals(6, bundle.getUnusedBytes());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		File file = newBundleFile();
+		try (TileBundle bundle = new TileBundle(file, 4)) {
+			bundle.put(0, 0, bytes("a-old"));
+			bundle.put(1, 0, bytes("b"));
+			bundle.put(0, 0, bytes("a-new"));
+			bundle.put(2, 0, bytes("c"));
+			bundle.delete(2, 0);
+			ByteBuffer beforeCompaction = bundle.get(1, 0);
+			long length = file.length();
+
+			assertEquals(6, bundle.compact());
+			assertEquals(length - 6, file.length());
+			assertEquals(0, bundle.getUnusedBytes());
+			assertArrayEquals(bytes("a-new"), toArray(bundle.get(0, 0)));
+			assertArrayEquals(bytes("b"), toArray(bundle.get(1, 0)));
+			assertNull(bundle.get(2, 0));
+			assertArrayEquals(bytes("b"), toArray(beforeCompaction));
+			assertEquals(0, bundle.compact());
+
+			bundle.put(3, 3, bytes("d"));
+			assertArrayEquals(bytes("d"), toArray(bundle.get(3, 3)));
+		}
+	}
+
+	@Test
+	public void testConcurrentPuts() throws Exception {
+		try (TileBundle bundle = new TileBundle(newBundleFile(), 16)) {
+			Thread[] threads = new Thread[4];
+			for (int i = 0; i < threads.length; i++) {
+				final int row = i;
+				threads[i] = new Thread(() -> {
+					try {
+						for (int col = 0; col < 16; col++) {
+							bundle.put(col, row, bytes(col + "/" + row));
+						}
+					}
+					catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				});
+				threads[i].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			for (int row = 0; row < threads.length; row++) {
+				for (int col = 0; col < 16; col++) {
+					assertArrayEquals(bytes(col + "/" + row), toArray(bundle.get(col, row)));
+				}
+			}
+			assertEquals(0, bundle.getUnusedBytes());
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfRange() throws IOException {
+		try (TileBundle bundle = new TileBundle(newBundleFile(), 4)) {
+			bundle.get(4, 0);
+		}
+	}
+
+	private File newBundleFile() {
+		return new File(folder.getRoot(), "R0000C0000" + TileBundle.SUFFIX);
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+}
@@ -29,6 +29,8 @@ package org.deegree.tile.persistence.merge;
 
 import static java.awt.Color.WHITE;
 import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
 
 import java.awt.Color;
 import java.awt.Graphics;
@@ -39,22 +41,37 @@ import java.awt.image.FilteredImageSource;
 import java.awt.image.ImageFilter;
 import java.awt.image.ImageProducer;
 import java.awt.image.RGBImageFilter;
+import java.awt.image.Raster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 import javax.imageio.ImageIO;
 
+import org.apache.commons.io.IOUtils;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.slf4j.Logger;
 
 /**
  * {@link Tile} implementation used by {@link MergingTileStore}.
+ * <p>
+ * The tiles of all sources are fetched concurrently, each source has to deliver its tile
+ * within the configured timeout, otherwise it is left out. The tiles are evaluated from
+ * the top (last source) to the bottom, lower tiles are not waited for once a fully opaque
+ * tile has been found. If only one tile remains and it is a JPEG image, its encoded image
+ * is passed through, all other tiles are encoded as JPEG.
+ * </p>
  *
  * @author <a href="mailto:Reijer.Copier@idgis.nl">Reijer Copier</a>
  * @author <a href="mailto:schneider@occamlabs.de">Markus Schneider</a>
@@ -62,21 +79,106 @@ import org.deegree.tile.TileIOException;
  */
 class MergingTile implements Tile {
 
+	private static final Logger LOG = getLogger(MergingTile.class);
+
 	private final List<Tile> tiles;
 
-	MergingTile(final List<Tile> tiles) {
+	private final ExecutorService executor;
+
+	private final long timeoutMillis;
+
+	/**
+	 * Creates a new {@link MergingTile} instance.
+	 * @param tiles tiles to merge, from bottom to top, must not be empty
+	 * @param executor executor to fetch the tiles with, must not be <code>null</code>
+	 * @param timeoutMillis maximum time to wait for the tiles of the sources (in
+	 * milliseconds)
+	 */
+	MergingTile(final List<Tile> tiles, final ExecutorService executor, final long timeoutMillis) {
 		this.tiles = tiles;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
 	}
 
 	@Override
 	public BufferedImage getAsImage() throws TileIOException {
-		Iterator<Tile> itr = tiles.iterator();
-		Tile firstTile = itr.next();
-		BufferedImage img = firstTile.getAsImage();
+		List<Layer> layers = fetchLayers();
+		if (layers.size() == 1) {
+			return layers.get(0).getImage();
+		}
+		return merge(layers);
+	}
+
+	/**
+	 * Fetches the tiles of the sources concurrently.
+	 * @return the available tiles from bottom to top, starting with the topmost opaque
+	 * tile, never empty
+	 * @throws TileIOException if no source delivered a tile
+	 */
+	private List<Layer> fetchLayers() throws TileIOException {
+		List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(tiles.size());
+		for (final Tile tile : tiles) {
+			futures.add(executor.submit(() -> {
+				InputStream is = tile.getAsStream();
+				try {
+					return IOUtils.toByteArray(is);
+				}
+				finally {
+					IOUtils.closeQuietly(is);
+				}
+			}));
+		}
+		long deadline = System.nanoTime() + timeoutMillis * 1000000;
+		List<Layer> layers = new ArrayList<Layer>(tiles.size());
+		Exception lastException = null;
+		try {
+			for (int i = futures.size() - 1; i >= 0; i--) {
+				try {
+					byte[] data = futures.get(i).get(deadline - System.nanoTime(), NANOSECONDS);
+					Layer layer = new Layer(data);
+					boolean opaque = i > 0 && layer.isOpaque();
+					layers.add(layer);
+					if (opaque) {
+						LOG.trace("Tile of source {} is opaque, skipping lower sources.", i);
+						break;
+					}
+				}
+				catch (TileIOException e) {
+					LOG.warn("Tile of source {} could not be decoded, leaving it out: {}", i, e.getMessage());
+					lastException = e;
+				}
+				catch (TimeoutException e) {
+					LOG.warn("Source {} did not deliver its tile within {} ms, leaving it out.", i, timeoutMillis);
+					lastException = e;
+				}
+				catch (ExecutionException e) {
+					LOG.warn("Source {} failed to deliver its tile, leaving it out: {}", i, e.getCause().getMessage());
+					LOG.trace("Stack trace:", e.getCause());
+					lastException = e;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TileIOException("Interrupted while fetching tiles to merge.", e);
+		}
+		finally {
+			for (Future<byte[]> future : futures) {
+				future.cancel(true);
+			}
+		}
+		if (layers.isEmpty()) {
+			throw new TileIOException("None of the merged sources delivered a tile.", lastException);
+		}
+		Collections.reverse(layers);
+		return layers;
+	}
+
+	private BufferedImage merge(List<Layer> layers) {
+		BufferedImage img = layers.get(0).getImage();
 		Graphics g = img.getGraphics();
-		while (itr.hasNext()) {
-			Tile nextTile = itr.next();
-			BufferedImage nextImage = nextTile.getAsImage();
+		for (Layer layer : layers.subList(1, layers.size())) {
+			BufferedImage nextImage = layer.getImage();
 			if (nextImage.getColorModel().hasAlpha()) {
 				g.drawImage(nextImage, 0, 0, null);
 			}
@@ -101,11 +203,62 @@ class MergingTile implements Tile {
 		return Toolkit.getDefaultToolkit().createImage(ip);
 	}
 
+	/**
+	 * Determines whether the image covers everything below it when merged.
+	 * @param image image to check, must not be <code>null</code>
+	 * @return <code>true</code>, if all pixels are opaque (for images without alpha
+	 * channel: if no pixel is white, as white is made translucent when merging)
+	 */
+	static boolean isOpaque(BufferedImage image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		if (!image.getColorModel().hasAlpha()) {
+			int white = WHITE.getRGB();
+			int[] row = new int[width];
+			for (int y = 0; y < height; y++) {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				for (int rgb : row) {
+					if (rgb == white) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		Raster alpha = image.getAlphaRaster();
+		if (alpha == null) {
+			// e.g. indexed color models with a transparent index
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if ((image.getRGB(x, y) >>> 24) != 0xff) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		int opaque = (1 << alpha.getSampleModel().getSampleSize(0)) - 1;
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			alpha.getSamples(0, y, width, 1, 0, row);
+			for (int a : row) {
+				if (a != opaque) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public InputStream getAsStream() throws TileIOException {
+		List<Layer> layers = fetchLayers();
+		if (layers.size() == 1 && layers.get(0).isJpeg()) {
+			return new ByteArrayInputStream(layers.get(0).data);
+		}
 		ByteArrayOutputStream output = new ByteArrayOutputStream();
 		try {
-			BufferedImage img = getAsImage();
+			BufferedImage img = merge(layers);
 			if (img.getTransparency() != BufferedImage.OPAQUE) {
 				final int width = img.getWidth();
 				final int height = img.getHeight();
@@ -135,4 +288,43 @@ class MergingTile implements Tile {
 		throw new UnsupportedOperationException("MergingTile does not support getFeatures");
 	}
 
+	/**
+	 * Encoded tile of a single source, decoded on demand.
+	 */
+	private static class Layer {
+
+		private final byte[] data;
+
+		private BufferedImage image;
+
+		private Layer(byte[] data) {
+			this.data = data;
+		}
+
+		private BufferedImage getImage() throws TileIOException {
+			if (image == null) {
+				try {
+					image = ImageIO.read(new ByteArrayInputStream(data));
+				}
+				catch (IOException e) {
+					throw new TileIOException("Error decoding image : " + e.getMessage(), e);
+				}
+				if (image == null) {
+					throw new TileIOException("Tile data of merged source could not be decoded.");
+				}
+			}
+			return image;
+		}
+
+		private boolean isOpaque() {
+			return MergingTile.isOpaque(getImage());
+		}
+
+		private boolean isJpeg() {
+			// start of image marker
+			return data.length > 1 && (data[0] & 0xff) == 0xff && (data[1] & 0xff) == 0xd8;
+		}
+
+	}
+
 }
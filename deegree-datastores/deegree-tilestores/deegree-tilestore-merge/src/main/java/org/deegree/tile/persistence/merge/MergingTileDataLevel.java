@@ -29,6 +29,7 @@ package org.deegree.tile.persistence.merge;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileDataLevel;
@@ -47,8 +48,14 @@ class MergingTileDataLevel implements TileDataLevel {
 
 	private final List<TileDataLevel> mergeLevels = new ArrayList<TileDataLevel>();
 
-	MergingTileDataLevel(TileMatrix tileMatrix) {
+	private final ExecutorService executor;
+
+	private final long timeoutMillis;
+
+	MergingTileDataLevel(TileMatrix tileMatrix, ExecutorService executor, long timeoutMillis) {
 		this.tileMatrix = tileMatrix;
+		this.executor = executor;
+		this.timeoutMillis = timeoutMillis;
 	}
 
 	void addMergeLevel(TileDataLevel mergeLevel) {
@@ -79,7 +86,7 @@ class MergingTileDataLevel implements TileDataLevel {
 		if (tiles.size() == 1) {
 			return tiles.get(0);
 		}
-		return new MergingTile(tiles);
+		return new MergingTile(tiles, executor, timeoutMillis);
 	}
 
 	@Override
@@ -36,7 +36,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.deegree.commons.concurrent.VirtualThreads;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.DefaultTileDataSet;
 import org.deegree.tile.Tile;
@@ -71,9 +75,31 @@ class MergingTileStore implements TileStore {
 
 	private final Map<String, TileDataSet> datasetIdToDataset = new TreeMap<String, TileDataSet>();
 
-	MergingTileStore(ResourceMetadata<TileStore> metadata, TileMatrixSet tileMatrixSet, List<TileStore> tileStores) {
+	private final ExecutorService executor;
+
+	private final long timeoutMillis;
+
+	/**
+	 * Creates a new {@link MergingTileStore} instance.
+	 * @param metadata resource metadata, must not be <code>null</code>
+	 * @param tileMatrixSet tile matrix set of the merged data sets, must not be
+	 * <code>null</code>
+	 * @param tileStores tile stores to merge, from bottom to top, must not be
+	 * <code>null</code>
+	 * @param timeoutMillis maximum time to wait for the tiles of the merged stores (in
+	 * milliseconds)
+	 */
+	MergingTileStore(ResourceMetadata<TileStore> metadata, TileMatrixSet tileMatrixSet, List<TileStore> tileStores,
+			long timeoutMillis) {
 		this.metadata = metadata;
 		this.tileMatrixSet = tileMatrixSet;
+		this.timeoutMillis = timeoutMillis;
+		final AtomicInteger threadCount = new AtomicInteger();
+		this.executor = VirtualThreads.newExecutor("merging-tile-store-", () -> Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "merging-tile-store-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}));
 		for (TileStore tileStore : tileStores) {
 			for (String datasetId : tileStore.getTileDataSetIds()) {
 				Map<String, MergingTileDataLevel> levelIdToLevel = datasetIdToLevelIdToLevel.get(datasetId);
@@ -93,7 +119,7 @@ class MergingTileStore implements TileStore {
 			String levelId = level.getMetadata().getIdentifier();
 			MergingTileDataLevel mergingLevel = levelIdToLevel.get(levelId);
 			if (mergingLevel == null) {
-				mergingLevel = new MergingTileDataLevel(level.getMetadata());
+				mergingLevel = new MergingTileDataLevel(level.getMetadata(), executor, timeoutMillis);
 				levelIdToLevel.put(levelId, mergingLevel);
 			}
 			mergingLevel.addMergeLevel(level);
@@ -125,7 +151,7 @@ class MergingTileStore implements TileStore {
 
 	@Override
 	public void destroy() {
-
+		executor.shutdownNow();
 	}
 
 	@Override
@@ -48,6 +48,8 @@ import org.deegree.workspace.Workspace;
  */
 class MergingTileStoreBuilder implements ResourceBuilder<TileStore> {
 
+	private static final int DEFAULT_TIMEOUT = 60;
+
 	private final org.deegree.tile.persistence.merge.jaxb.MergingTileStore cfg;
 
 	private final ResourceMetadata<TileStore> metadata;
@@ -73,7 +75,8 @@ class MergingTileStoreBuilder implements ResourceBuilder<TileStore> {
 			}
 			tileStores.add(tileStore);
 		}
-		return new MergingTileStore(metadata, tileMatrix, tileStores);
+		int timeout = cfg.getTimeout() != null ? cfg.getTimeout().intValue() : DEFAULT_TIMEOUT;
+		return new MergingTileStore(metadata, tileMatrix, tileStores, timeout * 1000L);
 	}
 
 }
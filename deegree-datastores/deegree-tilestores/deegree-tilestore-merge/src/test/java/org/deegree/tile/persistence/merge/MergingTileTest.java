@@ -0,0 +1,219 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.merge;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent fetching and merging of {@link MergingTile}.
+ */
+public class MergingTileTest {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testIsOpaque() {
+		assertTrue(MergingTile.isOpaque(createImage(Color.RED, BufferedImage.TYPE_INT_ARGB)));
+		assertFalse(MergingTile.isOpaque(createImage(new Color(255, 0, 0, 128), BufferedImage.TYPE_INT_ARGB)));
+		assertTrue(MergingTile.isOpaque(createImage(Color.RED, BufferedImage.TYPE_INT_RGB)));
+		// white is made translucent when merging
+		assertFalse(MergingTile.isOpaque(createImage(Color.WHITE, BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@Test
+	public void testOpaqueTopTileIsPassedThrough() throws IOException {
+		byte[] top = encode(createImage(Color.RED, BufferedImage.TYPE_INT_RGB), "jpeg");
+		TestTile bottom = new TestTile(encode(createImage(Color.BLUE, BufferedImage.TYPE_INT_ARGB)), 5000);
+		MergingTile tile = new MergingTile(asList(bottom, new TestTile(top, 0)), executor, 10000);
+		long start = System.currentTimeMillis();
+		assertArrayEquals(top, IOUtils.toByteArray(tile.getAsStream()));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	@Test
+	public void testTimedOutSourceIsLeftOut() throws IOException {
+		byte[] bottom = encode(createImage(Color.RED, BufferedImage.TYPE_INT_RGB), "jpeg");
+		TestTile top = new TestTile(encode(createImage(Color.BLUE, BufferedImage.TYPE_INT_ARGB)), 5000);
+		MergingTile tile = new MergingTile(asList(new TestTile(bottom, 0), top), executor, 100);
+		assertArrayEquals(bottom, IOUtils.toByteArray(tile.getAsStream()));
+	}
+
+	@Test
+	public void testPngTileIsEncodedAsJpeg() throws IOException {
+		BufferedImage png = createImage(new Color(255, 0, 0, 0), BufferedImage.TYPE_INT_ARGB);
+		png.setRGB(0, 0, Color.BLUE.getRGB());
+		MergingTile tile = new MergingTile(asList(new TestTile(encode(png), 0)), executor, 10000);
+		byte[] data = IOUtils.toByteArray(tile.getAsStream());
+		assertEquals(0xff, data[0] & 0xff);
+		assertEquals(0xd8, data[1] & 0xff);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(data));
+		// transparent pixels are flattened onto white
+		assertTrue(isNear(Color.WHITE, decoded.getRGB(3, 3)));
+	}
+
+	@Test
+	public void testOpaquePngTopTileIsEncodedAsJpeg() throws IOException {
+		byte[] top = encode(createImage(Color.RED, BufferedImage.TYPE_INT_ARGB));
+		TestTile bottom = new TestTile(encode(createImage(Color.BLUE, BufferedImage.TYPE_INT_ARGB)), 0);
+		MergingTile tile = new MergingTile(asList(bottom, new TestTile(top, 0)), executor, 10000);
+		byte[] data = IOUtils.toByteArray(tile.getAsStream());
+		assertEquals(0xff, data[0] & 0xff);
+		assertEquals(0xd8, data[1] & 0xff);
+		BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(data));
+		assertTrue(isNear(Color.RED, decoded.getRGB(1, 1)));
+	}
+
+	@Test
+	public void testMerge() {
+		BufferedImage bottom = createImage(Color.RED, BufferedImage.TYPE_INT_ARGB);
+		BufferedImage top = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+		top.setRGB(0, 0, Color.BLUE.getRGB());
+		TestTile bottomTile = new TestTile(encode(bottom), 0);
+		TestTile topTile = new TestTile(encode(top), 0);
+		MergingTile tile = new MergingTile(asList(bottomTile, topTile), executor, 10000);
+		BufferedImage merged = tile.getAsImage();
+		assertEquals(Color.BLUE.getRGB(), merged.getRGB(0, 0));
+		assertEquals(Color.RED.getRGB(), merged.getRGB(1, 1));
+		assertEquals(1, bottomTile.requests.get());
+		assertEquals(1, topTile.requests.get());
+	}
+
+	@Test(expected = TileIOException.class)
+	public void testAllSourcesFailed() {
+		TestTile failing = new TestTile(null, 0);
+		new MergingTile(asList(failing, failing), executor, 10000).getAsStream();
+	}
+
+	private static BufferedImage createImage(Color color, int type) {
+		BufferedImage image = new BufferedImage(4, 4, type);
+		Graphics2D g = image.createGraphics();
+		g.setColor(color);
+		g.fillRect(0, 0, 4, 4);
+		g.dispose();
+		return image;
+	}
+
+	private static boolean isNear(Color expected, int rgb) {
+		Color actual = new Color(rgb);
+		// JPEG is lossy
+		return Math.abs(expected.getRed() - actual.getRed()) < 8
+				&& Math.abs(expected.getGreen() - actual.getGreen()) < 8
+				&& Math.abs(expected.getBlue() - actual.getBlue()) < 8;
+	}
+
+	private static byte[] encode(BufferedImage image) {
+		return encode(image, "png");
+	}
+
+	private static byte[] encode(BufferedImage image, String format) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(image, format, out);
+		}
+		catch (IOException e) {
+			throw new TileIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static class TestTile implements Tile {
+
+		private final byte[] data;
+
+		private final long delay;
+
+		private final AtomicInteger requests = new AtomicInteger();
+
+		private TestTile(byte[] data, long delay) {
+			this.data = data;
+			this.delay = delay;
+		}
+
+		@Override
+		public BufferedImage getAsImage() throws TileIOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public InputStream getAsStream() throws TileIOException {
+			requests.incrementAndGet();
+			try {
+				Thread.sleep(delay);
+			}
+			catch (InterruptedException e) {
+				throw new TileIOException(e);
+			}
+			if (data == null) {
+				throw new TileIOException("Source failed.");
+			}
+			return new ByteArrayInputStream(data);
+		}
+
+		@Override
+		public Envelope getEnvelope() {
+			return null;
+		}
+
+		@Override
+		public FeatureCollection getFeatures(int i, int j, int limit) {
+			return null;
+		}
+
+	}
+
+}
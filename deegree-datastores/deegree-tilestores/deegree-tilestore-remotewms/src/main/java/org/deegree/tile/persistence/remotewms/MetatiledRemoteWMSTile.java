@@ -0,0 +1,114 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+ http://www.occamlabs.de/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.tile.persistence.remotewms;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+
+/**
+ * {@link Tile} implementation used by the {@link RemoteWMSTileDataLevel} if metatiling is
+ * enabled, the image is cut out of a metatile fetched by a {@link Metatiler}.
+ */
+class MetatiledRemoteWMSTile implements Tile {
+
+	private final Metatiler metatiler;
+
+	private final long x, y;
+
+	private final Map<String, String> overriddenParameters;
+
+	private final RemoteWMSTile tile;
+
+	/**
+	 * Creates a new {@link MetatiledRemoteWMSTile} instance.
+	 * @param metatiler metatiler to fetch the image from, never <code>null</code>
+	 * @param x column index of the tile
+	 * @param y row index of the tile
+	 * @param overriddenParameters GetMap parameters of the current request, never
+	 * <code>null</code>
+	 * @param tile the tile as single request, used for envelope and feature info, never
+	 * <code>null</code>
+	 */
+	MetatiledRemoteWMSTile(Metatiler metatiler, long x, long y, Map<String, String> overriddenParameters,
+			RemoteWMSTile tile) {
+		this.metatiler = metatiler;
+		this.x = x;
+		this.y = y;
+		this.overriddenParameters = overriddenParameters;
+		this.tile = tile;
+	}
+
+	@Override
+	public BufferedImage getAsImage() throws TileIOException {
+		try {
+			return ImageIO.read(getAsStream());
+		}
+		catch (IOException e) {
+			throw new TileIOException("Error decoding image : " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public InputStream getAsStream() throws TileIOException {
+		return new ByteArrayInputStream(metatiler.getTile(x, y, overriddenParameters));
+	}
+
+	@Override
+	public Envelope getEnvelope() {
+		return tile.getEnvelope();
+	}
+
+	@Override
+	public FeatureCollection getFeatures(int i, int j, int limit) {
+		return tile.getFeatures(i, j, limit);
+	}
+
+}
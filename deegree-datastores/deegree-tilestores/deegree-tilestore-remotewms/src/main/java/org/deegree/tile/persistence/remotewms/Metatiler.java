@@ -0,0 +1,290 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+ http://www.occamlabs.de/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.tile.persistence.remotewms;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.protocol.wms.ops.GetMap;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.TileListener;
+import org.deegree.tile.TileMatrix;
+import org.slf4j.Logger;
+
+/**
+ * Fetches blocks of tiles (metatiles) of a {@link RemoteWMSTileDataLevel} with a single
+ * GetMap request and splits them into tiles.
+ * <p>
+ * The metatile is requested with an additional buffer (in pixels) around it, so labels
+ * and symbols crossing tile edges are rendered consistently. Concurrent requests for
+ * tiles of the same metatile share a single upstream request. Metatiles are not kept
+ * after the request has been completed, instead, the other tiles of a metatile are
+ * passed to the registered {@link TileListener}s (e.g. a tile cache), so subsequent
+ * requests for the neighbouring tiles of a map view don't cause additional upstream
+ * requests. This is only done for requests without request specific parameters, as tile
+ * caches don't distinguish request parameters.
+ * </p>
+ */
+class Metatiler {
+
+	private static final Logger LOG = getLogger(Metatiler.class);
+
+	private static final GeometryFactory fac = new GeometryFactory();
+
+	private final RemoteWMSTileDataLevel level;
+
+	private final int columns;
+
+	private final int rows;
+
+	private final int buffer;
+
+	private final String imageFormat;
+
+	private final Map<String, String> defaultParameters;
+
+	private final List<TileListener> listeners;
+
+	// metatiles that are currently being fetched
+	private final Map<String, FutureTask<byte[][]>> metatiles = new HashMap<String, FutureTask<byte[][]>>();
+
+	/**
+	 * Creates a new {@link Metatiler} instance.
+	 * @param level level to fetch metatiles for, must not be <code>null</code>
+	 * @param columns number of tile columns per metatile, must be positive
+	 * @param rows number of tile rows per metatile, must be positive
+	 * @param buffer number of pixels to request around each metatile, must not be
+	 * negative
+	 * @param imageFormat ImageIO format name to encode the tiles with, must not be
+	 * <code>null</code>
+	 * @param defaultParameters GetMap parameters of requests without request specific
+	 * parameters (default and hard parameters of the store), only the tiles of these
+	 * requests are passed to the listeners, must not be <code>null</code>
+	 * @param listeners listeners to notify about the other tiles of a fetched metatile,
+	 * must not be <code>null</code>
+	 */
+	Metatiler(RemoteWMSTileDataLevel level, int columns, int rows, int buffer, String imageFormat,
+			Map<String, String> defaultParameters, List<TileListener> listeners) {
+		this.level = level;
+		this.columns = columns;
+		this.rows = rows;
+		this.buffer = buffer;
+		this.imageFormat = imageFormat;
+		this.defaultParameters = defaultParameters;
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Returns the encoded image of a single tile, the metatile that contains the tile is
+	 * fetched if it is not available yet.
+	 * @param x column index of the tile
+	 * @param y row index of the tile
+	 * @param overriddenParameters GetMap parameters of the current request, must not be
+	 * <code>null</code>
+	 * @return the encoded tile image, never <code>null</code>
+	 * @throws TileIOException if fetching the metatile failed
+	 */
+	byte[] getTile(long x, long y, Map<String, String> overriddenParameters) throws TileIOException {
+		TileMatrix md = level.getMetadata();
+		long minX = x - x % columns;
+		long minY = y - y % rows;
+		int numX = (int) Math.min(columns, md.getNumTilesX() - minX);
+		int numY = (int) Math.min(rows, md.getNumTilesY() - minY);
+		String key = minX + "_" + minY + "_" + overriddenParameters;
+
+		FutureTask<byte[][]> metatile;
+		boolean fetch = false;
+		synchronized (metatiles) {
+			metatile = metatiles.get(key);
+			if (metatile == null) {
+				metatile = new FutureTask<byte[][]>(() -> fetch(minX, minY, numX, numY, overriddenParameters));
+				metatiles.put(key, metatile);
+				fetch = true;
+			}
+		}
+
+		int index = (int) ((y - minY) * numX + (x - minX));
+		byte[][] tiles;
+		try {
+			if (fetch) {
+				metatile.run();
+			}
+			tiles = metatile.get();
+			// tile caches don't distinguish request parameters
+			if (fetch && overriddenParameters.equals(defaultParameters)) {
+				notifyListeners(tiles, minX, minY, numX, index);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TileIOException("Interrupted while waiting for metatile.", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof TileIOException) {
+				throw (TileIOException) e.getCause();
+			}
+			throw new TileIOException("Error fetching metatile: " + e.getCause().getMessage(), e.getCause());
+		}
+		finally {
+			if (fetch) {
+				// only deduplicate concurrent requests, don't serve outdated metatiles
+				synchronized (metatiles) {
+					metatiles.remove(key, metatile);
+				}
+			}
+		}
+		return tiles[index];
+	}
+
+	/**
+	 * Fetches a metatile from the remote WMS and splits it into tiles.
+	 * @param minX column index of the upper left tile
+	 * @param minY row index of the upper left tile
+	 * @param numX number of tile columns
+	 * @param numY number of tile rows
+	 * @param overriddenParameters GetMap parameters of the current request, never
+	 * <code>null</code>
+	 * @return the encoded tiles, row by row, never <code>null</code>
+	 * @throws TileIOException if fetching the metatile failed
+	 */
+	byte[][] fetch(long minX, long minY, int numX, int numY, Map<String, String> overriddenParameters)
+			throws TileIOException {
+		TileMatrix md = level.getMetadata();
+		int tileSizeX = (int) md.getTilePixelsX();
+		int tileSizeY = (int) md.getTilePixelsY();
+		Envelope env = level.getEnvelope(minX, minY, numX, numY);
+		double bufferX = buffer * md.getTileWidth() / tileSizeX;
+		double bufferY = buffer * md.getTileHeight() / tileSizeY;
+		Envelope bufferedEnv = fac.createEnvelope(env.getMin().get0() - bufferX, env.getMin().get1() - bufferY,
+				env.getMax().get0() + bufferX, env.getMax().get1() + bufferY, env.getCoordinateSystem());
+		GetMap gm = level.createGetMap(bufferedEnv, numX * tileSizeX + 2 * buffer, numY * tileSizeY + 2 * buffer,
+				overriddenParameters);
+		LOG.debug("Fetching metatile of {}x{} tiles at {}/{} of level {}.", numX, numY, minX, minY,
+				md.getIdentifier());
+		BufferedImage image = new RemoteWMSTile(level.getClient(), gm, null, null, null).getAsImage();
+		if (image == null) {
+			throw new TileIOException("The response of the remote WMS could not be decoded as image.");
+		}
+		return split(image, numX, numY, tileSizeX, tileSizeY, buffer, imageFormat);
+	}
+
+	private void notifyListeners(byte[][] tiles, long minX, long minY, int numX, int requested) {
+		for (TileListener listener : listeners) {
+			for (int i = 0; i < tiles.length; i++) {
+				if (i == requested) {
+					continue;
+				}
+				try {
+					listener.tileGenerated(level, minX + i % numX, minY + i / numX, tiles[i]);
+				}
+				catch (RuntimeException e) {
+					LOG.warn("Tile listener failed: {}", e.getMessage());
+					LOG.trace("Stack trace:", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits a metatile image into encoded tiles.
+	 * @param image the metatile image, including the buffer, must not be
+	 * <code>null</code>
+	 * @param numX number of tile columns
+	 * @param numY number of tile rows
+	 * @param tileSizeX width of a tile in pixels
+	 * @param tileSizeY height of a tile in pixels
+	 * @param buffer width of the buffer around the tiles in pixels
+	 * @param imageFormat ImageIO format name to encode the tiles with
+	 * @return the encoded tiles, row by row, never <code>null</code>
+	 * @throws TileIOException if the image is too small or encoding failed
+	 */
+	static byte[][] split(BufferedImage image, int numX, int numY, int tileSizeX, int tileSizeY, int buffer,
+			String imageFormat) throws TileIOException {
+		if (image.getWidth() < numX * tileSizeX + 2 * buffer || image.getHeight() < numY * tileSizeY + 2 * buffer) {
+			throw new TileIOException("The metatile image of the remote WMS is too small (" + image.getWidth() + "x"
+					+ image.getHeight() + " pixels).");
+		}
+		byte[][] tiles = new byte[numX * numY][];
+		for (int j = 0; j < numY; j++) {
+			for (int i = 0; i < numX; i++) {
+				BufferedImage tile = image.getSubimage(buffer + i * tileSizeX, buffer + j * tileSizeY, tileSizeX,
+						tileSizeY);
+				tiles[j * numX + i] = encode(tile, imageFormat);
+			}
+		}
+		return tiles;
+	}
+
+	private static byte[] encode(BufferedImage tile, String imageFormat) throws TileIOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			if (!ImageIO.write(tile, imageFormat, out)) {
+				// no writer for images with alpha channel (e.g. JPEG)
+				BufferedImage rgb = new BufferedImage(tile.getWidth(), tile.getHeight(), BufferedImage.TYPE_INT_RGB);
+				Graphics2D g = rgb.createGraphics();
+				g.drawImage(tile, 0, 0, null);
+				g.dispose();
+				out.reset();
+				if (!ImageIO.write(rgb, imageFormat, out)) {
+					throw new TileIOException("No image writer available for format " + imageFormat + ".");
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new TileIOException("Error encoding tile: " + e.getMessage(), e);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -34,9 +34,11 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.tile.persistence.remotewms;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.deegree.commons.utils.RequestUtils;
 import org.deegree.cs.coordinatesystems.ICRS;
@@ -46,8 +48,10 @@ import org.deegree.geometry.GeometryFactory;
 import org.deegree.protocol.wms.Utils;
 import org.deegree.protocol.wms.client.WMSClient;
 import org.deegree.protocol.wms.ops.GetMap;
+import org.deegree.tile.MetatilingTileDataLevel;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileListener;
 import org.deegree.tile.TileMatrix;
 
 /**
@@ -55,7 +59,7 @@ import org.deegree.tile.TileMatrix;
  *
  * @author <a href="mailto:schneider@occamlabs.de">Markus Schneider</a>
  */
-class RemoteWMSTileDataLevel implements TileDataLevel {
+class RemoteWMSTileDataLevel implements MetatilingTileDataLevel {
 
 	private static final GeometryFactory fac = new GeometryFactory();
 
@@ -83,6 +87,10 @@ class RemoteWMSTileDataLevel implements TileDataLevel {
 
 	private Map<String, String> hardGetFeatureInfo;
 
+	private final List<TileListener> listeners = new CopyOnWriteArrayList<TileListener>();
+
+	private final Metatiler metatiler;
+
 	/**
 	 * Creates a new {@link RemoteWMSTileDataLevel} instance.
 	 * @param tileMd matrix metadata, must not be <code>null</code>
@@ -97,11 +105,15 @@ class RemoteWMSTileDataLevel implements TileDataLevel {
 	 * @param hardGetMap
 	 * @param defaultGetFeatureInfo
 	 * @param defaultGetMap
+	 * @param metatileColumns number of tile columns to request at once, 1 for no
+	 * metatiling
+	 * @param metatileRows number of tile rows to request at once, 1 for no metatiling
+	 * @param metatileBuffer number of pixels to request around each metatile
 	 */
 	RemoteWMSTileDataLevel(TileMatrix tileMd, String format, List<String> layers, List<String> styles, WMSClient client,
 			String recodedOutputFormat, String crs, Map<String, String> defaultGetMap,
 			Map<String, String> defaultGetFeatureInfo, Map<String, String> hardGetMap,
-			Map<String, String> hardGetFeatureInfo) {
+			Map<String, String> hardGetFeatureInfo, int metatileColumns, int metatileRows, int metatileBuffer) {
 		this.metadata = tileMd;
 		this.format = format;
 		this.layers = layers;
@@ -117,6 +129,18 @@ class RemoteWMSTileDataLevel implements TileDataLevel {
 		if (crs != null) {
 			this.crs = CRSManager.getCRSRef(crs);
 		}
+		if (metatileColumns > 1 || metatileRows > 1) {
+			String imageFormat = recodedOutputFormat != null ? recodedOutputFormat : getImageFormat(format);
+			// parameters of requests that don't contain any request specific parameters
+			Map<String, String> defaultParameters = new HashMap<String, String>();
+			RequestUtils.replaceParameters(defaultParameters, Collections.<String, String>emptyMap(), defaultGetMap,
+					hardGetMap);
+			this.metatiler = new Metatiler(this, metatileColumns, metatileRows, metatileBuffer, imageFormat,
+					defaultParameters, listeners);
+		}
+		else {
+			this.metatiler = null;
+		}
 	}
 
 	@Override
@@ -129,22 +153,64 @@ class RemoteWMSTileDataLevel implements TileDataLevel {
 		if (metadata.getNumTilesX() <= x || metadata.getNumTilesY() <= y || x < 0 || y < 0) {
 			return null;
 		}
+		Envelope envelope = getEnvelope(x, y, 1, 1);
+		Map<String, String> overriddenParameters = new HashMap<String, String>();
+		RequestUtils.replaceParameters(overriddenParameters, RequestUtils.getCurrentThreadRequestParameters().get(),
+				defaultGetMap, hardGetMap);
+		GetMap gm = createGetMap(envelope, (int) tileSizeX, (int) tileSizeY, overriddenParameters);
+		RemoteWMSTile tile = new RemoteWMSTile(client, gm, recodedOutputFormat, defaultGetFeatureInfo,
+				hardGetFeatureInfo);
+		if (metatiler != null) {
+			return new MetatiledRemoteWMSTile(metatiler, x, y, overriddenParameters, tile);
+		}
+		return tile;
+	}
+
+	/**
+	 * Returns the envelope of a block of tiles.
+	 * @param x column index of the upper left tile
+	 * @param y row index of the upper left tile
+	 * @param numX number of tile columns
+	 * @param numY number of tile rows
+	 * @return the envelope, never <code>null</code>
+	 */
+	Envelope getEnvelope(long x, long y, int numX, int numY) {
 		double width = metadata.getTileWidth();
 		double height = metadata.getTileHeight();
 		Envelope env = metadata.getSpatialMetadata().getEnvelope();
 		double minx = width * x + env.getMin().get0();
-		double miny = env.getMax().get1() - height * y;
-		Envelope envelope = fac.createEnvelope(minx, miny - height, minx + width, miny, env.getCoordinateSystem());
+		double maxy = env.getMax().get1() - height * y;
+		return fac.createEnvelope(minx, maxy - height * numY, minx + width * numX, maxy, env.getCoordinateSystem());
+	}
+
+	GetMap createGetMap(Envelope envelope, int width, int height, Map<String, String> overriddenParameters) {
 		ICRS crs = this.crs;
 		if (crs == null) {
 			crs = envelope.getCoordinateSystem();
 		}
-		Map<String, String> overriddenParameters = new HashMap<String, String>();
-		RequestUtils.replaceParameters(overriddenParameters, RequestUtils.getCurrentThreadRequestParameters().get(),
-				defaultGetMap, hardGetMap);
-		GetMap gm = new GetMap(layers, styles, (int) tileSizeX, (int) tileSizeY, envelope, crs, format, true,
-				overriddenParameters);
-		return new RemoteWMSTile(client, gm, recodedOutputFormat, defaultGetFeatureInfo, hardGetFeatureInfo);
+		return new GetMap(layers, styles, width, height, envelope, crs, format, true, overriddenParameters);
+	}
+
+	WMSClient getClient() {
+		return client;
+	}
+
+	private static String getImageFormat(String mimeType) {
+		String imageFormat = mimeType;
+		if (imageFormat.indexOf(';') != -1) {
+			imageFormat = imageFormat.substring(0, imageFormat.indexOf(';'));
+		}
+		return imageFormat.substring(imageFormat.indexOf('/') + 1).trim();
+	}
+
+	@Override
+	public void addTileListener(TileListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeTileListener(TileListener listener) {
+		listeners.remove(listener);
 	}
 
 	@Override
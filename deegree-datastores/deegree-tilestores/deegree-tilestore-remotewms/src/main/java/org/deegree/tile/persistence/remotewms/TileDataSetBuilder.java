@@ -60,6 +60,7 @@ import org.deegree.tile.TileMatrixSet;
 import org.deegree.tile.persistence.remotewms.jaxb.ParameterScopeType;
 import org.deegree.tile.persistence.remotewms.jaxb.ParameterUseType;
 import org.deegree.tile.persistence.remotewms.jaxb.RemoteWMSTileStoreJAXB;
+import org.deegree.tile.persistence.remotewms.jaxb.RemoteWMSTileStoreJAXB.TileDataSet.Metatiling;
 import org.deegree.tile.persistence.remotewms.jaxb.RemoteWMSTileStoreJAXB.TileDataSet.RequestParams;
 import org.deegree.tile.persistence.remotewms.jaxb.RemoteWMSTileStoreJAXB.TileDataSet.RequestParams.Parameter;
 import org.deegree.tile.tilematrixset.TileMatrixSetProvider;
@@ -95,13 +96,13 @@ class TileDataSetBuilder {
 			}
 
 			RequestParams params = cfg.getRequestParams();
-			map.put(id, buildTileDataSet(params, tms, wms.getClient(), cfg.getOutputFormat()));
+			map.put(id, buildTileDataSet(params, tms, wms.getClient(), cfg.getOutputFormat(), cfg.getMetatiling()));
 		}
 		return map;
 	}
 
 	private DefaultTileDataSet buildTileDataSet(RequestParams requestParams, TileMatrixSet tms, WMSClient client,
-			String outputFormat) throws ResourceInitException {
+			String outputFormat, Metatiling metatiling) throws ResourceInitException {
 		List<String> layers = splitNullSafe(requestParams.getLayers());
 
 		for (String l : layers) {
@@ -124,10 +125,20 @@ class TileDataSetBuilder {
 			outputFormat = outputFormat.substring(6);
 		}
 
+		int metatileColumns = 1;
+		int metatileRows = 1;
+		int metatileBuffer = 0;
+		if (metatiling != null) {
+			metatileColumns = metatiling.getColumns() != null ? metatiling.getColumns().intValue() : 4;
+			metatileRows = metatiling.getRows() != null ? metatiling.getRows().intValue() : 4;
+			metatileBuffer = metatiling.getBuffer() != null ? metatiling.getBuffer().intValue() : 0;
+		}
+
 		List<TileDataLevel> dataLevels = new ArrayList<TileDataLevel>();
 		for (TileMatrix tm : tms.getTileMatrices()) {
 			TileDataLevel m = new RemoteWMSTileDataLevel(tm, format, layers, styles, client, outputFormat, crs,
-					defaultGetMap, defaultGetFeatureInfo, hardGetMap, hardGetFeatureInfo);
+					defaultGetMap, defaultGetFeatureInfo, hardGetMap, hardGetFeatureInfo, metatileColumns,
+					metatileRows, metatileBuffer);
 			dataLevels.add(0, m);
 		}
 		return new DefaultTileDataSet(dataLevels, tms, "image/" + outputFormat);
@@ -0,0 +1,220 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+ http://www.occamlabs.de/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.remotewms;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.commons.utils.RequestUtils;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.metadata.SpatialMetadata;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.TileListener;
+import org.deegree.tile.TileMatrix;
+import org.junit.Test;
+
+/**
+ * Tests splitting of metatiles and notification of listeners by the {@link Metatiler}.
+ */
+public class MetatilerTest {
+
+	private static final Color[] COLORS = { Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.CYAN,
+			Color.MAGENTA };
+
+	@Test
+	public void testSplit() throws IOException {
+		BufferedImage metatile = createMetatile(3, 2, 16, 8, BufferedImage.TYPE_INT_ARGB);
+		byte[][] tiles = Metatiler.split(metatile, 3, 2, 16, 8, 4, "png");
+		assertEquals(6, tiles.length);
+		for (int i = 0; i < tiles.length; i++) {
+			BufferedImage tile = ImageIO.read(new ByteArrayInputStream(tiles[i]));
+			assertEquals(16, tile.getWidth());
+			assertEquals(8, tile.getHeight());
+			assertEquals(COLORS[i].getRGB(), tile.getRGB(0, 0));
+			assertEquals(COLORS[i].getRGB(), tile.getRGB(15, 7));
+		}
+	}
+
+	@Test
+	public void testSplitJpegWithAlpha() throws IOException {
+		BufferedImage metatile = createMetatile(2, 1, 16, 16, BufferedImage.TYPE_INT_ARGB);
+		byte[][] tiles = Metatiler.split(metatile, 2, 1, 16, 16, 4, "jpeg");
+		assertEquals(2, tiles.length);
+		BufferedImage tile = ImageIO.read(new ByteArrayInputStream(tiles[1]));
+		assertEquals(16, tile.getWidth());
+		assertEquals(16, tile.getHeight());
+	}
+
+	@Test(expected = TileIOException.class)
+	public void testSplitTooSmall() {
+		BufferedImage metatile = createMetatile(2, 2, 16, 16, BufferedImage.TYPE_INT_ARGB);
+		Metatiler.split(metatile, 2, 2, 16, 16, 8, "png");
+	}
+
+	@Test
+	public void testListenersAreNotifiedWithDefaultParameters() {
+		Map<String, String> defaults = new HashMap<String, String>();
+		defaults.put("TRANSPARENT", "true");
+		defaults.put("FORMAT_OPTIONS", "dpi:96");
+		Map<String, String> hards = new HashMap<String, String>();
+		hards.put("MAP_RESOLUTION", "96");
+		Map<String, String> defaultParameters = getParameters(new HashMap<String, String>(), defaults, hards);
+
+		List<Long> notified = new ArrayList<Long>();
+		CountingMetatiler metatiler = createMetatiler(defaults, hards, defaultParameters,
+				(level, x, y, data) -> notified.add(y * 10 + x));
+
+		// request without request specific parameters
+		byte[] tile = metatiler.getTile(3, 1, getParameters(new HashMap<String, String>(), defaults, hards));
+		assertArrayEquals(new byte[] { 3 }, tile);
+		assertEquals(1, metatiler.fetches.get());
+		assertEquals(List.of(2L, 3L, 12L), notified);
+	}
+
+	@Test
+	public void testListenersAreNotNotifiedWithRequestParameters() {
+		Map<String, String> defaults = new HashMap<String, String>();
+		defaults.put("TRANSPARENT", "true");
+		Map<String, String> defaultParameters = getParameters(new HashMap<String, String>(), defaults, emptyMap());
+
+		List<Long> notified = new ArrayList<Long>();
+		CountingMetatiler metatiler = createMetatiler(defaults, emptyMap(), defaultParameters,
+				(level, x, y, data) -> notified.add(y * 10 + x));
+
+		Map<String, String> requestParameters = new HashMap<String, String>();
+		requestParameters.put("TRANSPARENT", "false");
+		metatiler.getTile(0, 0, getParameters(requestParameters, defaults, emptyMap()));
+		assertEquals(1, metatiler.fetches.get());
+		assertEquals(emptyList(), notified);
+	}
+
+	@Test
+	public void testCompletedMetatilesAreNotRetained() {
+		Map<String, String> defaultParameters = new HashMap<String, String>();
+		CountingMetatiler metatiler = createMetatiler(emptyMap(), emptyMap(), defaultParameters,
+				(level, x, y, data) -> {
+				});
+		metatiler.getTile(0, 0, defaultParameters);
+		metatiler.getTile(1, 0, defaultParameters);
+		assertEquals(2, metatiler.fetches.get());
+	}
+
+	private static Map<String, String> getParameters(Map<String, String> requestParameters,
+			Map<String, String> defaults, Map<String, String> hards) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		RequestUtils.replaceParameters(parameters, requestParameters, defaults, hards);
+		return parameters;
+	}
+
+	/**
+	 * Creates a {@link Metatiler} with 2x2 tiles per metatile for a level with 4x4
+	 * tiles.
+	 */
+	private static CountingMetatiler createMetatiler(Map<String, String> defaults, Map<String, String> hards,
+			Map<String, String> defaultParameters, TileListener listener) {
+		SpatialMetadata smd = new SpatialMetadata(new GeometryFactory().createEnvelope(0, 0, 1024, 1024, null),
+				emptyList());
+		TileMatrix md = new TileMatrix("0", smd, 256, 256, 1.0, 4, 4);
+		RemoteWMSTileDataLevel level = new RemoteWMSTileDataLevel(md, "image/png", singletonList("layer"),
+				singletonList(""), null, null, null, defaults, emptyMap(), hards, emptyMap(), 1, 1, 0);
+		return new CountingMetatiler(level, defaultParameters, singletonList(listener));
+	}
+
+	/**
+	 * {@link Metatiler} that counts the fetched metatiles instead of requesting them,
+	 * the content of each tile is its column index.
+	 */
+	private static class CountingMetatiler extends Metatiler {
+
+		private final AtomicInteger fetches = new AtomicInteger();
+
+		private CountingMetatiler(RemoteWMSTileDataLevel level, Map<String, String> defaultParameters,
+				List<TileListener> listeners) {
+			super(level, 2, 2, 0, "png", defaultParameters, listeners);
+		}
+
+		@Override
+		byte[][] fetch(long minX, long minY, int numX, int numY, Map<String, String> overriddenParameters) {
+			fetches.incrementAndGet();
+			byte[][] tiles = new byte[numX * numY][];
+			for (int i = 0; i < tiles.length; i++) {
+				tiles[i] = new byte[] { (byte) (minX + i % numX) };
+			}
+			return tiles;
+		}
+
+	}
+
+	/**
+	 * Creates a metatile with a black buffer and one color per tile.
+	 */
+	private static BufferedImage createMetatile(int numX, int numY, int tileSizeX, int tileSizeY, int type) {
+		int buffer = 4;
+		BufferedImage image = new BufferedImage(numX * tileSizeX + 2 * buffer, numY * tileSizeY + 2 * buffer, type);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		for (int j = 0; j < numY; j++) {
+			for (int i = 0; i < numX; i++) {
+				g.setColor(COLORS[j * numX + i]);
+				g.fillRect(buffer + i * tileSizeX, buffer + j * tileSizeY, tileSizeX, tileSizeY);
+			}
+		}
+		g.dispose();
+		return image;
+	}
+
+}
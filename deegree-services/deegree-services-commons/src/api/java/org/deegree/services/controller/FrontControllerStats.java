@@ -47,7 +47,10 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.deegree.commons.metrics.Metrics;
 import org.deegree.commons.utils.ComparablePair;
 import org.deegree.commons.utils.ConfigManager;
 import org.deegree.commons.utils.Pair;
@@ -58,11 +61,19 @@ import org.deegree.cs.persistence.CRSManager;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.GeometryFactory;
 import org.deegree.geometry.GeometryTransformer;
+import org.deegree.services.OWS;
+import org.deegree.services.OWSProvider;
 import org.h2.util.IOUtils;
 import org.slf4j.Logger;
 
 /**
  * Keeps track of request and runtime statistics for the {@link OGCFrontController}.
+ * <p>
+ * Request durations are additionally recorded per service and request type as
+ * {@link Metrics} (<code>deegree_ows_request_seconds</code>). Only the names of the requests
+ * handled by the service are used as labels, all other request names are recorded as
+ * <code>other</code>.
+ * </p>
  * 
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
  * 
@@ -71,13 +82,17 @@ public class FrontControllerStats {
 
     private static final Logger LOG = getLogger( FrontControllerStats.class );
 
-    private static long numDispatched;
+    private static final String REQUEST_METRIC = "deegree_ows_request_seconds";
 
-    private static long numFinished;
+    private static final String REQUEST_METRIC_HELP = "Duration of requests dispatched to services";
 
-    private static double averageResponseTime;
+    private static final LongAdder numDispatched = new LongAdder();
 
-    private static double maxResponseTime;
+    private static final LongAdder numFinished = new LongAdder();
+
+    private static final LongAdder totalResponseTime = new LongAdder();
+
+    private static final LongAccumulator maxResponseTime = new LongAccumulator( Long::max, 0 );
 
     private static Envelope bbox;
 
@@ -85,15 +100,20 @@ public class FrontControllerStats {
 
     private static final GeometryFactory fac = new GeometryFactory();
 
+    static {
+        Metrics.gauge( "deegree_ows_active_requests", "Number of requests currently processed by services",
+                       FrontControllerStats::getActiveRequests );
+    }
+
     /**
      * Called by the {@link OGCFrontController} to indicate that a new request has just been dispatched to an
      * {@link AbstractOWS}.
      * 
-     * @return current time
+     * @return current time (in nanoseconds, see {@link System#nanoTime()})
      */
-    synchronized static long requestDispatched() {
-        numDispatched++;
-        return System.currentTimeMillis();
+    static long requestDispatched() {
+        numDispatched.increment();
+        return System.nanoTime();
     }
 
     /**
@@ -101,14 +121,42 @@ public class FrontControllerStats {
      * 
      * @param dispatchTime
      *            time when the request has been dispatched
+     * @param ows
+     *            service that processed the request, must not be <code>null</code>
+     * @param request
+     *            name of the request, may be <code>null</code>
+     */
+    static void requestFinished( long dispatchTime, OWS ows, String request ) {
+        long nanos = System.nanoTime() - dispatchTime;
+        long duration = nanos / 1000000;
+        maxResponseTime.accumulate( duration );
+        totalResponseTime.add( duration );
+        numFinished.increment();
+        if ( Metrics.isEnabled() ) {
+            String service = ows.getMetadata().getIdentifier().getId();
+            Metrics.timer( REQUEST_METRIC, REQUEST_METRIC_HELP, "service", service, "request",
+                           getRequestLabel( ows, request ) ).record( nanos );
+        }
+    }
+
+    /**
+     * Returns the metrics label for the given request name. Request names are supplied by clients, so they are mapped
+     * to the names of the requests handled by the service to keep the number of series bounded.
+     * 
+     * @param ows
+     *            service that processed the request, must not be <code>null</code>
+     * @param request
+     *            name of the request, may be <code>null</code>
+     * @return the name of the handled request (as defined by the service), <code>other</code> if the request is not
+     *         handled by the service, never <code>null</code>
      */
-    synchronized static void requestFinished( long dispatchTime ) {
-        long duration = System.currentTimeMillis() - dispatchTime;
-        if ( duration > maxResponseTime ) {
-            maxResponseTime = duration;
+    static String getRequestLabel( OWS ows, String request ) {
+        Enum<?> requestType = null;
+        if ( request != null && ows.getMetadata().getProvider() instanceof OWSProvider ) {
+            OWSProvider provider = (OWSProvider) ows.getMetadata().getProvider();
+            requestType = provider.getImplementationMetadata().getRequestTypeByName( request );
         }
-        averageResponseTime = ( averageResponseTime * numFinished + duration ) / ( numFinished + 1 );
-        numFinished++;
+        return requestType == null ? "other" : requestType.name();
     }
 
     /**
@@ -159,7 +207,7 @@ public class FrontControllerStats {
      * @return number of dispatched requests
      */
     public static long getDispatchedRequests() {
-        return numDispatched;
+        return numDispatched.sum();
     }
 
     /**
@@ -169,7 +217,7 @@ public class FrontControllerStats {
      * @return number of active requests
      */
     public static long getActiveRequests() {
-        return numDispatched - numFinished;
+        return numDispatched.sum() - numFinished.sum();
     }
 
     /**
@@ -178,7 +226,8 @@ public class FrontControllerStats {
      * @return the average response time
      */
     public static long getAverageResponseTime() {
-        return (long) averageResponseTime;
+        long finished = numFinished.sum();
+        return finished == 0 ? 0 : totalResponseTime.sum() / finished;
     }
 
     /**
@@ -187,7 +236,7 @@ public class FrontControllerStats {
      * @return the maximum response time
      */
     public static long getMaximumResponseTime() {
-        return (long) maxResponseTime;
+        return maxResponseTime.get();
     }
 
     /**
@@ -34,6 +34,7 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.services.controller;
 
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 import static java.util.Collections.emptyList;
 import static org.deegree.commons.ows.exception.OWSException.NOT_FOUND;
 import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
@@ -92,8 +93,13 @@ import org.apache.commons.logging.LogFactory;
 import org.deegree.commons.concurrent.Executor;
 import org.deegree.commons.config.DeegreeWorkspace;
 import org.deegree.commons.config.ResourceInitException;
+import org.deegree.commons.metrics.Metrics;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.tom.ows.Version;
+import org.deegree.commons.tracing.ServerTiming;
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Trace;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.commons.utils.DeegreeAALogoUtils;
 import org.deegree.commons.utils.kvp.KVPUtils;
 import org.deegree.commons.xml.XMLAdapter;
@@ -106,6 +112,8 @@ import org.deegree.services.OWS;
 import org.deegree.services.OWSProvider;
 import org.deegree.services.OwsManager;
 import org.deegree.services.authentication.SecurityException;
+import org.deegree.services.controller.admission.AdmissionController;
+import org.deegree.services.controller.admission.AdmissionController.Permit;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
 import org.deegree.services.controller.security.SecurityConfiguration;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
@@ -175,6 +183,8 @@ public class OGCFrontController extends HttpServlet {
 
     private transient RequestWatchdog requestWatchdog;
 
+    private transient AdmissionController admissionController;
+
     private transient SecurityConfiguration securityConfiguration;
 
     private transient OwsManager serviceConfiguration;
@@ -313,6 +323,7 @@ public class OGCFrontController extends HttpServlet {
                             throws ServletException, IOException {
         request = createHttpRequest( request );
         HttpResponseBuffer responseBuffer = new HttpResponseBuffer( response, request );
+        Trace trace = Tracing.beginTrace( "HTTP GET", request.getHeader( "traceparent" ) );
 
         try {
             long entryTime = System.currentTimeMillis();
@@ -386,6 +397,7 @@ public class OGCFrontController extends HttpServlet {
                        + ( System.currentTimeMillis() - entryTime ) + " ms." );
         } finally {
             getInstance().CONTEXT.remove();
+            endTrace( trace, responseBuffer );
             responseBuffer.flushBuffer();
             if ( mainConfig.isValidateResponses() != null && mainConfig.isValidateResponses() ) {
                 validateResponse( responseBuffer );
@@ -393,6 +405,29 @@ public class OGCFrontController extends HttpServlet {
         }
     }
 
+    /**
+     * Ends the trace of the request and adds the <code>Server-Timing</code> header, if enabled and the response has
+     * not been committed yet (i.e. buffering has not been disabled).
+     */
+    private static void endTrace( Trace trace, HttpResponseBuffer response ) {
+        if ( trace == null ) {
+            return;
+        }
+        Tracing.endTrace( trace );
+        if ( Tracing.isServerTimingEnabled() && !response.isCommitted() ) {
+            response.setHeader( ServerTiming.HEADER, ServerTiming.format( trace ) );
+        }
+    }
+
+    private static Span startDispatchSpan( OWS ows, String request ) {
+        Span span = Tracing.start( "dispatch" );
+        if ( span.isRecording() ) {
+            span.setAttribute( "deegree.service", ows.getMetadata().getIdentifier().getId() );
+            span.setAttribute( "deegree.request", request );
+        }
+        return span;
+    }
+
     private void logHeaders( HttpServletRequest request ) {
         if ( LOG.isDebugEnabled() ) {
             LOG.debug( "HTTP headers:" );
@@ -426,6 +461,7 @@ public class OGCFrontController extends HttpServlet {
                             throws ServletException, IOException {
         request = createHttpRequest( request );
         HttpResponseBuffer responseBuffer = new HttpResponseBuffer( response, request );
+        Trace trace = Tracing.beginTrace( "HTTP POST", request.getHeader( "traceparent" ) );
 
         try {
             logHeaders( request );
@@ -514,6 +550,7 @@ public class OGCFrontController extends HttpServlet {
                        + ( System.currentTimeMillis() - entryTime ) + " ms." );
         } finally {
             instance.CONTEXT.remove();
+            endTrace( trace, responseBuffer );
             responseBuffer.flushBuffer();
             if ( mainConfig.isValidateResponses() != null && mainConfig.isValidateResponses() ) {
                 validateResponse( responseBuffer );
@@ -772,14 +809,21 @@ public class OGCFrontController extends HttpServlet {
                 return;
             }
 
+            Permit permit = admit( ows, request, response );
+            if ( permit == null ) {
+                return;
+            }
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
             long dispatchTime = FrontControllerStats.requestDispatched();
+            Span span = startDispatchSpan( ows, request );
             try {
                 watchTimeout( ows, request );
                 ows.doKVP( normalizedKVPParams, requestWrapper, response, multiParts );
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                span.close();
+                FrontControllerStats.requestFinished( dispatchTime, ows, request );
                 unwatchTimeout();
+                permit.release();
             }
         } catch ( SecurityException e ) {
             if ( credentialsProvider != null ) {
@@ -858,14 +902,22 @@ public class OGCFrontController extends HttpServlet {
                 ows = services.get( 0 );
             }
             if ( ows != null ) {
+                String requestName = xmlStream.getLocalName();
+                Permit permit = admit( ows, requestName, response );
+                if ( permit == null ) {
+                    return;
+                }
                 LOG.debug( "Dispatching request to OWS: " + ows.getClass().getName() );
                 long dispatchTime = FrontControllerStats.requestDispatched();
+                Span span = startDispatchSpan( ows, requestName );
                 try {
-                    watchTimeout( ows, xmlStream.getLocalName() );
+                    watchTimeout( ows, requestName );
                     ows.doXML( xmlStream, requestWrapper, response, multiParts );
                 } finally {
-                    FrontControllerStats.requestFinished( dispatchTime );
+                    span.close();
+                    FrontControllerStats.requestFinished( dispatchTime, ows, requestName );
                     unwatchTimeout();
+                    permit.release();
                 }
             }
         } catch ( SecurityException e ) {
@@ -976,13 +1028,20 @@ public class OGCFrontController extends HttpServlet {
                 ows = services.get( 0 );
             }
 
+            Permit permit = admit( ows, env.getSOAPBodyFirstElementLocalName(), response );
+            if ( permit == null ) {
+                return;
+            }
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
             long dispatchTime = FrontControllerStats.requestDispatched();
+            Span span = startDispatchSpan( ows, env.getSOAPBodyFirstElementLocalName() );
             try {
                 watchTimeout( ows, env.getSOAPBodyFirstElementLocalName() );
                 ows.doSOAP( env, requestWrapper, response, multiParts, factory );
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                span.close();
+                FrontControllerStats.requestFinished( dispatchTime, ows, env.getSOAPBodyFirstElementLocalName() );
+                permit.release();
             }
         } catch ( SecurityException e ) {
             if ( credentialsProvider != null ) {
@@ -1048,6 +1107,7 @@ public class OGCFrontController extends HttpServlet {
 
             initWorkspace();
             DeegreeWorkspaceUpdater.INSTANCE.init( workspace );
+            Metrics.registerMBean();
 
         } catch ( NoClassDefFoundError e ) {
             LOG.error( "Initialization failed!" );
@@ -1101,6 +1161,12 @@ public class OGCFrontController extends HttpServlet {
         } else {
             LOG.info( "Not initializing request watchdog. No request time-outs configured." );
         }
+        if ( mainConfig != null && mainConfig.getAdmissionControl() != null ) {
+            LOG.info( "Initializing admission control." );
+            admissionController = new AdmissionController( mainConfig.getAdmissionControl() );
+        } else {
+            admissionController = null;
+        }
         LOG.info( "" );
     }
 
@@ -1364,6 +1430,7 @@ public class OGCFrontController extends HttpServlet {
     public void destroy() {
         super.destroy();
         destroyWorkspace();
+        Metrics.unregisterMBean();
         if ( mainConfig.isPreventClassloaderLeaks() == null || mainConfig.isPreventClassloaderLeaks() ) {
             plugClassLoaderLeaks();
         }
@@ -1539,6 +1606,35 @@ public class OGCFrontController extends HttpServlet {
         }
     }
 
+    /**
+     * Admits the request according to the configured admission control. If the request is rejected, an exception
+     * report with status 503 and a <code>Retry-After</code> header is sent.
+     * 
+     * @return the permit that has to be released after processing the request, or <code>null</code> if the request
+     *         has been rejected
+     */
+    private Permit admit( final OWS ows, final String requestName, final HttpResponseBuffer response )
+                            throws ServletException {
+        if ( admissionController == null ) {
+            return Permit.UNLIMITED;
+        }
+        final String serviceId = ows.getMetadata().getIdentifier().getId();
+        Permit permit = null;
+        try {
+            permit = admissionController.acquire( serviceId, requestName );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        if ( permit == null ) {
+            OWSException e = new OWSException( "The service is currently overloaded. Please try again later.",
+                                               NO_APPLICABLE_CODE );
+            sendException( ows, e, response, null );
+            response.setStatus( SC_SERVICE_UNAVAILABLE );
+            response.setHeader( "Retry-After", Integer.toString( admissionController.getRetryAfterSeconds() ) );
+        }
+        return permit;
+    }
+
     private void watchTimeout( final OWS ows, final String requestName ) {
         if ( requestWatchdog != null ) {
             final String serviceId = ows.getMetadata().getIdentifier().getId();
@@ -0,0 +1,193 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.admission;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.deegree.commons.metrics.Counter;
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.services.jaxb.controller.DeegreeServiceControllerType.AdmissionControl;
+import org.deegree.services.jaxb.controller.DeegreeServiceControllerType.AdmissionControl.Lane;
+import org.slf4j.Logger;
+
+/**
+ * Limits the number of concurrently processed requests per service and request type, so
+ * that expensive requests cannot starve cheap ones and overload is answered quickly
+ * instead of degrading the whole server.
+ * <p>
+ * Each configured lane has its own limit and queue. A request is assigned to the most
+ * specific matching lane (service and request, service only, request only, none of
+ * both), requests without a matching lane are not limited. Request names are compared
+ * case-insensitively.
+ * </p>
+ */
+public class AdmissionController {
+
+	private static final Logger LOG = getLogger(AdmissionController.class);
+
+	private static final String ANY = "*";
+
+	private final Map<String, ConcurrencyLane> lanes = new HashMap<String, ConcurrencyLane>();
+
+	private final int retryAfterSeconds;
+
+	/**
+	 * Creates a new {@link AdmissionController} for the given configuration.
+	 * @param config admission control configuration, must not be <code>null</code>
+	 */
+	public AdmissionController(AdmissionControl config) {
+		for (Lane laneConfig : config.getLane()) {
+			String key = getKey(laneConfig.getServiceId(), laneConfig.getRequest());
+			ConcurrencyLane lane = new ConcurrencyLane(key, laneConfig.getMaxConcurrent().intValue(),
+					laneConfig.getMaxQueued().intValue(), laneConfig.getMaxQueueTimeMilliseconds().longValue(),
+					laneConfig.isAdaptive());
+			if (lanes.put(key, lane) != null) {
+				LOG.warn("Admission control lane '{}' is configured more than once, using the last one.", key);
+			}
+		}
+		retryAfterSeconds = config.getRetryAfterSeconds().intValue();
+		registerMetrics(lanes.values());
+	}
+
+	AdmissionController(Collection<ConcurrencyLane> lanes, int retryAfterSeconds) {
+		for (ConcurrencyLane lane : lanes) {
+			this.lanes.put(lane.getName(), lane);
+		}
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	private static void registerMetrics(Collection<ConcurrencyLane> lanes) {
+		for (ConcurrencyLane lane : lanes) {
+			Metrics.gauge("deegree_admission_limit", "Current limit of concurrent requests of an admission lane",
+					lane::getLimit, "lane", lane.getName());
+			Metrics.gauge("deegree_admission_in_flight", "Requests currently processed in an admission lane",
+					lane::getInFlight, "lane", lane.getName());
+			Metrics.gauge("deegree_admission_queued", "Requests currently waiting for admission",
+					lane::getQueued, "lane", lane.getName());
+		}
+	}
+
+	/**
+	 * Admits a request, waits if the limit of its lane has been reached.
+	 * @param serviceId identifier of the service, must not be <code>null</code>
+	 * @param request name of the request, may be <code>null</code>
+	 * @return the permit that has to be released after processing the request, or
+	 * <code>null</code> if the request has been rejected (the service is overloaded)
+	 * @throws InterruptedException
+	 */
+	public Permit acquire(String serviceId, String request) throws InterruptedException {
+		ConcurrencyLane lane = getLane(serviceId, request);
+		if (lane == null) {
+			return Permit.UNLIMITED;
+		}
+		if (lane.acquire()) {
+			return new Permit(lane);
+		}
+		LOG.debug("Rejected {} request to service '{}', lane '{}' is overloaded.", request, serviceId,
+				lane.getName());
+		rejectedCounter(lane).increment();
+		return null;
+	}
+
+	/**
+	 * @return number of seconds to send in the <code>Retry-After</code> header of
+	 * rejected requests
+	 */
+	public int getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	ConcurrencyLane getLane(String serviceId, String request) {
+		if (lanes.isEmpty()) {
+			return null;
+		}
+		ConcurrencyLane lane = lanes.get(getKey(serviceId, request));
+		if (lane == null) {
+			lane = lanes.get(getKey(serviceId, null));
+		}
+		if (lane == null) {
+			lane = lanes.get(getKey(null, request));
+		}
+		if (lane == null) {
+			lane = lanes.get(getKey(null, null));
+		}
+		return lane;
+	}
+
+	private static Counter rejectedCounter(ConcurrencyLane lane) {
+		return Metrics.counter("deegree_admission_rejected_total", "Requests rejected by admission control", "lane",
+				lane.getName());
+	}
+
+	private static String getKey(String serviceId, String request) {
+		String service = serviceId == null ? ANY : serviceId;
+		return service + "/" + (request == null ? ANY : request.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Admission of a single request.
+	 */
+	public static class Permit {
+
+		/**
+		 * Permit for requests that are not limited.
+		 */
+		public static final Permit UNLIMITED = new Permit(null);
+
+		private final ConcurrencyLane lane;
+
+		private final long start = System.nanoTime();
+
+		private Permit(ConcurrencyLane lane) {
+			this.lane = lane;
+		}
+
+		/**
+		 * Releases the permit after processing the request.
+		 */
+		public void release() {
+			if (lane != null) {
+				lane.release(System.nanoTime() - start);
+			}
+		}
+
+	}
+
+}
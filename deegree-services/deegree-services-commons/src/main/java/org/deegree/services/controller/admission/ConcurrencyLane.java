@@ -0,0 +1,233 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrently processed requests of a {@link AdmissionController}
+ * lane, requests exceeding the limit wait in a short bounded queue (in arrival order).
+ * <p>
+ * If the lane is adaptive, the limit is adjusted to the observed latencies (additive
+ * increase, multiplicative decrease): the average latency of the last few requests is
+ * compared to the average latency over a long window. As long as recent requests are not
+ * considerably slower than the long-term average, the limit grows slowly up to the
+ * configured maximum. If they become slower (i.e. the server is saturated), the limit is
+ * reduced by 10 percent, at most once per <code>limit</code> requests. Comparing averages
+ * (instead of single requests) keeps a mix of cheap and expensive requests from being
+ * mistaken for saturation.
+ * </p>
+ */
+class ConcurrencyLane {
+
+	// recent latencies above this factor times the baseline latency indicate saturation
+	static final double LATENCY_TOLERANCE = 2.0;
+
+	static final double DECREASE_FACTOR = 0.9;
+
+	// number of requests the baseline (long-term average) latency is smoothed over
+	static final int BASELINE_WINDOW = 1000;
+
+	// number of requests the recent (short-term average) latency is smoothed over
+	static final int RECENT_WINDOW = 10;
+
+	private final String name;
+
+	private final int maxConcurrent;
+
+	private final int maxQueued;
+
+	private final long maxQueueNanos;
+
+	private final boolean adaptive;
+
+	private final ReentrantLock lock = new ReentrantLock(true);
+
+	private final Condition available = lock.newCondition();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private volatile double limit;
+
+	private volatile int inFlight;
+
+	private volatile int queued;
+
+	private double baselineNanos;
+
+	private double recentNanos;
+
+	private long samples;
+
+	private int samplesSinceDecrease;
+
+	/**
+	 * Creates a new {@link ConcurrencyLane}.
+	 * @param name name of the lane (used for logging and metrics), must not be
+	 * <code>null</code>
+	 * @param maxConcurrent maximum number of concurrent requests, at least 1
+	 * @param maxQueued maximum number of waiting requests, 0 to reject requests
+	 * immediately
+	 * @param maxQueueMillis maximum time a request waits for admission
+	 * @param adaptive <code>true</code>, if the limit is adjusted to the observed latency
+	 */
+	ConcurrencyLane(String name, int maxConcurrent, int maxQueued, long maxQueueMillis, boolean adaptive) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException("Maximum number of concurrent requests must be at least 1.");
+		}
+		this.name = name;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = maxQueued;
+		this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMillis);
+		this.adaptive = adaptive;
+		this.limit = maxConcurrent;
+	}
+
+	/**
+	 * Acquires a slot, waits (in the queue) if the limit has been reached.
+	 * @return <code>true</code>, if the request has been admitted, <code>false</code> if
+	 * the queue is full or the maximum waiting time elapsed
+	 * @throws InterruptedException
+	 */
+	boolean acquire() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (queued == 0 && inFlight < getLimit()) {
+				inFlight++;
+				return true;
+			}
+			if (queued >= maxQueued) {
+				rejected.increment();
+				return false;
+			}
+			queued++;
+			try {
+				long nanos = maxQueueNanos;
+				while (inFlight >= getLimit()) {
+					if (nanos <= 0) {
+						rejected.increment();
+						return false;
+					}
+					nanos = available.awaitNanos(nanos);
+				}
+				inFlight++;
+				return true;
+			}
+			finally {
+				queued--;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases a slot acquired by {@link #acquire()}.
+	 * @param latencyNanos processing time of the request
+	 */
+	void release(long latencyNanos) {
+		lock.lock();
+		try {
+			inFlight--;
+			if (adaptive) {
+				update(latencyNanos);
+			}
+			if (inFlight < getLimit()) {
+				available.signal();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void update(long latencyNanos) {
+		// exponential moving averages, plain averages until a window has been filled
+		samples++;
+		baselineNanos += (latencyNanos - baselineNanos) / Math.min(samples, BASELINE_WINDOW);
+		recentNanos += (latencyNanos - recentNanos) / Math.min(samples, RECENT_WINDOW);
+		samplesSinceDecrease++;
+		if (recentNanos > baselineNanos * LATENCY_TOLERANCE) {
+			if (samplesSinceDecrease >= limit) {
+				limit = Math.max(1, limit * DECREASE_FACTOR);
+				samplesSinceDecrease = 0;
+			}
+		}
+		else if (inFlight + 1 >= limit / 2) {
+			// only grow if the current limit is actually used
+			limit = Math.min(maxConcurrent, limit + 1 / limit);
+		}
+	}
+
+	/**
+	 * @return name of the lane, never <code>null</code>
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return current limit of concurrent requests
+	 */
+	int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return number of requests that are currently processed
+	 */
+	int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return number of requests that are currently waiting
+	 */
+	int getQueued() {
+		return queued;
+	}
+
+	/**
+	 * @return number of rejected requests
+	 */
+	long getRejected() {
+		return rejected.sum();
+	}
+
+}
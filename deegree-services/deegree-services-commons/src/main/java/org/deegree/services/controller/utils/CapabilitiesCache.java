@@ -0,0 +1,387 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+
+package org.deegree.services.controller.utils;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import javax.xml.stream.XMLStreamException;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.slf4j.Logger;
+
+/**
+ * Keeps serialized GetCapabilities responses of a service, so that repeated requests
+ * don't have to walk all layers / feature types again.
+ * <p>
+ * Entries are identified by a key that has to cover everything the response depends on
+ * (version, sections, language, update sequence, format, service URLs), see
+ * {@link #createKey(Object...)}. The cache is bound to the lifecycle of the service
+ * instance, so reloading the service (or one of its dependencies) in the workspace
+ * starts with an empty cache. Changes that don't trigger a reload (e.g. WFS
+ * transactions) must call {@link #invalidate()}.
+ * </p>
+ * <p>
+ * Responses are sent with an <code>ETag</code> header, requests with a matching
+ * <code>If-None-Match</code> header are answered with <code>304 Not Modified</code>.
+ * </p>
+ */
+public class CapabilitiesCache {
+
+	private static final Logger LOG = getLogger(CapabilitiesCache.class);
+
+	private static final int DEFAULT_MAX_ENTRIES = 64;
+
+	private static final List<String> KEY_PARAMETERS = List.of("VERSION", "ACCEPTVERSIONS", "UPDATESEQUENCE",
+			"LANGUAGE", "SECTIONS", "FORMAT");
+
+	private final Map<String, CachedCapabilities> entries;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Creates a new {@link CapabilitiesCache} with a default maximum number of entries.
+	 */
+	public CapabilitiesCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new {@link CapabilitiesCache}.
+	 * @param maxEntries maximum number of cached responses, if exceeded, the least
+	 * recently used response is removed
+	 */
+	public CapabilitiesCache(final int maxEntries) {
+		entries = new LinkedHashMap<String, CachedCapabilities>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 2620446434296432519L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedCapabilities> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Creates a cache key from the given request parameters.
+	 * @param parts request parameters the response depends on, may contain
+	 * <code>null</code> values, collections are treated as unordered sets
+	 * @return the key, never <code>null</code>
+	 */
+	public static String createKey(Object... parts) {
+		StringBuilder sb = new StringBuilder();
+		for (Object part : parts) {
+			if (part instanceof Collection) {
+				TreeSet<String> sorted = new TreeSet<String>();
+				for (Object o : (Collection<?>) part) {
+					sorted.add(String.valueOf(o));
+				}
+				part = sorted;
+			}
+			sb.append(part).append('\u0000');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the KVP parameters of a GetCapabilities request that the response depends
+	 * on (<code>VERSION</code>, <code>ACCEPTVERSIONS</code>, <code>UPDATESEQUENCE</code>,
+	 * <code>LANGUAGE</code>, <code>SECTIONS</code> and <code>FORMAT</code>), all other
+	 * parameters (e.g. cache busting parameters added by clients) must not be part of the
+	 * key.
+	 * @param kvpParams request parameters, keys in upper case, must not be
+	 * <code>null</code>
+	 * @return the relevant parameters for {@link #createKey(Object...)}, never
+	 * <code>null</code>
+	 */
+	public static Map<String, String> getKeyParameters(Map<String, String> kvpParams) {
+		Map<String, String> params = new TreeMap<String, String>();
+		for (String name : KEY_PARAMETERS) {
+			String value = kvpParams.get(name);
+			if (value != null) {
+				params.put(name, value);
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Sends the cached response for the given key, the response is generated using the
+	 * given writer and put into the cache if it is not available yet.
+	 * @param key cache key, see {@link #createKey(Object...)}, must not be
+	 * <code>null</code>
+	 * @param request the request, used to evaluate the <code>If-None-Match</code>
+	 * header, may be <code>null</code>
+	 * @param response response to write to, must not be <code>null</code>
+	 * @param writer generates the response if it is not cached, must not be
+	 * <code>null</code>
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 * @throws OWSException if the writer failed, nothing is cached in this case
+	 */
+	public void send(String key, HttpServletRequest request, HttpResponseBuffer response, CapabilitiesWriter writer)
+			throws IOException, XMLStreamException, OWSException {
+		CachedCapabilities cached;
+		synchronized (entries) {
+			cached = entries.get(key);
+		}
+		if (cached == null) {
+			long generationBeforeWrite = generation.get();
+			cached = write(writer, response);
+			synchronized (entries) {
+				// don't cache responses that may be outdated already
+				if (generationBeforeWrite == generation.get()) {
+					entries.put(key, cached);
+				}
+			}
+			LOG.debug("Generated capabilities response ({} bytes) for key '{}'.", cached.content.length, key);
+		}
+		send(cached, request, response);
+	}
+
+	/**
+	 * Removes all cached responses, must be called when the service content changes.
+	 */
+	public void invalidate() {
+		synchronized (entries) {
+			generation.incrementAndGet();
+			entries.clear();
+		}
+		LOG.debug("Invalidated capabilities cache.");
+	}
+
+	private CachedCapabilities write(CapabilitiesWriter writer, HttpServletResponse response)
+			throws IOException, XMLStreamException, OWSException {
+		CapturingResponse capture = new CapturingResponse(response);
+		HttpResponseBuffer captureBuffer = new HttpResponseBuffer(capture, null);
+		writer.write(captureBuffer);
+		captureBuffer.flushBuffer();
+		byte[] content = capture.getContent();
+		String etag = "\"" + generation.get() + "-" + digest(content) + "\"";
+		return new CachedCapabilities(content, capture.getContentType(), capture.getCharacterEncoding(), etag);
+	}
+
+	private void send(CachedCapabilities cached, HttpServletRequest request, HttpResponseBuffer response)
+			throws IOException {
+		response.setHeader("ETag", cached.etag);
+		if (request != null && matches(request.getHeader("If-None-Match"), cached.etag)) {
+			LOG.debug("Capabilities not modified ({}).", cached.etag);
+			response.setStatus(SC_NOT_MODIFIED);
+			return;
+		}
+		if (cached.characterEncoding != null) {
+			response.setCharacterEncoding(cached.characterEncoding);
+		}
+		if (cached.contentType != null) {
+			response.setContentType(cached.contentType);
+		}
+		response.getOutputStream().write(cached.content);
+	}
+
+	private static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if ("*".equals(candidate) || etag.equals(candidate)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String digest(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(content));
+		}
+		catch (NoSuchAlgorithmException e) {
+			// every JVM has to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Generates a capabilities response.
+	 */
+	public interface CapabilitiesWriter {
+
+		/**
+		 * Writes the capabilities document.
+		 * @param response response to write to, never <code>null</code>
+		 * @throws IOException
+		 * @throws XMLStreamException
+		 * @throws OWSException
+		 */
+		void write(HttpResponseBuffer response) throws IOException, XMLStreamException, OWSException;
+
+	}
+
+	private static class CachedCapabilities {
+
+		private final byte[] content;
+
+		private final String contentType;
+
+		private final String characterEncoding;
+
+		private final String etag;
+
+		private CachedCapabilities(byte[] content, String contentType, String characterEncoding, String etag) {
+			this.content = content;
+			this.contentType = contentType;
+			this.characterEncoding = characterEncoding;
+			this.etag = etag;
+		}
+
+	}
+
+	/**
+	 * Collects body, content type and character encoding of a response in memory, all
+	 * other calls are passed to the wrapped response.
+	 */
+	private static class CapturingResponse extends HttpServletResponseWrapper {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private String contentType;
+
+		private String characterEncoding;
+
+		private PrintWriter writer;
+
+		private CapturingResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+					content.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					content.write(b, off, len);
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+					// nothing to do
+				}
+			};
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				String encoding = characterEncoding != null ? characterEncoding : "UTF-8";
+				writer = new PrintWriter(new OutputStreamWriter(content, encoding));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentType(String contentType) {
+			this.contentType = contentType;
+		}
+
+		@Override
+		public String getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public void setCharacterEncoding(String characterEncoding) {
+			this.characterEncoding = characterEncoding;
+		}
+
+		@Override
+		public String getCharacterEncoding() {
+			return characterEncoding;
+		}
+
+		@Override
+		public void flushBuffer() {
+			if (writer != null) {
+				writer.flush();
+			}
+		}
+
+		@Override
+		public boolean isCommitted() {
+			return false;
+		}
+
+		private byte[] getContent() {
+			flushBuffer();
+			return content.toByteArray();
+		}
+
+	}
+
+}
@@ -0,0 +1,178 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.admission;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.deegree.services.controller.admission.AdmissionController.Permit;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AdmissionController} and {@link ConcurrencyLane}.
+ */
+public class AdmissionControllerTest {
+
+	private static final long MILLIS = 1000000;
+
+	@Test
+	public void testRejectWithoutQueue() throws Exception {
+		ConcurrencyLane lane = new ConcurrencyLane("wfs/*", 1, 0, 1000, false);
+		assertTrue(lane.acquire());
+		assertFalse(lane.acquire());
+		assertEquals(1, lane.getRejected());
+		lane.release(MILLIS);
+		assertTrue(lane.acquire());
+	}
+
+	@Test
+	public void testQueuedRequestIsAdmittedAfterRelease() throws Exception {
+		final ConcurrencyLane lane = new ConcurrencyLane("wfs/*", 1, 1, 10000, false);
+		assertTrue(lane.acquire());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> queued = executor.submit(lane::acquire);
+			while (lane.getQueued() == 0) {
+				Thread.sleep(1);
+			}
+			// queue is full
+			assertFalse(lane.acquire());
+			lane.release(MILLIS);
+			assertTrue(queued.get(10, TimeUnit.SECONDS));
+			assertEquals(1, lane.getInFlight());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testQueueTimeout() throws Exception {
+		ConcurrencyLane lane = new ConcurrencyLane("wfs/*", 1, 1, 10, false);
+		assertTrue(lane.acquire());
+		assertFalse(lane.acquire());
+		assertEquals(0, lane.getQueued());
+	}
+
+	@Test
+	public void testAdaptiveLimit() throws Exception {
+		ConcurrencyLane lane = new ConcurrencyLane("wms/getmap", 10, 0, 1000, true);
+		for (int i = 0; i < 20; i++) {
+			acquireAll(lane, 10);
+			releaseAll(lane, 10, MILLIS);
+		}
+		assertEquals(10, lane.getLimit());
+		for (int i = 0; i < 20; i++) {
+			acquireAll(lane, lane.getLimit());
+			releaseAll(lane, lane.getLimit(), 10 * MILLIS);
+		}
+		assertTrue(lane.getLimit() < 5);
+		for (int i = 0; i < 1000; i++) {
+			acquireAll(lane, lane.getLimit());
+			releaseAll(lane, lane.getLimit(), MILLIS);
+		}
+		assertEquals(10, lane.getLimit());
+	}
+
+	@Test
+	public void testAdaptiveLimitWithMixedLatencies() throws Exception {
+		// cheap and expensive requests (e.g. small and large GetMap requests) at a
+		// constant load must not be mistaken for saturation
+		long[] latencies = { MILLIS, 5 * MILLIS, 20 * MILLIS, 80 * MILLIS };
+		Random random = new Random(42);
+		ConcurrencyLane lane = new ConcurrencyLane("wms/getmap", 10, 0, 1000, true);
+		int minLimit = lane.getLimit();
+		for (int i = 0; i < 1000; i++) {
+			int count = lane.getLimit();
+			acquireAll(lane, count);
+			for (int j = 0; j < count; j++) {
+				lane.release(latencies[random.nextInt(latencies.length)]);
+			}
+			minLimit = Math.min(minLimit, lane.getLimit());
+		}
+		assertTrue(minLimit >= 8);
+		assertEquals(10, lane.getLimit());
+	}
+
+	@Test
+	public void testLaneSelection() throws Exception {
+		ConcurrencyLane getFeature = new ConcurrencyLane("wfs/getfeature", 1, 0, 0, false);
+		ConcurrencyLane wfs = new ConcurrencyLane("wfs/*", 1, 0, 0, false);
+		ConcurrencyLane getTile = new ConcurrencyLane("*/gettile", 1, 0, 0, false);
+		AdmissionController controller = new AdmissionController(asList(getFeature, wfs, getTile), 5);
+		assertSame(getFeature, controller.getLane("wfs", "GetFeature"));
+		assertSame(wfs, controller.getLane("wfs", "DescribeFeatureType"));
+		assertSame(wfs, controller.getLane("wfs", null));
+		assertSame(getTile, controller.getLane("wmts", "GetTile"));
+		assertNull(controller.getLane("wms", "GetMap"));
+		assertSame(Permit.UNLIMITED, controller.acquire("wms", "GetMap"));
+	}
+
+	@Test
+	public void testPermit() throws Exception {
+		ConcurrencyLane lane = new ConcurrencyLane("wfs/getfeature", 1, 0, 0, false);
+		AdmissionController controller = new AdmissionController(asList(lane), 5);
+		Permit permit = controller.acquire("wfs", "GetFeature");
+		assertNotNull(permit);
+		assertNull(controller.acquire("wfs", "GetFeature"));
+		permit.release();
+		assertEquals(0, lane.getInFlight());
+		assertNotNull(controller.acquire("wfs", "getfeature"));
+	}
+
+	private static void acquireAll(ConcurrencyLane lane, int count) throws InterruptedException {
+		for (int i = 0; i < count; i++) {
+			assertTrue(lane.acquire());
+		}
+	}
+
+	private static void releaseAll(ConcurrencyLane lane, int count, long latencyNanos) {
+		for (int i = 0; i < count; i++) {
+			lane.release(latencyNanos);
+		}
+	}
+
+}
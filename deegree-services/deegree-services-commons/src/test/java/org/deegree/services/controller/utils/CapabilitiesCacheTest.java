@@ -0,0 +1,216 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.deegree.services.controller.utils.CapabilitiesCache.CapabilitiesWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests for {@link CapabilitiesCache}.
+ */
+public class CapabilitiesCacheTest {
+
+	private static final byte[] CAPABILITIES = "<Capabilities version=\"1.3.0\"/>".getBytes(UTF_8);
+
+	private CapabilitiesCache cache;
+
+	private AtomicInteger writes;
+
+	private CapabilitiesWriter writer;
+
+	@Before
+	public void setUp() {
+		cache = new CapabilitiesCache();
+		writes = new AtomicInteger();
+		writer = response -> {
+			writes.incrementAndGet();
+			response.setContentType("text/xml");
+			response.getOutputStream().write(CAPABILITIES);
+		};
+	}
+
+	@Test
+	public void testKeyIgnoresIrrelevantParameters() {
+		Map<String, String> kvp = new HashMap<String, String>();
+		kvp.put("SERVICE", "WMS");
+		kvp.put("REQUEST", "GetCapabilities");
+		kvp.put("VERSION", "1.3.0");
+		kvp.put("SECTIONS", "Contents");
+		String key = CapabilitiesCache.createKey(CapabilitiesCache.getKeyParameters(kvp));
+
+		kvp.put("_", "1697712345678");
+		kvp.put("REQUEST", "getcapabilities");
+		assertEquals(key, CapabilitiesCache.createKey(CapabilitiesCache.getKeyParameters(kvp)));
+
+		kvp.put("SECTIONS", "All");
+		assertNotEquals(key, CapabilitiesCache.createKey(CapabilitiesCache.getKeyParameters(kvp)));
+		kvp.put("SECTIONS", "Contents");
+		kvp.put("LANGUAGE", "ger");
+		assertNotEquals(key, CapabilitiesCache.createKey(CapabilitiesCache.getKeyParameters(kvp)));
+	}
+
+	@Test
+	public void testETagIsDerivedFromContent() throws Exception {
+		ResponseMock response = new ResponseMock();
+		cache.send("key", request(null), response.buffer, writer);
+
+		String etag = response.getETag();
+		assertEquals("\"0-" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(CAPABILITIES))
+				+ "\"", etag);
+		assertArrayEquals(CAPABILITIES, response.getContent());
+		verify(response.mock).setContentType("text/xml");
+	}
+
+	@Test
+	public void testResponseIsCached() throws Exception {
+		ResponseMock first = new ResponseMock();
+		cache.send("key", request(null), first.buffer, writer);
+		ResponseMock second = new ResponseMock();
+		cache.send("key", request(null), second.buffer, writer);
+
+		assertEquals(1, writes.get());
+		assertEquals(first.getETag(), second.getETag());
+		assertArrayEquals(CAPABILITIES, second.getContent());
+
+		cache.send("otherKey", request(null), new ResponseMock().buffer, writer);
+		assertEquals(2, writes.get());
+	}
+
+	@Test
+	public void testNotModifiedIfNoneMatch() throws Exception {
+		ResponseMock first = new ResponseMock();
+		cache.send("key", request(null), first.buffer, writer);
+		String etag = first.getETag();
+
+		ResponseMock second = new ResponseMock();
+		cache.send("key", request("\"other\", W/" + etag), second.buffer, writer);
+		verify(second.mock).setStatus(SC_NOT_MODIFIED);
+		assertEquals(0, second.getContent().length);
+
+		ResponseMock third = new ResponseMock();
+		cache.send("key", request("\"other\""), third.buffer, writer);
+		verify(third.mock, never()).setStatus(anyInt());
+		assertArrayEquals(CAPABILITIES, third.getContent());
+	}
+
+	@Test
+	public void testInvalidateOnResourceChange() throws Exception {
+		ResponseMock first = new ResponseMock();
+		cache.send("key", request(null), first.buffer, writer);
+		String etag = first.getETag();
+
+		cache.invalidate();
+
+		ResponseMock second = new ResponseMock();
+		cache.send("key", request(etag), second.buffer, writer);
+		assertEquals(2, writes.get());
+		assertNotEquals(etag, second.getETag());
+		verify(second.mock, never()).setStatus(anyInt());
+		assertArrayEquals(CAPABILITIES, second.getContent());
+	}
+
+	@Test
+	public void testResponseOutdatedWhileWritingIsNotCached() throws Exception {
+		CapabilitiesWriter invalidatingWriter = response -> {
+			writer.write(response);
+			// e.g. a WFS transaction that is committed concurrently
+			cache.invalidate();
+		};
+		cache.send("key", request(null), new ResponseMock().buffer, invalidatingWriter);
+		cache.send("key", request(null), new ResponseMock().buffer, writer);
+		assertEquals(2, writes.get());
+	}
+
+	private HttpServletRequest request(String ifNoneMatch) {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+		return request;
+	}
+
+	private static class ResponseMock {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private final HttpServletResponse mock;
+
+		private final HttpResponseBuffer buffer;
+
+		private ResponseMock() throws IOException {
+			mock = mock(HttpServletResponse.class);
+			when(mock.getOutputStream()).thenReturn(new HttpResponseBuffer.BufferedServletOutputStream(content));
+			buffer = new HttpResponseBuffer(mock, null);
+		}
+
+		private String getETag() {
+			ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+			verify(mock).setHeader(eq("ETag"), etag.capture());
+			assertTrue(etag.getValue().startsWith("\""));
+			return etag.getValue();
+		}
+
+		private byte[] getContent() throws IOException {
+			buffer.flushBuffer();
+			return content.toByteArray();
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.config.actions;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.commons.metrics.PrometheusTextWriter;
+
+/**
+ * Exports the recorded {@link Metrics} in the Prometheus text format.
+ */
+public class ExportMetrics {
+
+	public static void exportMetrics(HttpServletResponse resp) throws IOException {
+		if (!Metrics.isEnabled()) {
+			resp.setStatus(404);
+			resp.setContentType("text/plain");
+			resp.getOutputStream().write("Metrics are disabled.\n".getBytes(UTF_8));
+			return;
+		}
+		resp.setContentType(PrometheusTextWriter.CONTENT_TYPE);
+		Writer writer = new OutputStreamWriter(resp.getOutputStream(), UTF_8);
+		PrometheusTextWriter.write(Metrics.getRegistry().getMetrics(), writer);
+	}
+
+}
@@ -0,0 +1,180 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+package org.deegree.services.config.actions;
+
+import static org.deegree.services.config.actions.Utils.getWorkspaceAndPath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.config.DeegreeWorkspace;
+import org.deegree.commons.utils.ArrayUtils;
+import org.deegree.commons.utils.Pair;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreProvider;
+import org.deegree.tile.persistence.TileStoreTransaction;
+import org.deegree.tile.persistence.seed.SeedingProgress;
+import org.deegree.tile.persistence.seed.TileSeeder;
+import org.deegree.workspace.Workspace;
+
+/**
+ * <code>Seed</code> fills a tile store with the tiles of an area, see
+ * {@link TileSeeder}. The progress is reported periodically, closing the connection
+ * cancels seeding. Seeding continues where it stopped when the request is repeated.
+ */
+public class Seed {
+
+	private static final long REPORT_INTERVAL_MILLIS = 10000;
+
+	public static void seed(String path, String qstring, HttpServletResponse resp) throws IOException {
+		Pair<DeegreeWorkspace, String> p = getWorkspaceAndPath(path);
+
+		resp.setContentType("text/plain");
+
+		String[] parts = path.split("/");
+		if (parts.length < 2) {
+			resp.setStatus(404);
+			IOUtils.write("No tile store and tile data set specified.\n", resp.getOutputStream());
+			return;
+		}
+		String id = parts[0];
+		String dataSetId = parts[1];
+		Map<String, String> params = parseQueryString(qstring);
+
+		Workspace ws = p.first.getNewWorkspace();
+		TileStore ts = ws.getResource(TileStoreProvider.class, id);
+		if (ts == null || ts.getTileDataSet(dataSetId) == null) {
+			resp.setStatus(404);
+			IOUtils.write("No such tile store or tile data set.\n", resp.getOutputStream());
+			return;
+		}
+		TileDataSet dataSet = ts.getTileDataSet(dataSetId);
+
+		TileDataSet source = dataSet;
+		TileStoreTransaction target = null;
+		if (params.containsKey("source")) {
+			String[] sourceParts = params.get("source").split("/");
+			TileStore sourceStore = ws.getResource(TileStoreProvider.class, sourceParts[0]);
+			source = sourceStore == null ? null
+					: sourceStore.getTileDataSet(sourceParts.length > 1 ? sourceParts[1] : dataSetId);
+			if (source == null) {
+				resp.setStatus(404);
+				IOUtils.write("No such source tile store or tile data set.\n", resp.getOutputStream());
+				return;
+			}
+			try {
+				target = ts.acquireTransaction(dataSetId);
+			}
+			catch (UnsupportedOperationException e) {
+				resp.setStatus(403);
+				IOUtils.write("The tile store does not support transactions.\n", resp.getOutputStream());
+				return;
+			}
+		}
+
+		final TileSeeder seeder = new TileSeeder(source, target);
+		if (params.containsKey("bbox")) {
+			double[] ds = ArrayUtils.splitAsDoubles(params.get("bbox"), ",");
+			if (ds.length != 4) {
+				resp.setStatus(404);
+				IOUtils.write("The value of the bbox parameter was invalid.\n", resp.getOutputStream());
+				return;
+			}
+			Envelope bbox = new GeometryFactory().createEnvelope(ds[0], ds[1], ds[2], ds[3], null);
+			bbox.setCoordinateSystem(
+					dataSet.getTileMatrixSet().getSpatialMetadata().getCoordinateSystems().get(0));
+			seeder.setEnvelope(bbox);
+		}
+		if (params.containsKey("levels")) {
+			seeder.setLevels(Arrays.asList(params.get("levels").split(",")));
+		}
+		if (params.containsKey("threads")) {
+			seeder.setThreads(Integer.parseInt(params.get("threads")));
+		}
+		if (params.containsKey("rate")) {
+			seeder.setMaxTilesPerSecond(Double.parseDouble(params.get("rate")));
+		}
+		seeder.setCheckpointFile(new File(p.first.getLocation(), "seeding/" + id + "_" + dataSetId + ".checkpoint"));
+
+		final OutputStream out = resp.getOutputStream();
+		seeder.setListener(progress -> {
+			try {
+				IOUtils.write(progress + "\n", out, StandardCharsets.UTF_8);
+				out.flush();
+			}
+			catch (IOException e) {
+				// client has gone away
+				seeder.cancel();
+			}
+		}, REPORT_INTERVAL_MILLIS);
+
+		try {
+			SeedingProgress progress = seeder.seed();
+			IOUtils.write("Seeding " + (progress.getPercentage() < 100 ? "cancelled" : "finished") + ".\n", out,
+					StandardCharsets.UTF_8);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			IOUtils.write("Seeding interrupted.\n", out, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static Map<String, String> parseQueryString(String qstring) throws IOException {
+		Map<String, String> params = new HashMap<String, String>();
+		if (qstring == null) {
+			return params;
+		}
+		for (String kvp : qstring.split("&")) {
+			int idx = kvp.indexOf('=');
+			if (idx > 0) {
+				params.put(kvp.substring(0, idx).toLowerCase(), URLDecoder.decode(kvp.substring(idx + 1), "UTF-8"));
+			}
+		}
+		return params;
+	}
+
+}
@@ -39,11 +39,13 @@ import static org.deegree.services.config.actions.Crs.getCodes;
 import static org.deegree.services.config.actions.Crs.listCrs;
 import static org.deegree.services.config.actions.Delete.delete;
 import static org.deegree.services.config.actions.Download.download;
+import static org.deegree.services.config.actions.ExportMetrics.exportMetrics;
 import static org.deegree.services.config.actions.Invalidate.invalidate;
 import static org.deegree.services.config.actions.List.list;
 import static org.deegree.services.config.actions.ListFonts.listFonts;
 import static org.deegree.services.config.actions.ListWorkspaces.listWorkspaces;
 import static org.deegree.services.config.actions.Restart.restart;
+import static org.deegree.services.config.actions.Seed.seed;
 import static org.deegree.services.config.actions.UpdateBboxCache.updateBboxCache;
 import static org.deegree.services.config.actions.Update.update;
 import static org.deegree.services.config.actions.Upload.upload;
@@ -106,8 +108,12 @@ public class ConfigServlet extends HttpServlet {
 					"GET /config/list/wsname[/path]                               - list workspace with name <wsname> or directory in workspace\n");
 			data.append(
 					"GET /config/invalidate/datasources/tile/id/matrixset[?bbox=] - invalidate part or all of a tile store cache's tile matrix set\n");
+			data.append(
+					"GET /config/seed/datasources/tile/id/dataset[?bbox=&levels=&threads=&rate=&source=] - seed part or all of a tile data set, resumes a previous run\n");
 			data.append(
 					"GET /config/crs/list                                         - list available CRS definitions\n");
+			data.append(
+					"GET /config/metrics                                          - export request and subsystem metrics (Prometheus text format)\n");
 			data.append(
 					"GET /config/validate[/path]                                  - validate currently running workspace or file in workspace\n");
 			data.append(
@@ -186,6 +192,10 @@ public class ConfigServlet extends HttpServlet {
 			invalidate(path.substring(29), req.getQueryString(), resp);
 		}
 
+		if (path.toLowerCase().startsWith("/seed/datasources/tile/")) {
+			seed(path.substring(23), req.getQueryString(), resp);
+		}
+
 		if (path.toLowerCase().startsWith("/delete")) {
 			delete(path.substring(7), resp);
 		}
@@ -203,6 +213,10 @@ public class ConfigServlet extends HttpServlet {
 		if (path.toLowerCase().startsWith("/validate")) {
 			validate(path.substring(9), resp);
 		}
+
+		if (path.toLowerCase().startsWith("/metrics")) {
+			exportMetrics(resp);
+		}
 	}
 
 	@Override
@@ -91,6 +91,7 @@ import org.deegree.services.controller.AbstractOWS;
 import org.deegree.services.controller.ImplementationMetadata;
 import org.deegree.services.controller.OGCFrontController;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.utils.CapabilitiesCache;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.csw.capabilities.GetCapabilities202KVPAdapter;
 import org.deegree.services.csw.capabilities.GetCapabilitiesVersionXMLAdapter;
@@ -176,6 +177,8 @@ public class CSWController extends AbstractOWS {
 
 	private DeegreeServiceControllerType mainControllerConf;
 
+	private CapabilitiesCache capabilitiesCache;
+
 	protected CSWController(ResourceMetadata<OWS> metadata, Workspace workspace, Object jaxbConfig) {
 		super(metadata, workspace, jaxbConfig);
 	}
@@ -244,6 +247,9 @@ public class CSWController extends AbstractOWS {
 						extendedCapabilities);
 			}
 		}
+		if (jaxbConfig.isEnableCapabilitiesCache() != null && jaxbConfig.isEnableCapabilitiesCache()) {
+			capabilitiesCache = new CapabilitiesCache();
+		}
 		int maxMatches = jaxbConfig.getMaxMatches() == null ? 0 : jaxbConfig.getMaxMatches().intValue();
 
 		Map<QName, ConfiguredElementName> elNames = new HashMap<QName, ConfiguredElementName>();
@@ -307,7 +313,7 @@ public class CSWController extends AbstractOWS {
 			switch (requestType) {
 				case GetCapabilities:
 					GetCapabilities getCapabilities = GetCapabilities202KVPAdapter.parse(normalizedKVPParams);
-					doGetCapabilities(getCapabilities, response, false);
+					doGetCapabilities(getCapabilities, request, response, false);
 					break;
 				case DescribeRecord:
 					DescribeRecord descRec = DescribeRecordKVPAdapter.parse(normalizedKVPParams);
@@ -471,7 +477,8 @@ public class CSWController extends AbstractOWS {
 				GetCapabilitiesVersionXMLAdapter getCapabilitiesAdapter = new GetCapabilitiesVersionXMLAdapter();
 				getCapabilitiesAdapter.setRootElement(requestElement);
 				GetCapabilities cswRequest = getCapabilitiesAdapter.parse();
-				doGetCapabilities(cswRequest, response, true);
+				// only KVP responses are cached
+				doGetCapabilities(cswRequest, null, response, true);
 				break;
 			case DescribeRecord:
 				DescribeRecordXMLAdapter describeRecordAdapter = new DescribeRecordXMLAdapter();
@@ -540,14 +547,15 @@ public class CSWController extends AbstractOWS {
 	/**
 	 * Exports the correct recognized request.
 	 * @param getCapabilitiesRequest
-	 * @param requestWrapper
+	 * @param request the http request, used for caching, may be <code>null</code> (no
+	 * caching)
 	 * @param response
 	 * @throws XMLStreamException
 	 * @throws IOException
 	 * @throws OWSException
 	 */
-	private void doGetCapabilities(GetCapabilities getCapabilitiesRequest, HttpResponseBuffer response, boolean isSoap)
-			throws XMLStreamException, IOException, OWSException {
+	private void doGetCapabilities(GetCapabilities getCapabilitiesRequest, HttpServletRequest request,
+			HttpResponseBuffer response, boolean isSoap) throws XMLStreamException, IOException, OWSException {
 		Set<Sections> sections = getSections(getCapabilitiesRequest);
 		Version negotiatedVersion = null;
 		if (getCapabilitiesRequest.getAcceptVersions() == null) {
@@ -556,6 +564,22 @@ public class CSWController extends AbstractOWS {
 		else {
 			negotiatedVersion = negotiateVersion(getCapabilitiesRequest);
 		}
+		if (capabilitiesCache != null && request != null) {
+			Version version = negotiatedVersion;
+			String key = CapabilitiesCache.createKey(version, sections, profile.getAcceptFormat(getCapabilitiesRequest),
+					getCapabilitiesRequest.getAcceptLanguages(), OGCFrontController.getHttpGetURL(),
+					OGCFrontController.getHttpPostURL());
+			capabilitiesCache.send(key, request, response,
+					capabilitiesResponse -> writeCapabilities(getCapabilitiesRequest, capabilitiesResponse, sections,
+							version));
+		}
+		else {
+			writeCapabilities(getCapabilitiesRequest, response, sections, negotiatedVersion);
+		}
+	}
+
+	private void writeCapabilities(GetCapabilities getCapabilitiesRequest, HttpResponseBuffer response,
+			Set<Sections> sections, Version negotiatedVersion) throws XMLStreamException, IOException, OWSException {
 		response.setContentType(profile.getAcceptFormat(getCapabilitiesRequest));
 		XMLStreamWriter xmlWriter = getXMLResponseWriter(response, null);
 		CapabilitiesHandler gce = profile.getCapabilitiesHandler(xmlWriter, mainMetadataConf, mainControllerConf,
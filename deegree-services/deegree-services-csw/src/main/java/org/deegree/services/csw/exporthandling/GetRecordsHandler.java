@@ -257,8 +257,12 @@ public class GetRecordsHandler {
 			SortProperty[] sortProps = cswQuery.getSortProps();
 			QName[] queryTypeNames = cswQuery.getQueryTypeNames();
 			QName[] returnTypeNames = cswQuery.getReturnTypeNames();
+			// element names can't be served from the precomputed element sets of the store
+			ReturnableElement storeElementSetName = returnElements == null || returnElements.length == 0
+					? elementSetName : null;
+			String storeOutputSchema = getRec.getOutputSchema() != null ? getRec.getOutputSchema().toString() : null;
 			query = new MetadataQuery(queryTypeNames, returnTypeNames, constraints, sortProps, startPosition,
-					maxRecords);
+					maxRecords, storeElementSetName, storeOutputSchema);
 		}
 		else {
 			// must be an AdhocQUery
@@ -263,6 +263,10 @@ class TransactionHandler {
 				LOG.debug("Committing feature store transaction:{}", ta);
 				ta.commit();
 			}
+			if (!acquiredTransactions.isEmpty()) {
+				// envelopes of the feature types may have changed
+				master.invalidateCapabilities();
+			}
 		}
 		catch (MissingParameterException e) {
 			// needed for CITE compliance (wfs:wfs-1.1.0-Transaction-tc12.1)
@@ -176,6 +176,8 @@ import org.deegree.services.controller.AbstractOWS;
 import org.deegree.services.controller.ImplementationMetadata;
 import org.deegree.services.controller.OGCFrontController;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.utils.CapabilitiesCache;
+import org.deegree.services.controller.utils.CapabilitiesCache.CapabilitiesWriter;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.encoding.LimitedSupportedEncodings;
 import org.deegree.services.encoding.SupportedEncodings;
@@ -283,6 +285,8 @@ public class WebFeatureService extends AbstractOWS {
 
 	private boolean isStrict;
 
+	private CapabilitiesCache capabilitiesCache;
+
 	public WebFeatureService(ResourceMetadata<OWS> metadata, Workspace workspace, Object jaxbConfig) {
 		super(metadata, workspace, jaxbConfig);
 	}
@@ -323,6 +327,9 @@ public class WebFeatureService extends AbstractOWS {
 		checkAreaOfUse = jaxbConfig.isQueryCheckAreaOfUse() == null ? false : jaxbConfig.isQueryCheckAreaOfUse();
 		enableResponsePaging = jaxbConfig.isEnableResponsePaging() == null ? false
 				: jaxbConfig.isEnableResponsePaging();
+		if (jaxbConfig.isEnableCapabilitiesCache() != null && jaxbConfig.isEnableCapabilitiesCache()) {
+			capabilitiesCache = new CapabilitiesCache();
+		}
 
 		service = new WfsFeatureStoreManager();
 		try {
@@ -619,7 +626,13 @@ public class WebFeatureService extends AbstractOWS {
 				}
 				else if (formatDef instanceof GeoJSONFormat) {
 					boolean allowOtherCrsThanWGS84 = ((GeoJSONFormat) formatDef).isAllowOtherCrsThanWGS84();
-					format = new GeoJsonFormat(this, allowOtherCrsThanWGS84);
+					BigInteger coordinatePrecision = ((GeoJSONFormat) formatDef).getCoordinatePrecision();
+					if (coordinatePrecision != null && coordinatePrecision.intValue() > 17) {
+						throw new ResourceInitException(
+								"Invalid coordinatePrecision of GeoJSONFormat: " + coordinatePrecision + " (max: 17)");
+					}
+					format = new GeoJsonFormat(this, allowOtherCrsThanWGS84,
+							coordinatePrecision != null ? coordinatePrecision.intValue() : -1);
 				}
 				else if (formatDef instanceof CustomFormat) {
 					CustomFormat cf = (CustomFormat) formatDef;
@@ -861,7 +874,7 @@ public class WebFeatureService extends AbstractOWS {
 					break;
 				case GetCapabilities:
 					GetCapabilities getCapabilities = GetCapabilitiesKVPParser.parse(kvpParamsUC);
-					doGetCapabilities(getCapabilities, response);
+					doGetCapabilities(getCapabilities, request, response);
 					break;
 				case GetFeature:
 					GetFeature getFeature = GetFeatureKVPAdapter.parse(kvpParamsUC, nsMap);
@@ -1020,7 +1033,7 @@ public class WebFeatureService extends AbstractOWS {
 					GetCapabilitiesXMLAdapter getCapabilitiesAdapter = new GetCapabilitiesXMLAdapter();
 					getCapabilitiesAdapter.setRootElement(new XMLAdapter(xmlStream).getRootElement());
 					GetCapabilities wfsRequest = getCapabilitiesAdapter.parse(requestVersion);
-					doGetCapabilities(wfsRequest, response);
+					doGetCapabilities(wfsRequest, request, response);
 					break;
 				case GetFeature:
 					GetFeatureXMLAdapter getFeatureAdapter = new GetFeatureXMLAdapter();
@@ -1197,7 +1210,8 @@ public class WebFeatureService extends AbstractOWS {
 					GetCapabilitiesXMLAdapter getCapabilitiesAdapter = new GetCapabilitiesXMLAdapter();
 					getCapabilitiesAdapter.setRootElement(body);
 					GetCapabilities wfsRequest = getCapabilitiesAdapter.parse(requestVersion);
-					doGetCapabilities(wfsRequest, response);
+					// SOAP responses are never cached (response is embedded in the envelope)
+					doGetCapabilities(wfsRequest, null, response);
 					break;
 				case GetFeature:
 					GetFeatureXMLAdapter getFeatureAdapter = new GetFeatureXMLAdapter();
@@ -1323,11 +1337,17 @@ public class WebFeatureService extends AbstractOWS {
 		return requestType;
 	}
 
-	private void doGetCapabilities(GetCapabilities request, HttpResponseBuffer response)
-			throws XMLStreamException, IOException, OWSException {
+	/**
+	 * @param request GetCapabilities request, must not be <code>null</code>
+	 * @param httpRequest underlying HTTP request, <code>null</code> if the response must
+	 * not be served from the capabilities cache
+	 * @param response response to write to, must not be <code>null</code>
+	 */
+	private void doGetCapabilities(GetCapabilities request, HttpServletRequest httpRequest,
+			HttpResponseBuffer response) throws XMLStreamException, IOException, OWSException {
 
 		LOG.debug("doGetCapabilities: {}", request);
-		Version negotiatedVersion = negotiateVersion(request);
+		final Version negotiatedVersion = negotiateVersion(request);
 
 		// cope with the 'All' section specifier
 		Set<String> sections = request.getSections();
@@ -1343,13 +1363,38 @@ public class WebFeatureService extends AbstractOWS {
 		if (sectionsUC != null && sectionsUC.size() == 0) {
 			sectionsUC = null;
 		}
-		final Collection<FeatureType> sortedFts = getFeatureTypesToExport();
+		final Set<String> requestedSections = sectionsUC;
+		CapabilitiesWriter capabilitiesWriter = new CapabilitiesWriter() {
+			@Override
+			public void write(HttpResponseBuffer response) throws IOException, XMLStreamException, OWSException {
+				final Collection<FeatureType> sortedFts = getFeatureTypesToExport();
+				XMLStreamWriter xmlWriter = getXMLResponseWriter(response, "text/xml", null);
+				GetCapabilitiesHandler adapter = new GetCapabilitiesHandler(WebFeatureService.this, service,
+						negotiatedVersion, xmlWriter, sortedFts, requestedSections, enableTransactions, queryCRS,
+						supportedEncodings, mdProvider);
+				adapter.export();
+				xmlWriter.flush();
+			}
+		};
+		if (capabilitiesCache != null && httpRequest != null) {
+			String key = CapabilitiesCache.createKey(negotiatedVersion, requestedSections,
+					request.getAcceptLanguages(), request.getUpdateSequence(), OGCFrontController.getHttpGetURL(),
+					OGCFrontController.getHttpPostURL());
+			capabilitiesCache.send(key, httpRequest, response, capabilitiesWriter);
+		}
+		else {
+			capabilitiesWriter.write(response);
+		}
+	}
 
-		XMLStreamWriter xmlWriter = getXMLResponseWriter(response, "text/xml", null);
-		GetCapabilitiesHandler adapter = new GetCapabilitiesHandler(this, service, negotiatedVersion, xmlWriter,
-				sortedFts, sectionsUC, enableTransactions, queryCRS, supportedEncodings, mdProvider);
-		adapter.export();
-		xmlWriter.flush();
+	/**
+	 * Invalidates the cached capabilities documents, must be called if the content of the
+	 * offered feature types has changed.
+	 */
+	void invalidateCapabilities() {
+		if (capabilitiesCache != null) {
+			capabilitiesCache.invalidate();
+		}
 	}
 
 	private Collection<FeatureType> getFeatureTypesToExport() {
@@ -36,6 +36,8 @@ package org.deegree.services.wfs.format.csv;
 
 import static org.deegree.protocol.wfs.getfeature.ResultType.RESULTS;
 
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
 import org.deegree.protocol.wfs.getfeature.GetFeature;
 import org.deegree.protocol.wfs.getfeature.ResultType;
@@ -83,7 +85,9 @@ public class CsvFormat implements Format {
 	public void doGetFeature(GetFeature request, HttpResponseBuffer response) throws Exception {
 		ResultType type = request.getPresentationParams().getResultType();
 		if (type == RESULTS || type == null) {
-			this.csvGetFeatureHandler.doGetFeatureResults(request, response);
+			try (Span span = Tracing.start("wfs.getfeature").setAttribute("deegree.format", "csv")) {
+				this.csvGetFeatureHandler.doGetFeatureResults(request, response);
+			}
 		}
 		else {
 			throw new UnsupportedOperationException("GetFeature with RESULTTYPE=HITS for CSV is not supported");
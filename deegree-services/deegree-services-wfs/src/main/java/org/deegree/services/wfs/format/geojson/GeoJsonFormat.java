@@ -2,6 +2,8 @@ package org.deegree.services.wfs.format.geojson;
 
 import static org.deegree.protocol.wfs.getfeature.ResultType.RESULTS;
 
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
 import org.deegree.protocol.wfs.getfeature.GetFeature;
 import org.deegree.protocol.wfs.getfeature.ResultType;
@@ -23,6 +25,8 @@ public class GeoJsonFormat implements Format {
 
 	private boolean allowOtherCrsThanWGS84;
 
+	private int coordinatePrecision = -1;
+
 	/**
 	 * Instantiate {@link GeoJsonFormat}
 	 * @param webFeatureService the {@link WebFeatureService} using this format, never
@@ -45,6 +49,22 @@ public class GeoJsonFormat implements Format {
 		this.allowOtherCrsThanWGS84 = allowOtherCrsThanWGS84;
 	}
 
+	/**
+	 * Instantiate {@link GeoJsonFormat}
+	 * @param webFeatureService the {@link WebFeatureService} using this format, never
+	 * <code>null</code>
+	 * @param allowOtherCrsThanWGS84 <code>true</code> if the DefaultCRS of the WFS or the
+	 * CRS of the GetFeature request should be used, otherwise <code>false</code> (default
+	 * is WGS84 as specified in GeoJson)
+	 * @param coordinatePrecision maximum number of fraction digits of the coordinates
+	 * (0 to 17), -1 for full precision
+	 */
+	public GeoJsonFormat(WebFeatureService webFeatureService, boolean allowOtherCrsThanWGS84,
+			int coordinatePrecision) {
+		this(webFeatureService, allowOtherCrsThanWGS84);
+		this.coordinatePrecision = coordinatePrecision;
+	}
+
 	@Override
 	public void destroy() {
 		// nothing to do
@@ -55,7 +75,10 @@ public class GeoJsonFormat implements Format {
 
 		ResultType type = request.getPresentationParams().getResultType();
 		if (type == RESULTS || type == null) {
-			geoJsonGetFeatureHandler.doGetFeatureResults(request, response, allowOtherCrsThanWGS84);
+			try (Span span = Tracing.start("wfs.getfeature").setAttribute("deegree.format", "geojson")) {
+				geoJsonGetFeatureHandler.doGetFeatureResults(request, response, allowOtherCrsThanWGS84,
+						coordinatePrecision);
+			}
 		}
 		else {
 			throw new UnsupportedOperationException("GetFeature with RESULTTYPE=HITS for GeoJSON is not supported");
@@ -39,12 +39,18 @@ public class GeoJsonGetFeatureHandler {
 
 	public void doGetFeatureResults(GetFeature request, HttpResponseBuffer response, boolean allowOtherCrsThanWGS84)
 			throws Exception {
+		doGetFeatureResults(request, response, allowOtherCrsThanWGS84, -1);
+	}
+
+	public void doGetFeatureResults(GetFeature request, HttpResponseBuffer response, boolean allowOtherCrsThanWGS84,
+			int coordinatePrecision) throws Exception {
 		QueryAnalyzer analyzer = new QueryAnalyzer(request.getQueries(), webFeatureService,
 				webFeatureService.getStoreManager(), webFeatureService.getCheckAreaOfUse());
 		response.setCharacterEncoding(Charset.defaultCharset().name());
 		response.setContentType(determineMimeType(request));
 		ICRS requestedCRS = determineCrs(analyzer, allowOtherCrsThanWGS84);
-		try (GeoJsonFeatureWriter geoJsonStreamWriter = new GeoJsonWriter(response.getWriter(), requestedCRS)) {
+		try (GeoJsonFeatureWriter geoJsonStreamWriter = new GeoJsonWriter(response.getWriter(), requestedCRS, false,
+				coordinatePrecision)) {
 			geoJsonStreamWriter.startFeatureCollection();
 			int startIndex = getStartIndex(request);
 			int maxFeatures = getMaxFeatures(request);
@@ -47,6 +47,8 @@ import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 
 import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.commons.xml.NamespaceBindings;
 import org.deegree.geometry.SFSProfiler;
 import org.deegree.geometry.io.CoordinateFormatter;
@@ -54,6 +56,7 @@ import org.deegree.geometry.io.DecimalCoordinateFormatter;
 import org.deegree.geometry.linearization.MaxErrorCriterion;
 import org.deegree.gml.GMLVersion;
 import org.deegree.gml.schema.GMLSchemaInfoSet;
+import org.deegree.gml.schema.GMLSchemaInfoSetCache;
 import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
 import org.deegree.protocol.wfs.getfeature.GetFeature;
 import org.deegree.protocol.wfs.getfeature.ResultType;
@@ -259,7 +262,10 @@ public class GmlFormat implements Format {
 	public void doGetFeature(GetFeature request, HttpResponseBuffer response) throws Exception {
 		ResultType type = request.getPresentationParams().getResultType();
 		if (type == RESULTS || type == null) {
-			gfHandler.doGetFeatureResults(request, response);
+			// features are fetched lazily while writing, so this covers both
+			try (Span span = Tracing.start("wfs.getfeature").setAttribute("deegree.format", "gml")) {
+				gfHandler.doGetFeatureResults(request, response);
+			}
 		}
 		else {
 			gfHandler.doGetFeatureHits(request, response);
@@ -301,7 +307,7 @@ public class GmlFormat implements Format {
 	private GMLSchemaInfoSet createGmlSchemaInfoSet(GMLVersion gmlVersion, GetFeatureResponse responseConfig) {
 		try {
 			URL url = this.master.getMetadata().getLocation().resolveToUrl(responseConfig.getSchemaLocation());
-			return new GMLSchemaInfoSet(gmlVersion, url.toString());
+			return GMLSchemaInfoSetCache.get(gmlVersion, url.toString());
 		}
 		catch (Exception e) {
 			throw new ResourceInitException("Error resolving of initializing schema location: " + e.getMessage(), e);
@@ -59,12 +59,14 @@ import static org.deegree.services.wfs.query.StoredQueryHandler.GET_FEATURE_BY_I
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.FactoryConfigurationError;
@@ -90,6 +92,7 @@ import org.deegree.feature.persistence.lock.Lock;
 import org.deegree.feature.persistence.lock.LockManager;
 import org.deegree.feature.persistence.query.Query;
 import org.deegree.feature.stream.FeatureInputStream;
+import org.deegree.feature.stream.ParallelFeatureInputStream;
 import org.deegree.filter.FilterEvaluationException;
 import org.deegree.filter.projection.ProjectionClause;
 import org.deegree.filter.projection.PropertyName;
@@ -514,10 +517,11 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 		Map<FeatureStore, List<Query>> analysedQueries = analyzer.getQueries();
 		boolean applyMaxFeaturesAndStartIndex = checkIfMaxFeaturesAndStartIndexMustBeApplied(analysedQueries);
 		GmlXlinkOptions resolveState = gmlStream.getReferenceResolveStrategy().getResolveOptions();
+		FeatureInputStream parallelRs = queryStoresInParallel(analysedQueries);
 		for (Map.Entry<FeatureStore, List<Query>> fsToQueries : analysedQueries.entrySet()) {
 			FeatureStore fs = fsToQueries.getKey();
 			Query[] queries = fsToQueries.getValue().toArray(new Query[fsToQueries.getValue().size()]);
-			FeatureInputStream rs = fs.query(queries);
+			FeatureInputStream rs = parallelRs != null ? parallelRs : fs.query(queries);
 			try {
 				for (Feature member : rs) {
 					if (lock != null && !lock.isLocked(member.getId())) {
@@ -545,7 +549,30 @@ public class GmlGetFeatureHandler extends AbstractGmlRequestHandler {
 				LOG.debug("Closing FeatureResultSet (stream)");
 				rs.close();
 			}
+			if (parallelRs != null) {
+				// contains the features of all stores
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Starts the queries of all feature stores concurrently, if enabled.
+	 * @param analysedQueries queries per feature store, must not be <code>null</code>
+	 * @return stream that returns the features of the stores in the order of the map, or
+	 * <code>null</code> if the stores should be queried one after another
+	 */
+	private FeatureInputStream queryStoresInParallel(Map<FeatureStore, List<Query>> analysedQueries) {
+		if (!ParallelFeatureInputStream.isEnabled() || analysedQueries.size() < 2) {
+			return null;
+		}
+		List<Callable<FeatureInputStream>> storeQueries = new ArrayList<Callable<FeatureInputStream>>();
+		for (Map.Entry<FeatureStore, List<Query>> fsToQueries : analysedQueries.entrySet()) {
+			FeatureStore fs = fsToQueries.getKey();
+			Query[] queries = fsToQueries.getValue().toArray(new Query[fsToQueries.getValue().size()]);
+			storeQueries.add(() -> fs.query(queries));
 		}
+		return new ParallelFeatureInputStream(storeQueries);
 	}
 
 	private void writeFeatureMembersCached(Version wfsVersion, GMLStreamWriter gmlStream, QueryAnalyzer analyzer,
@@ -46,30 +46,44 @@ import static java.awt.RenderingHints.VALUE_ANTIALIAS_ON;
 import static java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON;
 import static org.deegree.cs.i18n.Messages.get;
 import static org.deegree.style.utils.ImageUtils.postprocessPng8bit;
+import static org.slf4j.LoggerFactory.getLogger;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.utils.Pair;
 import org.deegree.layer.LayerRef;
+import org.deegree.layer.metadata.LayerMetadata;
 import org.deegree.protocol.wms.ops.GetLegendGraphic;
 import org.deegree.rendering.r2d.legends.Legends;
 import org.deegree.style.StyleRef;
 import org.deegree.style.se.unevaluated.Style;
 import org.deegree.theme.Theme;
+import org.slf4j.Logger;
 
 /**
  * Produces legends for the map service.
+ * <p>
+ * Encoded legends are kept in a size-bounded {@link LegendCache}, which can be filled
+ * for all configured styles in advance using {@link #warm(LegendEncoder, String)}.
+ * </p>
  *
  * @author <a href="mailto:schmitz@occamlabs.de">Andreas Schmitz</a>
  */
 class GetLegendHandler {
 
-	private HashMap<Style, Pair<Integer, Integer>> legendSizes = new HashMap<Style, Pair<Integer, Integer>>();
+	private static final Logger LOG = getLogger(GetLegendHandler.class);
 
-	private HashMap<Style, HashMap<String, BufferedImage>> legends = new HashMap<Style, HashMap<String, BufferedImage>>();
+	private final Map<Style, Pair<Integer, Integer>> legendSizes = new ConcurrentHashMap<Style, Pair<Integer, Integer>>();
+
+	private final LegendCache cache = new LegendCache(LegendCache.DEFAULT_MAX_BYTES);
 
 	private MapService service;
 
@@ -79,9 +93,84 @@ class GetLegendHandler {
 
 	BufferedImage getLegend(GetLegendGraphic req) throws OWSException {
 		Legends renderer = new Legends(req.getLegendOptions());
+		Style style = findLegendStyle(req.getLayer(), req.getStyle());
+		setSize(req, renderer, style);
+		return buildLegend(req, renderer, style);
+	}
 
+	/**
+	 * @param req
+	 * @param encoder used to encode the legend if it is not cached yet
+	 * @return the encoded legend, never <code>null</code>
+	 * @throws OWSException
+	 * @throws IOException
+	 */
+	byte[] getEncodedLegend(GetLegendGraphic req, LegendEncoder encoder) throws OWSException, IOException {
+		Legends renderer = new Legends(req.getLegendOptions());
 		Style style = findLegendStyle(req.getLayer(), req.getStyle());
+		setSize(req, renderer, style);
+
+		byte[] legend = cache.get(style, req.getWidth(), req.getHeight(), req.getFormat(), req.getLegendOptions());
+		if (legend == null) {
+			legend = encoder.encode(buildLegend(req, renderer, style), req.getFormat());
+			cache.put(style, req.getWidth(), req.getHeight(), req.getFormat(), req.getLegendOptions(), legend);
+		}
+		return legend;
+	}
 
+	/**
+	 * Renders and caches the legends of all styles of all themes with default size and
+	 * options.
+	 * @param encoder used to encode the legends
+	 * @param format output format of the legends
+	 */
+	void warm(LegendEncoder encoder, String format) {
+		long start = System.currentTimeMillis();
+		int count = 0;
+		for (Map.Entry<String, Theme> theme : service.themeMap.entrySet()) {
+			String layerName = theme.getKey();
+			LayerMetadata md = theme.getValue().getLayerMetadata();
+			if (layerName == null || md == null) {
+				continue;
+			}
+			Set<String> styleNames = new LinkedHashSet<String>(md.getStyles().keySet());
+			styleNames.addAll(md.getLegendStyles().keySet());
+			for (String styleName : styleNames) {
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				Map<String, String> map = new HashMap<String, String>();
+				map.put("LAYER", layerName);
+				map.put("STYLE", styleName);
+				map.put("FORMAT", format);
+				try {
+					getEncodedLegend(new GetLegendGraphic(map), encoder);
+					++count;
+				}
+				catch (Exception e) {
+					LOG.debug("Could not prepare legend for style {} of layer {}: {}", styleName, layerName,
+							e.getLocalizedMessage());
+					LOG.trace("Stack trace:", e);
+				}
+			}
+		}
+		LOG.debug("Prepared {} legends ({} bytes) in {} ms.", count, cache.getBytes(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Removes all cached legends.
+	 */
+	void clear() {
+		cache.clear();
+		legendSizes.clear();
+	}
+
+	Pair<Integer, Integer> getLegendSize(Style style) {
+		return legendSizes.computeIfAbsent(style, s -> new Legends().getLegendSize(s));
+	}
+
+	private void setSize(GetLegendGraphic req, Legends renderer, Style style) {
 		Pair<Integer, Integer> size;
 		if (renderer.getLegendOptions().isDefault()) {
 			size = getLegendSize(style);
@@ -96,30 +185,6 @@ class GetLegendHandler {
 		if (req.getHeight() == -1) {
 			req.setHeight(size.second);
 		}
-
-		boolean originalSize = req.getWidth() == size.first && req.getHeight() == size.second
-				&& renderer.getLegendOptions().isDefault();
-
-		HashMap<String, BufferedImage> legendMap = legends.get(style);
-		if (originalSize && legendMap != null && legendMap.get(req.getFormat()) != null) {
-			return legendMap.get(req.getFormat());
-		}
-		if (legendMap == null) {
-			legendMap = new HashMap<String, BufferedImage>();
-			legends.put(style, legendMap);
-		}
-
-		return buildLegend(req, renderer, style, originalSize, legendMap);
-	}
-
-	Pair<Integer, Integer> getLegendSize(Style style) {
-		Pair<Integer, Integer> res = legendSizes.get(style);
-		if (res != null) {
-			return res;
-		}
-
-		legendSizes.put(style, res = new Legends().getLegendSize(style));
-		return res;
 	}
 
 	private Style findLegendStyle(LayerRef layer, StyleRef styleRef) throws OWSException {
@@ -142,8 +207,7 @@ class GetLegendHandler {
 		return style;
 	}
 
-	private BufferedImage buildLegend(GetLegendGraphic req, Legends renderer, Style style, boolean originalSize,
-			HashMap<String, BufferedImage> legendMap) {
+	private BufferedImage buildLegend(GetLegendGraphic req, Legends renderer, Style style) {
 		BufferedImage img = service.prepareImage(req);
 		Graphics2D g = img.createGraphics();
 		g.setRenderingHint(KEY_ANTIALIASING, VALUE_ANTIALIAS_ON);
@@ -157,10 +221,6 @@ class GetLegendHandler {
 				|| req.getFormat().equals("image/gif")) {
 			img = postprocessPng8bit(img);
 		}
-
-		if (originalSize) {
-			legendMap.put(req.getFormat(), img);
-		}
 		return img;
 	}
 
@@ -0,0 +1,197 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wms;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.deegree.rendering.r2d.legends.LegendOptions;
+import org.deegree.style.se.unevaluated.Style;
+
+/**
+ * Thread-safe cache for encoded legend images.
+ * <p>
+ * Entries are identified by the style, the legend size, the output format and the
+ * legend options. The cache is bounded by the total number of cached bytes, if the
+ * limit is exceeded, the least recently used legends are removed. Styles are compared
+ * by identity, so legends of a reloaded style are never served from the cache.
+ * </p>
+ */
+class LegendCache {
+
+	static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+	private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+
+	private final long maxBytes;
+
+	private long bytes;
+
+	/**
+	 * @param maxBytes maximum total size of the cached legends, single legends larger
+	 * than a quarter of this size are not cached at all
+	 */
+	LegendCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @param style
+	 * @param width
+	 * @param height
+	 * @param format
+	 * @param opts
+	 * @return the encoded legend, or <code>null</code>, if it is not cached
+	 */
+	byte[] get(Style style, int width, int height, String format, LegendOptions opts) {
+		Key key = new Key(style, width, height, format, opts);
+		synchronized (entries) {
+			return entries.get(key);
+		}
+	}
+
+	/**
+	 * @param style
+	 * @param width
+	 * @param height
+	 * @param format
+	 * @param opts
+	 * @param legend the encoded legend, must not be <code>null</code>
+	 */
+	void put(Style style, int width, int height, String format, LegendOptions opts, byte[] legend) {
+		if (legend.length > maxBytes / 4) {
+			return;
+		}
+		Key key = new Key(style, width, height, format, opts);
+		synchronized (entries) {
+			byte[] old = entries.put(key, legend);
+			if (old != null) {
+				bytes -= old.length;
+			}
+			bytes += legend.length;
+			Iterator<byte[]> it = entries.values().iterator();
+			while (bytes > maxBytes && it.hasNext()) {
+				bytes -= it.next().length;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached legends.
+	 */
+	void clear() {
+		synchronized (entries) {
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * @return the number of cached legends
+	 */
+	int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @return the total size of the cached legends in bytes
+	 */
+	long getBytes() {
+		synchronized (entries) {
+			return bytes;
+		}
+	}
+
+	private static final class Key {
+
+		private final Style style;
+
+		private final int width, height;
+
+		private final String format;
+
+		private final int spacing, textSize, baseWidth, baseHeight;
+
+		private final int hashCode;
+
+		private Key(Style style, int width, int height, String format, LegendOptions opts) {
+			this.style = style;
+			this.width = width;
+			this.height = height;
+			this.format = format;
+			this.spacing = opts.spacing;
+			this.textSize = opts.textSize;
+			this.baseWidth = opts.baseWidth;
+			this.baseHeight = opts.baseHeight;
+			int h = System.identityHashCode(style);
+			h = 31 * h + width;
+			h = 31 * h + height;
+			h = 31 * h + format.hashCode();
+			h = 31 * h + spacing;
+			h = 31 * h + textSize;
+			h = 31 * h + baseWidth;
+			h = 31 * h + baseHeight;
+			hashCode = h;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return style == k.style && width == k.width && height == k.height && format.equals(k.format)
+					&& spacing == k.spacing && textSize == k.textSize && baseWidth == k.baseWidth
+					&& baseHeight == k.baseHeight;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+	}
+
+}
@@ -58,7 +58,11 @@ import java.util.ListIterator;
 
 import javax.imageio.ImageIO;
 
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.commons.metrics.Timer;
 import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.commons.tracing.Span;
+import org.deegree.commons.tracing.Tracing;
 import org.deegree.commons.utils.Pair;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.feature.Feature;
@@ -124,6 +128,10 @@ public class MapService {
 
 	private final RequestedLayerVisibilityInspector visibilityInspector;
 
+	private final String serviceId;
+
+	private final Timer renderTimer;
+
 	/**
 	 * @param conf
 	 * @param workspace
@@ -137,6 +145,9 @@ public class MapService {
 		this.updateSequence = updateSequence;
 		this.getLegendGraphicBackgroundColor = getLegendGraphicBackgroundColor;
 		this.registry = new StyleRegistry();
+		this.serviceId = metadata != null ? metadata.getIdentifier().getId() : "unknown";
+		this.renderTimer = Metrics.timer("deegree_wms_render_seconds",
+				"Duration of rendering GetMap requests (without encoding)", "service", serviceId);
 
 		MapServiceBuilder builder = new MapServiceBuilder(conf);
 
@@ -236,32 +247,54 @@ public class MapService {
 			.set(EnvFunction.parse(gm.getParameterMap(), gm.getBoundingBox(), gm.getCoordinateSystem(), gm.getWidth(),
 					gm.getHeight(), scale));
 
+		long start = renderTimer.start();
+		Span span = Tracing.start("wms.getmap");
 		try {
-			List<LayerData> layerDataList = checkStyleValidAndBuildLayerDataList(gm, headers, scale, queryIter);
+			List<String> layerNames = new ArrayList<String>();
+			List<LayerData> layerDataList = checkStyleValidAndBuildLayerDataList(gm, headers, scale, queryIter,
+					layerNames);
 			Iterator<MapOptions> optIter = mapOptions.iterator();
+			Iterator<String> layerNameIter = layerNames.iterator();
 			for (LayerData d : layerDataList) {
 				ctx.applyOptions(optIter.next());
-				try {
+				String layerName = layerNameIter.next();
+				Timer layerTimer = getLayerTimer(layerName);
+				long layerStart = layerTimer.start();
+				try (Span layerSpan = Tracing.start("layer").setAttribute("deegree.layer", layerName)) {
 					d.render(ctx);
 				}
 				catch (InterruptedException e) {
 					String msg = "Request time-out.";
 					throw new OWSException(msg, NO_APPLICABLE_CODE);
 				}
+				finally {
+					layerTimer.stop(layerStart);
+				}
+			}
+			try (Span labelSpan = Tracing.start("label.placement")) {
+				ctx.optimizeAndDrawLabels();
 			}
-			ctx.optimizeAndDrawLabels();
 			if (copyright != null) {
 				ctx.paintCopyright(copyright, gm.getHeight());
 			}
 		}
 		finally {
+			span.close();
+			renderTimer.stop(start);
 			ScaleFunction.getCurrentScaleValue().remove();
 			EnvFunction.getCurrentEnvValue().remove();
 		}
 	}
 
+	private Timer getLayerTimer(String layerName) {
+		return Metrics.timer("deegree_wms_layer_render_seconds",
+				"Duration of fetching the data of a layer and rendering it", "service", serviceId, "layer",
+				layerName == null ? "inline" : layerName);
+	}
+
 	private List<LayerData> checkStyleValidAndBuildLayerDataList(org.deegree.protocol.wms.ops.GetMap gm,
-			List<String> headers, double scale, ListIterator<LayerQuery> queryIter) throws OWSException {
+			List<String> headers, double scale, ListIterator<LayerQuery> queryIter, List<String> layerNames)
+			throws OWSException {
 		List<LayerData> layerDataList = new ArrayList<LayerData>();
 		for (LayerRef lr : gm.getLayers()) {
 			LayerQuery query = queryIter.next();
@@ -286,6 +319,7 @@ public class MapService {
 				}
 				if (layer.isStyleApplicable(query.getStyle())) {
 					layerDataList.add(layer.mapQuery(query, headers));
+					layerNames.add(layer.getMetadata().getName());
 				}
 			}
 		}
@@ -424,6 +458,35 @@ public class MapService {
 		return getLegendHandler.getLegend(req);
 	}
 
+	/**
+	 * @param req the legend request, must not be <code>null</code>
+	 * @param encoder used to encode the legend if it is not cached yet
+	 * @return the encoded legend, ready to be sent to the client
+	 * @throws OWSException
+	 * @throws IOException
+	 */
+	public byte[] getEncodedLegend(GetLegendGraphic req, LegendEncoder encoder) throws OWSException, IOException {
+		return getLegendHandler.getEncodedLegend(req, encoder);
+	}
+
+	/**
+	 * Renders and caches the legends of all configured styles with default size and
+	 * options. Stops early if the calling thread is interrupted.
+	 * @param encoder used to encode the legends
+	 * @param format output format of the legends
+	 */
+	public void warmLegendCache(LegendEncoder encoder, String format) {
+		getLegendHandler.warm(encoder, format);
+	}
+
+	/**
+	 * Removes all cached legends, must be called if styles are changed without
+	 * recreating the map service.
+	 */
+	public void clearLegendCache() {
+		getLegendHandler.clear();
+	}
+
 	/**
 	 * @return the extensions object with default extension parameter settings
 	 */
@@ -34,7 +34,6 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.services.wms.controller;
 
-import static javax.imageio.ImageIO.write;
 import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
 import static org.deegree.commons.ows.exception.OWSException.OPERATION_NOT_SUPPORTED;
 import static org.deegree.commons.utils.ArrayUtils.join;
@@ -128,6 +127,7 @@ import org.deegree.protocol.wms.ops.GetMap;
 import org.deegree.rendering.r2d.ImageSerializer;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.rendering.r2d.context.RenderingInfo;
+import org.deegree.rendering.r2d.encoding.ImageEncoders;
 import org.deegree.services.OWS;
 import org.deegree.services.OWSProvider;
 import org.deegree.services.OwsManager;
@@ -136,6 +136,7 @@ import org.deegree.services.controller.ImplementationMetadata;
 import org.deegree.services.controller.OGCFrontController;
 import org.deegree.services.controller.exception.serializer.ExceptionSerializer;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.utils.CapabilitiesCache;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.controller.utils.StandardFeatureInfoContext;
 import org.deegree.services.encoding.SupportedEncodings;
@@ -156,6 +157,7 @@ import org.deegree.services.jaxb.wms.GetMapFormatsType;
 import org.deegree.services.jaxb.wms.ServiceConfigurationType;
 import org.deegree.services.metadata.OWSMetadataProvider;
 import org.deegree.services.metadata.provider.OWSMetadataProviderProvider;
+import org.deegree.services.wms.LegendEncoder;
 import org.deegree.services.wms.MapService;
 import org.deegree.services.wms.controller.capabilities.serialize.CapabilitiesManager;
 import org.deegree.services.wms.controller.exceptions.ExceptionsManager;
@@ -166,7 +168,6 @@ import org.deegree.services.wms.controller.plugins.OutputFormatProvider;
 import org.deegree.services.wms.utils.GetMapLimitChecker;
 import org.deegree.services.wms.utils.SupportedEncodingsParser;
 import org.deegree.style.StyleRef;
-import org.deegree.style.utils.ColorQuantizer;
 import org.deegree.workspace.ResourceInitException;
 import org.deegree.workspace.ResourceMetadata;
 import org.deegree.workspace.Workspace;
@@ -188,6 +189,8 @@ public class WMSController extends AbstractOWS {
 
 	protected MapService service;
 
+	private Thread legendWarmer;
+
 	protected ServiceIdentification identification;
 
 	protected ServiceProvider provider;
@@ -222,6 +225,8 @@ public class WMSController extends AbstractOWS {
 
 	private boolean isStrict;
 
+	private CapabilitiesCache capabilitiesCache;
+
 	public WMSController(ResourceMetadata<OWS> metadata, Workspace workspace, DeegreeWMS jaxbConfig) {
 		super(metadata, workspace, jaxbConfig);
 		capabilitiesManager = new CapabilitiesManager(isAddCapabilitiesDefaultFormatsEnabled(jaxbConfig));
@@ -342,6 +347,11 @@ public class WMSController extends AbstractOWS {
 
 			supportedEncodings = new SupportedEncodingsParser().parseEncodings(conf);
 			isStrict = conf.isStrict() != null ? conf.isStrict() : false;
+			if (conf.isEnableCapabilitiesCache() != null && conf.isEnableCapabilitiesCache()) {
+				capabilitiesCache = new CapabilitiesCache();
+			}
+
+			startLegendWarmer();
 		}
 		catch (Exception e) {
 			throw new ResourceInitException(e.getMessage(), e);
@@ -455,7 +465,7 @@ public class WMSController extends AbstractOWS {
 							OPERATION_NOT_SUPPORTED);
 				case capabilities:
 				case GetCapabilities:
-					getCapabilities(map, response);
+					getCapabilities(map, request, response);
 					break;
 				case GetFeatureInfo:
 					getFeatureInfo(map, response, version);
@@ -518,8 +528,32 @@ public class WMSController extends AbstractOWS {
 		if (!supportedImageFormats.contains(glg.getFormat())) {
 			throw new OWSException(get("WMS.UNSUPPORTED_IMAGE_FORMAT", glg.getFormat()), OWSException.INVALID_FORMAT);
 		}
-		BufferedImage img = service.getLegend(glg);
-		sendImage(img, response, glg.getFormat());
+		byte[] legend = service.getEncodedLegend(glg, legendEncoder);
+		response.setContentType(glg.getFormat());
+		response.getOutputStream().write(legend);
+	}
+
+	private final LegendEncoder legendEncoder = new LegendEncoder() {
+		@Override
+		public byte[] encode(BufferedImage img, String format) throws OWSException, IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			writeImage(img, out, format);
+			return out.toByteArray();
+		}
+	};
+
+	private void startLegendWarmer() {
+		if (!supportedImageFormats.contains("image/png")) {
+			return;
+		}
+		legendWarmer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				service.warmLegendCache(legendEncoder, "image/png");
+			}
+		}, "wms-legend-warmer");
+		legendWarmer.setDaemon(true);
+		legendWarmer.start();
 	}
 
 	private void getFeatureInfo(Map<String, String> map, final HttpResponseBuffer response, Version version)
@@ -639,7 +673,7 @@ public class WMSController extends AbstractOWS {
 		getMapLimitChecker.checkRequestedSizeAndLayerCount(gm, conf);
 	}
 
-	protected void getCapabilities(Map<String, String> map, HttpResponseBuffer response)
+	protected void getCapabilities(Map<String, String> map, HttpServletRequest request, HttpResponseBuffer response)
 			throws OWSException, IOException {
 		String version = map.get("VERSION");
 		// not putting it into the bean, why should I? It's used just a few lines below...
@@ -649,7 +683,7 @@ public class WMSController extends AbstractOWS {
 			version = map.get("WMTVER");
 		}
 		GetCapabilities req = new GetCapabilities(version);
-		doGetCapabilities(map, response, updateSequence, req);
+		doGetCapabilities(map, request, response, updateSequence, req);
 	}
 
 	@Override
@@ -673,7 +707,8 @@ public class WMSController extends AbstractOWS {
 					getCapabilitiesXMLAdapter.setRootElement(new XMLAdapter(xmlStream).getRootElement());
 					GetCapabilities getCapabilities = getCapabilitiesXMLAdapter.parse(requestVersion);
 					String updateSequence = getCapabilities.getUpdateSequence();
-					doGetCapabilities(new HashMap<String, String>(), response, updateSequence, getCapabilities);
+					doGetCapabilities(new HashMap<String, String>(), request, response, updateSequence,
+							getCapabilities);
 					break;
 				case GetMap:
 					GetMapParser getMapParser = new GetMapParser();
@@ -734,7 +769,9 @@ public class WMSController extends AbstractOWS {
 						getCapabilitiesXMLAdapter.setRootElement(body);
 						GetCapabilities getCapabilities = getCapabilitiesXMLAdapter.parse(requestVersion);
 						String updateSequence = getCapabilities.getUpdateSequence();
-						doGetCapabilities(new HashMap<String, String>(), response, updateSequence, getCapabilities);
+						// SOAP responses are never cached
+						doGetCapabilities(new HashMap<String, String>(), null, response, updateSequence,
+								getCapabilities);
 						break;
 					case GetFeatureInfo:
 						GetFeatureInfoParser getFeatureInfoParser = new GetFeatureInfoParser();
@@ -770,23 +807,18 @@ public class WMSController extends AbstractOWS {
 	public void sendImage(BufferedImage img, HttpResponseBuffer response, String format)
 			throws OWSException, IOException {
 		response.setContentType(format);
+		writeImage(img, response.getOutputStream(), format);
+	}
 
+	private void writeImage(BufferedImage img, OutputStream out, String format) throws OWSException, IOException {
 		ImageSerializer serializer = imageSerializers.get(format);
 		if (serializer != null) {
-			serializer.serialize(null, img, response.getOutputStream());
+			serializer.serialize(null, img, out);
 			return;
 		}
 
-		format = format.substring(format.indexOf("/") + 1);
-		if (format.equals("x-ms-bmp")) {
-			format = "bmp";
-		}
-		if (format.equals("png; subtype=8bit") || format.equals("png; mode=8bit")) {
-			img = ColorQuantizer.quantizeImage(img, 256, false, false);
-			format = "png";
-		}
 		LOG.debug("Sending in format {}", format);
-		if (!write(img, format, response.getOutputStream())) {
+		if (!ImageEncoders.encode(img, format, null, out)) {
 			throw new OWSException(get("WMS.CANNOT_ENCODE_IMAGE", format), OWSException.NO_APPLICABLE_CODE);
 		}
 	}
@@ -877,27 +909,46 @@ public class WMSController extends AbstractOWS {
 		validateAndSetOfferedVersions(versions);
 	}
 
-	private void doGetCapabilities(Map<String, String> map, HttpResponseBuffer response, String updateSequence,
-			GetCapabilities req) throws OWSException, IOException {
+	private void doGetCapabilities(Map<String, String> map, HttpServletRequest request, HttpResponseBuffer response,
+			String updateSequence, GetCapabilities req) throws OWSException, IOException {
 		Version myVersion = negotiateVersion(req);
 
 		String getUrl = OGCFrontController.getHttpGetURL();
 		String postUrl = OGCFrontController.getHttpPostURL();
 
+		if (capabilitiesCache != null && request != null) {
+			String key = CapabilitiesCache.createKey(myVersion, CapabilitiesCache.getKeyParameters(map), updateSequence,
+					service.getCurrentUpdateSequence(), getUrl, postUrl);
+			try {
+				capabilitiesCache.send(key, request, response,
+						capabilitiesResponse -> writeCapabilities(map, capabilitiesResponse, updateSequence, myVersion,
+								getUrl, postUrl));
+			}
+			catch (XMLStreamException e) {
+				throw new OWSException(e.getMessage(), NO_APPLICABLE_CODE);
+			}
+		}
+		else {
+			writeCapabilities(map, response, updateSequence, myVersion, getUrl, postUrl);
+		}
+
+		response.flushBuffer(); // TODO remove this to enable validation, enable
+								// validation on a DTD basis...
+	}
+
+	private void writeCapabilities(Map<String, String> map, HttpResponseBuffer response, String updateSequence,
+			Version version, String getUrl, String postUrl) throws OWSException, IOException {
 		if (metadataProvider != null) {
-			controllers.get(myVersion)
+			controllers.get(version)
 				.getCapabilities(getUrl, postUrl, updateSequence, service, response,
 						metadataProvider.getServiceIdentification(), metadataProvider.getServiceProvider(), map, this,
 						metadataProvider);
 		}
 		else {
-			controllers.get(myVersion)
+			controllers.get(version)
 				.getCapabilities(getUrl, postUrl, updateSequence, service, response, identification, provider, map,
 						this, null);
 		}
-
-		response.flushBuffer(); // TODO remove this to enable validation, enable
-								// validation on a DTD basis...
 	}
 
 	private void doGetMap(Map<String, String> map, HttpResponseBuffer response, Version version, GetMap gm)
@@ -1290,7 +1341,12 @@ public class WMSController extends AbstractOWS {
 
 	@Override
 	public void destroy() {
-		// nothing to do
+		if (legendWarmer != null) {
+			legendWarmer.interrupt();
+		}
+		if (service != null) {
+			service.clearLegendCache();
+		}
 	}
 
 }
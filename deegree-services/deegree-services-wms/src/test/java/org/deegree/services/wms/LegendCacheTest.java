@@ -0,0 +1,117 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.deegree.rendering.r2d.legends.LegendOptions;
+import org.deegree.style.se.unevaluated.Style;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LegendCache}.
+ */
+public class LegendCacheTest {
+
+	@Test
+	public void testGetSameKey() {
+		LegendCache cache = new LegendCache(1000);
+		Style style = new Style();
+		byte[] legend = new byte[] { 1, 2, 3 };
+		cache.put(style, 20, 20, "image/png", new LegendOptions(), legend);
+		assertArrayEquals(legend, cache.get(style, 20, 20, "image/png", new LegendOptions()));
+		assertEquals(3, cache.getBytes());
+	}
+
+	@Test
+	public void testDifferentKeys() {
+		LegendCache cache = new LegendCache(1000);
+		Style style = new Style();
+		cache.put(style, 20, 20, "image/png", new LegendOptions(), new byte[10]);
+		LegendOptions opts = new LegendOptions();
+		opts.textSize = 99;
+		assertNull(cache.get(style, 20, 20, "image/png", opts));
+		assertNull(cache.get(style, 20, 21, "image/png", new LegendOptions()));
+		assertNull(cache.get(style, 20, 20, "image/gif", new LegendOptions()));
+		assertNull(cache.get(new Style(), 20, 20, "image/png", new LegendOptions()));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		LegendCache cache = new LegendCache(100);
+		Style first = new Style();
+		Style second = new Style();
+		Style third = new Style();
+		cache.put(first, 1, 1, "image/png", new LegendOptions(), new byte[25]);
+		cache.put(second, 1, 1, "image/png", new LegendOptions(), new byte[25]);
+		cache.put(third, 1, 1, "image/png", new LegendOptions(), new byte[25]);
+		assertNotNull(cache.get(first, 1, 1, "image/png", new LegendOptions()));
+		cache.put(new Style(), 1, 1, "image/png", new LegendOptions(), new byte[25]);
+		cache.put(new Style(), 1, 1, "image/png", new LegendOptions(), new byte[25]);
+		assertNull(cache.get(second, 1, 1, "image/png", new LegendOptions()));
+		assertNotNull(cache.get(first, 1, 1, "image/png", new LegendOptions()));
+		assertEquals(100, cache.getBytes());
+		assertEquals(4, cache.size());
+	}
+
+	@Test
+	public void testLargeLegendIsNotCached() {
+		LegendCache cache = new LegendCache(100);
+		Style style = new Style();
+		cache.put(style, 1, 1, "image/png", new LegendOptions(), new byte[26]);
+		assertNull(cache.get(style, 1, 1, "image/png", new LegendOptions()));
+		assertEquals(0, cache.getBytes());
+	}
+
+	@Test
+	public void testClear() {
+		LegendCache cache = new LegendCache(100);
+		Style style = new Style();
+		cache.put(style, 1, 1, "image/png", new LegendOptions(), new byte[10]);
+		cache.clear();
+		assertNull(cache.get(style, 1, 1, "image/png", new LegendOptions()));
+		assertEquals(0, cache.getBytes());
+	}
+
+}
@@ -124,7 +124,7 @@ public class WMTSController extends AbstractOWS {
 			}
 
 			try {
-				dispatcher.handleRequest(req, response, map, version);
+				dispatcher.handleRequest(req, request, response, map, version);
 			}
 			catch (OWSException e) {
 				LOG.debug("The response is an exception with the message '{}'", e.getLocalizedMessage());
@@ -44,13 +44,18 @@ import static org.deegree.commons.ows.exception.OWSException.INVALID_PARAMETER_V
 import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
 import java.util.Map;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import javax.xml.stream.XMLStreamException;
 
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.tom.ows.Version;
 import org.deegree.protocol.wmts.WMTSConstants.WMTSRequestType;
+import org.deegree.services.controller.OGCFrontController;
+import org.deegree.services.controller.utils.CapabilitiesCache;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.jaxb.metadata.DeegreeServicesMetadataType;
 import org.deegree.services.wmts.jaxb.DeegreeWMTS;
@@ -74,6 +79,8 @@ class WmtsRequestDispatcher {
 
 	private FeatureInfoHandler featureInfoHandler;
 
+	private CapabilitiesCache capabilitiesCache;
+
 	WmtsRequestDispatcher(DeegreeWMTS controllerConf, DeegreeServicesMetadataType mainMetadataConf, Workspace workspace,
 			WmtsBuilder builder, String wmtsId, ResourceLocation<?> location) {
 		featureInfoHandler = new FeatureInfoHandler(builder.getFeatureInfoFormatsConf(), location, workspace,
@@ -81,10 +88,13 @@ class WmtsRequestDispatcher {
 		capabilitiesHandler = new CapabilitiesHandler(mainMetadataConf, workspace, builder.getMetadataUrlTemplate(),
 				wmtsId, builder.getThemes(), featureInfoHandler.getManager());
 		tileHandler = new TileHandler(builder.getThemes());
+		if (controllerConf.isEnableCapabilitiesCache() != null && controllerConf.isEnableCapabilitiesCache()) {
+			capabilitiesCache = new CapabilitiesCache();
+		}
 	}
 
-	void handleRequest(WMTSRequestType req, HttpResponseBuffer response, Map<String, String> map, Version version)
-			throws OWSException, ServletException {
+	void handleRequest(WMTSRequestType req, HttpServletRequest request, HttpResponseBuffer response,
+			Map<String, String> map, Version version) throws OWSException, ServletException {
 		if (!map.get("SERVICE").equals("WMTS")) {
 			throw new OWSException("The service parameter must to be WMTS.", INVALID_PARAMETER_VALUE, "service");
 		}
@@ -96,8 +106,15 @@ class WmtsRequestDispatcher {
 		switch (req) {
 			case GetCapabilities:
 				try {
-					response.setContentType("application/xml");
-					capabilitiesHandler.handleGetCapabilities(map, response.getXMLWriter());
+					if (capabilitiesCache != null) {
+						String key = CapabilitiesCache.createKey(CapabilitiesCache.getKeyParameters(map),
+								OGCFrontController.getHttpGetURL(), OGCFrontController.getHttpPostURL());
+						capabilitiesCache.send(key, request, response,
+								capabilitiesResponse -> writeCapabilities(map, capabilitiesResponse));
+					}
+					else {
+						writeCapabilities(map, response);
+					}
 				}
 				catch (Throwable e) {
 					LOG.trace("Stack trace:", e);
@@ -122,4 +139,10 @@ class WmtsRequestDispatcher {
 		}
 	}
 
+	private void writeCapabilities(Map<String, String> map, HttpResponseBuffer response)
+			throws XMLStreamException, IOException {
+		response.setContentType("application/xml");
+		capabilitiesHandler.handleGetCapabilities(map, response.getXMLWriter());
+	}
+
 }
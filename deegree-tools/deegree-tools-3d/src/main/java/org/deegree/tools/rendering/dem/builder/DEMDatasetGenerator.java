@@ -44,6 +44,10 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.vecmath.Point2f;
 import javax.vecmath.Point3f;
 import javax.vecmath.Vector3f;
@@ -86,6 +90,12 @@ import org.deegree.tools.rendering.dem.builder.dag.DAGBuilder;
  * Initially, the domain is divided into two right triangles. These are the root fragments
  * of the multiresolution hierarchy. Smaller fragments (with more detail) are generated by
  * recursively bisecting the triangles.
+ * <p>
+ * The subtrees of the hierarchy are independent of each other, they are generated in
+ * parallel using a {@link ForkJoinPool} (see option <code>-t</code>). The patches are
+ * written to a memory mapped file at positions derived from their location codes, so the
+ * output does not depend on the number of threads.
+ * </p>
  *
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
  */
@@ -106,6 +116,8 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 
 	private static final String OPT_MAX_HEIGHT = "max_z";
 
+	private static final String OPT_THREADS = "threads";
+
 	final RasterData dataBuffer;
 
 	/** Number of points in the heixelBuffer (x-dimension). */
@@ -143,6 +155,12 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 
 	private final long fileSize;
 
+	private int threads = 1;
+
+	private final AtomicInteger patchesDone = new AtomicInteger();
+
+	private final ThreadLocal<PatchBuffers> patchBuffers = ThreadLocal.withInitial(PatchBuffers::new);
+
 	private static final int TILE_SIZE = 1000;
 
 	private static final int BYTES_PER_NORMAL_COMPONENT = 1;
@@ -341,6 +359,17 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		return bytesPerTile;
 	}
 
+	/**
+	 * @param threads number of threads used to generate the macro triangles, must be
+	 * positive
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive, but is " + threads);
+		}
+		this.threads = threads;
+	}
+
 	/**
 	 *
 	 */
@@ -421,27 +450,19 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		Point2f p2 = new Point2f(maxX, maxY);
 		Point2f p3 = new Point2f(maxX, minY);
 
-		// prepare workers
-		Worker worker1 = new Worker(this, triangleManager, "0", p0, p1, p2);
-		Worker worker2 = new Worker(this, triangleManager, "1", p3, p2, p1);
+		PatchTask upperLeft = new PatchTask(triangleManager, p0, p1, p2, getLevels(), "0");
+		PatchTask lowerRight = new PatchTask(triangleManager, p3, p2, p1, getLevels(), "1");
 
 		long sT = currentTimeMillis();
-		// start workers in different threads
-		// Thread t = new Thread( worker1, "Upper left macro triangle" );
-		worker1.run();
-		Thread.currentThread().setName("Lower right macro triangle");
-		worker2.run();
-
-		// // wait indefinitely for thread t to finish
-		// try {
-		// t.join();
-		// // Finished
-		// } catch ( InterruptedException e ) {
-		// // Thread was interrupted
-		// e.printStackTrace();
-		// }
-		// System.out.println( LogUtils.createDurationTimeString(
-		// "Creation of triangles", sT, true ) );
+		System.out.println("Generating macro triangles using " + threads + " thread(s).");
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(upperLeft, lowerRight)));
+		}
+		finally {
+			pool.shutdown();
+		}
+		System.out.println("Generated " + patchesDone.get() + " patches in " + (currentTimeMillis() - sT) + " ms.");
 
 		return triangleManager;
 	}
@@ -505,92 +526,70 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		return new Point2f(midX, midY);
 	}
 
-	private int patchesDone = 0;
+	/**
+	 * Buffers for generating a single patch, every thread uses its own instance.
+	 */
+	private class PatchBuffers {
 
-	private class Worker implements Runnable {
+		private final Point3f[] tileVertices = new Point3f[getVerticesPerFragment()];
 
-		private DEMDatasetGenerator builder;
+		private final Vector3f[] vertexNormals = new Vector3f[getVerticesPerFragment()];
 
-		private String startLocationCode;
+		private final int[][] tileTriangles = new int[getTrianglesPerFragment()][3];
 
-		private Point2f p0, p1, p2;
+		private final ByteBuffer rawTileBuffer = ByteBuffer.allocate(getBytesPerTile()).order(ByteOrder.nativeOrder());
 
-		private Point3f[] tileVertices;
+	}
 
-		private Vector3f[] vertexNormals;
+	/**
+	 * Creates the triangles of a subtree, which are in world coordinates. The subtrees of
+	 * the children are created in parallel, deeper levels are generated first (in order
+	 * to enable bottom-up bbox propagation).
+	 */
+	private class PatchTask extends RecursiveTask<MacroTriangle> {
+
+		private static final long serialVersionUID = -3046496475331329574L;
+
+		private final PatchManager triangleManager;
 
-		private int[][] tileTriangles;
+		private final Point2f p0, p1, p2;
 
-		private PatchManager triangleManager;
+		private final int level;
 
-		Worker(DEMDatasetGenerator builder, PatchManager triangleManager, String startLocationCode, Point2f p0,
-				Point2f p1, Point2f p2) {
-			this.builder = builder;
+		private final String locationCode;
+
+		PatchTask(PatchManager triangleManager, Point2f p0, Point2f p1, Point2f p2, int level, String locationCode) {
 			this.triangleManager = triangleManager;
-			this.startLocationCode = startLocationCode;
 			this.p0 = p0;
 			this.p1 = p1;
 			this.p2 = p2;
-			this.tileVertices = new Point3f[getVerticesPerFragment()];
-			this.vertexNormals = new Vector3f[getVerticesPerFragment()];
-			this.tileTriangles = new int[getTrianglesPerFragment()][3];
-		}
-
-		public void run() {
-			String tria = startLocationCode.equals("0") ? "Lower right" : "Upper left";
-			System.out
-				.println("Starting a worker at location code " + startLocationCode + " (" + tria + " macro triangle).");
-			createTriangleTree(p0, p1, p2, getLevels() - startLocationCode.length() + 1, startLocationCode);
+			this.level = level;
+			this.locationCode = locationCode;
 		}
 
-		/**
-		 * Recursive method creates the triangles from the given points, which are in
-		 * world coordinates.
-		 * @param p0
-		 * @param p1
-		 * @param p2
-		 * @param level
-		 * @param locationCode
-		 */
-		private MacroTriangle createTriangleTree(Point2f p0, Point2f p1, Point2f p2, int level, String locationCode) {
-
+		@Override
+		protected MacroTriangle compute() {
 			float error = estimateError(p0, p1, p2);
 			Point2f midPoint = calcMidPoint(p1, p2);
 			MacroTriangle triangle = null;
 			if (level > 1) {
-				// generate deeper levels first (in order to enable bottom-up
-				// bbox propagation)
-				long time = -1;
-				if (!(locationCode.substring(1)).contains("1")) {
-					time = System.currentTimeMillis();
-				}
-
-				MacroTriangle child1 = createTriangleTree(midPoint, p0, p1, level - 1, locationCode + "0");
-				MacroTriangle child2 = createTriangleTree(midPoint, p2, p0, level - 1, locationCode + "1");
-				// long time = System.currentTimeMillis();
-
-				triangle = new MacroTriangle(builder, p0, p1, p2, level, locationCode, error, child1, child2);
-				// if ( !( locationCode.substring( 1 ) ).contains( "1" ) ) {
-				// String message = Thread.currentThread().getName() +
-				// " finished creation of level: " + level + " ("
-				// + locationCode + ")";
-				// System.out.println( LogUtils.createDurationTimeString(
-				// message, time, true ) );
-				//
-				// }
-
-				patchesDone++;
+				PatchTask child1 = new PatchTask(triangleManager, midPoint, p0, p1, level - 1, locationCode + "0");
+				PatchTask child2 = new PatchTask(triangleManager, midPoint, p2, p0, level - 1, locationCode + "1");
+				invokeAll(child1, child2);
+				triangle = new MacroTriangle(DEMDatasetGenerator.this, p0, p1, p2, level, locationCode, error,
+						child1.join(), child2.join());
 			}
 			else {
 				if (level < 1) {
 					System.err.println("The level is smaller than 1, this may not be!");
 				}
-				triangle = new MacroTriangle(builder, p0, p1, p2, level, locationCode, error, null, null);
-				patchesDone++;
+				triangle = new MacroTriangle(DEMDatasetGenerator.this, p0, p1, p2, level, locationCode, error, null,
+						null);
 			}
 
-			if (patchesDone % 100 == 0) {
-				System.out.println("Patches: " + patchesDone);
+			int done = patchesDone.incrementAndGet();
+			if (done % 100 == 0) {
+				System.out.println("Patches: " + done);
 			}
 
 			try {
@@ -599,7 +598,6 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 			catch (Exception e) {
 				e.printStackTrace();
 			}
-			System.out.println(locationCode);
 			return triangle;
 		}
 
@@ -611,25 +609,23 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		}
 
 		private void storeMacroTriangle(MacroTriangle tile) throws SQLException {
-			tile.generateTileData(getTileHeight(), getRowsPerFragment(), tileVertices, vertexNormals, tileTriangles);
+			PatchBuffers buffers = patchBuffers.get();
+			Point3f[] tileVertices = buffers.tileVertices;
+			Vector3f[] vertexNormals = buffers.vertexNormals;
+			tile.generateTileData(getTileHeight(), getRowsPerFragment(), tileVertices, vertexNormals,
+					buffers.tileTriangles);
 
-			ByteBuffer rawTileBuffer = ByteBuffer.allocate(getBytesPerTile());
-			rawTileBuffer.order(ByteOrder.nativeOrder());
+			ByteBuffer rawTileBuffer = buffers.rawTileBuffer;
+			rawTileBuffer.clear();
 
 			// store number of vertices
 			rawTileBuffer.putInt(tileVertices.length);
 
 			// store vertices
-			int i = 0;
-			int pos = 0;
 			for (Point3f vertex : tileVertices) {
 				rawTileBuffer.putFloat(vertex.x);
-				pos += 4;
 				rawTileBuffer.putFloat(vertex.y);
-				pos += 4;
 				rawTileBuffer.putFloat(vertex.z);
-				pos += 4;
-				i++;
 			}
 
 			// store normals
@@ -722,6 +718,7 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		int levels = Integer.parseInt(t);
 		t = line.getOptionValue(OPT_OUTPUT_ROWS, "128");
 		int rows = Integer.parseInt(t);
+		int threads = CommandUtils.getIntOption(line, OPT_THREADS, Runtime.getRuntime().availableProcessors());
 		t = line.getOptionValue(OPT_MAX_HEIGHT);
 		float maxZ = Float.NaN;
 		if (t != null) {
@@ -737,6 +734,7 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 
 		DEMDatasetGenerator builder = new DEMDatasetGenerator((AbstractRaster) raster, rasterIOOptions, levels, rows,
 				maxZ);
+		builder.setThreads(threads);
 
 		t = line.getOptionValue(OPT_OUTPUT_DIR);
 		File outputDir = new File(t);
@@ -748,9 +746,8 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 					+ (Math.round((builder.fileSize / (1024 * 1024d)) * 100d) / 100d) + " Mb) are available.");
 			System.exit(2);
 		}
-		Blob patchesBlob = new FileBlob(new File(outputDir, MultiresolutionMesh.FRAGMENTS_FILE_NAME));
-
-		PatchManager triangleManager = new PatchManager(builder.getLevels(), patchesBlob);
+		PatchManager triangleManager = new PatchManager(builder.getLevels(),
+				new File(outputDir, MultiresolutionMesh.FRAGMENTS_FILE_NAME), builder.getBytesPerTile());
 		System.out.println(triangleManager);
 
 		// generate macro triangle blob
@@ -759,6 +756,7 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		float outputExtentX = (float) (builder.outputX * sampleSizeX);
 		float outputExtentY = (float) (builder.outputY * sampleSizeY);
 		PatchManager manager = builder.generateMacroTriangles(triangleManager, 0, 0, outputExtentX, outputExtentY);
+		manager.close();
 
 		// write mrindex blob
 		Blob mrIndexBlob = new FileBlob(new File(outputDir, MultiresolutionMesh.INDEX_FILE_NAME));
@@ -786,6 +784,10 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 		opt.setDescription("32|64|128");
 		opts.addOption(opt);
 
+		opt = new Option("t", OPT_THREADS, true,
+				"number of threads used to generate the macro triangles (default: number of processors)");
+		opts.addOption(opt);
+
 		opt = new Option("mh", OPT_MAX_HEIGHT, true, "maximum z-value, every higher value is clipped to no data value");
 		opts.addOption(opt);
 
@@ -799,7 +801,11 @@ public class DEMDatasetGenerator implements ToolboxRegistration {
 	}
 
 	public void disposeLoadedRasterData() {
-		dataBuffer.dispose();
+		// with several threads, this would drop the raster tiles the other threads are
+		// working on, the memory limit of the RasterCache applies instead
+		if (threads == 1) {
+			dataBuffer.dispose();
+		}
 	}
 
 }
\ No newline at end of file
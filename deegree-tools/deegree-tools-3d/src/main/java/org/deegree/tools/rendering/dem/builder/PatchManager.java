@@ -42,7 +42,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.sql.Blob;
 import java.sql.SQLException;
 
@@ -53,6 +57,12 @@ import org.deegree.tools.rendering.dem.builder.dag.FragmentInfo;
  * Manages the storing of {@link MacroTriangle}-based patches during the generation of an
  * {@link MultiresolutionMesh}-dataset (that is performed by the
  * {@link DEMDatasetGenerator}).
+ * <p>
+ * All patches have the same size, so the position of a patch in the target blob is
+ * derived from its location code (patches are ordered by level, and by location code
+ * within a level). The resulting file is therefore independent of the order in which the
+ * patches are stored, which allows to store patches from several threads.
+ * </p>
  *
  * @author <a href="mailto:schneider@lat-lon.de">Markus Schneider</a>
  */
@@ -62,8 +72,12 @@ public class PatchManager {
 
 	private Blob targetBlob;
 
-	// current offset in blob
-	private long currentPos = 0;
+	private RandomAccessFile targetFile;
+
+	// memory mapped regions of the target file, each holds patchesPerSegment patches
+	private MappedByteBuffer[] segments;
+
+	private int patchesPerSegment;
 
 	// contains the patch positions for all location codes
 	private FragmentInfo[] patchesByLocationCode;
@@ -81,26 +95,78 @@ public class PatchManager {
 				+ patchesByLocationCode.length + " offsets.");
 	}
 
+	/**
+	 * Creates a new {@link PatchManager} that stores the patches in a memory mapped file.
+	 * The file is created with its final size, patches may be stored concurrently.
+	 * @param levels number of levels
+	 * @param targetFile file to store the patches in, existing content is overwritten
+	 * @param bytesPerPatch number of bytes of each patch
+	 * @throws IOException if the file could not be created or mapped
+	 */
+	PatchManager(int levels, File targetFile, int bytesPerPatch) throws IOException {
+		this(levels, (Blob) null);
+		long fileSize = (long) patchesByLocationCode.length * bytesPerPatch;
+		this.targetFile = new RandomAccessFile(targetFile, "rw");
+		this.targetFile.setLength(fileSize);
+		this.patchesPerSegment = Integer.MAX_VALUE / bytesPerPatch;
+		long bytesPerSegment = (long) patchesPerSegment * bytesPerPatch;
+		int numSegments = (int) ((patchesByLocationCode.length + patchesPerSegment - 1) / patchesPerSegment);
+		this.segments = new MappedByteBuffer[numSegments];
+		FileChannel channel = this.targetFile.getChannel();
+		for (int i = 0; i < numSegments; i++) {
+			long start = i * bytesPerSegment;
+			segments[i] = channel.map(MapMode.READ_WRITE, start, Math.min(bytesPerSegment, fileSize - start));
+		}
+		System.out.println("Mapped " + fileSize + " bytes of " + targetFile + " in " + numSegments + " segment(s).");
+	}
+
 	public int getLevels() {
 		return levels;
 	}
 
-	public synchronized void storePatch(MacroTriangle patch, ByteBuffer rawTileBytes) throws SQLException {
-
-		byte[] bytes = new byte[rawTileBytes.capacity()];
-		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	/**
+	 * Stores the given patch at the position determined by its location code.
+	 * <p>
+	 * Thread-safe, as long as each location code is only stored once.
+	 * </p>
+	 * @param patch patch to store, must not be <code>null</code>
+	 * @param rawTileBytes encoded patch, the whole buffer (up to its capacity) is stored
+	 * @throws SQLException if storing in the target blob failed
+	 */
+	public void storePatch(MacroTriangle patch, ByteBuffer rawTileBytes) throws SQLException {
+		int arrayPos = getArrayPosForLocationCode(patch.getLocationCode());
+		int length = rawTileBytes.capacity();
+		FragmentInfo pos = new FragmentInfo(patch, (long) arrayPos * length, length);
 		rawTileBytes.rewind();
-		buffer.put(rawTileBytes);
-		buffer.rewind();
-
-		String locationCode = patch.getLocationCode();
-		// System.out.print("Storing macro triangle '" + locationCode
-		// + "' in blob and registering patch info...");
-		FragmentInfo pos = new FragmentInfo(patch, currentPos, rawTileBytes.capacity());
-		patchesByLocationCode[getArrayPosForLocationCode(locationCode)] = pos;
-		targetBlob.setBytes(pos.blobPosition + 1, bytes);
-		currentPos += pos.blobLength;
-		// System.out.println("done.");
+		if (segments != null) {
+			// each thread uses its own view, the regions written by different patches
+			// don't overlap
+			ByteBuffer segment = segments[arrayPos / patchesPerSegment].duplicate();
+			segment.position((arrayPos % patchesPerSegment) * length);
+			segment.put(rawTileBytes);
+		}
+		else {
+			byte[] bytes = new byte[length];
+			rawTileBytes.get(bytes);
+			synchronized (targetBlob) {
+				targetBlob.setBytes(pos.blobPosition + 1, bytes);
+			}
+		}
+		patchesByLocationCode[arrayPos] = pos;
+	}
+
+	/**
+	 * Writes all stored patches to the target file and releases it. Does nothing if the
+	 * patches are stored in a {@link Blob}.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (segments != null) {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+			targetFile.close();
+		}
 	}
 
 	private int getArrayPosForLocationCode(String locationCode) {
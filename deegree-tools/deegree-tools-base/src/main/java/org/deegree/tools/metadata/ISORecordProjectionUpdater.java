@@ -0,0 +1,122 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2026 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.metadata;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.commons.utils.ToolboxRegistration;
+import org.deegree.metadata.iso.persistence.sql.RecordProjectionUpdater;
+
+/**
+ * Computes the precomputed brief, summary and Dublin Core representations of records
+ * stored in an ISO metadata store database. Has to be run once after the columns have
+ * been added to an existing database (see <code>add_projections.sql</code>).
+ */
+@Tool(value = "Computes the brief, summary and Dublin Core representations of records stored in an ISO metadata store database.")
+public class ISORecordProjectionUpdater implements ToolboxRegistration {
+
+	private static final String OPT_DB_URL = "dburl";
+
+	private static final String OPT_DB_USER = "dbuser";
+
+	private static final String OPT_DB_PASSWORD = "dbpassword";
+
+	private static final String OPT_ALL = "all";
+
+	public static void main(String[] args) {
+		Options options = initOptions();
+
+		if (args.length == 0 || (args.length > 0 && (args[0].contains("help") || args[0].contains("?")))) {
+			printHelp(options);
+		}
+		try {
+			CommandLine line = new PosixParser().parse(options, args);
+			String url = line.getOptionValue(OPT_DB_URL);
+			String user = line.getOptionValue(OPT_DB_USER);
+			String password = line.getOptionValue(OPT_DB_PASSWORD, "");
+			try (Connection conn = DriverManager.getConnection(url, user, password)) {
+				int updated = new RecordProjectionUpdater(conn).update(line.hasOption(OPT_ALL));
+				System.out.println("Updated " + updated + " records.");
+			}
+		}
+		catch (ParseException exp) {
+			System.err.println("Could not parse command line: " + exp.getMessage());
+			printHelp(options);
+		}
+		catch (SQLException e) {
+			System.err.println("Updating the records failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static Options initOptions() {
+		Options opts = new Options();
+
+		Option opt = new Option("d", OPT_DB_URL, true, "database url, like jdbc:postgresql://localhost/dbname");
+		opt.setRequired(true);
+		opts.addOption(opt);
+
+		opt = new Option("u", OPT_DB_USER, true, "database user, like postgres");
+		opt.setRequired(true);
+		opts.addOption(opt);
+
+		opt = new Option("p", OPT_DB_PASSWORD, true, "database password, if left off, will be set as empty");
+		opt.setRequired(false);
+		opts.addOption(opt);
+
+		opt = new Option("a", OPT_ALL, false,
+				"if set, all records are updated, otherwise only records without precomputed representations");
+		opt.setRequired(false);
+		opts.addOption(opt);
+
+		CommandUtils.addDefaultOptions(opts);
+		return opts;
+	}
+
+	private static void printHelp(Options options) {
+		String help = "Computes the brief, summary and Dublin Core representations of records stored in an ISO metadata store database.";
+		CommandUtils.printHelp(options, ISORecordProjectionUpdater.class.getSimpleName(), help, null);
+	}
+
+}
@@ -0,0 +1,197 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile;
+
+import static org.deegree.commons.tools.CommandUtils.getIntOption;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.commons.utils.ArrayUtils;
+import org.deegree.commons.utils.ToolboxRegistration;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreProvider;
+import org.deegree.tile.persistence.TileStoreTransaction;
+import org.deegree.tile.persistence.seed.SeedingProgress;
+import org.deegree.tile.persistence.seed.TileSeeder;
+import org.deegree.tools.i18n.Messages;
+import org.deegree.workspace.Workspace;
+import org.deegree.workspace.standard.DefaultWorkspace;
+
+/**
+ * Seeds a tile store of a workspace, see {@link TileSeeder}.
+ */
+@Tool("Seeds a tile store with the tiles of an area, interrupted runs can be resumed")
+public class TileStoreSeeder implements ToolboxRegistration {
+
+	private static final String OPT_WORKSPACE = "workspace";
+
+	private static final String OPT_TILESTORE = "tilestore";
+
+	private static final String OPT_DATASET = "dataset";
+
+	private static final String OPT_SOURCE = "source";
+
+	private static final String OPT_BBOX = "bbox";
+
+	private static final String OPT_LEVELS = "levels";
+
+	private static final String OPT_THREADS = "threads";
+
+	private static final String OPT_RATE = "rate";
+
+	private static final String OPT_CHECKPOINT = "checkpoint";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0 || (args.length > 0 && (args[0].contains("help") || args[0].contains("?")))) {
+			printHelp(initOptions());
+			return;
+		}
+
+		try {
+			CommandLine cmdline = new PosixParser().parse(initOptions(), args);
+
+			Workspace ws = new DefaultWorkspace(new File(cmdline.getOptionValue(OPT_WORKSPACE)));
+			ws.initAll();
+
+			String dataSetId = cmdline.getOptionValue(OPT_DATASET);
+			TileStore ts = ws.getResource(TileStoreProvider.class, cmdline.getOptionValue(OPT_TILESTORE));
+			if (ts == null || ts.getTileDataSet(dataSetId) == null) {
+				System.err.println("No such tile store or tile data set.");
+				System.exit(1);
+			}
+			TileDataSet dataSet = ts.getTileDataSet(dataSetId);
+
+			TileDataSet source = dataSet;
+			TileStoreTransaction target = null;
+			if (cmdline.hasOption(OPT_SOURCE)) {
+				String[] parts = cmdline.getOptionValue(OPT_SOURCE).split("/");
+				TileStore sourceStore = ws.getResource(TileStoreProvider.class, parts[0]);
+				source = sourceStore == null ? null
+						: sourceStore.getTileDataSet(parts.length > 1 ? parts[1] : dataSetId);
+				if (source == null) {
+					System.err.println("No such source tile store or tile data set.");
+					System.exit(1);
+				}
+				target = ts.acquireTransaction(dataSetId);
+			}
+
+			TileSeeder seeder = new TileSeeder(source, target);
+			if (cmdline.hasOption(OPT_BBOX)) {
+				double[] ds = ArrayUtils.splitAsDoubles(cmdline.getOptionValue(OPT_BBOX), ",");
+				if (ds.length != 4) {
+					throw new ParseException("The value of the bbox parameter is invalid.");
+				}
+				Envelope bbox = new GeometryFactory().createEnvelope(ds[0], ds[1], ds[2], ds[3], null);
+				bbox.setCoordinateSystem(
+						dataSet.getTileMatrixSet().getSpatialMetadata().getCoordinateSystems().get(0));
+				seeder.setEnvelope(bbox);
+			}
+			if (cmdline.hasOption(OPT_LEVELS)) {
+				seeder.setLevels(Arrays.asList(cmdline.getOptionValue(OPT_LEVELS).split(",")));
+			}
+			seeder.setThreads(getIntOption(cmdline, OPT_THREADS, Runtime.getRuntime().availableProcessors()));
+			if (cmdline.hasOption(OPT_RATE)) {
+				seeder.setMaxTilesPerSecond(Double.parseDouble(cmdline.getOptionValue(OPT_RATE)));
+			}
+			if (cmdline.hasOption(OPT_CHECKPOINT)) {
+				seeder.setCheckpointFile(new File(cmdline.getOptionValue(OPT_CHECKPOINT)));
+			}
+			seeder.setListener(progress -> System.out.println("- " + progress), 10000);
+
+			// saves the checkpoint when stopped using Ctrl-C
+			Thread main = Thread.currentThread();
+			Thread hook = new Thread(() -> {
+				seeder.cancel();
+				try {
+					main.join();
+				}
+				catch (InterruptedException e) {
+					// exit anyway
+				}
+			});
+			Runtime.getRuntime().addShutdownHook(hook);
+			SeedingProgress progress = seeder.seed();
+			System.out.println(progress.getPercentage() < 100 ? "Seeding cancelled." : "Seeding finished.");
+			ws.destroy();
+		}
+		catch (ParseException exp) {
+			System.err.println(Messages.getMessage("TOOL_COMMANDLINE_ERROR", exp.getMessage()));
+		}
+	}
+
+	private static Options initOptions() {
+		Options opts = new Options();
+
+		Option opt = new Option(OPT_WORKSPACE, true, "workspace directory");
+		opt.setRequired(true);
+		opts.addOption(opt);
+
+		opt = new Option(OPT_TILESTORE, true, "id of the tile store to seed");
+		opt.setRequired(true);
+		opts.addOption(opt);
+
+		opt = new Option(OPT_DATASET, true, "id of the tile data set to seed");
+		opt.setRequired(true);
+		opts.addOption(opt);
+
+		opts.addOption(new Option(OPT_SOURCE, true,
+				"tile store (and tile data set, separated by '/') to request the tiles from, by default the tiles are requested from the seeded tile store (to fill caches)"));
+		opts.addOption(new Option(OPT_BBOX, true,
+				"area to seed as minx,miny,maxx,maxy in the CRS of the tile matrix set, default: full extent"));
+		opts.addOption(new Option(OPT_LEVELS, true, "comma separated ids of the tile matrices to seed, default: all"));
+		opts.addOption(new Option(OPT_THREADS, true, "number of worker threads, default: number of processors"));
+		opts.addOption(new Option(OPT_RATE, true, "maximum number of tiles per second, default: no limit"));
+		opts.addOption(new Option(OPT_CHECKPOINT, true, "file to save the progress to and to resume from"));
+
+		CommandUtils.addDefaultOptions(opts);
+		return opts;
+	}
+
+	private static void printHelp(Options options) {
+		CommandUtils.printHelp(options, TileStoreSeeder.class.getSimpleName(), null, null);
+	}
+
+}